@@ -0,0 +1,369 @@
+package com.compiler;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.Prefilter;
+import com.compiler.lexer.dfa.DFA;
+
+/**
+ * BatchCommand
+ * ------------
+ * The command-line batch mode of {@link Main}: matches every line of the input against a set of
+ * patterns and prints, for each line in input order, the indexes of the patterns that match.
+ *
+ * <pre>
+ * usage: java -jar compiler.jar [options] [input files...]
+ *   -p, --patterns FILE   read patterns from FILE, one per line ('#' starts a comment line)
+ *   -e, --pattern REGEX   add one pattern
+ *   -t, --threads N       worker threads (default: available processors)
+ *   -m, --mode MODE       'search' (a match anywhere in the line, default) or 'full' (whole line)
+ *   -o, --output FILE     write results to FILE instead of standard output
+ *   -q, --quiet           do not print results, only the summary
+ *       --batch N         lines per work unit (default 1024)
+ * </pre>
+ * Input is read from the files in order, or from standard input if there are none. Each output
+ * line is {@code <line number>\t<pattern indexes separated by commas, or ->}.
+ *
+ * Lines are read through a buffered reader and cut into work units that a fixed pool matches
+ * concurrently; the results are written in order through a buffered writer, with a bounded
+ * number of units in flight. A summary with records/s, MB/s and the p50/p99 latency per record
+ * is printed to standard error at the end.
+ */
+public final class BatchCommand {
+    private static final String USAGE = String.join("\n",
+        "usage: java -jar compiler.jar [options] [input files...]",
+        "  -p, --patterns FILE   read patterns from FILE, one per line ('#' starts a comment line)",
+        "  -e, --pattern REGEX   add one pattern",
+        "  -t, --threads N       worker threads (default: available processors)",
+        "  -m, --mode MODE       'search' (a match anywhere in the line, default) or 'full' (whole line)",
+        "  -o, --output FILE     write results to FILE instead of standard output",
+        "  -q, --quiet           do not print results, only the summary",
+        "      --batch N         lines per work unit (default 1024)");
+
+    private final List<String> patterns = new ArrayList<>();
+    private final List<Path> inputs = new ArrayList<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean full;
+    private Path output;
+    private boolean quiet;
+    private int batchSize = 1024;
+
+    private BatchCommand() {
+    }
+
+    /**
+     * Runs the batch mode.
+     * @param args The command-line arguments.
+     * @param in The standard input.
+     * @param out The standard output.
+     * @param err The standard error, for errors and the summary.
+     * @return The exit code: 0 on success, 2 for usage errors, 1 for other failures.
+     */
+    public static int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+        BatchCommand command = new BatchCommand();
+        try {
+            command.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            err.println(describe(e));
+            err.println(USAGE);
+            return 2;
+        }
+        if (command.patterns.isEmpty()) {
+            err.println(USAGE);
+            return 2;
+        }
+        try {
+            command.execute(in, out, err);
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            err.println("error: " + describe(e));
+            return 1;
+        }
+    }
+
+    /**
+     * Returns the message of an exception, or its class name if it has none.
+     */
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-p":
+                case "--patterns":
+                    try {
+                        for (String line : Files.readAllLines(Path.of(value(args, ++i, arg)), StandardCharsets.UTF_8))
+                            if (!line.isEmpty() && !line.startsWith("#")) this.patterns.add(line);
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("cannot read patterns: " + describe(e));
+                    }
+                    break;
+                case "-e":
+                case "--pattern":
+                    this.patterns.add(value(args, ++i, arg));
+                    break;
+                case "-t":
+                case "--threads":
+                    this.threads = positive(value(args, ++i, arg), arg);
+                    break;
+                case "-m":
+                case "--mode":
+                    String mode = value(args, ++i, arg);
+                    if (!mode.equals("search") && !mode.equals("full")) throw new IllegalArgumentException("unknown mode: " + mode);
+                    this.full = mode.equals("full");
+                    break;
+                case "-o":
+                case "--output":
+                    this.output = Path.of(value(args, ++i, arg));
+                    break;
+                case "-q":
+                case "--quiet":
+                    this.quiet = true;
+                    break;
+                case "--batch":
+                    this.batchSize = positive(value(args, ++i, arg), arg);
+                    break;
+                case "-h":
+                case "--help":
+                    throw new IllegalArgumentException("");
+                default:
+                    if (arg.startsWith("-") && arg.length() > 1) throw new IllegalArgumentException("unknown option: " + arg);
+                    this.inputs.add(Path.of(arg));
+                    break;
+            }
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("missing value for " + option);
+        return args[i];
+    }
+
+    private static int positive(String value, String option) {
+        try {
+            int n = Integer.parseInt(value);
+            if (n > 0) return n;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(option + " expects a positive number: " + value);
+    }
+
+    private void execute(InputStream in, PrintStream out, PrintStream err) throws IOException {
+        /*
+         Pseudocode:
+         1. Compile all patterns concurrently
+         2. Read lines into work units and submit them to the pool, keeping at most
+            4 units per thread in flight
+         3. Write the results of the oldest unit as soon as it completes, so output stays in order
+         4. Print the summary
+        */
+        long compileStart = System.nanoTime();
+        List<DFA> dfas;
+        try (CompilerService service = new CompilerService(this.threads)) {
+            dfas = service.compileAll(this.patterns);
+        }
+        List<Prefilter> prefilters = new ArrayList<>();
+        if (!this.full) for (DFA dfa : dfas) prefilters.add(Prefilter.of(dfa));
+        long compileNanos = System.nanoTime() - compileStart;
+
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        Histogram latencies = new Histogram();
+        long records = 0;
+        long start = System.nanoTime();
+        CountingInputStream counted = null;
+        // Standard input and output belong to the caller: a null resource is not closed
+        try (OutputStream outputFile = this.output != null ? Files.newOutputStream(this.output) : null) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputFile != null ? outputFile : out, StandardCharsets.UTF_8), 1 << 16);
+            try {
+                Deque<Future<Unit>> pending = new ArrayDeque<>();
+                List<Path> sources = this.inputs.isEmpty() ? List.of(Path.of("-")) : this.inputs;
+                for (Path source : sources) {
+                    try (InputStream inputFile = source.toString().equals("-") ? null : Files.newInputStream(source)) {
+                        counted = new CountingInputStream(inputFile != null ? inputFile : in, counted == null ? 0 : counted.count);
+                        BufferedReader reader = new BufferedReader(new InputStreamReader(counted, StandardCharsets.UTF_8), 1 << 16);
+                        List<String> lines = new ArrayList<>(this.batchSize);
+                        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                            lines.add(line);
+                            if (lines.size() == this.batchSize) {
+                                records += this.submit(pool, pending, lines, records, dfas, prefilters, writer, latencies);
+                                lines = new ArrayList<>(this.batchSize);
+                            }
+                        }
+                        records += this.submit(pool, pending, lines, records, dfas, prefilters, writer, latencies);
+                    }
+                }
+                while (!pending.isEmpty()) this.drain(pending.poll(), writer, latencies);
+            } finally {
+                pool.shutdownNow();
+                writer.flush();
+            }
+        }
+
+        long nanos = System.nanoTime() - start;
+        double seconds = Math.max(nanos, 1) / 1e9;
+        long bytes = counted == null ? 0 : counted.count;
+        err.printf("patterns: %d (compiled in %.1f ms), threads: %d, mode: %s%n",
+            this.patterns.size(), compileNanos / 1e6, this.threads, this.full ? "full" : "search");
+        err.printf("records: %d, bytes: %d, time: %.3f s%n", records, bytes, seconds);
+        err.printf("throughput: %.0f records/s, %.2f MB/s%n", records / seconds, bytes / seconds / 1e6);
+        err.printf("latency per record: p50 %.1f us, p99 %.1f us%n", latencies.percentile(0.50) / 1e3, latencies.percentile(0.99) / 1e3);
+    }
+
+    /**
+     * Submits a work unit, first writing out the oldest units if too many are in flight.
+     * @return The number of records submitted.
+     */
+    private int submit(ExecutorService pool, Deque<Future<Unit>> pending, List<String> lines, long first,
+            List<DFA> dfas, List<Prefilter> prefilters, Writer writer, Histogram latencies) throws IOException {
+        if (lines.isEmpty()) return 0;
+        while (pending.size() >= 4 * this.threads) this.drain(pending.poll(), writer, latencies);
+        pending.add(pool.submit(() -> this.match(lines, first, dfas, prefilters)));
+        return lines.size();
+    }
+
+    private void drain(Future<Unit> future, Writer writer, Histogram latencies) throws IOException {
+        Unit unit;
+        try {
+            unit = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(describe(e.getCause()), e.getCause());
+        }
+        if (!this.quiet) writer.write(unit.output.toString());
+        latencies.add(unit.latencies);
+    }
+
+    /**
+     * Matches one work unit on a worker thread.
+     */
+    private Unit match(List<String> lines, long first, List<DFA> dfas, List<Prefilter> prefilters) {
+        DfaSimulator simulator = new DfaSimulator();
+        Unit unit = new Unit();
+        for (int i = 0; i < lines.size(); i++) {
+            long start = System.nanoTime();
+            String line = lines.get(i);
+            int matched = 0;
+            unit.output.append(first + i + 1).append('\t');
+            for (int p = 0; p < dfas.size(); p++) {
+                boolean match = this.full ? simulator.simulate(dfas.get(p), line) : prefilters.get(p).find(line, 0) != null;
+                if (!match) continue;
+                if (matched++ > 0) unit.output.append(',');
+                unit.output.append(p);
+            }
+            if (matched == 0) unit.output.append('-');
+            unit.output.append('\n');
+            unit.latencies.record(System.nanoTime() - start);
+        }
+        return unit;
+    }
+
+    /**
+     * The results of one work unit.
+     */
+    private static final class Unit {
+        final StringBuilder output = new StringBuilder();
+        final Histogram latencies = new Histogram();
+    }
+
+    /**
+     * A latency histogram with log-linear buckets: 8 sub-buckets per power of two, so each
+     * percentile is accurate to about 12% in constant memory.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKETS = 8;
+        private final long[] counts = new long[64 * SUB_BUCKETS];
+        private long total;
+
+        void record(long nanos) {
+            this.counts[bucket(Math.max(nanos, 1))]++;
+            this.total++;
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < this.counts.length; i++) this.counts[i] += other.counts[i];
+            this.total += other.total;
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given fraction of the recorded values.
+         */
+        double percentile(double fraction) {
+            if (this.total == 0) return 0;
+            long rank = (long) Math.ceil(fraction * this.total);
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= Math.max(rank, 1)) return upperBound(i);
+            }
+            return upperBound(this.counts.length - 1);
+        }
+
+        private static int bucket(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent < 3) return (int) value;
+            int sub = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+            return exponent * SUB_BUCKETS + sub;
+        }
+
+        private static double upperBound(int bucket) {
+            int exponent = bucket / SUB_BUCKETS;
+            if (exponent < 3) return bucket + 1;
+            int sub = bucket % SUB_BUCKETS;
+            return (double) ((SUB_BUCKETS + sub + 1L) << (exponent - 3));
+        }
+    }
+
+    /**
+     * Counts the bytes read, continuing from a previous count.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in, long count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) this.count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) this.count += n;
+            return n;
+        }
+    }
+}
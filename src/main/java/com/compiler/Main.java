@@ -1,11 +1,16 @@
 package com.compiler;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.Map;
 import java.util.Set;
 
+import com.compiler.lexer.AutomatonExporter;
 import com.compiler.lexer.DfaMinimizer;
 import com.compiler.lexer.DfaSimulator;
 import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.charclass.CharRange;
 import com.compiler.lexer.dfa.DFA;
 import com.compiler.lexer.dfa.DfaState;
 import com.compiler.lexer.nfa.NFA;
@@ -24,16 +29,23 @@ public class Main {
     public Main() {}
 
     /**
-     * Entry point for the automaton demo.
-     * Steps:
+     * Entry point. With arguments, runs the command-line batch mode (see {@link BatchCommand});
+     * without arguments, runs the automaton demo.
+     * Demo steps:
      * 1. Parse regex to NFA
      * 2. Convert NFA to DFA
      * 3. Minimize DFA
      * 4. Simulate DFA with test strings
      *
-     * @param args Command-line arguments (not used)
+     * @param args Command-line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            int status = BatchCommand.run(args, System.in, System.out, System.err);
+            if (status != 0) System.exit(status);
+            return;
+        }
+
         // --- CONFIGURATION ---
         String regex = "a(b|c)*";
         Set<Character> alphabet = Set.of('a', 'b', 'c');
@@ -44,7 +56,6 @@ public class Main {
         // --- STEP 1: Regex -> NFA ---
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
 
         // --- STEP 2: NFA -> DFA ---
         DFA dfa = NfaToDfaConverter.convertNfaToDfa(nfa, alphabet);
@@ -68,27 +79,27 @@ public class Main {
 
     /**
      * Prints a textual representation of the DFA structure for debugging purposes.
-     * States and transitions are shown in a readable format.
+     * States and transitions are shown in a readable format. Output is written as it is produced;
+     * use {@link AutomatonExporter} for DOT or JSON and for limits on large automata.
      *
      * @param dfa The DFA to visualize.
      */
     public static void visualizeDfa(DFA dfa) {
-        System.out.println("Start State: D" + dfa.startState.id);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        out.println("Start State: D" + dfa.startState.id);
         for (DfaState state : dfa.allStates) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("State D").append(state.id);
-            if (state.isFinal) {
-                sb.append(" (Final)");
+            out.print("State D" + state.id);
+            if (state.isFinal()) {
+                out.print(" (Final)");
+            }
+            out.print(":");
+            // Transitions are kept sorted by range
+            for (Map.Entry<CharRange, DfaState> entry : state.transitions.entrySet()) {
+                out.print("\n  --'" + entry.getKey() + "'--> D" + entry.getValue().id);
             }
-            sb.append(":");
-            // Sort transitions by character for consistent output
-            state.transitions.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(entry -> {
-                    sb.append("\n  --'").append(entry.getKey()).append("'--> D").append(entry.getValue().id);
-                });
-            System.out.println(sb.toString());
+            out.println();
         }
-        System.out.println("------------------------\n");
+        out.println("------------------------\n");
+        out.flush();
     }
-}
\ No newline at end of file
+}
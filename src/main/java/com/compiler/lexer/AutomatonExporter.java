@@ -0,0 +1,342 @@
+package com.compiler.lexer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.nfa.Transition;
+
+/**
+ * AutomatonExporter
+ * -----------------
+ * Writes NFAs and DFAs as GraphViz DOT or JSON, streaming every state to a {@link Writer} as soon
+ * as it is visited, so the output is never held in memory.
+ *
+ * States are visited breadth-first from the start state with an explicit queue. Parallel edges
+ * between two states are collapsed into one edge whose label is the union of their characters
+ * (for example {@code [a-cx]}); epsilon, capture and counter edges are labelled {@code ε},
+ * {@code #tag} and {@code ENTER c0} and so on. Exports can be limited in depth and in number of
+ * states: states beyond the limits that are targets of exported edges are written unexpanded
+ * (dashed in DOT, {@code "expanded": false} in JSON), so every edge has both ends.
+ *
+ * Example usage:
+ * <pre>
+ *     new AutomatonExporter(10_000, AutomatonExporter.UNLIMITED).export(dfa, AutomatonExporter.Format.DOT, System.out);
+ * </pre>
+ */
+public class AutomatonExporter {
+    /**
+     * No limit on states or depth.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * Output formats.
+     */
+    public enum Format {
+        /** GraphViz DOT. */
+        DOT,
+        /** JSON. */
+        JSON
+    }
+
+    private final int maxStates;
+    private final int maxDepth;
+
+    /**
+     * Creates an exporter without limits.
+     */
+    public AutomatonExporter() {
+        this(UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * Creates an exporter with limits.
+     * @param maxStates The largest number of states to expand.
+     * @param maxDepth The largest distance from the start state of an expanded state.
+     */
+    public AutomatonExporter(int maxStates, int maxDepth) {
+        this.maxStates = maxStates;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Writes a DFA to a stream in UTF-8. The stream is flushed but not closed.
+     * @param dfa The DFA.
+     * @param format The output format.
+     * @param out The stream.
+     * @throws IOException if writing fails.
+     */
+    public void export(DFA dfa, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.export(dfa, format, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes an NFA to a stream in UTF-8. The stream is flushed but not closed.
+     * @param nfa The NFA.
+     * @param format The output format.
+     * @param out The stream.
+     * @throws IOException if writing fails.
+     */
+    public void export(NFA nfa, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.export(nfa, format, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes a DFA.
+     * @param dfa The DFA.
+     * @param format The output format.
+     * @param out The writer.
+     * @throws IOException if writing fails.
+     */
+    public void export(DFA dfa, Format format, Writer out) throws IOException {
+        this.walk(dfa.startState, "DFA", new Graph<DfaState>() {
+            public String name(DfaState state) {
+                return "D" + state.id;
+            }
+
+            public boolean isFinal(DfaState state) {
+                return state.isFinal();
+            }
+
+            public Map<DfaState, String> edges(DfaState state) {
+                Map<DfaState, List<CharRange>> ranges = new LinkedHashMap<>();
+                for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet())
+                    ranges.computeIfAbsent(transition.getValue(), k -> new ArrayList<>()).add(transition.getKey());
+                Map<DfaState, String> labels = new LinkedHashMap<>();
+                for (Map.Entry<DfaState, List<CharRange>> edge : ranges.entrySet())
+                    labels.put(edge.getKey(), CharClass.of(edge.getValue()).toString());
+                return labels;
+            }
+        }, format, out);
+    }
+
+    /**
+     * Writes an NFA.
+     * @param nfa The NFA.
+     * @param format The output format.
+     * @param out The writer.
+     * @throws IOException if writing fails.
+     */
+    public void export(NFA nfa, Format format, Writer out) throws IOException {
+        this.walk(nfa.startState, "NFA", new Graph<State>() {
+            public String name(State state) {
+                return "q" + state.id;
+            }
+
+            public boolean isFinal(State state) {
+                return state.isFinal();
+            }
+
+            public Map<State, String> edges(State state) {
+                Map<State, CharClass> chars = new LinkedHashMap<>();
+                Map<State, List<String>> others = new LinkedHashMap<>();
+                for (Transition transition : state.transitions) {
+                    if (transition.label != null) {
+                        chars.merge(transition.toState, transition.label, CharClass::union);
+                        others.computeIfAbsent(transition.toState, k -> new ArrayList<>());
+                    } else {
+                        String label = transition.counter != null ? transition.counterOp + " c" + transition.counter.id
+                            : transition.tag >= 0 ? "#" + transition.tag : "ε";
+                        List<String> labels = others.computeIfAbsent(transition.toState, k -> new ArrayList<>());
+                        if (!labels.contains(label)) labels.add(label);
+                    }
+                }
+                Map<State, String> labels = new LinkedHashMap<>();
+                for (Map.Entry<State, List<String>> edge : others.entrySet()) {
+                    List<String> parts = new ArrayList<>();
+                    if (chars.containsKey(edge.getKey())) parts.add(chars.get(edge.getKey()).toString());
+                    parts.addAll(edge.getValue());
+                    labels.put(edge.getKey(), String.join(", ", parts));
+                }
+                return labels;
+            }
+        }, format, out);
+    }
+
+    /**
+     * Visits the states breadth-first and writes them to a sink.
+     */
+    private <S> void walk(S start, String kind, Graph<S> graph, Format format, Writer out) throws IOException {
+        /*
+         Pseudocode:
+         1. Queue the start state at depth 0
+         2. While the queue is not empty and fewer than maxStates states were expanded:
+              - Write the state and its collapsed edges
+              - Queue every target seen for the first time, one level deeper
+         3. States left in the queue, or deeper than maxDepth, are written unexpanded
+        */
+        Sink sink = format == Format.DOT ? new DotSink(out) : new JsonSink(out);
+        sink.begin(kind, graph.name(start));
+
+        Set<S> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<S> queue = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        List<S> unexpanded = new ArrayList<>();
+        seen.add(start);
+        queue.add(start);
+        depths.add(0);
+        int expanded = 0;
+        while (!queue.isEmpty()) {
+            S state = queue.poll();
+            int depth = depths.poll();
+            if (expanded == this.maxStates || depth > this.maxDepth) {
+                unexpanded.add(state);
+                continue;
+            }
+            expanded++;
+            Map<S, String> edges = graph.edges(state);
+            sink.state(graph.name(state), graph.isFinal(state), true);
+            for (Map.Entry<S, String> edge : edges.entrySet()) {
+                sink.edge(graph.name(state), graph.name(edge.getKey()), edge.getValue());
+                if (seen.add(edge.getKey())) {
+                    queue.add(edge.getKey());
+                    depths.add(depth + 1);
+                }
+            }
+            sink.endState();
+        }
+        for (S state : unexpanded) {
+            sink.state(graph.name(state), graph.isFinal(state), false);
+            sink.endState();
+        }
+        sink.end(!unexpanded.isEmpty());
+    }
+
+    /**
+     * The view of an automaton the exporter needs.
+     */
+    private interface Graph<S> {
+        String name(S state);
+
+        boolean isFinal(S state);
+
+        /**
+         * Returns the collapsed edges of a state, by target, in a stable order.
+         */
+        Map<S, String> edges(S state);
+    }
+
+    /**
+     * Receives states and edges in traversal order. Every {@code state} is followed by its edges
+     * and then {@code endState}.
+     */
+    private interface Sink {
+        void begin(String kind, String start) throws IOException;
+
+        void state(String name, boolean isFinal, boolean expanded) throws IOException;
+
+        void edge(String from, String to, String label) throws IOException;
+
+        void endState() throws IOException;
+
+        void end(boolean truncated) throws IOException;
+    }
+
+    private static final class DotSink implements Sink {
+        private final Writer out;
+
+        DotSink(Writer out) {
+            this.out = out;
+        }
+
+        public void begin(String kind, String start) throws IOException {
+            this.out.write("digraph " + kind + " {\n  rankdir=LR;\n  node [shape=circle];\n  start [shape=point];\n  start -> " + start + ";\n");
+        }
+
+        public void state(String name, boolean isFinal, boolean expanded) throws IOException {
+            if (isFinal || !expanded) {
+                this.out.write("  " + name + " [");
+                if (isFinal) this.out.write("shape=doublecircle");
+                if (isFinal && !expanded) this.out.write(", ");
+                if (!expanded) this.out.write("style=dashed");
+                this.out.write("];\n");
+            }
+        }
+
+        public void edge(String from, String to, String label) throws IOException {
+            this.out.write("  " + from + " -> " + to + " [label=\"");
+            escape(label, this.out);
+            this.out.write("\"];\n");
+        }
+
+        public void endState() {
+        }
+
+        public void end(boolean truncated) throws IOException {
+            if (truncated) this.out.write("  // truncated: dashed states were not expanded\n");
+            this.out.write("}\n");
+        }
+    }
+
+    private static final class JsonSink implements Sink {
+        private final Writer out;
+        private boolean firstState = true;
+        private boolean firstEdge;
+
+        JsonSink(Writer out) {
+            this.out = out;
+        }
+
+        public void begin(String kind, String start) throws IOException {
+            this.out.write("{\"type\": \"" + kind + "\", \"start\": \"" + start + "\", \"states\": [");
+        }
+
+        public void state(String name, boolean isFinal, boolean expanded) throws IOException {
+            this.out.write(this.firstState ? "\n" : ",\n");
+            this.firstState = false;
+            this.out.write("  {\"id\": \"" + name + "\", \"final\": " + isFinal + ", \"expanded\": " + expanded + ", \"edges\": [");
+            this.firstEdge = true;
+        }
+
+        public void edge(String from, String to, String label) throws IOException {
+            this.out.write(this.firstEdge ? "" : ", ");
+            this.firstEdge = false;
+            this.out.write("{\"to\": \"" + to + "\", \"label\": \"");
+            escape(label, this.out);
+            this.out.write("\"}");
+        }
+
+        public void endState() throws IOException {
+            this.out.write("]}");
+        }
+
+        public void end(boolean truncated) throws IOException {
+            this.out.write("\n], \"truncated\": " + truncated + "}\n");
+        }
+    }
+
+    /**
+     * Writes a label inside a DOT or JSON string literal. Labels only contain printable characters
+     * (see {@link CharRange#toString()}), so escaping quotes and backslashes is enough for both.
+     */
+    private static void escape(String label, Writer out) throws IOException {
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (c == '"' || c == '\\') out.write('\\');
+            out.write(c);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.compiler.lexer;
+
+/**
+ * Finds the next position in a text whose character belongs to a fixed set, the characters
+ * that can start a match. Implementations must be stateless so one scanner can be shared.
+ */
+interface CandidateScanner {
+    /**
+     * Returns the first position at or after {@code from} holding a candidate character.
+     * @param text The text.
+     * @param from The first position to examine.
+     * @param to The end of the region to examine (exclusive).
+     * @return The candidate position, or {@code to} if there is none.
+     */
+    int next(char[] text, int from, int to);
+}
@@ -0,0 +1,76 @@
+package com.compiler.lexer;
+
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexParser;
+
+/**
+ * CaptureMatcher
+ * --------------
+ * Extracts capture groups from a whole-input match in linear time. One-pass patterns are run by a
+ * {@link OnePassMatcher}; every other pattern falls back to the {@link PikeVM}. Both give the same
+ * slots, so the choice is invisible to callers.
+ *
+ * Example usage:
+ * <pre>
+ *     CaptureMatcher matcher = CaptureMatcher.compile("([0-9]+)-([0-9]+)");
+ *     int[] slots = matcher.match("12-345");
+ *     String second = CaptureMatcher.group("12-345", slots, 2); // "345"
+ * </pre>
+ */
+public class CaptureMatcher {
+    private final PikeVM pikeVM;
+    private final OnePassMatcher onePass;
+
+    private CaptureMatcher(PikeVM pikeVM, OnePassMatcher onePass) {
+        this.pikeVM = pikeVM;
+        this.onePass = onePass;
+    }
+
+    /**
+     * Compiles a regular expression with capture groups.
+     * @param regex The regular expression.
+     * @return The matcher.
+     */
+    public static CaptureMatcher compile(String regex) {
+        NFA nfa = RegexParser.unrolling().parse(regex);
+        return new CaptureMatcher(new PikeVM(nfa), OnePassMatcher.build(nfa));
+    }
+
+    /**
+     * Checks whether the pattern is run by the one-pass DFA.
+     * @return true if the pattern is one-pass.
+     */
+    public boolean isOnePass() {
+        return this.onePass != null;
+    }
+
+    /**
+     * Returns the number of capture groups, not counting group 0.
+     * @return The number of groups.
+     */
+    public int groupCount() {
+        return this.pikeVM.groupCount();
+    }
+
+    /**
+     * Matches the whole input and extracts the capture groups.
+     * @param input The input to match.
+     * @return The slots (see {@link PikeVM#match}), or null if the input is not accepted.
+     */
+    public int[] match(String input) {
+        return this.onePass != null ? this.onePass.match(input) : this.pikeVM.match(input);
+    }
+
+    /**
+     * Returns the text captured by a group.
+     * @param input The matched input.
+     * @param slots The slots returned by {@link #match}.
+     * @param group The group number.
+     * @return The captured text, or null if the group did not participate.
+     */
+    public static String group(String input, int[] slots, int group) {
+        int start = slots[2 * group];
+        int end = slots[2 * group + 1];
+        return start < 0 || end < 0 ? null : input.substring(start, end);
+    }
+}
@@ -0,0 +1,249 @@
+package com.compiler.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ChannelScanner
+ * --------------
+ * Tokenizes the UTF-8 text of an asynchronous channel without blocking a thread, and publishes
+ * the tokens as a {@link Flow.Publisher}.
+ *
+ * The channel is read in chunks; each chunk is decoded (a character split between two chunks is
+ * completed by the next one) and fed to a {@link StreamingLexer}, which carries the DFA state
+ * across chunk boundaries. Reading is driven by demand: the next chunk is requested from the
+ * channel only when every token already read has been delivered and the subscriber still wants
+ * more, so a slow subscriber holds back at most one chunk of tokens.
+ *
+ * A channel can only be read once, so a scanner accepts a single subscriber; later subscribers
+ * receive {@link IllegalStateException}. The channel is not closed by the scanner.
+ *
+ * Example usage:
+ * <pre>
+ *     AsynchronousFileChannel channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+ *     ChannelScanner.of(lexer, channel).subscribe(subscriber);
+ * </pre>
+ */
+public class ChannelScanner implements Flow.Publisher<TokenEvent> {
+    /**
+     * Default chunk size, in bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    /**
+     * Reads the next bytes of a source into a buffer.
+     */
+    private interface Source {
+        void read(ByteBuffer buffer, CompletionHandler<Integer, Void> handler);
+    }
+
+    private final Lexer lexer;
+    private final Source source;
+    private final int chunkSize;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private ChannelScanner(Lexer lexer, Source source, int chunkSize) {
+        if (chunkSize < 4) throw new IllegalArgumentException("Chunk size must hold a UTF-8 character: " + chunkSize);
+        this.lexer = lexer;
+        this.source = source;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates a scanner for a stream channel, such as a socket.
+     * @param lexer The lexer whose rules are used.
+     * @param channel The channel, read from its current position.
+     * @return The scanner.
+     */
+    public static ChannelScanner of(Lexer lexer, AsynchronousByteChannel channel) {
+        return of(lexer, channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a scanner for a stream channel, such as a socket.
+     * @param lexer The lexer whose rules are used.
+     * @param channel The channel, read from its current position.
+     * @param chunkSize The number of bytes read at a time.
+     * @return The scanner.
+     */
+    public static ChannelScanner of(Lexer lexer, AsynchronousByteChannel channel, int chunkSize) {
+        return new ChannelScanner(lexer, (buffer, handler) -> channel.read(buffer, null, handler), chunkSize);
+    }
+
+    /**
+     * Creates a scanner for a file channel.
+     * @param lexer The lexer whose rules are used.
+     * @param channel The channel, read from offset 0.
+     * @return The scanner.
+     */
+    public static ChannelScanner of(Lexer lexer, AsynchronousFileChannel channel) {
+        return of(lexer, channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a scanner for a file channel.
+     * @param lexer The lexer whose rules are used.
+     * @param channel The channel, read from offset 0.
+     * @param chunkSize The number of bytes read at a time.
+     * @return The scanner.
+     */
+    public static ChannelScanner of(Lexer lexer, AsynchronousFileChannel channel, int chunkSize) {
+        AtomicLong position = new AtomicLong();
+        return new ChannelScanner(lexer, (buffer, handler) -> channel.read(buffer, position.get(), null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer count, Void attachment) {
+                if (count > 0) position.addAndGet(count);
+                handler.completed(count, attachment);
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                handler.failed(exc, attachment);
+            }
+        }), chunkSize);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super TokenEvent> subscriber) {
+        if (!this.subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("ChannelScanner accepts a single subscriber"));
+            return;
+        }
+        ScanSubscription subscription = new ScanSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    /**
+     * The subscription of the single subscriber. Tokens are delivered by a drain loop that at
+     * most one thread runs at a time (the one that raised {@code wip} from zero); the others only
+     * ask it to go round again. At most one read is in flight, and the decoder and the streaming
+     * lexer are only used by its completion handler.
+     */
+    private class ScanSubscription implements Flow.Subscription, CompletionHandler<Integer, Void> {
+        private final Flow.Subscriber<? super TokenEvent> subscriber;
+        private final Queue<TokenEvent> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean reading = new AtomicBoolean();
+        private final ByteBuffer bytes;
+        private final CharBuffer chars;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final StreamingLexer stream;
+        private volatile boolean finished;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private boolean terminated;
+
+        ScanSubscription(Flow.Subscriber<? super TokenEvent> subscriber) {
+            this.subscriber = subscriber;
+            this.bytes = ByteBuffer.allocate(ChannelScanner.this.chunkSize);
+            this.chars = CharBuffer.allocate(ChannelScanner.this.chunkSize);
+            this.stream = new StreamingLexer(ChannelScanner.this.lexer);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.error = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                this.demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            this.queue.clear();
+        }
+
+        /**
+         * Delivers queued tokens while there is demand, then either terminates the subscriber or
+         * starts the next read.
+         */
+        void drain() {
+            if (this.wip.getAndIncrement() != 0) return;
+            int missed = 1;
+            do {
+                while (!this.cancelled && !this.terminated && this.demand.get() > 0) {
+                    TokenEvent event = this.queue.poll();
+                    if (event == null) break;
+                    this.demand.decrementAndGet();
+                    this.subscriber.onNext(event);
+                }
+                if (this.cancelled || this.terminated) return;
+
+                Throwable failure = this.error;
+                if (failure != null) {
+                    this.terminated = true;
+                    this.queue.clear();
+                    this.subscriber.onError(failure);
+                    return;
+                }
+                if (this.queue.isEmpty()) {
+                    if (this.finished) {
+                        this.terminated = true;
+                        this.subscriber.onComplete();
+                        return;
+                    }
+                    if (this.demand.get() > 0 && this.reading.compareAndSet(false, true))
+                        ChannelScanner.this.source.read(this.bytes, this);
+                }
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        @Override
+        public void completed(Integer count, Void attachment) {
+            try {
+                boolean endOfInput = count < 0;
+                this.bytes.flip();
+                this.chars.clear();
+                this.decoder.decode(this.bytes, this.chars, endOfInput);
+                if (endOfInput) this.decoder.flush(this.chars);
+                this.bytes.compact();
+                this.chars.flip();
+                this.stream.feed(this.chars, this.queue::add);
+                if (endOfInput) {
+                    this.stream.finish(this.queue::add);
+                    this.finished = true;
+                }
+            } catch (RuntimeException e) {
+                this.error = e;
+            }
+            this.reading.set(false);
+            this.drain();
+        }
+
+        @Override
+        public void failed(Throwable exc, Void attachment) {
+            this.error = exc;
+            this.reading.set(false);
+            this.drain();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexOptimizer;
+import com.compiler.lexer.regex.RegexParser;
+
+/**
+ * CompilerService
+ * ---------------
+ * Compiles many regular expressions concurrently on a fixed thread pool. Each pattern runs
+ * through the usual pipeline (regex → optimized regex → NFA → DFA → minimized DFA) on one worker thread; every
+ * stage gets its own {@link com.compiler.lexer.nfa.BuildContext}, so ids never race between
+ * threads and each resulting automaton is numbered densely from 0. The returned DFAs are
+ * immutable and may be shared between threads.
+ *
+ * Example usage:
+ * <pre>
+ *     try (CompilerService service = new CompilerService()) {
+ *         List&lt;DFA&gt; dfas = service.compileAll(patterns);
+ *     }
+ * </pre>
+ */
+public class CompilerService implements AutoCloseable {
+    private final ExecutorService pool;
+
+    /**
+     * Creates a service with one worker per available processor.
+     */
+    public CompilerService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a service with the given number of workers.
+     * @param threads The number of worker threads.
+     */
+    public CompilerService(int threads) {
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "regex-compiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Compiles a pattern asynchronously.
+     * @param regex The regular expression.
+     * @return A future completed with the minimized DFA, or exceptionally if the pattern is invalid.
+     */
+    public CompletableFuture<DFA> compile(String regex) {
+        return CompletableFuture.supplyAsync(() -> compileNow(regex), this.pool);
+    }
+
+    /**
+     * Compiles all patterns concurrently and waits for the results.
+     * @param regexes The regular expressions.
+     * @return The minimized DFAs, in the same order as the patterns.
+     */
+    public List<DFA> compileAll(List<String> regexes) {
+        List<CompletableFuture<DFA>> futures = new ArrayList<>();
+        for (String regex : regexes) futures.add(this.compile(regex));
+
+        List<DFA> result = new ArrayList<>();
+        for (CompletableFuture<DFA> future : futures) result.add(future.join());
+        return result;
+    }
+
+    /**
+     * Compiles a pattern on the calling thread. Bounded repetitions are always unrolled.
+     * @param regex The regular expression.
+     * @return The minimized DFA.
+     */
+    public static DFA compileNow(String regex) {
+        DFA dfa = NfaToDfaConverter.convertNfaToDfa(RegexParser.unrolling().parse(RegexOptimizer.optimize(regex).regex));
+        return DfaMinimizer.minimizeDfa(dfa);
+    }
+
+    /**
+     * Compiles a pattern asynchronously into a matcher (see {@link #compileMatcherNow}).
+     * @param regex The regular expression.
+     * @return A future completed with the matcher, or exceptionally if the pattern is invalid.
+     */
+    public CompletableFuture<HybridMatcher> compileMatcher(String regex) {
+        return CompletableFuture.supplyAsync(() -> compileMatcherNow(regex), this.pool);
+    }
+
+    /**
+     * Compiles a pattern on the calling thread into a matcher. Unlike {@link #compileNow}, large
+     * bounded repetitions are not unrolled (see {@link RegexParser#DEFAULT_STATE_LIMIT}): such a
+     * pattern is run by {@link NfaSimulator} over counters instead of exploding into a DFA.
+     * @param regex The regular expression.
+     * @return A matcher over the minimized DFA, or over the counting NFA.
+     */
+    public static HybridMatcher compileMatcherNow(String regex) {
+        NFA nfa = new RegexParser().parse(RegexOptimizer.optimize(regex).regex);
+        if (nfa.getCounterCount() > 0) return NfaToDfaConverter.convertNfaToDfa(nfa, ConstructionBudget.unlimited());
+        return new HybridMatcher(DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(nfa)), List.of(), CharClass.any(), null, 0);
+    }
+
+    /**
+     * Stops the worker threads. Pending compilations are still completed.
+     */
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+}
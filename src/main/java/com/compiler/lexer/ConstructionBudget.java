@@ -0,0 +1,117 @@
+package com.compiler.lexer;
+
+import java.time.Duration;
+
+/**
+ * ConstructionBudget
+ * ------------------
+ * Upper bounds on the cost of one subset construction: the number of DFA states, an estimate
+ * of the bytes they occupy, and the elapsed time. A construction that exceeds any of them stops
+ * and hands back a {@link HybridMatcher} instead of a complete DFA.
+ *
+ * Example usage:
+ * <pre>
+ *     ConstructionBudget budget = new ConstructionBudget(10_000, 16 &lt;&lt; 20, Duration.ofMillis(50));
+ *     HybridMatcher matcher = NfaToDfaConverter.convertNfaToDfa(nfa, budget);
+ * </pre>
+ */
+public class ConstructionBudget {
+    /**
+     * The limit that stopped a construction.
+     */
+    public enum Limit { STATES, BYTES, TIME }
+
+    /**
+     * Estimated heap cost of a DFA state, excluding its NFA set and transitions.
+     */
+    static final long STATE_BYTES = 96;
+
+    /**
+     * Estimated heap cost of one member of a DFA state's NFA set.
+     */
+    static final long NFA_MEMBER_BYTES = 40;
+
+    /**
+     * Estimated heap cost of one ranged transition.
+     */
+    static final long TRANSITION_BYTES = 64;
+
+    /**
+     * The maximum number of DFA states.
+     */
+    public final int maxStates;
+
+    /**
+     * The maximum estimated number of bytes.
+     */
+    public final long maxBytes;
+
+    /**
+     * The maximum construction time.
+     */
+    public final Duration maxTime;
+
+    /**
+     * Creates a budget.
+     * @param maxStates The maximum number of DFA states.
+     * @param maxBytes The maximum estimated number of bytes.
+     * @param maxTime The maximum construction time.
+     */
+    public ConstructionBudget(int maxStates, long maxBytes, Duration maxTime) {
+        if (maxStates < 1 || maxBytes < 1 || maxTime.isNegative())
+            throw new IllegalArgumentException("Budget limits must be positive");
+        this.maxStates = maxStates;
+        this.maxBytes = maxBytes;
+        this.maxTime = maxTime;
+    }
+
+    /**
+     * Returns a budget that never runs out.
+     * @return The unlimited budget.
+     */
+    public static ConstructionBudget unlimited() {
+        return new ConstructionBudget(Integer.MAX_VALUE, Long.MAX_VALUE, Duration.ofSeconds(Long.MAX_VALUE));
+    }
+
+    /**
+     * Tracks the spending of one construction against the budget.
+     */
+    class Meter {
+        private final long deadline;
+        private int states;
+        private long bytes;
+
+        Meter() {
+            long nanos = maxTime.compareTo(Duration.ofDays(365)) > 0 ? Long.MAX_VALUE : maxTime.toNanos();
+            long now = System.nanoTime();
+            this.deadline = nanos > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + nanos;
+        }
+
+        void chargeState(int nfaMembers) {
+            this.states++;
+            this.bytes += STATE_BYTES + NFA_MEMBER_BYTES * nfaMembers;
+        }
+
+        void chargeTransition() {
+            this.bytes += TRANSITION_BYTES;
+        }
+
+        int states() {
+            return this.states;
+        }
+
+        long bytes() {
+            return this.bytes;
+        }
+
+        /**
+         * Returns the first exceeded limit, or null while the construction is within budget.
+         */
+        Limit exceeded() {
+            if (this.states > maxStates) return Limit.STATES;
+            if (this.bytes > maxBytes) return Limit.BYTES;
+            if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) return Limit.TIME;
+            return null;
+        }
+    }
+}
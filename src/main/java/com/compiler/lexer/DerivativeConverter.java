@@ -0,0 +1,118 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.regex.RegexTerm;
+import com.compiler.lexer.regex.TermFactory;
+
+/**
+ * DerivativeConverter
+ * -------------------
+ * This class compiles a regular expression directly into a DFA using Brzozowski derivatives,
+ * without building an NFA. Each DFA state is a (hash-consed) regex term; the transition on a
+ * character c goes to the derivative of the term with respect to c, and a state is final if its
+ * term is nullable.
+ *
+ * Only one representative character is explored per derivative class, and derivatives are
+ * memoized, so the cost depends on the number of distinct terms and not on the alphabet size.
+ * The resulting {@link DFA} can be used with {@link DfaSimulator} and {@link DfaMinimizer};
+ * thanks to the similarity rules applied by {@link TermFactory} it is often minimal already.
+ *
+ * Example usage:
+ * <pre>
+ *     DFA dfa = DerivativeConverter.convertRegexToDfa("a(b|c)*");
+ * </pre>
+ */
+public class DerivativeConverter {
+    /**
+     * Default constructor for DerivativeConverter.
+     */
+    public DerivativeConverter() {
+    }
+
+    /**
+     * Converts a regular expression to a DFA using Brzozowski derivatives.
+     *
+     * @param regex The regular expression in infix notation.
+     * @return The resulting DFA.
+     */
+    public static DFA convertRegexToDfa(String regex) {
+        TermFactory factory = new TermFactory();
+        return convertTermToDfa(factory, factory.fromRegex(regex));
+    }
+
+    /**
+     * Converts a term to a DFA using Brzozowski derivatives.
+     *
+     * @param factory The factory that created the term.
+     * @param term The start term.
+     * @return The resulting DFA.
+     */
+    public static DFA convertTermToDfa(TermFactory factory, RegexTerm term) {
+        return BuildContext.build(() -> explore(factory, term));
+    }
+
+    /**
+     * Explores the derivatives of a term in the current build context.
+     */
+    private static DFA explore(TermFactory factory, RegexTerm term) {
+        /*
+         Pseudocode:
+         1. Create the start DFA state for the term
+         2. While there are unmarked DFA states:
+              - For each derivative class of the state's term:
+                  - Take the derivative with respect to the class representative
+                  - Skip it if it is ∅ (no transition)
+                  - If the derivative is a new term, create a DFA state and add it to the queue
+                  - Add a transition on the whole class
+         3. Mark states of nullable terms as final
+        */
+        Map<RegexTerm, DfaState> states = new IdentityHashMap<>();
+        Map<DfaState, RegexTerm> terms = new IdentityHashMap<>();
+        List<DfaState> allStates = new ArrayList<>();
+        Queue<DfaState> unmarked = new LinkedList<>();
+
+        DfaState start = createState(term, states, terms, allStates);
+        unmarked.add(start);
+
+        while (!unmarked.isEmpty()) {
+            DfaState current = unmarked.poll();
+            RegexTerm currentTerm = terms.get(current);
+            for (CharRange interval : factory.derivativeClasses(currentTerm)) {
+                RegexTerm derivative = factory.derivative(currentTerm, interval.low);
+                if (derivative == factory.nothing()) continue;
+
+                DfaState next = states.get(derivative);
+                if (next == null) {
+                    next = createState(derivative, states, terms, allStates);
+                    unmarked.add(next);
+                }
+                current.addTransition(interval, next);
+            }
+        }
+        return new DFA(start, allStates);
+    }
+
+    /**
+     * Creates the DFA state for a term. Derivative states do not represent NFA states,
+     * so their NFA state set is empty.
+     */
+    private static DfaState createState(RegexTerm term, Map<RegexTerm, DfaState> states, Map<DfaState, RegexTerm> terms, List<DfaState> allStates) {
+        DfaState state = new DfaState(Collections.emptySet());
+        state.setFinal(term.nullable);
+        states.put(term, state);
+        terms.put(state, term);
+        allStates.add(state);
+        return state;
+    }
+}
@@ -0,0 +1,215 @@
+package com.compiler.lexer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.regex.RegexParser;
+
+/**
+ * DfaEquivalence
+ * --------------
+ * Language equivalence and inclusion checks between DFAs, with counterexamples.
+ *
+ * Equivalence uses the Hopcroft–Karp algorithm: the states of both DFAs (plus an implicit dead
+ * state for missing transitions) are merged in a union-find structure as pairs are visited, and a
+ * pair whose states are already in the same class is not explored again. The product is built
+ * lazily, no minimization is needed, and equivalent automata are proved equal in near-linear time.
+ * When the automata differ, a breadth-first search of the product finds a shortest string
+ * accepted by exactly one of them.
+ *
+ * Inclusion cannot merge classes, so it is a breadth-first search over the reachable pairs that
+ * stops at the first pair accepted by the smaller language only.
+ *
+ * Example usage:
+ * <pre>
+ *     String witness = DfaEquivalence.counterexample("a(b|c)*", "ab*|ac*"); // "abc"
+ * </pre>
+ */
+public class DfaEquivalence {
+    /**
+     * Default constructor for DfaEquivalence.
+     */
+    public DfaEquivalence() {
+    }
+
+    /**
+     * Checks whether two DFAs accept the same language.
+     * @param a The first DFA.
+     * @param b The second DFA.
+     * @return true if the languages are equal.
+     */
+    public static boolean equivalent(DFA a, DFA b) {
+        /*
+         Pseudocode (Hopcroft–Karp):
+         1. union(start a, start b); push the pair
+         2. While pairs remain: pop (p, q)
+              - If finality differs, the languages differ
+              - For each interval leaving p or q: let (p', q') be the targets;
+                if find(p') != find(q'), union them and push (p', q')
+         3. The languages are equal
+        */
+        Map<DfaState, DfaState> parent = new IdentityHashMap<>();
+        DfaState dead = BuildContext.build(() -> new DfaState(Collections.emptySet()));
+        ArrayDeque<DfaState[]> stack = new ArrayDeque<>();
+        union(parent, a.startState, b.startState);
+        stack.push(new DfaState[] {a.startState, b.startState});
+        while (!stack.isEmpty()) {
+            DfaState[] pair = stack.pop();
+            if (isFinal(pair[0]) != isFinal(pair[1])) return false;
+            for (CharRange interval : intervals(pair[0], pair[1])) {
+                DfaState p = Objects.requireNonNullElse(step(pair[0], interval.low), dead);
+                DfaState q = Objects.requireNonNullElse(step(pair[1], interval.low), dead);
+                if (find(parent, p) != find(parent, q)) {
+                    union(parent, p, q);
+                    stack.push(new DfaState[] {p, q});
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds a shortest string accepted by exactly one of two DFAs.
+     * @param a The first DFA.
+     * @param b The second DFA.
+     * @return The counterexample, or null if the DFAs are equivalent.
+     */
+    public static String counterexample(DFA a, DFA b) {
+        if (equivalent(a, b)) return null;
+        return search(a, b, false);
+    }
+
+    /**
+     * Finds a shortest string accepted by the first DFA but not by the second.
+     * @param a The DFA of the language expected to be included.
+     * @param b The DFA of the including language.
+     * @return The counterexample, or null if L(a) is a subset of L(b).
+     */
+    public static String inclusionCounterexample(DFA a, DFA b) {
+        return search(a, b, true);
+    }
+
+    /**
+     * Checks whether every string accepted by the first DFA is accepted by the second.
+     * @param a The DFA of the language expected to be included.
+     * @param b The DFA of the including language.
+     * @return true if L(a) is a subset of L(b).
+     */
+    public static boolean isSubset(DFA a, DFA b) {
+        return inclusionCounterexample(a, b) == null;
+    }
+
+    /**
+     * Finds a shortest string accepted by exactly one of two regular expressions.
+     * @param a The first regular expression.
+     * @param b The second regular expression.
+     * @return The counterexample, or null if the expressions are equivalent.
+     */
+    public static String counterexample(String a, String b) {
+        return counterexample(compile(a), compile(b));
+    }
+
+    /**
+     * Finds a shortest string matched by the first regular expression but not by the second.
+     * @param a The regular expression expected to be included.
+     * @param b The including regular expression.
+     * @return The counterexample, or null if L(a) is a subset of L(b).
+     */
+    public static String inclusionCounterexample(String a, String b) {
+        return inclusionCounterexample(compile(a), compile(b));
+    }
+
+    private static DFA compile(String regex) {
+        return NfaToDfaConverter.convertNfaToDfa(RegexParser.unrolling().parse(regex));
+    }
+
+    /**
+     * Breadth-first search over reachable pairs, keeping the predecessor of each pair so the
+     * first mismatching pair yields a shortest string.
+     */
+    private static String search(DFA a, DFA b, boolean inclusion) {
+        Map<DfaState, Map<DfaState, Integer>> visited = new IdentityHashMap<>();
+        List<DfaState[]> pairs = new ArrayList<>();
+        List<Integer> previous = new ArrayList<>();
+        List<Character> symbols = new ArrayList<>();
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        pairs.add(new DfaState[] {a.startState, b.startState});
+        previous.add(-1);
+        symbols.add(null);
+        visited.computeIfAbsent(a.startState, k -> new IdentityHashMap<>()).put(b.startState, 0);
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            DfaState[] pair = pairs.get(index);
+            boolean differs = inclusion
+                ? isFinal(pair[0]) && !isFinal(pair[1])
+                : isFinal(pair[0]) != isFinal(pair[1]);
+            if (differs) return path(index, previous, symbols);
+            if (inclusion && pair[0] == null) continue;
+
+            for (CharRange interval : intervals(pair[0], pair[1])) {
+                DfaState p = step(pair[0], interval.low);
+                DfaState q = step(pair[1], interval.low);
+                Map<DfaState, Integer> row = visited.computeIfAbsent(p, k -> new IdentityHashMap<>());
+                if (row.containsKey(q)) continue;
+                row.put(q, pairs.size());
+                queue.add(pairs.size());
+                pairs.add(new DfaState[] {p, q});
+                previous.add(index);
+                symbols.add(interval.low);
+            }
+        }
+        return null;
+    }
+
+    private static String path(int index, List<Integer> previous, List<Character> symbols) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = index; previous.get(i) >= 0; i = previous.get(i)) sb.append(symbols.get(i));
+        return sb.reverse().toString();
+    }
+
+    /**
+     * Splits the ranges leaving two (possibly dead) states into disjoint intervals.
+     */
+    private static List<CharRange> intervals(DfaState p, DfaState q) {
+        List<CharRange> ranges = new ArrayList<>();
+        if (p != null) ranges.addAll(p.transitions.keySet());
+        if (q != null) ranges.addAll(q.transitions.keySet());
+        return CharRange.split(ranges);
+    }
+
+    private static DfaState step(DfaState state, char c) {
+        return state == null ? null : state.getTransition(c);
+    }
+
+    private static boolean isFinal(DfaState state) {
+        return state != null && state.isFinal();
+    }
+
+    private static DfaState find(Map<DfaState, DfaState> parent, DfaState state) {
+        DfaState root = state;
+        for (DfaState next = parent.get(root); next != null; next = parent.get(root)) root = next;
+        for (DfaState next = parent.get(state); next != null; next = parent.get(state)) { // path compression
+            parent.put(state, root);
+            state = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<DfaState, DfaState> parent, DfaState a, DfaState b) {
+        DfaState rootA = find(parent, a);
+        DfaState rootB = find(parent, b);
+        if (rootA != rootB) parent.put(rootA, rootB);
+    }
+}
@@ -1,34 +1,54 @@
-
 /**
  * DfaMinimizer
  * -------------
- * This class provides an implementation of DFA minimization using the table-filling algorithm.
- * It identifies and merges equivalent states in a deterministic finite automaton (DFA),
+ * This class provides an implementation of DFA minimization using Hopcroft's partition refinement
+ * algorithm. It identifies and merges equivalent states in a deterministic finite automaton (DFA),
  * resulting in a minimized DFA with the smallest number of states that recognizes the same language.
  *
  * Main steps:
- *   1. Initialization: Mark pairs of states as distinguishable if one is final and the other is not.
- *   2. Iterative marking: Mark pairs as distinguishable if their transitions lead to distinguishable states,
- *      or if only one state has a transition for a given symbol.
+ *   1. Initialization: Partition the states into final and non-final states, and final states further
+ *      by their accept set (see {@link DfaState#getAcceptSet()}) when the DFA tracks several patterns.
+ *      Missing transitions go to an implicit sink in a block of its own, so a state with a transition
+ *      is never merged with one without it.
+ *   2. Refinement: Split blocks by the predecessors of a splitter block on each symbol, queueing only
+ *      the smaller half of a split block, until no block can be split.
  *   3. Partitioning: Group equivalent states and build the minimized DFA.
  *
- * Helper methods are provided for partitioning, union-find operations, and pair representation.
+ * Refinement takes O(k n log n) time for n states and k symbols, against the O(n^3) worst case of
+ * table filling on long chains of states.
+ *
+ * Since transitions are labelled with character ranges, the "symbols" are the disjoint elementary
+ * intervals of all ranges used by the DFA; each interval is tested through its lowest character.
  */
 package com.compiler.lexer;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
 import com.compiler.lexer.dfa.DFA;
 import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.State;
 
 
 /**
- * Implements DFA minimization using the table-filling algorithm.
+ * Implements DFA minimization using Hopcroft's algorithm.
  */
 /**
- * Utility class for minimizing DFAs using the table-filling algorithm.
+ * Utility class for minimizing DFAs using Hopcroft's algorithm.
  */
 public class DfaMinimizer {
     /**
@@ -39,122 +59,299 @@ public class DfaMinimizer {
         }
 
     /**
-     * Minimizes a given DFA using the table-filling algorithm.
+     * Minimizes a given DFA using Hopcroft's algorithm.
      *
      * @param originalDfa The original DFA to be minimized.
      * @param alphabet The set of input symbols.
      * @return A minimized DFA equivalent to the original.
      */
     public static DFA minimizeDfa(DFA originalDfa, Set<Character> alphabet) {
-    // TODO: Implement minimizeDfa
-    /*
-     Pseudocode:
-     1. Collect and sort all DFA states
-     2. Initialize table of state pairs; mark pairs as distinguishable if one is final and the other is not
-     3. Iteratively mark pairs as distinguishable if their transitions lead to distinguishable states or only one has a transition
-     4. Partition states into equivalence classes (using union-find)
-     5. Create new minimized states for each partition
-     6. Reconstruct transitions for minimized states
-     7. Set start state and return minimized DFA
-    */
-    throw new UnsupportedOperationException("Not implemented");
+        return minimizeDfa(originalDfa, CharClass.of(alphabet));
     }
 
     /**
-     * Groups equivalent states into partitions using union-find.
+     * Minimizes a given DFA over every character used by its transitions.
      *
-     * @param allStates List of all DFA states.
-     * @param table Table indicating which pairs are distinguishable.
-     * @return List of partitions, each containing equivalent states.
+     * @param originalDfa The original DFA to be minimized.
+     * @return A minimized DFA equivalent to the original.
      */
-    private static List<Set<DfaState>> createPartitions(List<DfaState> allStates, Map<Pair, Boolean> table) {
-    // TODO: Implement createPartitions
-    /*
-     Pseudocode:
-     1. Initialize each state as its own parent
-     2. For each pair not marked as distinguishable, union the states
-     3. Group states by their root parent
-     4. Return list of partitions
-    */
-    throw new UnsupportedOperationException("Not implemented");
+    public static DFA minimizeDfa(DFA originalDfa) {
+        return minimizeDfa(originalDfa, CharClass.any());
     }
 
     /**
-     * Finds the root parent of a state in the union-find structure.
-     * Implements path compression for efficiency.
+     * Minimizes a given DFA using Hopcroft's algorithm, considering only
+     * the characters of the given alphabet.
      *
-     * @param parent Parent map.
-     * @param state State to find.
-     * @return Root parent of the state.
+     * @param originalDfa The original DFA to be minimized.
+     * @param alphabet The input alphabet as a character class.
+     * @return A minimized DFA equivalent to the original.
+     */
+    public static DFA minimizeDfa(DFA originalDfa, CharClass alphabet) {
+        return BuildContext.build(() -> hopcroft(originalDfa, alphabet));
+    }
+
+    /**
+     * Runs Hopcroft's algorithm in the current build context.
      */
-    private static DfaState find(Map<DfaState, DfaState> parent, DfaState state) {
-    // TODO: Implement find
+    private static DFA hopcroft(DFA originalDfa, CharClass alphabet) {
     /*
      Pseudocode:
-     If parent[state] == state, return state
-     Else, recursively find parent and apply path compression
-     Return parent[state]
+     1. Collect and sort all DFA states; add a sink for missing transitions
+     2. Start from the partition {final, by accept set}, {non-final}, {sink}; every block is a splitter
+     3. While there are splitters A: for each symbol, split every block into the states that
+        move into A and the others; a split block is replaced in the worklist by both halves,
+        or, if it was not pending, only the smaller half is added
+     4. Create new minimized states for each block (except the sink's)
+     5. Reconstruct transitions for minimized states
+     6. Set start state and return minimized DFA
     */
-    throw new UnsupportedOperationException("Not implemented");
+        List<DfaState> allStates = new ArrayList<>(originalDfa.allStates);
+        allStates.sort(Comparator.comparingInt(s -> s.id));
+        char[] symbols = symbols(allStates, alphabet);
+        int n = allStates.size();
+        int sink = n;
+
+        Map<DfaState, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < n; i++) index.put(allStates.get(i), i);
+        int[][] predecessors = predecessors(allStates, index, symbols, sink);
+
+        Partition refinement = new Partition(n + 1);
+        refinement.initialize(initialClasses(allStates), sink);
+
+        int[] splitter = new int[n + 1];
+        while (!refinement.worklist.isEmpty()) {
+            int a = refinement.worklist.pop();
+            refinement.pending[a] = false;
+            int size = refinement.copy(a, splitter);
+            for (int j = 0; j < symbols.length; j++) {
+                int[] first = predecessors[2 * j];
+                int[] sources = predecessors[2 * j + 1];
+                for (int k = 0; k < size; k++) {
+                    int target = splitter[k];
+                    for (int e = first[target]; e < first[target + 1]; e++) refinement.mark(sources[e]);
+                }
+                refinement.splitMarked();
+            }
+        }
+
+        List<Set<DfaState>> partitions = createPartitions(allStates, refinement, sink);
+        Map<DfaState, DfaState> representative = new IdentityHashMap<>();
+        List<DfaState> minimizedStates = new ArrayList<>();
+        for (Set<DfaState> partition : partitions) {
+            Set<State> nfaStates = new HashSet<>();
+            boolean isFinal = false;
+            for (DfaState state : partition) {
+                nfaStates.addAll(state.nfaStates);
+                isFinal |= state.isFinal();
+            }
+            DfaState merged = new DfaState(nfaStates);
+            merged.setFinal(isFinal);
+            merged.setAcceptSet(partition.iterator().next().getAcceptSet());
+            minimizedStates.add(merged);
+            for (DfaState state : partition) representative.put(state, merged);
+        }
+
+        for (Set<DfaState> partition : partitions) {
+            DfaState source = partition.iterator().next();
+            DfaState merged = representative.get(source);
+            for (Map.Entry<CharRange, DfaState> transition : source.transitions.entrySet())
+                merged.addTransition(transition.getKey(), representative.get(transition.getValue()));
+        }
+
+        return new DFA(representative.get(originalDfa.startState), minimizedStates);
     }
 
     /**
-     * Unites two states in the union-find structure.
+     * Numbers the initial blocks: states are equivalent only if they agree on finality and
+     * accept set.
      *
-     * @param parent Parent map.
-     * @param s1 First state.
-     * @param s2 Second state.
+     * @param allStates List of all DFA states, sorted by id.
+     * @return The initial block of each state.
      */
-    private static void union(Map<DfaState, DfaState> parent, DfaState s1, DfaState s2) {
-    // TODO: Implement union
-    /*
-     Pseudocode:
-     Find roots of s1 and s2
-     If roots are different, set parent of one to the other
-    */
-    throw new UnsupportedOperationException("Not implemented");
+    private static int[] initialClasses(List<DfaState> allStates) {
+        Map<List<Object>, Integer> classes = new HashMap<>();
+        int[] result = new int[allStates.size()];
+        for (int i = 0; i < result.length; i++) {
+            DfaState state = allStates.get(i);
+            List<Object> key = Arrays.asList(state.isFinal(), state.getAcceptSet());
+            Integer block = classes.get(key);
+            if (block == null) {
+                block = classes.size();
+                classes.put(key, block);
+            }
+            result[i] = block;
+        }
+        return result;
+    }
+
+    /**
+     * Computes one representative character for each disjoint elementary
+     * interval of the ranges used by the DFA, restricted to the alphabet.
+     *
+     * @param allStates List of all DFA states.
+     * @param alphabet The allowed characters.
+     * @return The representative characters.
+     */
+    private static char[] symbols(List<DfaState> allStates, CharClass alphabet) {
+        Set<CharRange> ranges = new HashSet<>();
+        for (DfaState state : allStates) ranges.addAll(state.transitions.keySet());
+
+        List<CharRange> restricted = new ArrayList<>();
+        for (CharRange range : ranges)
+            restricted.addAll(CharClass.of(List.of(range)).intersect(alphabet).getRanges());
+
+        List<CharRange> intervals = CharRange.split(restricted);
+        char[] symbols = new char[intervals.size()];
+        for (int i = 0; i < symbols.length; i++) symbols[i] = intervals.get(i).low;
+        return symbols;
+    }
+
+    /**
+     * Builds, for every symbol, the predecessor lists of all states (sink included) in
+     * compressed form: the sources of transitions into {@code t} on symbol {@code j} are
+     * {@code result[2j+1][result[2j][t] .. result[2j][t+1])}.
+     */
+    private static int[][] predecessors(List<DfaState> allStates, Map<DfaState, Integer> index, char[] symbols, int sink) {
+        int n = allStates.size() + 1;
+        int[][] result = new int[2 * symbols.length][];
+        int[] targets = new int[n];
+        for (int j = 0; j < symbols.length; j++) {
+            for (int i = 0; i < n - 1; i++) {
+                DfaState next = allStates.get(i).getTransition(symbols[j]);
+                targets[i] = next == null ? sink : index.get(next);
+            }
+            targets[sink] = sink;
+            int[] first = new int[n + 1];
+            for (int i = 0; i < n; i++) first[targets[i] + 1]++;
+            for (int t = 0; t < n; t++) first[t + 1] += first[t];
+            int[] fill = Arrays.copyOf(first, n);
+            int[] sources = new int[n];
+            for (int i = 0; i < n; i++) sources[fill[targets[i]]++] = i;
+            result[2 * j] = first;
+            result[2 * j + 1] = sources;
+        }
+        return result;
+    }
+
+    /**
+     * Groups the states of each block into a partition, ordered by their lowest-id member.
+     *
+     * @param allStates List of all DFA states, sorted by id.
+     * @param partition The refined partition.
+     * @param sink The index of the sink, which is left out.
+     * @return List of partitions, each containing equivalent states.
+     */
+    private static List<Set<DfaState>> createPartitions(List<DfaState> allStates, Partition partition, int sink) {
+        Map<Integer, Set<DfaState>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < allStates.size(); i++) {
+            int block = partition.blockOf[i];
+            if (block == partition.blockOf[sink]) continue;
+            groups.computeIfAbsent(block, k -> new LinkedHashSet<>()).add(allStates.get(i));
+        }
+        return new ArrayList<>(groups.values());
     }
 
     /**
-     * Helper class to represent a pair of DFA states in canonical order.
-     * Used for table indexing and comparison.
+     * A partition of the states {@code 0..n-1} into blocks, stored as one array in which every
+     * block is a contiguous range. Marked states of a block are kept at the front of its range,
+     * so a block is split in time proportional to the number of marked states.
      */
-    private static class Pair {
-        final DfaState s1;
-        final DfaState s2;
+    private static class Partition {
+        final int[] elements;
+        final int[] position;
+        final int[] blockOf;
+        final int[] blockStart;
+        final int[] blockEnd;
+        final int[] marked;
+        final boolean[] pending;
+        final Deque<Integer> worklist = new ArrayDeque<>();
+        final List<Integer> touched = new ArrayList<>();
+        int blocks;
+
+        Partition(int n) {
+            this.elements = new int[n];
+            this.position = new int[n];
+            this.blockOf = new int[n];
+            this.blockStart = new int[n];
+            this.blockEnd = new int[n];
+            this.marked = new int[n];
+            this.pending = new boolean[n];
+        }
+
+        /**
+         * Creates one block per initial class and one for the sink, and queues them all.
+         */
+        void initialize(int[] classes, int sink) {
+            int count = 0;
+            for (int c : classes) count = Math.max(count, c + 1);
+            int[] sizes = new int[count + 1];
+            for (int c : classes) sizes[c]++;
+            sizes[count] = 1;
+
+            int[] fill = new int[count + 1];
+            for (int c = 0, start = 0; c <= count; start += sizes[c++]) {
+                fill[c] = start;
+                this.blockStart[c] = start;
+                this.blockEnd[c] = start + sizes[c];
+                this.pending[c] = true;
+                this.worklist.push(c);
+            }
+            this.blocks = count + 1;
+            for (int i = 0; i < this.elements.length; i++) {
+                int c = i == sink ? count : classes[i];
+                this.elements[fill[c]] = i;
+                this.position[i] = fill[c]++;
+                this.blockOf[i] = c;
+            }
+        }
 
         /**
-         * Constructs a pair in canonical order (lowest id first).
-         * @param s1 First state.
-         * @param s2 Second state.
+         * Copies the members of a block into {@code out}.
          */
-        public Pair(DfaState s1, DfaState s2) {
-            // TODO: Implement Pair constructor
-            /*
-             Pseudocode:
-             Assign s1 and s2 so that s1.id <= s2.id
-            */
-            throw new UnsupportedOperationException("Not implemented");
+        int copy(int block, int[] out) {
+            int size = this.blockEnd[block] - this.blockStart[block];
+            System.arraycopy(this.elements, this.blockStart[block], out, 0, size);
+            return size;
         }
 
-        @Override
-        public boolean equals(Object o) {
-            // TODO: Implement equals
-            /*
-             Pseudocode:
-             Return true if both s1 and s2 ids match
-            */
-            throw new UnsupportedOperationException("Not implemented");
+        /**
+         * Moves a state into the marked front of its block.
+         */
+        void mark(int state) {
+            int block = this.blockOf[state];
+            int front = this.blockStart[block] + this.marked[block];
+            if (this.position[state] < front) return;
+            if (this.marked[block] == 0) this.touched.add(block);
+            int other = this.elements[front];
+            this.elements[this.position[state]] = other;
+            this.position[other] = this.position[state];
+            this.elements[front] = state;
+            this.position[state] = front;
+            this.marked[block]++;
         }
 
-        @Override
-        public int hashCode() {
-            // TODO: Implement hashCode
-            /*
-             Pseudocode:
-             Return hash of s1.id and s2.id
-            */
-            throw new UnsupportedOperationException("Not implemented");
+        /**
+         * Splits every block with marked states into its marked and unmarked parts.
+         */
+        void splitMarked() {
+            for (int block : this.touched) {
+                int count = this.marked[block];
+                this.marked[block] = 0;
+                if (count == this.blockEnd[block] - this.blockStart[block]) continue;
+
+                int created = this.blocks++;
+                this.blockStart[created] = this.blockStart[block];
+                this.blockEnd[created] = this.blockStart[block] + count;
+                this.blockStart[block] += count;
+                for (int p = this.blockStart[created]; p < this.blockEnd[created]; p++)
+                    this.blockOf[this.elements[p]] = created;
+
+                int smaller = this.pending[block] || count <= this.blockEnd[block] - this.blockStart[block] ? created : block;
+                this.pending[smaller] = true;
+                this.worklist.push(smaller);
+            }
+            this.touched.clear();
         }
     }
 }
@@ -0,0 +1,205 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+
+/**
+ * DfaProduct
+ * ----------
+ * Boolean operations on DFAs through the product construction. A state of the product is a pair
+ * of states, one from each operand, where a missing transition leads to an implicit dead state.
+ * Pairs are built on the fly from the start pair, so only reachable pairs are ever created, and
+ * pairs that can no longer accept (for an intersection, any pair with a dead side) are never
+ * created at all. The product is minimized with {@link DfaMinimizer} before it is returned.
+ *
+ * These operations back the {@code &} and {@code ~} operators of {@link com.compiler.lexer.regex.RegexParser},
+ * so a compound policy such as "matches A, not B, and C" ({@code (A)&~(B)&(C)}) becomes one
+ * automaton that answers in a single pass.
+ *
+ * Example usage:
+ * <pre>
+ *     DFA allowed = DfaProduct.difference(identifiers, keywords);
+ * </pre>
+ */
+public class DfaProduct {
+    /**
+     * How the finality of a pair follows from the finality of its sides.
+     */
+    public enum Operation {
+        UNION, INTERSECTION, DIFFERENCE;
+
+        boolean accepts(boolean a, boolean b) {
+            switch (this) {
+                case UNION: return a || b;
+                case INTERSECTION: return a && b;
+                default: return a && !b;
+            }
+        }
+
+        /**
+         * Checks whether a pair can still accept, knowing which of its sides are dead.
+         */
+        boolean alive(boolean aDead, boolean bDead) {
+            for (int a = 0; a < (aDead ? 1 : 2); a++)
+                for (int b = 0; b < (bDead ? 1 : 2); b++)
+                    if (this.accepts(a == 1, b == 1)) return true;
+            return false;
+        }
+    }
+
+    /**
+     * Default constructor for DfaProduct.
+     */
+    public DfaProduct() {
+    }
+
+    /**
+     * Returns a DFA for the strings accepted by both DFAs.
+     * @param a The first DFA.
+     * @param b The second DFA.
+     * @return The minimized intersection.
+     */
+    public static DFA intersection(DFA a, DFA b) {
+        return product(a, b, Operation.INTERSECTION);
+    }
+
+    /**
+     * Returns a DFA for the strings accepted by either DFA.
+     * @param a The first DFA.
+     * @param b The second DFA.
+     * @return The minimized union.
+     */
+    public static DFA union(DFA a, DFA b) {
+        return product(a, b, Operation.UNION);
+    }
+
+    /**
+     * Returns a DFA for the strings accepted by the first DFA but not by the second.
+     * @param a The first DFA.
+     * @param b The second DFA.
+     * @return The minimized difference.
+     */
+    public static DFA difference(DFA a, DFA b) {
+        return product(a, b, Operation.DIFFERENCE);
+    }
+
+    /**
+     * Returns a DFA for every string over the whole character range not accepted by the DFA.
+     * @param a The DFA.
+     * @return The minimized complement.
+     */
+    public static DFA complement(DFA a) {
+        return product(universal(), a, Operation.DIFFERENCE);
+    }
+
+    /**
+     * Builds the product of two DFAs.
+     * @param a The first DFA.
+     * @param b The second DFA.
+     * @param operation How pair finality is computed.
+     * @return The minimized product.
+     */
+    public static DFA product(DFA a, DFA b, Operation operation) {
+        return BuildContext.build(() -> DfaMinimizer.minimizeDfa(explore(a, b, operation)));
+    }
+
+    /**
+     * Explores the reachable, live pairs breadth-first.
+     */
+    private static DFA explore(DFA a, DFA b, Operation operation) {
+        /*
+         Pseudocode:
+         1. Create the start pair
+         2. While there are unexplored pairs:
+              - Split the ranges leaving both sides into disjoint intervals
+              - For each interval, find the target of each side (null if dead)
+              - Skip targets that can no longer accept; create new pairs as needed
+         3. A pair is final if the operation accepts the finality of its sides
+        */
+        Map<DfaState, Map<DfaState, DfaState>> pairs = new IdentityHashMap<>();
+        List<DfaState> states = new ArrayList<>();
+        Map<DfaState, DfaState[]> sides = new IdentityHashMap<>();
+        Queue<DfaState> queue = new LinkedList<>();
+        DfaState start = pair(a.startState, b.startState, operation, pairs, states, sides, queue);
+
+        while (!queue.isEmpty()) {
+            DfaState current = queue.poll();
+            DfaState[] side = sides.get(current);
+            List<CharRange> ranges = new ArrayList<>();
+            if (side[0] != null) ranges.addAll(side[0].transitions.keySet());
+            if (side[1] != null) ranges.addAll(side[1].transitions.keySet());
+            for (CharRange interval : CharRange.split(ranges)) {
+                DfaState nextA = side[0] == null ? null : side[0].getTransition(interval.low);
+                DfaState nextB = side[1] == null ? null : side[1].getTransition(interval.low);
+                if (!operation.alive(nextA == null, nextB == null)) continue;
+                current.addTransition(interval, pair(nextA, nextB, operation, pairs, states, sides, queue));
+            }
+        }
+        return new DFA(start, states);
+    }
+
+    /**
+     * Returns the product state for a pair, creating and enqueueing it if new.
+     */
+    private static DfaState pair(DfaState a, DfaState b, Operation operation, Map<DfaState, Map<DfaState, DfaState>> pairs,
+                                 List<DfaState> states, Map<DfaState, DfaState[]> sides, Queue<DfaState> queue) {
+        Map<DfaState, DfaState> row = pairs.computeIfAbsent(a, k -> new IdentityHashMap<>());
+        DfaState state = row.get(b);
+        if (state == null) {
+            state = new DfaState(Collections.emptySet());
+            state.setFinal(operation.accepts(a != null && a.isFinal(), b != null && b.isFinal()));
+            row.put(b, state);
+            states.add(state);
+            sides.put(state, new DfaState[] {a, b});
+            queue.add(state);
+        }
+        return state;
+    }
+
+    /**
+     * Returns the one-state DFA accepting every string.
+     */
+    private static DFA universal() {
+        return BuildContext.build(() -> {
+            DfaState state = new DfaState(Collections.emptySet());
+            state.setFinal(true);
+            state.addTransition(new CharRange(Character.MIN_VALUE, Character.MAX_VALUE), state);
+            return new DFA(state, List.of(state));
+        });
+    }
+
+    /**
+     * Converts a DFA into an NFA with a single final end state, so it can be embedded in a larger
+     * Thompson construction. Each DFA range becomes one transition; final states reach the end
+     * state by an epsilon transition.
+     * @param dfa The DFA.
+     * @return The equivalent NFA; its end state is not marked final.
+     */
+    public static NFA toNfa(DFA dfa) {
+        return BuildContext.build(() -> {
+            Map<DfaState, State> states = new IdentityHashMap<>();
+            for (DfaState state : dfa.allStates) states.put(state, new State());
+            State end = new State();
+            for (DfaState state : dfa.allStates) {
+                State from = states.get(state);
+                for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet())
+                    from.addClassTransition(CharClass.range(transition.getKey().low, transition.getKey().high), states.get(transition.getValue()));
+                if (state.isFinal()) from.addTransition(null, end);
+            }
+            return new NFA(states.get(dfa.startState), end);
+        });
+    }
+}
@@ -0,0 +1,236 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+
+/**
+ * DfaProfiler
+ * -----------
+ * Profile-guided state layout. The table formats ({@link com.compiler.lexer.dfa.OffHeapDfa},
+ * {@link com.compiler.lexer.dfa.CompressedDfa}, {@link com.compiler.lexer.dfa.ByteDfa}) number
+ * states by their position in {@link DFA#allStates}, which follows construction order, so the
+ * states a workload actually uses end up scattered over the table. The profiler runs the DFA on
+ * sample inputs, counting state visits and transitions, and builds a DFA with the same states in
+ * a hot-first order that keeps frequent transitions between neighbouring states.
+ *
+ * Training walks the input like a scanner: when the DFA stops, it restarts from the start state
+ * at the character where it stopped. Counters are sampled: one step in about {@code period}
+ * (chosen pseudo-randomly, so periodic inputs are not aliased) is recorded, which keeps training
+ * close to the cost of plain matching.
+ *
+ * The layout merges states into chains along the heaviest sampled transitions (a transition
+ * joins the tail of one chain to the head of another), then orders the chains by their hottest
+ * state; states never sampled keep their original order at the end. The order is part of the
+ * returned DFA, so building a table from it and saving that (for example with
+ * {@link com.compiler.lexer.dfa.OffHeapDfa#writeTo}) saves the layout with the automaton.
+ *
+ * Example usage:
+ * <pre>
+ *     DfaProfiler profiler = new DfaProfiler(dfa);
+ *     for (String sample : samples) profiler.train(sample);
+ *     DFA hotFirst = profiler.relayout();
+ *     OffHeapDfa.of(hotFirst).writeTo(path);
+ * </pre>
+ */
+public class DfaProfiler {
+    /**
+     * Default sampling period: about one step in 16 is recorded.
+     */
+    public static final int DEFAULT_PERIOD = 16;
+
+    private final DFA dfa;
+    private final Map<DfaState, Integer> index = new IdentityHashMap<>();
+    private final long[] visits;
+    private final Map<Long, long[]> transitions = new HashMap<>();
+    private final int period;
+    private int countdown;
+    private int random = 0x2545F491;
+    private long samples;
+
+    /**
+     * Creates a profiler with the default sampling period.
+     * @param dfa The DFA to profile.
+     */
+    public DfaProfiler(DFA dfa) {
+        this(dfa, DEFAULT_PERIOD);
+    }
+
+    /**
+     * Creates a profiler.
+     * @param dfa The DFA to profile.
+     * @param period The mean number of steps per recorded sample; 1 records every step.
+     */
+    public DfaProfiler(DFA dfa, int period) {
+        if (period < 1) throw new IllegalArgumentException("Sampling period must be positive: " + period);
+        this.dfa = dfa;
+        this.period = period;
+        for (DfaState state : dfa.allStates) this.index.put(state, this.index.size());
+        this.visits = new long[this.index.size()];
+        this.countdown = this.nextCountdown();
+    }
+
+    /**
+     * Runs the DFA over a sample input, recording sampled visits and transitions.
+     * @param input The sample input.
+     */
+    public void train(CharSequence input) {
+        DfaState currentState = this.dfa.startState;
+        for (int i = 0; i < input.length(); i++) {
+            DfaState next = currentState.getTransition(input.charAt(i));
+            if (next == null || next.getKind() == DfaState.Kind.DEAD) {
+                if (currentState == this.dfa.startState) continue;
+                // Restart on the same character, as a scanner does after a token
+                currentState = this.dfa.startState;
+                i--;
+                continue;
+            }
+            if (--this.countdown == 0) {
+                this.record(currentState, next);
+                this.countdown = this.nextCountdown();
+            }
+            currentState = next;
+        }
+    }
+
+    /**
+     * Records one sampled step.
+     */
+    private void record(DfaState from, DfaState to) {
+        int a = this.index.get(from);
+        int b = this.index.get(to);
+        this.samples++;
+        this.visits[a]++;
+        if (a != b) this.transitions.computeIfAbsent(((long) a << 32) | b, k -> new long[1])[0]++;
+    }
+
+    /**
+     * Draws the next countdown, uniform in {@code [1, 2 * period - 1]} (xorshift).
+     */
+    private int nextCountdown() {
+        if (this.period == 1) return 1;
+        this.random ^= this.random << 13;
+        this.random ^= this.random >>> 17;
+        this.random ^= this.random << 5;
+        return 1 + Integer.remainderUnsigned(this.random, 2 * this.period - 1);
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     * @return The sample count.
+     */
+    public long getSamples() {
+        return this.samples;
+    }
+
+    /**
+     * Returns the sampled number of visits to a state, that is of steps taken from it.
+     * @param state A state of the profiled DFA.
+     * @return The number of samples that left the state.
+     */
+    public long getVisits(DfaState state) {
+        return this.visits[this.index.get(state)];
+    }
+
+    /**
+     * Computes the hot-first layout.
+     * @return The states of the profiled DFA, in their new order.
+     */
+    public List<DfaState> getOrder() {
+        /*
+        Pseudocode:
+        1. Every state starts as a chain of its own
+        2. For each sampled transition a -> b, heaviest first: if a is the tail of its chain and
+           b the head of another chain, append b's chain to a's
+        3. Order the chains by their hottest state (never-sampled chains last, in original
+           order) and concatenate them
+        */
+        int n = this.visits.length;
+        // Chains are kept in a union-find forest; the root of a chain records its head and tail
+        int[] nextInChain = new int[n];
+        int[] parent = new int[n];
+        int[] head = new int[n];
+        int[] tail = new int[n];
+        Arrays.fill(nextInChain, -1);
+        for (int s = 0; s < n; s++) {
+            parent[s] = s;
+            head[s] = s;
+            tail[s] = s;
+        }
+
+        List<Map.Entry<Long, long[]>> edges = new ArrayList<>(this.transitions.entrySet());
+        edges.sort((x, y) -> x.getValue()[0] != y.getValue()[0]
+            ? Long.compare(y.getValue()[0], x.getValue()[0])
+            : Long.compare(x.getKey(), y.getKey()));
+        for (Map.Entry<Long, long[]> edge : edges) {
+            int a = (int) (edge.getKey() >>> 32);
+            int b = (int) (long) edge.getKey();
+            int chainA = find(parent, a);
+            int chainB = find(parent, b);
+            if (chainA == chainB || tail[chainA] != a || head[chainB] != b) continue;
+            nextInChain[a] = b;
+            parent[chainB] = chainA;
+            tail[chainA] = tail[chainB];
+        }
+
+        long[] heat = new long[n];
+        List<Integer> chains = new ArrayList<>();
+        for (int s = 0; s < n; s++) {
+            int chain = find(parent, s);
+            if (chain == s) chains.add(s);
+            heat[chain] = Math.max(heat[chain], this.visits[s]);
+        }
+        chains.sort((x, y) -> heat[x] != heat[y] ? Long.compare(heat[y], heat[x]) : Integer.compare(head[x], head[y]));
+
+        List<DfaState> order = new ArrayList<>(n);
+        for (int chain : chains)
+            for (int s = head[chain]; s >= 0; s = nextInChain[s]) order.add(this.dfa.allStates.get(s));
+        return order;
+    }
+
+    /**
+     * Finds the root of a chain, halving the path on the way.
+     */
+    private static int find(int[] parent, int s) {
+        while (parent[s] != s) {
+            parent[s] = parent[parent[s]];
+            s = parent[s];
+        }
+        return s;
+    }
+
+    /**
+     * Builds the profiled DFA with its states in the hot-first order. The states themselves are
+     * shared with the profiled DFA.
+     * @return The relaid-out DFA.
+     */
+    public DFA relayout() {
+        return new DFA(this.dfa.startState, this.getOrder());
+    }
+
+    /**
+     * Measures the locality of a layout on the sampled transitions: the mean distance, in
+     * positions of {@code allStates}, between the two states of a step.
+     * @param layout The profiled DFA or a relayout of it.
+     * @return The mean distance per sampled transition, or 0 if nothing was sampled.
+     */
+    public double meanJump(DFA layout) {
+        Map<DfaState, Integer> position = new IdentityHashMap<>();
+        for (DfaState state : layout.allStates) position.put(state, position.size());
+        long weight = 0;
+        double distance = 0;
+        for (Map.Entry<Long, long[]> edge : this.transitions.entrySet()) {
+            DfaState a = this.dfa.allStates.get((int) (edge.getKey() >>> 32));
+            DfaState b = this.dfa.allStates.get((int) (long) edge.getKey());
+            weight += edge.getValue()[0];
+            distance += (double) edge.getValue()[0] * Math.abs(position.get(a) - position.get(b));
+        }
+        return weight == 0 ? 0 : distance / weight;
+    }
+}
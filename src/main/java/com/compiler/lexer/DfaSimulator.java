@@ -1,6 +1,7 @@
 package com.compiler.lexer;
 
 import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
 
 /**
  * DfaSimulator
@@ -12,6 +13,10 @@ import com.compiler.lexer.dfa.DFA;
  * the input is rejected. After processing all characters, the input is accepted if the final state reached
  * is an accepting (final) state.
  *
+ * The classification of the DFA's states (see {@link com.compiler.lexer.dfa.StateClassifier}) lets
+ * the simulation stop as soon as the outcome is decided, and skip through accelerable states with
+ * {@link String#indexOf(int, int)} instead of one transition lookup per character.
+ *
  * Example usage:
  * <pre>
  *     DfaSimulator simulator = new DfaSimulator();
@@ -38,15 +43,69 @@ public class DfaSimulator {
      * @return True if the input is accepted by the DFA, false otherwise.
      */
     public boolean simulate(DFA dfa, String input) {
-       // TODO: Implement simulate
        /*
         Pseudocode:
         1. Set currentState to DFA start state
         2. For each character in input:
+            - If currentState is dead or accepts forever, the outcome is decided: return it
+            - If currentState is accelerable, skip to the next escape character; if there is
+              none, the input ends in currentState
             - Get next state using transition for character
             - If no transition exists, return false
         3. After processing all characters, return true if currentState is final
        */
-       throw new UnsupportedOperationException("Not implemented");
+        DfaState currentState = dfa.startState;
+        for (int i = 0; i < input.length(); i++) {
+            switch (currentState.getKind()) {
+                case DEAD:
+                    return false;
+                case ACCEPT_FOREVER:
+                    return true;
+                case ACCELERABLE:
+                    i = currentState.nextEscape(input, i);
+                    if (i == input.length()) return currentState.isFinal();
+                    break;
+                default:
+                    break;
+            }
+            currentState = currentState.getTransition(input.charAt(i));
+            if (currentState == null) return false;
+        }
+        return currentState.isFinal();
+    }
+
+    /**
+     * Runs the DFA from a position of a text and returns where its longest match ends.
+     * The walk stops as soon as the DFA has no transition or reaches a dead state.
+     *
+     * @param dfa The DFA to simulate.
+     * @param text The text.
+     * @param from The position where the match starts.
+     * @return The end (exclusive) of the longest match starting at {@code from}, or -1 if there is none.
+     */
+    public int longestMatch(DFA dfa, CharSequence text, int from) {
+        DfaState currentState = dfa.startState;
+        int end = currentState.isFinal() ? from : -1;
+        for (int i = from; i < text.length(); i++) {
+            switch (currentState.getKind()) {
+                case DEAD:
+                    return end;
+                case ACCEPT_FOREVER:
+                    return text.length();
+                case ACCELERABLE:
+                    // Every skipped position ends in the same state
+                    int escape = currentState.nextEscape(text, i);
+                    if (currentState.isFinal()) end = escape;
+                    i = escape;
+                    if (i == text.length()) return end;
+                    break;
+                default:
+                    break;
+            }
+            currentState = currentState.getTransition(text.charAt(i));
+            if (currentState == null) break;
+            if (currentState.isFinal()) end = i + 1;
+        }
+        return end;
     }
-}
\ No newline at end of file
+}
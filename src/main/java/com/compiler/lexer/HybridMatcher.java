@@ -0,0 +1,199 @@
+package com.compiler.lexer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+
+/**
+ * HybridMatcher
+ * -------------
+ * The result of a budgeted subset construction. While the input stays inside the part of the
+ * DFA that was built, matching is a plain DFA walk. When it reaches a frontier state, one whose
+ * transitions were never (or only partly) computed because the budget ran out, matching continues
+ * with NFA set simulation from the NFA states that frontier state stands for.
+ *
+ * When the construction finished within budget there are no frontier states and the matcher
+ * behaves exactly like {@link DfaSimulator}. Degradation is reported through
+ * {@link #isDegraded()}, {@link #getExhaustedLimit()} and the fallback counters.
+ *
+ * An NFA with counters (see {@link com.compiler.lexer.nfa.Counter}) cannot be determinized; its
+ * matcher has a single frontier state, the start state, and runs every input with {@link NfaSimulator}.
+ */
+public class HybridMatcher {
+    private final DFA dfa;
+    private final Set<DfaState> frontier;
+    private final CharClass alphabet;
+    private final ConstructionBudget.Limit exhausted;
+    private final long estimatedBytes;
+    private final NFA counting;
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder nfaSteps = new LongAdder();
+
+    HybridMatcher(DFA dfa, Collection<DfaState> frontier, CharClass alphabet, ConstructionBudget.Limit exhausted, long estimatedBytes) {
+        this(dfa, frontier, alphabet, exhausted, estimatedBytes, null);
+    }
+
+    private HybridMatcher(DFA dfa, Collection<DfaState> frontier, CharClass alphabet, ConstructionBudget.Limit exhausted,
+                          long estimatedBytes, NFA counting) {
+        this.dfa = dfa;
+        Set<DfaState> copy = Collections.newSetFromMap(new IdentityHashMap<>());
+        copy.addAll(frontier);
+        this.frontier = Collections.unmodifiableSet(copy);
+        this.alphabet = alphabet;
+        this.exhausted = exhausted;
+        this.estimatedBytes = estimatedBytes;
+        this.counting = counting;
+    }
+
+    /**
+     * Creates the matcher of an NFA with counters, which is run entirely by simulation.
+     * @param nfa The counting NFA.
+     * @param alphabet The allowed characters.
+     * @return The matcher.
+     */
+    static HybridMatcher counting(NFA nfa, CharClass alphabet) {
+        DfaState start = BuildContext.build(() -> new DfaState(Set.of(nfa.startState)));
+        return new HybridMatcher(new DFA(start, List.of(start)), List.of(start), alphabet, null, 0, nfa);
+    }
+
+    /**
+     * Checks whether an input is accepted.
+     * @param input The input to test.
+     * @return true if the whole input is accepted.
+     */
+    public boolean matches(String input) {
+        /*
+         Pseudocode:
+         1. Walk the DFA from its start state
+         2. On reaching a frontier state, continue from its NFA states:
+              - move and epsilon-closure for each remaining character
+         3. Accept if the last DFA state, or any remaining NFA state, is final
+        */
+        this.matches.increment();
+        if (this.counting != null) {
+            for (int i = 0; i < input.length(); i++)
+                if (!this.alphabet.contains(input.charAt(i))) return false;
+            this.fallbacks.increment();
+            this.nfaSteps.add(input.length());
+            return new NfaSimulator().simulate(this.counting, input);
+        }
+        DfaState current = this.dfa.startState;
+        for (int i = 0; i < input.length(); i++) {
+            if (this.frontier.contains(current)) return this.simulateFrom(current.nfaStates, input, i);
+            current = current.getTransition(input.charAt(i));
+            if (current == null) return false;
+        }
+        return current.isFinal();
+    }
+
+    private boolean simulateFrom(Set<State> states, String input, int from) {
+        this.fallbacks.increment();
+        this.nfaSteps.add(input.length() - from);
+        for (int i = from; i < input.length() && !states.isEmpty(); i++) {
+            char c = input.charAt(i);
+            if (!this.alphabet.contains(c)) return false;
+            states = NfaToDfaConverter.epsilonClosure(NfaToDfaConverter.move(states, c));
+        }
+        for (State state : states)
+            if (state.isFinal()) return true;
+        return false;
+    }
+
+    /**
+     * Returns the DFA as far as it was built. Transitions of frontier states are incomplete.
+     * @return The partial (or, if not degraded, complete) DFA.
+     */
+    public DFA getDfa() {
+        return this.dfa;
+    }
+
+    /**
+     * Checks whether the construction ran out of budget, or the NFA uses counters.
+     * @return true if some states fall back to NFA simulation.
+     */
+    public boolean isDegraded() {
+        return this.exhausted != null || this.counting != null;
+    }
+
+    /**
+     * Checks whether the NFA uses counters and is run entirely by simulation.
+     * @return true for a counting NFA.
+     */
+    public boolean isCounting() {
+        return this.counting != null;
+    }
+
+    /**
+     * Returns the limit that stopped the construction.
+     * @return The exceeded limit, or null if the DFA is complete or the NFA uses counters.
+     */
+    public ConstructionBudget.Limit getExhaustedLimit() {
+        return this.exhausted;
+    }
+
+    /**
+     * Returns the number of DFA states whose transitions are complete.
+     * @return The number of fully built states.
+     */
+    public int getBuiltStateCount() {
+        return this.dfa.allStates.size() - this.frontier.size();
+    }
+
+    /**
+     * Returns the number of states that fall back to NFA simulation.
+     * @return The number of frontier states.
+     */
+    public int getFrontierStateCount() {
+        return this.frontier.size();
+    }
+
+    /**
+     * Returns the estimated bytes spent by the construction.
+     * @return The estimated size of the built DFA.
+     */
+    public long getEstimatedBytes() {
+        return this.estimatedBytes;
+    }
+
+    /**
+     * Returns the number of inputs matched so far.
+     * @return The match count.
+     */
+    public long getMatchCount() {
+        return this.matches.sum();
+    }
+
+    /**
+     * Returns the number of inputs that needed NFA simulation.
+     * @return The fallback count.
+     */
+    public long getFallbackCount() {
+        return this.fallbacks.sum();
+    }
+
+    /**
+     * Returns the number of input characters handled by NFA simulation.
+     * @return The number of simulated steps.
+     */
+    public long getNfaStepCount() {
+        return this.nfaSteps.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "HybridMatcher{built=" + this.getBuiltStateCount() + ", frontier=" + this.getFrontierStateCount()
+            + ", bytes~" + this.estimatedBytes + ", exhausted=" + this.exhausted
+            + ", matches=" + this.getMatchCount() + ", fallbacks=" + this.getFallbackCount() + "}";
+    }
+}
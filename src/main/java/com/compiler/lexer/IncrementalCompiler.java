@@ -0,0 +1,373 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.regex.RegexParser;
+
+/**
+ * IncrementalCompiler
+ * -------------------
+ * Maintains a minimized DFA for the union of a changing set of patterns, doing work
+ * proportional to the change on every {@link #addPattern} / {@link #removePattern}.
+ *
+ * The union NFA is kept implicitly as the list of pattern NFAs; a DFA state is a set of
+ * NFA states drawn from those patterns. Since pattern NFAs never change once parsed, the
+ * language of every such set is fixed, so the compiler keeps, across builds:
+ *   - the subset-interning table, mapping every determinized set of NFA states to the
+ *     (minimized) DFA state it belongs to, and
+ *   - an index of the minimized states by a digest of their bounded-depth unfolding.
+ *
+ * After a change only the start set differs, so an update:
+ *   1. Determinizes the sets reachable from the new start set that are not interned yet.
+ *   2. Minimizes only those new sets, by partition refinement in which already interned
+ *      states keep their existing classes. A new class is then replaced by an existing
+ *      minimized state when their digests agree and a bisimulation between them is found.
+ *   3. Publishes a new immutable {@link DFA} through a volatile reference.
+ *
+ * Published automata are never modified, so readers call {@link #snapshot()} without any
+ * locking while a writer prepares the next version. Since existing states are pairwise
+ * inequivalent and every new class is either proven equivalent to one of them or kept, each
+ * published automaton is as small as the one {@link DfaMinimizer} would produce.
+ *
+ * Example usage:
+ * <pre>
+ *     IncrementalCompiler compiler = new IncrementalCompiler();
+ *     int id = compiler.addPattern("[a-z]+");
+ *     compiler.addPattern("[0-9]+");
+ *     boolean matched = new DfaSimulator().simulate(compiler.snapshot(), "abc");
+ *     compiler.removePattern(id);
+ * </pre>
+ */
+public class IncrementalCompiler {
+    private static final int DIGEST_DEPTH = 4;
+    private final RegexParser parser = RegexParser.unrolling();
+    // Every published automaton mixes states from several updates, so they share one id space.
+    private final BuildContext context = new BuildContext();
+    private final Map<Integer, NFA> patterns = new LinkedHashMap<>();
+    private final Map<State, Integer> owners = new HashMap<>();
+    private final Map<Integer, List<Set<State>>> setsByPattern = new HashMap<>();
+    private final Map<Set<State>, DfaState> interned = new HashMap<>();
+    private final Map<DfaState, long[]> digests = new IdentityHashMap<>();
+    private final Map<Long, List<DfaState>> candidates = new HashMap<>();
+    private int nextPatternId = 0;
+    private int lastDeterminized = 0;
+    private volatile DFA current;
+
+    /**
+     * Creates a compiler with no patterns; its automaton accepts nothing.
+     */
+    public IncrementalCompiler() {
+        this.context.call(this::update);
+    }
+
+    /**
+     * Returns the most recently published automaton. Never blocks.
+     * @return The current DFA; it is never modified afterwards.
+     */
+    public DFA snapshot() {
+        return this.current;
+    }
+
+    /**
+     * Adds a pattern to the union and publishes the updated automaton.
+     * @param regex The regular expression.
+     * @return The id of the pattern, used to remove it later.
+     */
+    public synchronized int addPattern(String regex) {
+        int id = this.nextPatternId++;
+        this.context.call(() -> {
+            NFA nfa = this.parser.parse(regex);
+            for (State state : nfa.getStates()) this.owners.put(state, id);
+            this.patterns.put(id, nfa);
+            return this.update();
+        });
+        return id;
+    }
+
+    /**
+     * Removes a pattern from the union and publishes the updated automaton.
+     * @param id The id returned by {@link #addPattern}.
+     * @return true if the pattern existed.
+     */
+    public synchronized boolean removePattern(int id) {
+        NFA nfa = this.patterns.remove(id);
+        if (nfa == null) return false;
+        for (Set<State> set : this.setsByPattern.getOrDefault(id, List.of())) this.interned.remove(set);
+        this.setsByPattern.remove(id);
+        for (State state : nfa.getStates()) this.owners.remove(state);
+        this.context.call(this::update);
+        return true;
+    }
+
+    /**
+     * Returns how many sets of NFA states the last update had to determinize.
+     * @return The number of newly determinized DFA states.
+     */
+    public synchronized int getLastDeterminizedCount() {
+        return this.lastDeterminized;
+    }
+
+    /**
+     * Determinizes and minimizes the part of the automaton affected by the last change,
+     * then publishes it. Must run inside the compiler's build context.
+     *
+     * @return The published automaton.
+     */
+    private DFA update() {
+        Set<State> startStates = new HashSet<>();
+        for (NFA nfa : this.patterns.values()) startStates.add(nfa.startState);
+        Set<State> start = NfaToDfaConverter.epsilonClosure(startStates);
+
+        // 1. Determinize the sets that are not interned yet.
+        Map<Set<State>, Integer> index = new HashMap<>();
+        List<Set<State>> fresh = new ArrayList<>();
+        List<List<CharRange>> rowIntervals = new ArrayList<>();
+        List<List<Set<State>>> rowTargets = new ArrayList<>();
+        Queue<Set<State>> unmarked = new LinkedList<>();
+        if (!this.interned.containsKey(start)) {
+            index.put(start, 0);
+            fresh.add(start);
+            unmarked.add(start);
+        }
+        while (!unmarked.isEmpty()) {
+            Set<State> set = unmarked.poll();
+            List<CharRange> intervals = new ArrayList<>();
+            List<Set<State>> targets = new ArrayList<>();
+            for (CharRange interval : NfaToDfaConverter.intervals(set, CharClass.any())) {
+                Set<State> target = NfaToDfaConverter.epsilonClosure(NfaToDfaConverter.move(set, interval.low));
+                if (target.isEmpty()) continue;
+                intervals.add(interval);
+                targets.add(target);
+                if (!this.interned.containsKey(target) && !index.containsKey(target)) {
+                    index.put(target, fresh.size());
+                    fresh.add(target);
+                    unmarked.add(target);
+                }
+            }
+            rowIntervals.add(intervals);
+            rowTargets.add(targets);
+        }
+        this.lastDeterminized = fresh.size();
+
+        // 2. Minimize the new sets against the fixed existing classes.
+        int[] block = new int[fresh.size()];
+        for (int i = 0; i < fresh.size(); i++) block[i] = isFinal(fresh.get(i)) ? 1 : 0;
+        int blocks = -1;
+        while (true) {
+            Map<List<Object>, Integer> groups = new HashMap<>();
+            int[] next = new int[fresh.size()];
+            for (int i = 0; i < fresh.size(); i++) {
+                List<Object> signature = new ArrayList<>();
+                signature.add(block[i]);
+                for (Object[] edge : this.edges(rowIntervals.get(i), rowTargets.get(i), index, block))
+                    signature.addAll(List.of(edge));
+                next[i] = groups.computeIfAbsent(signature, k -> groups.size());
+            }
+            block = next;
+            if (groups.size() == blocks) break;
+            blocks = groups.size();
+        }
+
+        // One representative set per block, with its coalesced edges and digests.
+        Map<Integer, Integer> representative = new LinkedHashMap<>();
+        for (int i = 0; i < fresh.size(); i++) representative.putIfAbsent(block[i], i);
+        Map<Integer, List<Object[]>> blockEdges = new HashMap<>();
+        Map<Integer, Boolean> blockFinal = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : representative.entrySet()) {
+            int i = entry.getValue();
+            blockEdges.put(entry.getKey(), this.edges(rowIntervals.get(i), rowTargets.get(i), index, block));
+            blockFinal.put(entry.getKey(), isFinal(fresh.get(i)));
+        }
+        Map<Integer, long[]> blockDigests = new HashMap<>();
+        for (Integer b : representative.keySet()) blockDigests.put(b, new long[DIGEST_DEPTH + 1]);
+        for (int d = 0; d <= DIGEST_DEPTH; d++)
+            for (Integer b : representative.keySet())
+                blockDigests.get(b)[d] = this.digest(blockFinal.get(b), blockEdges.get(b), d, blockDigests);
+
+        // Reuse an existing minimized state for every block that is provably equivalent to one.
+        Map<Integer, DfaState> reused = new HashMap<>();
+        for (Integer b : representative.keySet()) {
+            if (reused.containsKey(b)) continue;
+            for (DfaState candidate : this.candidates.getOrDefault(blockDigests.get(b)[DIGEST_DEPTH], List.of())) {
+                Map<Integer, DfaState> assumed = this.bisimilar(b, candidate, blockFinal, blockEdges, reused);
+                if (assumed != null) {
+                    reused.putAll(assumed);
+                    break;
+                }
+            }
+        }
+
+        Map<Integer, DfaState> created = new HashMap<>();
+        for (Integer b : representative.keySet()) {
+            if (reused.containsKey(b)) continue;
+            DfaState state = new DfaState(Collections.emptySet());
+            state.setFinal(blockFinal.get(b));
+            created.put(b, state);
+        }
+        for (int i = 0; i < fresh.size(); i++) {
+            DfaState state = created.containsKey(block[i]) ? created.get(block[i]) : reused.get(block[i]);
+            this.intern(fresh.get(i), state);
+        }
+        for (Map.Entry<Integer, DfaState> entry : created.entrySet()) {
+            int i = representative.get(entry.getKey());
+            DfaState state = entry.getValue();
+            for (int t = 0; t < rowIntervals.get(i).size(); t++)
+                state.addTransition(rowIntervals.get(i).get(t), this.interned.get(rowTargets.get(i).get(t)));
+            long[] digests = blockDigests.get(entry.getKey());
+            this.digests.put(state, digests);
+            this.candidates.computeIfAbsent(digests[DIGEST_DEPTH], k -> new ArrayList<>()).add(state);
+        }
+
+        // 3. Publish the new automaton and forget minimized states that are no longer reachable.
+        DfaState startState = this.interned.get(start);
+        List<DfaState> allStates = reachable(startState);
+        Set<DfaState> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        live.addAll(allStates);
+        // Sets of dropped states go with them: a state without a digest must never be reused as a target.
+        this.interned.values().removeIf(state -> !live.contains(state));
+        this.setsByPattern.values().forEach(list -> list.removeIf(set -> !this.interned.containsKey(set)));
+        this.setsByPattern.values().removeIf(List::isEmpty);
+        this.digests.keySet().removeIf(state -> !live.contains(state));
+        this.candidates.values().forEach(list -> list.removeIf(state -> !live.contains(state)));
+        this.candidates.values().removeIf(List::isEmpty);
+        this.current = new DFA(startState, allStates);
+        return this.current;
+    }
+
+    /**
+     * Records the minimized state of a set and which patterns the set depends on.
+     */
+    private void intern(Set<State> set, DfaState state) {
+        this.interned.put(set, state);
+        Set<Integer> patternIds = new HashSet<>();
+        for (State nfaState : set) patternIds.add(this.owners.get(nfaState));
+        for (Integer id : patternIds) this.setsByPattern.computeIfAbsent(id, k -> new ArrayList<>()).add(set);
+    }
+
+    /**
+     * Returns the edges of a determinized row as {@code {low, high, target}} triples, where
+     * adjacent ranges with the same target are coalesced. The target is either an existing
+     * minimized state or the block (an Integer) of a new set.
+     */
+    private List<Object[]> edges(List<CharRange> intervals, List<Set<State>> targets, Map<Set<State>, Integer> index, int[] block) {
+        List<Object[]> edges = new ArrayList<>();
+        for (int t = 0; t < intervals.size(); t++) {
+            Integer fresh = index.get(targets.get(t));
+            Object key = fresh == null ? this.interned.get(targets.get(t)) : Integer.valueOf(block[fresh]);
+            CharRange interval = intervals.get(t);
+            Object[] last = edges.isEmpty() ? null : edges.get(edges.size() - 1);
+            if (last != null && last[2].equals(key) && (char) last[1] + 1 == interval.low) last[1] = interval.high;
+            else edges.add(new Object[] {interval.low, interval.high, key});
+        }
+        return edges;
+    }
+
+    /**
+     * Hash of the depth-{@code d} unfolding of a state: the finality plus the maximal runs of
+     * characters whose targets have the same depth-{@code d - 1} hash. Equivalent states map every
+     * character to equivalent targets, so they always get the same digest regardless of how their
+     * ranges happen to be split; digests are used to find candidate existing states for a new block.
+     */
+    private long digest(boolean isFinal, List<Object[]> edges, int d, Map<Integer, long[]> blockDigests) {
+        long hash = isFinal ? 1 : 2;
+        if (d == 0) return hash;
+        int runLow = -1;
+        int runHigh = -2;
+        long runDigest = 0;
+        for (Object[] edge : edges) {
+            char low = (char) edge[0];
+            char high = (char) edge[1];
+            long target = edge[2] instanceof Integer ? blockDigests.get(edge[2])[d - 1] : this.digests.get(edge[2])[d - 1];
+            if (runHigh + 1 == low && target == runDigest) {
+                runHigh = high;
+                continue;
+            }
+            if (runLow >= 0) hash = ((hash * 31 + runLow) * 31 + runHigh) * 31 + runDigest;
+            runLow = low;
+            runHigh = high;
+            runDigest = target;
+        }
+        if (runLow >= 0) hash = ((hash * 31 + runLow) * 31 + runHigh) * 31 + runDigest;
+        return hash;
+    }
+
+    /**
+     * Checks whether a new block is equivalent to an existing minimized state by building a
+     * bisimulation between the blocks and the existing states, assuming each pair equivalent
+     * until a difference is found.
+     *
+     * @return The block to state assignments proving the equivalence, or null if they differ.
+     */
+    private Map<Integer, DfaState> bisimilar(Integer block, DfaState candidate, Map<Integer, Boolean> blockFinal,
+                                             Map<Integer, List<Object[]>> blockEdges, Map<Integer, DfaState> reused) {
+        Map<Integer, DfaState> assumed = new HashMap<>(reused);
+        LinkedList<Integer> pending = new LinkedList<>();
+        assumed.put(block, candidate);
+        pending.add(block);
+        while (!pending.isEmpty()) {
+            Integer current = pending.poll();
+            DfaState state = assumed.get(current);
+            if (blockFinal.get(current) != state.isFinal()) return null;
+
+            int covered = 0;
+            for (Object[] edge : blockEdges.get(current)) {
+                char low = (char) edge[0];
+                char high = (char) edge[1];
+                covered += high - low + 1;
+                for (int c = low; c <= high; ) {
+                    Map.Entry<CharRange, DfaState> transition = state.transitions.floorEntry(new CharRange((char) c, Character.MAX_VALUE));
+                    if (transition == null || !transition.getKey().contains((char) c)) return null;
+                    DfaState target = transition.getValue();
+                    if (edge[2] instanceof Integer) {
+                        DfaState previous = assumed.putIfAbsent((Integer) edge[2], target);
+                        if (previous == null) pending.add((Integer) edge[2]);
+                        else if (previous != target) return null;
+                    } else if (edge[2] != target) {
+                        return null;
+                    }
+                    c = Math.min(transition.getKey().high, high) + 1;
+                }
+            }
+            for (CharRange range : state.transitions.keySet()) covered -= range.size();
+            if (covered != 0) return null;
+        }
+        return assumed;
+    }
+
+    private static boolean isFinal(Set<State> set) {
+        for (State state : set) if (state.isFinal()) return true;
+        return false;
+    }
+
+    private static List<DfaState> reachable(DfaState start) {
+        List<DfaState> states = new ArrayList<>();
+        Set<DfaState> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Queue<DfaState> queue = new LinkedList<>();
+        visited.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            DfaState state = queue.poll();
+            states.add(state);
+            for (DfaState next : state.transitions.values())
+                if (visited.add(next)) queue.add(next);
+        }
+        return states;
+    }
+}
@@ -0,0 +1,329 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * IncrementalLexer
+ * ----------------
+ * Keeps the tokens of a document up to date while the document is edited, re-lexing only
+ * around each edit. Every token boundary is a checkpoint: the {@link Lexer} restarts in its
+ * start state there, and each token records its lookahead, the end of the text it depends on.
+ *
+ * After an edit at {@code offset}:
+ *   1. Lexing restarts at the first token whose lookahead reaches past {@code offset}.
+ *   2. New tokens are read until one ends exactly where an old token starts after the edited
+ *      text. From there on the text is unchanged, so the old tokens are still correct and
+ *      lexing stops (resynchronization).
+ *   3. The replaced and new tokens are returned as a {@link TokenDelta}.
+ *
+ * Text and tokens are both kept in gap buffers with the gap at the last edit. Tokens after the
+ * gap store their positions relative to the end of the text, so an edit never has to shift the
+ * rest of the document. The cost of an edit is the re-lexed text plus the distance the gaps move
+ * from the previous edit, and does not depend on the document size for local edits. Rules with
+ * unbounded lookahead (a token that only fails at the end of the text) make earlier tokens
+ * depend on the whole rest of the document and are re-lexed accordingly.
+ *
+ * Example usage:
+ * <pre>
+ *     IncrementalLexer document = new IncrementalLexer(lexer, text);
+ *     TokenDelta delta = document.edit(120, 1, "xy"); // replace 1 char at 120 with "xy"
+ * </pre>
+ */
+public class IncrementalLexer {
+    private final Lexer lexer;
+    private final GapText text;
+
+    // Token gap buffer: entries [0, gapStart) hold absolute positions, entries [gapEnd, capacity)
+    // hold positions minus the text length.
+    private int[] starts;
+    private int[] ends;
+    private int[] lookaheads;
+    private int[] rules;
+    private int gapStart;
+    private int gapEnd;
+
+    // The largest distance a token's lookahead has reached past its end, which bounds how far
+    // back an edit can affect tokens.
+    private int maxOvershoot;
+
+    /**
+     * Lexes a document.
+     * @param lexer The lexer.
+     * @param initial The initial text.
+     */
+    public IncrementalLexer(Lexer lexer, CharSequence initial) {
+        this.lexer = lexer;
+        this.text = new GapText(initial);
+        int capacity = 16;
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.lookaheads = new int[capacity];
+        this.rules = new int[capacity];
+        this.gapEnd = capacity;
+        this.relex(0, this.text.length(), 0, null, new ArrayList<>());
+    }
+
+    /**
+     * Returns the current text.
+     * @return A view of the document; it changes with every edit.
+     */
+    public CharSequence getText() {
+        return this.text;
+    }
+
+    /**
+     * Returns the number of tokens.
+     * @return The token count.
+     */
+    public int getTokenCount() {
+        return this.starts.length - this.gapEnd + this.gapStart;
+    }
+
+    /**
+     * Returns one token.
+     * @param index The token index.
+     * @return The token.
+     */
+    public Token getToken(int index) {
+        return new Token(this.rules[this.slot(index)], this.start(index), this.end(index));
+    }
+
+    /**
+     * Returns all tokens.
+     * @return A copy of the token stream.
+     */
+    public List<Token> getTokens() {
+        List<Token> tokens = new ArrayList<>(this.getTokenCount());
+        for (int i = 0; i < this.getTokenCount(); i++) tokens.add(this.getToken(i));
+        return tokens;
+    }
+
+    /**
+     * Replaces part of the document and updates the tokens.
+     * @param offset The position of the edit.
+     * @param removed The number of characters removed at {@code offset}.
+     * @param inserted The text inserted at {@code offset}.
+     * @return The change to the token stream.
+     * @throws IndexOutOfBoundsException if the removed range is not inside the document.
+     */
+    public TokenDelta edit(int offset, int removed, CharSequence inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > this.text.length())
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed) + ") outside document of length " + this.text.length());
+        int oldLength = this.text.length();
+        int first = this.firstAffected(offset);
+        this.moveGap(first);
+
+        this.text.replace(offset, removed, inserted);
+        int delta = inserted.length() - removed;
+        int restart = first > 0 ? this.end(first - 1) : 0;
+        // Old tokens after the gap, in old coordinates, that may serve as a resynchronization point
+        // once they start at or after the end of the edited text.
+        int resyncFrom = offset + removed;
+
+        List<Token> removedTokens = new ArrayList<>();
+        List<Token> insertedTokens = new ArrayList<>();
+        int relexed = this.relex(restart, oldLength, resyncFrom, removedTokens, insertedTokens);
+        return new TokenDelta(first, removedTokens, insertedTokens, relexed);
+    }
+
+    /**
+     * Lexes from {@code position} until the new tokens resynchronize with the old tokens after
+     * the gap, replacing the old tokens they cover.
+     *
+     * @param position Where lexing restarts, in new coordinates.
+     * @param oldLength The text length before the edit.
+     * @param resyncFrom Old tokens starting at or after this old position are unaffected by the edit.
+     * @param removed Receives the replaced old tokens, or null when nothing is recorded.
+     * @param inserted Receives the new tokens.
+     * @return The number of characters lexed.
+     */
+    private int relex(int position, int oldLength, int resyncFrom, List<Token> removed, List<Token> inserted) {
+        int newLength = this.text.length();
+        int shift = newLength - oldLength;
+        int from = position;
+        int[] scan = new int[3];
+        while (position < newLength) {
+            this.lexer.scan(this.text, position, scan);
+            int end = scan[0];
+            // Drop old tokens that start before the end of the new token
+            while (this.gapEnd < this.starts.length && this.starts[this.gapEnd] + oldLength < end - shift
+                    || this.gapEnd < this.starts.length && this.starts[this.gapEnd] + oldLength < resyncFrom) {
+                if (removed != null) removed.add(this.removedToken(oldLength));
+                this.gapEnd++;
+            }
+            this.insert(position, end, scan[2], scan[1]);
+            inserted.add(new Token(scan[1], position, end));
+            position = end;
+            if (this.gapEnd < this.starts.length && this.starts[this.gapEnd] + oldLength == end - shift) return position - from;
+        }
+        while (this.gapEnd < this.starts.length) {
+            if (removed != null) removed.add(this.removedToken(oldLength));
+            this.gapEnd++;
+        }
+        return position - from;
+    }
+
+    private Token removedToken(int oldLength) {
+        int slot = this.gapEnd;
+        return new Token(this.rules[slot], this.starts[slot] + oldLength, this.ends[slot] + oldLength);
+    }
+
+    /**
+     * Finds the first token whose lookahead reaches past {@code offset}, that is the first token
+     * an edit at {@code offset} can change.
+     */
+    private int firstAffected(int offset) {
+        int count = this.getTokenCount();
+        if (count == 0) return 0;
+        // Last token starting at or before offset
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (this.start(mid) <= offset) low = mid;
+            else high = mid - 1;
+        }
+        int first = low;
+        for (int i = low - 1; i >= 0 && this.end(i) + this.maxOvershoot > offset; i--)
+            if (this.lookahead(i) > offset) first = i;
+        return first;
+    }
+
+    /**
+     * Moves the token gap so that it starts at token {@code index}.
+     */
+    private void moveGap(int index) {
+        int length = this.text.length();
+        while (this.gapStart > index) {
+            this.gapStart--;
+            this.gapEnd--;
+            this.copy(this.gapStart, this.gapEnd, -length);
+        }
+        while (this.gapStart < index) {
+            this.copy(this.gapEnd, this.gapStart, length);
+            this.gapStart++;
+            this.gapEnd++;
+        }
+    }
+
+    private void copy(int from, int to, int shift) {
+        this.starts[to] = this.starts[from] + shift;
+        this.ends[to] = this.ends[from] + shift;
+        this.lookaheads[to] = this.lookaheads[from] + shift;
+        this.rules[to] = this.rules[from];
+    }
+
+    /**
+     * Appends a token before the gap.
+     */
+    private void insert(int start, int end, int lookahead, int rule) {
+        if (this.gapStart == this.gapEnd) this.grow();
+        this.starts[this.gapStart] = start;
+        this.ends[this.gapStart] = end;
+        this.lookaheads[this.gapStart] = lookahead;
+        this.rules[this.gapStart] = rule;
+        this.gapStart++;
+        this.maxOvershoot = Math.max(this.maxOvershoot, lookahead - end);
+    }
+
+    private void grow() {
+        int capacity = this.starts.length;
+        int after = capacity - this.gapEnd;
+        int grown = capacity * 2;
+        this.starts = regrow(this.starts, grown, this.gapEnd, after);
+        this.ends = regrow(this.ends, grown, this.gapEnd, after);
+        this.lookaheads = regrow(this.lookaheads, grown, this.gapEnd, after);
+        this.rules = regrow(this.rules, grown, this.gapEnd, after);
+        this.gapEnd = grown - after;
+    }
+
+    private static int[] regrow(int[] array, int capacity, int gapEnd, int after) {
+        int[] grown = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, gapEnd, grown, capacity - after, after);
+        return grown;
+    }
+
+    private int slot(int index) {
+        return index < this.gapStart ? index : index - this.gapStart + this.gapEnd;
+    }
+
+    private int start(int index) {
+        return index < this.gapStart ? this.starts[index] : this.starts[this.slot(index)] + this.text.length();
+    }
+
+    private int end(int index) {
+        return index < this.gapStart ? this.ends[index] : this.ends[this.slot(index)] + this.text.length();
+    }
+
+    private int lookahead(int index) {
+        return index < this.gapStart ? this.lookaheads[index] : this.lookaheads[this.slot(index)] + this.text.length();
+    }
+
+    /**
+     * The document text as a gap buffer of chars.
+     */
+    private static final class GapText implements CharSequence {
+        private char[] chars;
+        private int gapStart;
+        private int gapEnd;
+
+        GapText(CharSequence initial) {
+            this.chars = new char[Math.max(16, initial.length() * 2)];
+            for (int i = 0; i < initial.length(); i++) this.chars[i] = initial.charAt(i);
+            this.gapStart = initial.length();
+            this.gapEnd = this.chars.length;
+        }
+
+        void replace(int offset, int removed, CharSequence inserted) {
+            this.moveGap(offset);
+            this.gapEnd += removed;
+            if (this.gapEnd - this.gapStart < inserted.length()) {
+                int after = this.chars.length - this.gapEnd;
+                char[] grown = new char[(this.chars.length + inserted.length()) * 2];
+                System.arraycopy(this.chars, 0, grown, 0, this.gapStart);
+                System.arraycopy(this.chars, this.gapEnd, grown, grown.length - after, after);
+                this.chars = grown;
+                this.gapEnd = grown.length - after;
+            }
+            for (int i = 0; i < inserted.length(); i++) this.chars[this.gapStart++] = inserted.charAt(i);
+        }
+
+        private void moveGap(int offset) {
+            if (offset < this.gapStart) {
+                int count = this.gapStart - offset;
+                System.arraycopy(this.chars, offset, this.chars, this.gapEnd - count, count);
+                this.gapStart -= count;
+                this.gapEnd -= count;
+            } else if (offset > this.gapStart) {
+                int count = offset - this.gapStart;
+                System.arraycopy(this.chars, this.gapEnd, this.chars, this.gapStart, count);
+                this.gapStart += count;
+                this.gapEnd += count;
+            }
+        }
+
+        @Override
+        public int length() {
+            return this.chars.length - this.gapEnd + this.gapStart;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return index < this.gapStart ? this.chars[index] : this.chars[index - this.gapStart + this.gapEnd];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) sb.append(this.charAt(i));
+            return sb;
+        }
+
+        @Override
+        public String toString() {
+            return this.subSequence(0, this.length()).toString();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.dfa.OffHeapDfa;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.regex.RegexOptimizer;
+import com.compiler.lexer.regex.RegexParser;
+
+/**
+ * Lexer
+ * -----
+ * Splits a text into tokens with one DFA for a list of rules. At every position the longest
+ * non-empty match wins; among rules matching the same length, the earliest rule wins. A
+ * character that starts no match becomes a one-character {@link Token#ERROR} token.
+ *
+ * The rules are simplified by {@link RegexOptimizer}, parsed into one union NFA and determinized;
+ * each DFA state accepts the smallest rule index among the final NFA states it contains. The DFA is not minimized, because
+ * minimization would merge states that accept different rules.
+ *
+ * Besides its span, scanning a token reports its lookahead: how far the DFA read before giving
+ * up on a longer match. A token only depends on the text up to its lookahead, which is what
+ * {@link IncrementalLexer} uses to re-lex only around an edit.
+ *
+ * Example usage:
+ * <pre>
+ *     Lexer lexer = Lexer.compile(List.of("[a-z]+", "[0-9]+", " +"));
+ *     List&lt;Token&gt; tokens = lexer.tokenize("abc 123");
+ * </pre>
+ */
+public class Lexer {
+    private final DFA dfa;
+    private final Map<DfaState, Integer> rules;
+    private final int ruleCount;
+
+    private Lexer(DFA dfa, Map<DfaState, Integer> rules, int ruleCount) {
+        this.dfa = dfa;
+        this.rules = rules;
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * Compiles a list of rules.
+     * @param rules The regular expressions, in priority order.
+     * @return The lexer.
+     */
+    public static Lexer compile(List<String> rules) {
+        Map<State, Integer> finals = new IdentityHashMap<>();
+        NFA union = BuildContext.build(() -> {
+            RegexParser parser = RegexParser.unrolling();
+            State start = new State();
+            for (int i = 0; i < rules.size(); i++) {
+                NFA nfa = parser.parse(RegexOptimizer.optimize(rules.get(i)).regex);
+                start.addTransition(null, nfa.startState);
+                finals.put(nfa.endState, i);
+            }
+            return new NFA(start, null);
+        });
+        DFA dfa = NfaToDfaConverter.convertNfaToDfa(union);
+
+        Map<DfaState, Integer> accepted = new IdentityHashMap<>();
+        for (DfaState state : dfa.allStates) {
+            int rule = Integer.MAX_VALUE;
+            for (State nfaState : state.nfaStates)
+                if (nfaState.isFinal()) rule = Math.min(rule, finals.get(nfaState));
+            if (rule != Integer.MAX_VALUE) accepted.put(state, rule);
+        }
+        return new Lexer(dfa, accepted, rules.size());
+    }
+
+    /**
+     * Returns the number of rules.
+     * @return The number of rules.
+     */
+    public int getRuleCount() {
+        return this.ruleCount;
+    }
+
+    /**
+     * Returns the DFA of all rules.
+     * @return The unminimized union DFA.
+     */
+    public DFA getDfa() {
+        return this.dfa;
+    }
+
+    /**
+     * Copies the DFA into off-heap memory, with the rule accepted by every state.
+     * @return The off-heap DFA; {@link OffHeapDfa#ruleId(int)} returns the rule index.
+     */
+    public OffHeapDfa toOffHeap() {
+        return OffHeapDfa.of(this.dfa, state -> this.rules.getOrDefault(state, -1));
+    }
+
+    /**
+     * Returns the rule accepted by a DFA state.
+     * @param state A state of {@link #getDfa()}.
+     * @return The rule index, or null if the state is not final.
+     */
+    Integer ruleOf(DfaState state) {
+        return this.rules.get(state);
+    }
+
+    /**
+     * Splits a whole text into tokens.
+     * @param text The text.
+     * @return The tokens, covering the text without gaps.
+     */
+    public List<Token> tokenize(CharSequence text) {
+        List<Token> tokens = new ArrayList<>();
+        int[] scan = new int[3];
+        for (int position = 0; position < text.length(); position = scan[0]) {
+            this.scan(text, position, scan);
+            tokens.add(new Token(scan[1], position, scan[0]));
+        }
+        return tokens;
+    }
+
+    /**
+     * Reads the token starting at a position.
+     * @param text The text.
+     * @param from The start of the token, before the end of the text.
+     * @return The token.
+     */
+    public Token next(CharSequence text, int from) {
+        int[] scan = new int[3];
+        this.scan(text, from, scan);
+        return new Token(scan[1], from, scan[0]);
+    }
+
+    /**
+     * Reads the token starting at a position.
+     *
+     * @param text The text.
+     * @param from The start of the token, before the end of the text.
+     * @param out Receives {end, rule, lookahead}. The lookahead is one past the last character
+     *            read, or {@code text.length() + 1} if the DFA was still running at the end of the text.
+     */
+    void scan(CharSequence text, int from, int[] out) {
+        /*
+         Pseudocode:
+         1. Walk the DFA from the start state, remembering the last final state reached
+         2. Stop when there is no transition or the state is dead; skip through accelerable
+            states to their next escape, since every skipped position ends in the same state
+         3. The token ends after the last final state, or is a one-character error token
+        */
+        DfaState state = this.dfa.startState;
+        int end = from + 1;
+        int rule = Token.ERROR;
+        int i = from;
+        while (i < text.length()) {
+            if (state.getKind() == DfaState.Kind.DEAD) break;
+            if (state.getKind() == DfaState.Kind.ACCELERABLE && i > from) {
+                i = state.nextEscape(text, i);
+                if (this.rules.containsKey(state)) end = i;
+                if (i == text.length()) break;
+            }
+            state = state.getTransition(text.charAt(i++));
+            if (state == null) break;
+            Integer accepted = this.rules.get(state);
+            if (accepted != null) {
+                end = i;
+                rule = accepted;
+            }
+        }
+        out[0] = end;
+        out[1] = rule;
+        out[2] = state != null && i == text.length() && state.getKind() != DfaState.Kind.DEAD ? i + 1 : i;
+    }
+}
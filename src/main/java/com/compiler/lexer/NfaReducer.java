@@ -0,0 +1,294 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import java.util.TreeMap;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.nfa.Transition;
+
+/**
+ * NfaReducer
+ * ----------
+ * This class provides an optimization pass that turns an NFA into an equivalent, smaller,
+ * epsilon-free NFA. It is meant to run between {@code RegexParser} and {@link NfaToDfaConverter}
+ * (or {@link NfaSimulator} for patterns that are never determinized).
+ *
+ * Steps:
+ *   1. Epsilon elimination: every state takes over the labelled transitions and the finality of
+ *      the states in its epsilon-closure, so epsilon edges become shortcuts.
+ *   2. Trimming: states that are not reachable from the start state, or from which no final state
+ *      can be reached, are dropped.
+ *   3. Bisimulation: states with the same future (forward bisimulation) or the same past (backward
+ *      bisimulation) are merged, repeating until no more states can be merged.
+ *   4. Parallel transitions to the same state are merged into a single class-labelled transition.
+ *
+ * The input NFA is not modified.
+ *
+ * Example usage:
+ * <pre>
+ *     NfaReducer.Result result = NfaReducer.reduce(new RegexParser().parse("(a|b)*abb"));
+ *     System.out.println(result); // before/after sizes
+ *     DFA dfa = NfaToDfaConverter.convertNfaToDfa(result.nfa);
+ * </pre>
+ */
+public class NfaReducer {
+    /**
+     * Default constructor for NfaReducer.
+     */
+    public NfaReducer() {
+    }
+
+    /**
+     * Reduces an NFA and reports its size before and after the reduction.
+     *
+     * @param nfa The NFA to reduce.
+     * @return The reduced NFA together with size statistics.
+     * @throws IllegalArgumentException if the NFA uses counters.
+     */
+    public static Result reduce(NFA nfa) {
+        if (nfa.getCounterCount() > 0)
+            throw new IllegalArgumentException("NFA with counters cannot be reduced");
+        return BuildContext.build(() -> reduceInContext(nfa));
+    }
+
+    /**
+     * Reduces an NFA in the current build context.
+     */
+    private static Result reduceInContext(NFA nfa) {
+        List<State> original = nfa.getStates();
+
+        List<State> states = eliminateEpsilons(nfa.startState, original);
+        states = trim(states);
+
+        // Alternate forward and backward quotients until neither merges anything.
+        int previousSize = -1;
+        while (states.size() != previousSize) {
+            previousSize = states.size();
+            states = quotient(states, refine(states, true));
+            states = quotient(states, refine(states, false));
+        }
+
+        State end = null;
+        for (State state : states) {
+            if (!state.isFinal()) continue;
+            if (end != null) {
+                end = null;
+                break;
+            }
+            end = state;
+        }
+        return new Result(new NFA(states.get(0), end).freeze(), original, states);
+    }
+
+    /**
+     * Builds an epsilon-free copy of the given states. The first state of the returned
+     * list is the copy of the start state.
+     *
+     * @param start The start state.
+     * @param original All states reachable from the start state.
+     * @return The copied states, in the same order as the input.
+     */
+    private static List<State> eliminateEpsilons(State start, List<State> original) {
+        Map<State, State> copy = new IdentityHashMap<>();
+        for (State state : original) copy.put(state, new State());
+
+        for (State state : original) {
+            State target = copy.get(state);
+            for (State reached : epsilonClosure(state)) {
+                if (reached.isFinal()) target.setFinal(true);
+                for (Transition transition : reached.transitions)
+                    if (!transition.isEpsilon())
+                        target.addClassTransition(transition.label, copy.get(transition.toState));
+            }
+        }
+
+        List<State> result = new ArrayList<>();
+        for (State state : original) result.add(copy.get(state));
+        return result;
+    }
+
+    /**
+     * Computes the epsilon-closure of a single state.
+     *
+     * @param start The starting state.
+     * @return All states reachable from {@code start} using only epsilon transitions.
+     */
+    private static Set<State> epsilonClosure(State start) {
+        Set<State> closure = new HashSet<>();
+        Stack<State> stack = new Stack<>();
+        closure.add(start);
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            for (Transition transition : stack.pop().transitions)
+                if (transition.isEpsilon() && closure.add(transition.toState))
+                    stack.push(transition.toState);
+        }
+        return closure;
+    }
+
+    /**
+     * Removes states that are unreachable from the start state (the first state of the list)
+     * or that cannot reach a final state. Transitions into removed states are dropped.
+     *
+     * @param states The states to trim; the first one is the start state.
+     * @return The remaining states, start state first.
+     */
+    private static List<State> trim(List<State> states) {
+        Set<State> reachable = new HashSet<>();
+        Stack<State> stack = new Stack<>();
+        reachable.add(states.get(0));
+        stack.push(states.get(0));
+        while (!stack.isEmpty())
+            for (Transition transition : stack.pop().transitions)
+                if (reachable.add(transition.toState)) stack.push(transition.toState);
+
+        Map<State, List<State>> predecessors = new HashMap<>();
+        for (State state : reachable)
+            for (Transition transition : state.transitions)
+                predecessors.computeIfAbsent(transition.toState, k -> new ArrayList<>()).add(state);
+
+        Set<State> live = new HashSet<>();
+        for (State state : reachable)
+            if (state.isFinal() && live.add(state)) stack.push(state);
+        while (!stack.isEmpty())
+            for (State predecessor : predecessors.getOrDefault(stack.pop(), List.of()))
+                if (live.add(predecessor)) stack.push(predecessor);
+
+        List<State> result = new ArrayList<>();
+        // The start state is always kept so that the automaton stays well formed.
+        for (State state : states)
+            if (state == states.get(0) || live.contains(state)) result.add(state);
+        for (State state : result)
+            state.removeTransitions(transition -> !live.contains(transition.toState));
+        return result;
+    }
+
+    /**
+     * Computes the coarsest forward or backward bisimulation by signature refinement.
+     * Forward signatures combine finality with the labels leading to each block; backward
+     * signatures combine being the start state with the labels arriving from each block.
+     *
+     * @param states The states; the first one is the start state.
+     * @param forward True for forward bisimulation, false for backward bisimulation.
+     * @return The block number of every state, indexed like {@code states}.
+     */
+    private static int[] refine(List<State> states, boolean forward) {
+        Map<State, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < states.size(); i++) index.put(states.get(i), i);
+
+        int[] block = new int[states.size()];
+        for (int i = 0; i < states.size(); i++)
+            block[i] = forward ? (states.get(i).isFinal() ? 1 : 0) : (i == 0 ? 1 : 0);
+        int blocks = -1;
+
+        while (true) {
+            List<TreeMap<Integer, CharClass>> edges = new ArrayList<>();
+            for (int i = 0; i < states.size(); i++) edges.add(new TreeMap<>());
+            for (int i = 0; i < states.size(); i++) {
+                for (Transition transition : states.get(i).transitions) {
+                    int j = index.get(transition.toState);
+                    if (forward) edges.get(i).merge(block[j], transition.label, CharClass::union);
+                    else edges.get(j).merge(block[i], transition.label, CharClass::union);
+                }
+            }
+
+            Map<List<Object>, Integer> signatures = new HashMap<>();
+            int[] next = new int[states.size()];
+            for (int i = 0; i < states.size(); i++) {
+                List<Object> signature = List.of(block[i], edges.get(i));
+                next[i] = signatures.computeIfAbsent(signature, k -> signatures.size());
+            }
+            block = next;
+            if (signatures.size() == blocks) return block;
+            blocks = signatures.size();
+        }
+    }
+
+    /**
+     * Builds the quotient automaton: one state per block, transitions between blocks merged
+     * per target, finality as the union of the members' finality.
+     *
+     * @param states The states; the first one is the start state.
+     * @param block The block number of every state.
+     * @return The quotient states, start state first.
+     */
+    private static List<State> quotient(List<State> states, int[] block) {
+        Map<State, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < states.size(); i++) index.put(states.get(i), i);
+
+        Map<Integer, State> merged = new LinkedHashMap<>();
+        for (int i = 0; i < states.size(); i++) {
+            State target = merged.computeIfAbsent(block[i], k -> new State());
+            if (states.get(i).isFinal()) target.setFinal(true);
+        }
+
+        Map<Integer, Map<Integer, CharClass>> edges = new HashMap<>();
+        for (int i = 0; i < states.size(); i++)
+            for (Transition transition : states.get(i).transitions)
+                edges.computeIfAbsent(block[i], k -> new LinkedHashMap<>())
+                    .merge(block[index.get(transition.toState)], transition.label, CharClass::union);
+
+        for (Map.Entry<Integer, Map<Integer, CharClass>> from : edges.entrySet())
+            for (Map.Entry<Integer, CharClass> to : from.getValue().entrySet())
+                merged.get(from.getKey()).addClassTransition(to.getValue(), merged.get(to.getKey()));
+
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Result of a reduction: the reduced NFA and its size before and after.
+     */
+    public static class Result {
+        /**
+         * The reduced, epsilon-free NFA. Its {@code endState} is null when it has several final states.
+         */
+        public final NFA nfa;
+        /** Number of reachable states before the reduction. */
+        public final int statesBefore;
+        /** Number of transitions before the reduction. */
+        public final int transitionsBefore;
+        /** Number of epsilon transitions before the reduction. */
+        public final int epsilonsBefore;
+        /** Number of states after the reduction. */
+        public final int statesAfter;
+        /** Number of transitions after the reduction. */
+        public final int transitionsAfter;
+
+        Result(NFA nfa, List<State> before, List<State> after) {
+            this.nfa = nfa;
+            int transitions = 0;
+            int epsilons = 0;
+            for (State state : before) {
+                transitions += state.transitions.size();
+                for (Transition transition : state.transitions)
+                    if (transition.isEpsilon()) epsilons++;
+            }
+            this.statesBefore = before.size();
+            this.transitionsBefore = transitions;
+            this.epsilonsBefore = epsilons;
+
+            transitions = 0;
+            for (State state : after) transitions += state.transitions.size();
+            this.statesAfter = after.size();
+            this.transitionsAfter = transitions;
+        }
+
+        @Override
+        public String toString() {
+            return "NFA reduced from " + this.statesBefore + " states / " + this.transitionsBefore
+                + " transitions (" + this.epsilonsBefore + " epsilon) to " + this.statesAfter
+                + " states / " + this.transitionsAfter + " transitions";
+        }
+    }
+}
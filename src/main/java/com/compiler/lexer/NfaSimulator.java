@@ -1,8 +1,12 @@
 package com.compiler.lexer;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.compiler.lexer.nfa.Counter;
 import com.compiler.lexer.nfa.NFA;
 import com.compiler.lexer.nfa.State;
 import com.compiler.lexer.nfa.Transition;
@@ -16,10 +20,15 @@ import com.compiler.lexer.nfa.Transition;
  *
  * Simulation steps:
  * - Initialize the set of current states with the ε-closure of the NFA's start state.
- * - For each character in the input, compute the next set of states by following transitions labeled with that character,
+ * - For each character in the input, compute the next set of states by following transitions whose label contains that character,
  *   and include all states reachable via ε-transitions from those states.
  * - After processing the input, check if any of the current states is a final (accepting) state.
  *
+ * Automata with counters (bounded repetitions that were not unrolled, see {@link Counter}) are
+ * simulated over configurations: a state together with the values of the counters. Counter values
+ * are bounded, so each state appears in at most (cap + 1) configurations per enclosing counter,
+ * however large the repetition.
+ *
  * The class also provides a helper method to compute the ε-closure of a given state, which is the set of all states
  * reachable from the given state using only ε-transitions.
  */
@@ -44,6 +53,9 @@ public class NfaSimulator {
      * @return True if the input is accepted by the NFA, false otherwise.
      */
     public boolean simulate(NFA nfa, String input) {
+        int counters = nfa.getCounterCount();
+        if (counters > 0) return this.simulateCounting(nfa, input, counters);
+
         Set<State> currenStates = new HashSet<>();
         Set<State> nextStates = new HashSet<>();
 
@@ -52,8 +64,7 @@ public class NfaSimulator {
             char currentCharacter = input.charAt(i);
             for(State state : currenStates){
                 for (Transition transition : state.transitions){
-                    if(transition.symbol == null) continue;
-                    if(transition.symbol == currentCharacter){
+                    if(transition.accepts(currentCharacter)){
                         this.addEpsilonClosure(transition.toState, nextStates);
                     }
                 }
@@ -87,8 +98,84 @@ public class NfaSimulator {
         closureSet.add(start);
 
         for (Transition transition : start.transitions)
-            if(transition.symbol == null)
+            if(transition.isEpsilon())
                 addEpsilonClosure(transition.toState, closureSet);
 
     }
-}
\ No newline at end of file
+
+    /**
+     * A state of a counting automaton together with the values of all counters.
+     */
+    private static final class Configuration {
+        final State state;
+        final int[] counters;
+
+        Configuration(State state, int[] counters) {
+            this.state = state;
+            this.counters = counters;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Configuration)) return false;
+            Configuration other = (Configuration) o;
+            return this.state == other.state && Arrays.equals(this.counters, other.counters);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.state) + Arrays.hashCode(this.counters);
+        }
+    }
+
+    /**
+     * Simulates an automaton with counters over sets of configurations.
+     */
+    private boolean simulateCounting(NFA nfa, String input, int counters) {
+        /*
+         Pseudocode:
+         1. Start from the closure of (start state, all counters 0)
+         2. For each character: step every configuration, keeping its counters, then take the closure
+         3. Accept if any configuration is in a final state
+        */
+        Set<Configuration> current = new HashSet<>();
+        this.addCountingClosure(new Configuration(nfa.startState, new int[counters]), current);
+        for (int i = 0; i < input.length() && !current.isEmpty(); i++) {
+            char c = input.charAt(i);
+            Set<Configuration> next = new HashSet<>();
+            for (Configuration configuration : current)
+                for (Transition transition : configuration.state.transitions)
+                    if (transition.accepts(c))
+                        this.addCountingClosure(new Configuration(transition.toState, configuration.counters), next);
+            current = next;
+        }
+        for (Configuration configuration : current)
+            if (configuration.state.isFinal()) return true;
+        return false;
+    }
+
+    /**
+     * Adds every configuration reachable by epsilon transitions, applying counter operations and
+     * skipping transitions whose counter guard fails.
+     */
+    private void addCountingClosure(Configuration start, Set<Configuration> closureSet) {
+        Deque<Configuration> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Configuration configuration = stack.pop();
+            if (!closureSet.add(configuration)) continue;
+            for (Transition transition : configuration.state.transitions) {
+                if (!transition.isEpsilon()) continue;
+                int[] values = configuration.counters;
+                if (transition.counter != null) {
+                    Counter counter = transition.counter;
+                    int value = counter.apply(transition.counterOp, values[counter.id]);
+                    if (value < 0) continue;
+                    values = values.clone();
+                    values[counter.id] = value;
+                }
+                stack.push(new Configuration(transition.toState, values));
+            }
+        }
+    }
+}
@@ -1,18 +1,39 @@
 package com.compiler.lexer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.Stack;
 
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
 import com.compiler.lexer.dfa.DFA;
 import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
 import com.compiler.lexer.nfa.NFA;
 import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.nfa.Transition;
+import com.compiler.lexer.regex.RegexParser;
 
 /**
  * NfaToDfaConverter
  * -----------------
  * This class provides a static method to convert a Non-deterministic Finite Automaton (NFA)
  * into a Deterministic Finite Automaton (DFA) using the standard subset construction algorithm.
+ * <p>
+ * Transitions are range labelled: for each DFA state, the labels leaving its NFA states are split
+ * into disjoint elementary intervals and the subset construction is run once per interval instead
+ * of once per character, so wide classes such as {@code [^"]} or {@code .} cost the same as a
+ * single character.
+ * <p>
+ * The construction can be given a {@link ConstructionBudget}. When it is exceeded the construction
+ * stops and the states it has not expanded are answered by NFA simulation (see {@link HybridMatcher}),
+ * so a pattern with an exponential DFA costs bounded time and memory to compile.
  */
 /**
  * Utility class for converting NFAs to DFAs using the subset construction algorithm.
@@ -34,19 +55,155 @@ public class NfaToDfaConverter {
 	 * @return The resulting DFA
 	 */
 	public static DFA convertNfaToDfa(NFA nfa, Set<Character> alphabet) {
-		// TODO: Implement convertNfaToDfa
+		return convertNfaToDfa(nfa, CharClass.of(alphabet));
+	}
+
+	/**
+	 * Converts an NFA to a DFA over every character used by the NFA's transitions.
+	 *
+	 * @param nfa The input NFA
+	 * @return The resulting DFA
+	 */
+	public static DFA convertNfaToDfa(NFA nfa) {
+		return convertNfaToDfa(nfa, CharClass.any());
+	}
+
+	/**
+	 * Converts an NFA to a DFA, restricting transitions to the given alphabet.
+	 * Counters cannot be determinized, so an NFA with counters is parsed again from its source
+	 * with {@link RegexParser#unrolling()}, which unrolls every repetition it can.
+	 *
+	 * @param nfa The input NFA
+	 * @param alphabet The input alphabet as a character class
+	 * @return The resulting DFA
+	 * @throws IllegalArgumentException if the NFA uses counters that cannot be unrolled: it has no
+	 *         source pattern, or a repetition is still too large for the unrolling parser
+	 */
+	public static DFA convertNfaToDfa(NFA nfa, CharClass alphabet) {
+		NFA unrolled = nfa;
+		if (unrolled.getCounterCount() > 0 && unrolled.getSource() != null)
+			unrolled = RegexParser.unrolling().parse(unrolled.getSource());
+		if (unrolled.getCounterCount() > 0)
+			throw new IllegalArgumentException("NFA with counters cannot be determinized; run it with NfaSimulator");
+		return convertNfaToDfa(unrolled, alphabet, ConstructionBudget.unlimited()).getDfa();
+	}
+
+	/**
+	 * Converts an NFA to a DFA within a budget.
+	 *
+	 * @param nfa The input NFA
+	 * @param budget The limits on states, bytes and time
+	 * @return A matcher over the (possibly partial) DFA
+	 */
+	public static HybridMatcher convertNfaToDfa(NFA nfa, ConstructionBudget budget) {
+		return convertNfaToDfa(nfa, CharClass.any(), budget);
+	}
+
+	/**
+	 * Converts an NFA to a DFA within a budget, restricting transitions to the given alphabet.
+	 * If a limit is exceeded, the state being expanded and every state not yet expanded become
+	 * frontier states of the returned matcher. An NFA with counters is not determinized at all:
+	 * the matcher runs it with {@link NfaSimulator}.
+	 *
+	 * @param nfa The input NFA
+	 * @param alphabet The input alphabet as a character class
+	 * @param budget The limits on states, bytes and time
+	 * @return A matcher over the (possibly partial) DFA
+	 */
+	public static HybridMatcher convertNfaToDfa(NFA nfa, CharClass alphabet, ConstructionBudget budget) {
+		if (nfa.getCounterCount() > 0) return HybridMatcher.counting(nfa, alphabet);
+		return BuildContext.build(() -> subsetConstruction(nfa, alphabet, budget.new Meter()));
+	}
+
+	/**
+	 * Runs the subset construction in the current build context.
+	 */
+	private static HybridMatcher subsetConstruction(NFA nfa, CharClass alphabet, ConstructionBudget.Meter meter) {
 		/*
 		 Pseudocode:
 		 1. Create initial DFA state from epsilon-closure of NFA start state
 		 2. While there are unmarked DFA states:
-			  - For each symbol in alphabet:
+			  - Split the labels leaving the current DFA state into disjoint intervals
+			  - For each interval:
 				  - Compute move and epsilon-closure for current DFA state
 				  - If target set is new, create new DFA state and add to list/queue
 				  - Add transition from current to target DFA state
+				  - If the budget is exceeded, stop: current and unmarked states become the frontier
 		 3. Mark DFA states as final if any NFA state in their set is final
 		 4. Return DFA with start state and all DFA states
 		*/
-		throw new UnsupportedOperationException("Not implemented");
+		List<DfaState> dfaStates = new ArrayList<>();
+		Map<Set<State>, DfaState> index = new HashMap<>();
+		Queue<DfaState> unmarked = new LinkedList<>();
+
+		Set<State> startSet = new HashSet<>();
+		startSet.add(nfa.startState);
+		DfaState start = createDfaState(epsilonClosure(startSet), dfaStates, index);
+		meter.chargeState(start.nfaStates.size());
+		unmarked.add(start);
+
+		List<DfaState> frontier = new ArrayList<>();
+		ConstructionBudget.Limit exhausted = meter.exceeded();
+		while (exhausted == null && !unmarked.isEmpty()) {
+			DfaState current = unmarked.poll();
+			for (CharRange interval : intervals(current.nfaStates, alphabet)) {
+				Set<State> target = epsilonClosure(move(current.nfaStates, interval.low));
+				if (target.isEmpty()) continue;
+
+				DfaState next = findDfaState(index, target);
+				if (next == null) {
+					next = createDfaState(target, dfaStates, index);
+					meter.chargeState(target.size());
+					unmarked.add(next);
+				}
+				current.addTransition(interval, next);
+				meter.chargeTransition();
+				if ((exhausted = meter.exceeded()) != null) {
+					frontier.add(current);
+					break;
+				}
+			}
+		}
+		frontier.addAll(unmarked);
+		return new HybridMatcher(new DFA(start, dfaStates), frontier, alphabet, exhausted, meter.bytes());
+	}
+
+	/**
+	 * Registers a new DFA state for a set of NFA states and marks it final if any member is final.
+	 */
+	private static DfaState createDfaState(Set<State> nfaStates, List<DfaState> dfaStates, Map<Set<State>, DfaState> index) {
+		DfaState state = new DfaState(nfaStates);
+		for (State s : nfaStates) {
+			if (s.isFinal()) {
+				state.setFinal(true);
+				break;
+			}
+		}
+		dfaStates.add(state);
+		index.put(state.nfaStates, state);
+		return state;
+	}
+
+	/**
+	 * Splits the labels of all transitions leaving a set of NFA states into disjoint
+	 * elementary intervals, restricted to the alphabet. Within one interval every
+	 * transition either matches all characters or none, so its lowest character
+	 * can stand in for the whole interval.
+	 *
+	 * @param states The set of NFA states.
+	 * @param alphabet The allowed characters.
+	 * @return The disjoint intervals, sorted.
+	 */
+	static List<CharRange> intervals(Set<State> states, CharClass alphabet) {
+		Set<CharClass> labels = new HashSet<>();
+		for (State state : states)
+			for (Transition transition : state.transitions)
+				if (!transition.isEpsilon()) labels.add(transition.label);
+
+		List<CharRange> ranges = new ArrayList<>();
+		for (CharClass label : labels)
+			ranges.addAll(label.intersect(alphabet).getRanges());
+		return CharRange.split(ranges);
 	}
 
 	/**
@@ -56,8 +213,7 @@ public class NfaToDfaConverter {
 	 * @param states The set of NFA states.
 	 * @return The epsilon-closure of the input states.
 	 */
-	private static Set<State> epsilonClosure(Set<State> states) {
-	// TODO: Implement epsilonClosure
+	static Set<State> epsilonClosure(Set<State> states) {
 	/*
 	 Pseudocode:
 	 1. Initialize closure with input states
@@ -65,7 +221,16 @@ public class NfaToDfaConverter {
 	 3. For each state, add all reachable states via epsilon transitions
 	 4. Return closure set
 	*/
-	throw new UnsupportedOperationException("Not implemented");
+	Set<State> closure = new HashSet<>(states);
+	Stack<State> stack = new Stack<>();
+	stack.addAll(states);
+	while (!stack.isEmpty()) {
+		State state = stack.pop();
+		for (Transition transition : state.transitions)
+			if (transition.isEpsilon() && closure.add(transition.toState))
+				stack.push(transition.toState);
+	}
+	return closure;
 	}
 
 	/**
@@ -75,8 +240,7 @@ public class NfaToDfaConverter {
 	 * @param symbol The input symbol.
 	 * @return The set of reachable states.
 	 */
-	private static Set<State> move(Set<State> states, char symbol) {
-		// TODO: Implement move
+	static Set<State> move(Set<State> states, char symbol) {
 		/*
 		 Pseudocode:
 		 1. For each state in input set:
@@ -84,24 +248,26 @@ public class NfaToDfaConverter {
 				  - Add destination state to result set
 		 2. Return result set
 		*/
-		throw new UnsupportedOperationException("Not implemented");
+		Set<State> result = new HashSet<>();
+		for (State state : states)
+			for (Transition transition : state.transitions)
+				if (transition.accepts(symbol)) result.add(transition.toState);
+		return result;
 	}
 
 	/**
 	 * Finds an existing DFA state representing a given set of NFA states.
 	 *
-	 * @param dfaStates The list of DFA states.
+	 * @param index The DFA states, keyed by the set of NFA states they represent.
 	 * @param targetNfaStates The set of NFA states to search for.
 	 * @return The matching DFA state, or null if not found.
 	 */
-	private static DfaState findDfaState(List<DfaState> dfaStates, Set<State> targetNfaStates) {
-	   // TODO: Implement findDfaState
+	private static DfaState findDfaState(Map<Set<State>, DfaState> index, Set<State> targetNfaStates) {
 	   /*
 	    Pseudocode:
-	    1. For each DFA state in list:
-		    - If its NFA state set equals target set, return DFA state
+	    1. Look up the set of NFA states in the index (constant time instead of a list scan)
 	    2. If not found, return null
 	   */
-	   throw new UnsupportedOperationException("Not implemented");
+	   return index.get(targetNfaStates);
 	}
 }
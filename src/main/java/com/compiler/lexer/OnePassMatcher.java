@@ -0,0 +1,215 @@
+package com.compiler.lexer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.nfa.Transition;
+
+/**
+ * OnePassMatcher
+ * --------------
+ * A DFA that extracts captures directly, for "one-pass" patterns: those where, at every point of
+ * the input, the next character determines the single NFA path that can continue, including the
+ * capture tags crossed on the way. {@code ([a-z]+)@([a-z]+)} is one-pass; {@code (a*)(a*)} is not,
+ * because after an 'a' it is unknown which group it belongs to.
+ *
+ * The states of the matcher are the NFA states that are the start state or the target of a
+ * consuming transition. Each of its transitions carries the tags of the epsilon path that leads to
+ * the consuming transition, so matching is a single table walk with one slot array and no threads.
+ *
+ * Example usage:
+ * <pre>
+ *     OnePassMatcher matcher = OnePassMatcher.build(nfa); // null if the pattern is not one-pass
+ *     int[] slots = matcher.match("user@host");
+ * </pre>
+ */
+public class OnePassMatcher {
+    private static final int[] NO_TAGS = new int[0];
+
+    private final int slotCount;
+    private final char[][] lows;
+    private final char[][] highs;
+    private final int[][] targets;
+    private final int[][][] tags;
+    private final int[][] acceptTags;
+
+    private OnePassMatcher(int slotCount, char[][] lows, char[][] highs, int[][] targets, int[][][] tags, int[][] acceptTags) {
+        this.slotCount = slotCount;
+        this.lows = lows;
+        this.highs = highs;
+        this.targets = targets;
+        this.tags = tags;
+        this.acceptTags = acceptTags;
+    }
+
+    /**
+     * A consuming transition reached through an epsilon path.
+     */
+    private static final class Step {
+        final CharClass label;
+        final State target;
+        final int[] tags;
+
+        Step(CharClass label, State target, int[] tags) {
+            this.label = label;
+            this.target = target;
+            this.tags = tags;
+        }
+    }
+
+    /**
+     * Builds a one-pass matcher for an NFA.
+     * @param nfa The NFA, whose tagged epsilon transitions mark capture groups.
+     * @return The matcher, or null if the NFA is not one-pass or uses counters.
+     */
+    public static OnePassMatcher build(NFA nfa) {
+        if (nfa.getCounterCount() > 0) return null;
+        /*
+         Pseudocode:
+         1. Start from the NFA start state; for each node not yet processed:
+              - Walk its epsilon closure, recording the tags on the path to each state
+              - A state reached twice with different tags makes the NFA ambiguous
+              - Collect the consuming transitions and the tags that lead to acceptance
+              - Overlapping labels of different steps make the NFA ambiguous
+              - Enqueue the targets of the steps as new nodes
+         2. Lay out each node's steps as sorted, disjoint ranges
+        */
+        Map<State, Integer> nodes = new IdentityHashMap<>();
+        List<List<Step>> steps = new ArrayList<>();
+        List<int[]> accepts = new ArrayList<>();
+        Deque<State> pending = new ArrayDeque<>();
+        nodes.put(nfa.startState, 0);
+        pending.add(nfa.startState);
+        int maxTag = 1;
+
+        List<State> order = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            State node = pending.poll();
+            order.add(node);
+            List<Step> nodeSteps = new ArrayList<>();
+            int[] accept = null;
+
+            Map<State, int[]> visited = new IdentityHashMap<>();
+            Deque<State> stack = new ArrayDeque<>();
+            Deque<int[]> stackTags = new ArrayDeque<>();
+            stack.push(node);
+            stackTags.push(NO_TAGS);
+            while (!stack.isEmpty()) {
+                State state = stack.pop();
+                int[] path = stackTags.pop();
+                int[] seen = visited.get(state);
+                if (seen != null) {
+                    if (!Arrays.equals(seen, path)) return null;
+                    continue;
+                }
+                visited.put(state, path);
+                if (state.isFinal()) {
+                    if (accept != null && !Arrays.equals(accept, path)) return null;
+                    accept = path;
+                }
+                for (Transition transition : state.transitions) {
+                    if (!transition.isEpsilon()) {
+                        nodeSteps.add(new Step(transition.label, transition.toState, path));
+                        continue;
+                    }
+                    int[] next = path;
+                    if (transition.tag >= 0) {
+                        next = Arrays.copyOf(path, path.length + 1);
+                        next[path.length] = transition.tag;
+                        maxTag = Math.max(maxTag, transition.tag);
+                    }
+                    stack.push(transition.toState);
+                    stackTags.push(next);
+                }
+            }
+
+            for (int i = 0; i < nodeSteps.size(); i++) {
+                for (int j = i + 1; j < nodeSteps.size(); j++) {
+                    Step a = nodeSteps.get(i);
+                    Step b = nodeSteps.get(j);
+                    if (a.label.intersect(b.label).isEmpty()) continue;
+                    if (a.target != b.target || !Arrays.equals(a.tags, b.tags)) return null;
+                }
+            }
+            for (Step step : nodeSteps) {
+                if (!nodes.containsKey(step.target)) {
+                    nodes.put(step.target, nodes.size());
+                    pending.add(step.target);
+                }
+            }
+            steps.add(nodeSteps);
+            accepts.add(accept);
+        }
+
+        int n = order.size();
+        char[][] lows = new char[n][];
+        char[][] highs = new char[n][];
+        int[][] targets = new int[n][];
+        int[][][] tags = new int[n][][];
+        for (int i = 0; i < n; i++) {
+            List<CharRange> ranges = new ArrayList<>();
+            for (Step step : steps.get(i)) ranges.addAll(step.label.getRanges());
+            List<CharRange> intervals = CharRange.split(ranges);
+            lows[i] = new char[intervals.size()];
+            highs[i] = new char[intervals.size()];
+            targets[i] = new int[intervals.size()];
+            tags[i] = new int[intervals.size()][];
+            for (int k = 0; k < intervals.size(); k++) {
+                CharRange interval = intervals.get(k);
+                Step step = null;
+                for (Step candidate : steps.get(i))
+                    if (candidate.label.contains(interval.low)) step = candidate;
+                lows[i][k] = interval.low;
+                highs[i][k] = interval.high;
+                targets[i][k] = nodes.get(step.target);
+                tags[i][k] = step.tags;
+            }
+        }
+        return new OnePassMatcher(Math.max((maxTag | 1) + 1, 2 * (nfa.getGroupCount() + 1)), lows, highs, targets, tags, accepts.toArray(new int[0][]));
+    }
+
+    /**
+     * Matches the whole input and extracts the capture groups.
+     * @param input The input to match.
+     * @return The slots, laid out as by {@link PikeVM#match}, or null if the input is not accepted.
+     */
+    public int[] match(String input) {
+        int[] slots = new int[this.slotCount];
+        Arrays.fill(slots, -1);
+        int node = 0;
+        for (int i = 0; i < input.length(); i++) {
+            int k = this.find(node, input.charAt(i));
+            if (k < 0) return null;
+            for (int tag : this.tags[node][k]) slots[tag] = i;
+            node = this.targets[node][k];
+        }
+        if (this.acceptTags[node] == null) return null;
+        for (int tag : this.acceptTags[node]) slots[tag] = input.length();
+        slots[0] = 0;
+        slots[1] = input.length();
+        return slots;
+    }
+
+    private int find(int node, char c) {
+        char[] low = this.lows[node];
+        char[] high = this.highs[node];
+        int lo = 0;
+        int hi = low.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (c < low[mid]) hi = mid - 1;
+            else if (c > high[mid]) lo = mid + 1;
+            else return mid;
+        }
+        return -1;
+    }
+}
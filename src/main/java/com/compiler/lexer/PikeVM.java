@@ -0,0 +1,245 @@
+package com.compiler.lexer;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.nfa.Transition;
+
+/**
+ * PikeVM
+ * ------
+ * Extracts capture groups by simulating an NFA built by {@link com.compiler.lexer.regex.RegexParser}
+ * in lockstep, as {@link NfaSimulator} does, while every thread carries its own capture slots.
+ * At most one thread per NFA state survives each step, and when two threads meet the one with
+ * higher priority (earlier in epsilon transition order) wins, so captures follow leftmost-first
+ * semantics: left alternatives and longer loops are preferred.
+ *
+ * Matching takes O(n·m) time for an input of length n and an NFA of m states; nothing is ever
+ * retried. Slot arrays are taken from a pool that lives for the duration of one match, so a
+ * match allocates a bounded number of arrays no matter how long the input is.
+ *
+ * Example usage:
+ * <pre>
+ *     PikeVM vm = new PikeVM(new RegexParser().parse("([a-z]+)@([a-z]+)"));
+ *     int[] slots = vm.match("user@host"); // {0, 9, 0, 4, 5, 9}
+ * </pre>
+ */
+public class PikeVM {
+    private final int start;
+    private final int slotCount;
+    private final boolean[] accepting;
+    private final CharClass[][] labels;
+    private final int[][] targets;
+    private final int[][] epsilonTargets;
+    private final int[][] epsilonTags;
+
+    /**
+     * Compiles an NFA into arrays indexed by state.
+     * @param nfa The NFA, whose tagged epsilon transitions mark capture groups.
+     * @throws IllegalArgumentException if the NFA uses counters
+     */
+    public PikeVM(NFA nfa) {
+        if (nfa.getCounterCount() > 0)
+            throw new IllegalArgumentException("NFA with counters is not supported by the Pike VM");
+        List<State> states = nfa.getStates();
+        Map<State, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < states.size(); i++) index.put(states.get(i), i);
+
+        int n = states.size();
+        int maxTag = 1;
+        this.accepting = new boolean[n];
+        this.labels = new CharClass[n][];
+        this.targets = new int[n][];
+        this.epsilonTargets = new int[n][];
+        this.epsilonTags = new int[n][];
+        for (int i = 0; i < n; i++) {
+            State state = states.get(i);
+            this.accepting[i] = state.isFinal();
+            int consuming = 0;
+            for (Transition transition : state.transitions)
+                if (!transition.isEpsilon()) consuming++;
+            this.labels[i] = new CharClass[consuming];
+            this.targets[i] = new int[consuming];
+            this.epsilonTargets[i] = new int[state.transitions.size() - consuming];
+            this.epsilonTags[i] = new int[state.transitions.size() - consuming];
+            int c = 0;
+            int e = 0;
+            for (Transition transition : state.transitions) {
+                if (transition.isEpsilon()) {
+                    this.epsilonTargets[i][e] = index.get(transition.toState);
+                    this.epsilonTags[i][e++] = transition.tag;
+                    maxTag = Math.max(maxTag, transition.tag);
+                } else {
+                    this.labels[i][c] = transition.label;
+                    this.targets[i][c++] = index.get(transition.toState);
+                }
+            }
+        }
+        this.start = 0;
+        // Groups dropped during construction have no tags left but still get slots, which stay -1
+        this.slotCount = Math.max((maxTag | 1) + 1, 2 * (nfa.getGroupCount() + 1));
+    }
+
+    /**
+     * Returns the number of capture groups, not counting group 0 (the whole match).
+     * @return The number of groups.
+     */
+    public int groupCount() {
+        return this.slotCount / 2 - 1;
+    }
+
+    /**
+     * Matches the whole input and extracts the capture groups.
+     * @param input The input to match.
+     * @return The slots (start and end offsets of group k at 2k and 2k+1, -1 if the group did
+     *         not participate), or null if the input is not accepted.
+     */
+    public int[] match(String input) {
+        /*
+         Pseudocode:
+         1. Add the start thread (following epsilons, recording tags) to the current list
+         2. For each character: step every thread, in priority order, into the next list
+         3. At the end, return the slots of the highest-priority accepting thread
+        */
+        Run run = new Run();
+        int[] initial = run.obtain();
+        Arrays.fill(initial, -1);
+        initial[0] = 0;
+        run.addThread(run.current, this.start, initial, 0);
+        run.release(initial);
+
+        for (int i = 0; i < input.length(); i++) {
+            if (run.current.size == 0) return null;
+            char c = input.charAt(i);
+            for (int t = 0; t < run.current.size; t++) {
+                int s = run.current.dense[t];
+                int[] slots = run.current.slots[t];
+                if (slots == null) continue;
+                for (int k = 0; k < this.labels[s].length; k++)
+                    if (this.labels[s][k].contains(c))
+                        run.addThread(run.next, this.targets[s][k], slots, i + 1);
+            }
+            run.swap();
+        }
+
+        for (int t = 0; t < run.current.size; t++) {
+            if (this.accepting[run.current.dense[t]]) {
+                int[] result = run.current.slots[t].clone();
+                result[1] = input.length();
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The thread lists and slot pool of one match.
+     */
+    private final class Run {
+        private ThreadList current = new ThreadList(accepting.length);
+        private ThreadList next = new ThreadList(accepting.length);
+        private final ArrayDeque<int[]> pool = new ArrayDeque<>();
+        private int[] frames = new int[48];
+
+        private int[] obtain() {
+            int[] slots = this.pool.poll();
+            return slots != null ? slots : new int[slotCount];
+        }
+
+        private void release(int[] slots) {
+            this.pool.push(slots);
+        }
+
+        private void swap() {
+            for (int t = 0; t < this.current.size; t++) {
+                if (this.current.slots[t] != null) this.release(this.current.slots[t]);
+                this.current.slots[t] = null;
+            }
+            this.current.size = 0;
+            ThreadList tmp = this.current;
+            this.current = this.next;
+            this.next = tmp;
+        }
+
+        /**
+         * Adds a thread and everything reachable from it by epsilon transitions, depth-first in
+         * priority order. Frames are (kind, a, b) triples: visit a state, visit a state after
+         * setting a slot, or restore a slot on the way back.
+         */
+        private void addThread(ThreadList list, int state, int[] slots, int position) {
+            int[] work = this.obtain();
+            System.arraycopy(slots, 0, work, 0, slotCount);
+            int top = 0;
+            top = this.push(top, 0, state, 0);
+            while (top > 0) {
+                top -= 3;
+                int kind = this.frames[top];
+                int a = this.frames[top + 1];
+                int b = this.frames[top + 2];
+                if (kind == 2) {
+                    work[a] = b;
+                    continue;
+                }
+                if (kind == 1) {
+                    top = this.push(top, 2, b, work[b]);
+                    work[b] = position;
+                }
+                if (list.contains(a)) continue;
+                int[] copy = null;
+                if (labels[a].length > 0 || accepting[a]) {
+                    copy = this.obtain();
+                    System.arraycopy(work, 0, copy, 0, slotCount);
+                }
+                list.add(a, copy);
+                for (int k = epsilonTargets[a].length - 1; k >= 0; k--) {
+                    int tag = epsilonTags[a][k];
+                    top = tag < 0
+                        ? this.push(top, 0, epsilonTargets[a][k], 0)
+                        : this.push(top, 1, epsilonTargets[a][k], tag);
+                }
+            }
+            this.release(work);
+        }
+
+        private int push(int top, int kind, int a, int b) {
+            if (top + 3 > this.frames.length) this.frames = Arrays.copyOf(this.frames, this.frames.length * 2);
+            this.frames[top] = kind;
+            this.frames[top + 1] = a;
+            this.frames[top + 2] = b;
+            return top + 3;
+        }
+    }
+
+    /**
+     * Sparse set of states in insertion (priority) order, each with its slots.
+     */
+    private static final class ThreadList {
+        private final int[] dense;
+        private final int[] sparse;
+        private final int[][] slots;
+        private int size;
+
+        ThreadList(int capacity) {
+            this.dense = new int[capacity];
+            this.sparse = new int[capacity];
+            this.slots = new int[capacity][];
+        }
+
+        boolean contains(int state) {
+            int i = this.sparse[state];
+            return i < this.size && this.dense[i] == state;
+        }
+
+        void add(int state, int[] threadSlots) {
+            this.sparse[state] = this.size;
+            this.dense[this.size] = state;
+            this.slots[this.size++] = threadSlots;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.compiler.lexer;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+
+/**
+ * Prefilter
+ * ---------
+ * Finds matches of a DFA inside a text without running the DFA at every position. The characters
+ * that can start a match are the labels leaving the DFA's start state; a {@link CandidateScanner}
+ * jumps straight to the next such character, and only there is the DFA run (see
+ * {@link DfaSimulator#longestMatch}). When matches are rare most of the text is only scanned.
+ *
+ * The scanner uses the Vector API when the {@code jdk.incubator.vector} module is available
+ * (build and run with the {@code vector} Maven profile) and the set has at most
+ * {@value #MAX_VECTOR_RANGES} ranges; otherwise a scalar scanner is used. A DFA whose
+ * start state is final matches the empty string everywhere and is run at every position.
+ * Strings and other character sequences are read in place with the scalar scanner, so a caller
+ * looping over {@link #find(CharSequence, int)} does linear work; use the {@code char[]}
+ * overloads to benefit from the Vector API.
+ *
+ * Example usage:
+ * <pre>
+ *     Prefilter prefilter = Prefilter.of(CompilerService.compileNow("ERROR [0-9]+"));
+ *     int[] match = prefilter.find(text, 0); // {start, end} or null
+ * </pre>
+ */
+public class Prefilter {
+    /**
+     * Sets with more ranges than this are scanned with the scalar bitmap instead of the Vector API.
+     */
+    static final int MAX_VECTOR_RANGES = 4;
+
+    private final DFA dfa;
+    private final CharClass firstChars;
+    private final CandidateScanner scanner;
+    private final ScalarCandidateScanner sequenceScanner;
+    private final DfaSimulator simulator = new DfaSimulator();
+
+    private Prefilter(DFA dfa, CharClass firstChars, CandidateScanner scanner) {
+        this.dfa = dfa;
+        this.firstChars = firstChars;
+        this.scanner = scanner;
+        this.sequenceScanner = scanner instanceof ScalarCandidateScanner
+            ? (ScalarCandidateScanner) scanner
+            : new ScalarCandidateScanner(firstChars);
+    }
+
+    /**
+     * Creates a prefilter, vectorized if possible.
+     * @param dfa The DFA to search with.
+     * @return The prefilter.
+     */
+    public static Prefilter of(DFA dfa) {
+        return of(dfa, true);
+    }
+
+    /**
+     * Creates a prefilter.
+     * @param dfa The DFA to search with.
+     * @param allowVector Whether the Vector API may be used.
+     * @return The prefilter.
+     */
+    public static Prefilter of(DFA dfa, boolean allowVector) {
+        CharClass first = dfa.startState.isFinal() ? CharClass.any() : firstChars(dfa);
+        CandidateScanner scanner = null;
+        if (allowVector && first.getRanges().size() <= MAX_VECTOR_RANGES && !first.isEmpty())
+            scanner = vectorScanner(first);
+        if (scanner == null) scanner = new ScalarCandidateScanner(first);
+        return new Prefilter(dfa, first, scanner);
+    }
+
+    private static CharClass firstChars(DFA dfa) {
+        List<CharRange> ranges = new ArrayList<>(dfa.startState.transitions.keySet());
+        return CharClass.of(ranges);
+    }
+
+    /**
+     * Loads the vector scanner if the incubator module is present.
+     */
+    private static CandidateScanner vectorScanner(CharClass first) {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return (CandidateScanner) Class.forName("com.compiler.lexer.VectorCandidateScanner")
+                .getDeclaredConstructor(CharClass.class).newInstance(first);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the characters that can start a match.
+     * @return The first-character set.
+     */
+    public CharClass getFirstChars() {
+        return this.firstChars;
+    }
+
+    /**
+     * Checks whether candidates are scanned with the Vector API.
+     * @return true if the vector scanner is in use.
+     */
+    public boolean isVectorized() {
+        return !(this.scanner instanceof ScalarCandidateScanner);
+    }
+
+    /**
+     * Finds the leftmost match, taking the longest match at that position.
+     * @param text The text.
+     * @param from The first position where a match may start.
+     * @return {start, end} of the match, or null if there is none.
+     */
+    public int[] find(char[] text, int from) {
+        CharSequence sequence = CharBuffer.wrap(text);
+        for (int i = this.scanner.next(text, from, text.length); i < text.length; i = this.scanner.next(text, i + 1, text.length)) {
+            int end = this.simulator.longestMatch(this.dfa, sequence, i);
+            if (end >= 0) return new int[] {i, end};
+        }
+        if (this.dfa.startState.isFinal() && from <= text.length) return new int[] {text.length, text.length};
+        return null;
+    }
+
+    /**
+     * Finds the leftmost match in a string or other character sequence, without copying it.
+     * @param text The text.
+     * @param from The first position where a match may start.
+     * @return {start, end} of the match, or null if there is none.
+     */
+    public int[] find(CharSequence text, int from) {
+        int length = text.length();
+        for (int i = this.sequenceScanner.next(text, from, length); i < length; i = this.sequenceScanner.next(text, i + 1, length)) {
+            int end = this.simulator.longestMatch(this.dfa, text, i);
+            if (end >= 0) return new int[] {i, end};
+        }
+        if (this.dfa.startState.isFinal() && from <= length) return new int[] {length, length};
+        return null;
+    }
+
+    /**
+     * Counts the non-overlapping matches in a text.
+     * @param text The text.
+     * @return The number of matches.
+     */
+    public int count(char[] text) {
+        int count = 0;
+        for (int[] match = this.find(text, 0); match != null; ) {
+            count++;
+            int next = Math.max(match[1], match[0] + 1);
+            if (next > text.length) break;
+            match = this.find(text, next);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,154 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.AcceptSet;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.regex.RegexOptimizer;
+import com.compiler.lexer.regex.RegexParser;
+
+/**
+ * RegexSet
+ * --------
+ * Matches an input against many patterns at once and reports every pattern that matches it
+ * (as a whole, like {@link DfaSimulator#simulate}), with a single pass of one DFA instead of one
+ * simulation per pattern.
+ *
+ * The patterns are parsed into one union NFA whose start state has an epsilon transition to each
+ * pattern's fragment. After subset construction, every DFA state gets the set of pattern ids
+ * whose final NFA states it contains, as an {@link AcceptSet} interned so that states accepting
+ * the same patterns share one instance. {@link DfaMinimizer} only merges states with the same
+ * accept set, so minimization keeps the answer of every state.
+ *
+ * Example usage:
+ * <pre>
+ *     RegexSet set = RegexSet.compile(List.of("[a-z]+", "[a-z]+[0-9]*", "abc"));
+ *     AcceptSet ids = set.matches("abc"); // [0, 1, 2]
+ * </pre>
+ */
+public class RegexSet {
+    private final DFA dfa;
+    private final int patternCount;
+    private final int acceptSetCount;
+
+    private RegexSet(DFA dfa, int patternCount, int acceptSetCount) {
+        this.dfa = dfa;
+        this.patternCount = patternCount;
+        this.acceptSetCount = acceptSetCount;
+    }
+
+    /**
+     * Compiles a list of patterns.
+     * @param patterns The regular expressions; pattern ids are their indices.
+     * @return The compiled set.
+     */
+    public static RegexSet compile(List<String> patterns) {
+        Map<State, Integer> finals = new IdentityHashMap<>();
+        NFA union = BuildContext.build(() -> {
+            RegexParser parser = RegexParser.unrolling();
+            State start = new State();
+            for (int i = 0; i < patterns.size(); i++) {
+                NFA nfa = parser.parse(RegexOptimizer.optimize(patterns.get(i)).regex);
+                start.addTransition(null, nfa.startState);
+                finals.put(nfa.endState, i);
+            }
+            return new NFA(start, null);
+        });
+        DFA subsets = NfaToDfaConverter.convertNfaToDfa(union);
+
+        Map<AcceptSet, AcceptSet> interned = new HashMap<>();
+        DFA labelled = BuildContext.build(() -> {
+            // Copy the finished DFA, attaching the accept set of every state
+            Map<DfaState, DfaState> copy = new IdentityHashMap<>();
+            List<DfaState> states = new ArrayList<>();
+            for (DfaState state : subsets.allStates) {
+                BitSet ids = new BitSet();
+                for (State nfaState : state.nfaStates) {
+                    Integer id = finals.get(nfaState);
+                    if (id != null) ids.set(id);
+                }
+                DfaState labelledState = new DfaState(state.nfaStates);
+                labelledState.setFinal(state.isFinal());
+                labelledState.setAcceptSet(interned.computeIfAbsent(AcceptSet.of(ids), set -> set));
+                copy.put(state, labelledState);
+                states.add(labelledState);
+            }
+            for (DfaState state : subsets.allStates) {
+                for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet())
+                    copy.get(state).addTransition(transition.getKey(), copy.get(transition.getValue()));
+            }
+            return new DFA(copy.get(subsets.startState), states);
+        });
+        return new RegexSet(DfaMinimizer.minimizeDfa(labelled), patterns.size(), interned.size());
+    }
+
+    /**
+     * Returns the patterns that match a whole input.
+     * @param input The input.
+     * @return The ids of the matching patterns; the shared set of the final DFA state, or
+     *         {@link AcceptSet#EMPTY} if no pattern matches.
+     */
+    public AcceptSet matches(CharSequence input) {
+        DfaState currentState = this.dfa.startState;
+        for (int i = 0; i < input.length(); i++) {
+            switch (currentState.getKind()) {
+                case DEAD:
+                    return AcceptSet.EMPTY;
+                case ACCELERABLE:
+                    // The state loops on everything but its escapes, so its accept set is kept
+                    i = currentState.nextEscape(input, i);
+                    if (i == input.length()) return currentState.getAcceptSet();
+                    break;
+                default:
+                    // ACCEPT_FOREVER only says some pattern keeps matching, not which ones
+                    break;
+            }
+            currentState = currentState.getTransition(input.charAt(i));
+            if (currentState == null) return AcceptSet.EMPTY;
+        }
+        return currentState.getAcceptSet();
+    }
+
+    /**
+     * Checks whether at least one pattern matches a whole input.
+     * @param input The input.
+     * @return True if some pattern matches.
+     */
+    public boolean matchesAny(CharSequence input) {
+        return !this.matches(input).isEmpty();
+    }
+
+    /**
+     * Returns the number of patterns.
+     * @return The pattern count.
+     */
+    public int getPatternCount() {
+        return this.patternCount;
+    }
+
+    /**
+     * Returns the number of distinct accept sets, including the empty one.
+     * @return The number of interned sets.
+     */
+    public int getAcceptSetCount() {
+        return this.acceptSetCount;
+    }
+
+    /**
+     * Returns the minimized DFA; every state carries its accept set.
+     * @return The DFA.
+     */
+    public DFA getDfa() {
+        return this.dfa;
+    }
+}
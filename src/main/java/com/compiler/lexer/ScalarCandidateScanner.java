@@ -0,0 +1,66 @@
+package com.compiler.lexer;
+
+import java.util.List;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+
+/**
+ * Scalar candidate scanner. A set that is a single range is tested with one unsigned comparison;
+ * any other set is looked up in a 64K-bit bitmap.
+ */
+class ScalarCandidateScanner implements CandidateScanner {
+    private final char low;
+    private final int width;
+    private final long[] bitmap;
+
+    ScalarCandidateScanner(CharClass set) {
+        List<CharRange> ranges = set.getRanges();
+        if (ranges.size() == 1) {
+            this.low = ranges.get(0).low;
+            this.width = ranges.get(0).high - ranges.get(0).low;
+            this.bitmap = null;
+        } else {
+            this.low = 0;
+            this.width = -1;
+            this.bitmap = new long[1 << 10];
+            for (CharRange range : ranges)
+                for (int c = range.low; c <= range.high; c++) this.bitmap[c >>> 6] |= 1L << c;
+        }
+    }
+
+    @Override
+    public int next(char[] text, int from, int to) {
+        if (this.bitmap == null) {
+            for (int i = from; i < to; i++)
+                if ((char) (text[i] - this.low) <= this.width) return i;
+            return to;
+        }
+        for (int i = from; i < to; i++) {
+            char c = text[i];
+            if ((this.bitmap[c >>> 6] & (1L << c)) != 0) return i;
+        }
+        return to;
+    }
+
+    /**
+     * Returns the first position at or after {@code from} holding a candidate character, reading
+     * the text in place.
+     * @param text The text.
+     * @param from The first position to examine.
+     * @param to The end of the region to examine (exclusive).
+     * @return The candidate position, or {@code to} if there is none.
+     */
+    int next(CharSequence text, int from, int to) {
+        if (this.bitmap == null) {
+            for (int i = from; i < to; i++)
+                if ((char) (text.charAt(i) - this.low) <= this.width) return i;
+            return to;
+        }
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if ((this.bitmap[c >>> 6] & (1L << c)) != 0) return i;
+        }
+        return to;
+    }
+}
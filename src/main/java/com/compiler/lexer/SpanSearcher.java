@@ -0,0 +1,140 @@
+package com.compiler.lexer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.regex.RegexParser;
+
+/**
+ * SpanSearcher
+ * ------------
+ * Finds leftmost-longest matches of a pattern inside a text in linear time, with exact spans.
+ * Running the forward DFA from every candidate start is quadratic; instead the pattern is also
+ * compiled backward:
+ * - The reverse DFA accepts {@code Σ* rev(r)}. Read from the end of the text towards the front,
+ *   it is in a final state after reading position {@code i} exactly when a match of {@code r}
+ *   starts at {@code i}, so one backward pass finds every match start.
+ * - The forward DFA of {@code r}, run from the leftmost start, gives the longest match end.
+ *
+ * Reading backward first is what makes the spans exact: a forward scan finds the first position
+ * where some match ends, but the leftmost match may start earlier and end later (for
+ * {@code abcd|c} on "abcd", "c" ends first). Both DFAs are determinized with
+ * {@link NfaToDfaConverter} and minimized with {@link DfaMinimizer}, and the backward pass stops
+ * early in dead or accept-forever states.
+ *
+ * Example usage:
+ * <pre>
+ *     SpanSearcher searcher = SpanSearcher.compile("[0-9]+(\\.[0-9]+)?");
+ *     int[] span = searcher.find(text, 0); // {start, end} or null
+ * </pre>
+ */
+public class SpanSearcher {
+    private final DFA forward;
+    private final DFA reverse;
+    private final DfaSimulator simulator = new DfaSimulator();
+
+    private SpanSearcher(DFA forward, DFA reverse) {
+        this.forward = forward;
+        this.reverse = reverse;
+    }
+
+    /**
+     * Compiles a pattern in both directions.
+     * @param regex The regular expression.
+     * @return The searcher.
+     * @throws IllegalArgumentException if the pattern uses counters (large bounded repetitions).
+     */
+    public static SpanSearcher compile(String regex) {
+        NFA nfa = RegexParser.unrolling().parse(regex);
+        DFA forward = DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(nfa));
+        NFA reversed = BuildContext.build(() -> {
+            NFA back = nfa.reverse();
+            State start = new State();
+            start.addClassTransition(CharClass.any(), start);
+            start.addClassTransition(null, back.startState);
+            return new NFA(start, back.endState);
+        });
+        DFA reverse = DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(reversed));
+        return new SpanSearcher(forward, reverse);
+    }
+
+    /**
+     * Returns the DFA of the pattern.
+     * @return The minimized forward DFA.
+     */
+    public DFA getForwardDfa() {
+        return this.forward;
+    }
+
+    /**
+     * Returns the DFA that recognizes match starts backward.
+     * @return The minimized DFA of {@code Σ* rev(r)}.
+     */
+    public DFA getReverseDfa() {
+        return this.reverse;
+    }
+
+    /**
+     * Finds the leftmost-longest match.
+     * @param text The text.
+     * @param from The first position where a match may start.
+     * @return {start, end} of the match, or null if there is none.
+     */
+    public int[] find(CharSequence text, int from) {
+        int start = this.starts(text, from).nextSetBit(from);
+        if (start < 0) return null;
+        return new int[] {start, this.simulator.longestMatch(this.forward, text, start)};
+    }
+
+    /**
+     * Finds all non-overlapping leftmost-longest matches, with a single backward pass.
+     * After an empty match the search resumes one character later.
+     * @param text The text.
+     * @return The {start, end} spans, in order.
+     */
+    public List<int[]> findAll(CharSequence text) {
+        List<int[]> spans = new ArrayList<>();
+        BitSet starts = this.starts(text, 0);
+        for (int start = starts.nextSetBit(0); start >= 0; ) {
+            int end = this.simulator.longestMatch(this.forward, text, start);
+            spans.add(new int[] {start, end});
+            start = starts.nextSetBit(end > start ? end : start + 1);
+        }
+        return spans;
+    }
+
+    /**
+     * Runs the reverse DFA from the end of the text down to {@code from} and marks every
+     * position where a match starts.
+     */
+    private BitSet starts(CharSequence text, int from) {
+        /*
+         Pseudocode:
+         1. Start in the reverse start state at the end of the text (final if r accepts ε)
+         2. For each position i from the end down to from: take the transition on text[i];
+            if the state is final, a match starts at i
+         3. In a dead state no further start exists; in an accept-forever state every
+            remaining position is a start
+        */
+        BitSet starts = new BitSet(text.length() + 1);
+        DfaState state = this.reverse.startState;
+        if (state.isFinal()) starts.set(text.length());
+        for (int i = text.length() - 1; i >= from; i--) {
+            state = state.getTransition(text.charAt(i));
+            if (state == null || state.getKind() == DfaState.Kind.DEAD) break;
+            if (state.getKind() == DfaState.Kind.ACCEPT_FOREVER) {
+                starts.set(from, i + 1);
+                break;
+            }
+            if (state.isFinal()) starts.set(i);
+        }
+        return starts;
+    }
+}
@@ -0,0 +1,119 @@
+package com.compiler.lexer;
+
+import java.util.function.Consumer;
+
+import com.compiler.lexer.dfa.DfaState;
+
+/**
+ * StreamingLexer
+ * --------------
+ * Tokenizes text that arrives in pieces, with the same tokens {@link Lexer#tokenize} would give
+ * for the whole text. The DFA state, the position reached and the last accepting position are
+ * carried from one piece to the next, so a piece boundary never restarts a token and the work
+ * does not depend on how the text is cut. As in {@link Lexer#tokenize}, emitting a token rewinds
+ * to its last accepting position: the lookahead read past it is stepped again as the start of the
+ * next token. Only the characters of the token being read (and that lookahead) are kept.
+ *
+ * Not thread-safe: pieces must be fed by one thread at a time.
+ *
+ * Example usage:
+ * <pre>
+ *     StreamingLexer stream = new StreamingLexer(lexer);
+ *     stream.feed("if x", events::add);
+ *     stream.feed("y then", events::add);
+ *     stream.finish(events::add);
+ * </pre>
+ */
+public class StreamingLexer {
+    private final Lexer lexer;
+    private final StringBuilder buffer = new StringBuilder();
+    // Stream offset of buffer[0]
+    private long offset;
+    // Start of the current token, position reached by the DFA, and the last accepting position,
+    // all relative to the buffer
+    private int tokenStart;
+    private int position;
+    private int lastEnd = -1;
+    private int lastRule = Token.ERROR;
+    private DfaState state;
+
+    /**
+     * Creates a streaming tokenizer.
+     * @param lexer The lexer whose rules are used.
+     */
+    public StreamingLexer(Lexer lexer) {
+        this.lexer = lexer;
+        this.state = lexer.getDfa().startState;
+    }
+
+    /**
+     * Returns the number of characters consumed so far.
+     * @return The stream offset after the last fed character.
+     */
+    public long getOffset() {
+        return this.offset + this.buffer.length();
+    }
+
+    /**
+     * Feeds the next piece of text, emitting every token that is decided by it.
+     * @param chars The next characters of the stream.
+     * @param sink Receives the tokens, in order.
+     */
+    public void feed(CharSequence chars, Consumer<TokenEvent> sink) {
+        // Drop the characters of tokens already emitted, once per piece
+        this.buffer.delete(0, this.tokenStart);
+        this.offset += this.tokenStart;
+        this.position -= this.tokenStart;
+        if (this.lastEnd >= 0) this.lastEnd -= this.tokenStart;
+        this.tokenStart = 0;
+
+        this.buffer.append(chars);
+        this.run(sink);
+    }
+
+    /**
+     * Ends the stream, emitting the remaining tokens.
+     * @param sink Receives the tokens, in order.
+     */
+    public void finish(Consumer<TokenEvent> sink) {
+        while (this.tokenStart < this.buffer.length()) {
+            this.emit(sink);
+            this.run(sink);
+        }
+    }
+
+    /**
+     * Steps the DFA through the buffered characters, emitting a token whenever the DFA stops.
+     */
+    private void run(Consumer<TokenEvent> sink) {
+        while (this.position < this.buffer.length()) {
+            DfaState next = this.state.getTransition(this.buffer.charAt(this.position));
+            if (next == null || next.getKind() == DfaState.Kind.DEAD) {
+                this.emit(sink);
+                continue;
+            }
+            this.state = next;
+            this.position++;
+            Integer rule = this.lexer.ruleOf(next);
+            if (rule != null) {
+                this.lastEnd = this.position;
+                this.lastRule = rule;
+            }
+        }
+    }
+
+    /**
+     * Emits the longest token found from the token start, or a one-character error token, and
+     * restarts the DFA after it.
+     */
+    private void emit(Consumer<TokenEvent> sink) {
+        int end = this.lastEnd > this.tokenStart ? this.lastEnd : this.tokenStart + 1;
+        int rule = this.lastEnd > this.tokenStart ? this.lastRule : Token.ERROR;
+        sink.accept(new TokenEvent(rule, this.offset + this.tokenStart, this.offset + end, this.buffer.substring(this.tokenStart, end)));
+        this.tokenStart = end;
+        this.position = end;
+        this.lastEnd = -1;
+        this.lastRule = Token.ERROR;
+        this.state = this.lexer.getDfa().startState;
+    }
+}
@@ -0,0 +1,66 @@
+package com.compiler.lexer;
+
+/**
+ * A token produced by a {@link Lexer}: the rule that matched and the span it covers.
+ * Characters that no rule matches become one-character tokens of rule {@link #ERROR}.
+ */
+public final class Token {
+    /**
+     * The rule of a character that no rule matches.
+     */
+    public static final int ERROR = -1;
+
+    /**
+     * The index of the rule that matched, or {@link #ERROR}.
+     */
+    public final int rule;
+
+    /**
+     * The position of the first character.
+     */
+    public final int start;
+
+    /**
+     * The position after the last character.
+     */
+    public final int end;
+
+    /**
+     * Creates a token.
+     * @param rule The index of the rule that matched, or {@link #ERROR}.
+     * @param start The position of the first character.
+     * @param end The position after the last character.
+     */
+    public Token(int rule, int start, int end) {
+        this.rule = rule;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the text of this token.
+     * @param source The text the token was read from.
+     * @return The characters of the token.
+     */
+    public String text(CharSequence source) {
+        return source.subSequence(this.start, this.end).toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Token)) return false;
+        Token other = (Token) obj;
+        return this.rule == other.rule && this.start == other.start && this.end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return (this.rule * 31 + this.start) * 31 + this.end;
+    }
+
+    @Override
+    public String toString() {
+        return (this.rule == ERROR ? "error" : "rule " + this.rule) + " [" + this.start + ", " + this.end + ")";
+    }
+}
@@ -0,0 +1,60 @@
+package com.compiler.lexer;
+
+import java.util.List;
+
+/**
+ * The change to a token stream made by one edit (see {@link IncrementalLexer#edit}): the tokens
+ * from {@link #getIndex()} on that were replaced, in the coordinates before the edit, and the
+ * tokens that replace them, in the coordinates after it. All other tokens are unchanged apart
+ * from being shifted by the length difference of the edit.
+ */
+public final class TokenDelta {
+    private final int index;
+    private final List<Token> removed;
+    private final List<Token> inserted;
+    private final int relexedChars;
+
+    TokenDelta(int index, List<Token> removed, List<Token> inserted, int relexedChars) {
+        this.index = index;
+        this.removed = List.copyOf(removed);
+        this.inserted = List.copyOf(inserted);
+        this.relexedChars = relexedChars;
+    }
+
+    /**
+     * Returns the index of the first replaced token.
+     * @return The token index.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Returns the tokens that were replaced.
+     * @return The old tokens, in old coordinates.
+     */
+    public List<Token> getRemoved() {
+        return this.removed;
+    }
+
+    /**
+     * Returns the tokens that replace them.
+     * @return The new tokens, in new coordinates.
+     */
+    public List<Token> getInserted() {
+        return this.inserted;
+    }
+
+    /**
+     * Returns how many characters were lexed again.
+     * @return The number of characters covered by the new tokens.
+     */
+    public int getRelexedChars() {
+        return this.relexedChars;
+    }
+
+    @Override
+    public String toString() {
+        return "at " + this.index + ": -" + this.removed + " +" + this.inserted;
+    }
+}
@@ -0,0 +1,60 @@
+package com.compiler.lexer;
+
+/**
+ * A token read from a stream (see {@link StreamingLexer} and {@link ChannelScanner}). Unlike a
+ * {@link Token} it carries its text, since the stream is not kept, and its offsets are longs,
+ * counted in chars from the start of the stream.
+ */
+public final class TokenEvent {
+    /**
+     * The index of the rule that matched, or {@link Token#ERROR}.
+     */
+    public final int rule;
+
+    /**
+     * The offset of the first character.
+     */
+    public final long start;
+
+    /**
+     * The offset after the last character.
+     */
+    public final long end;
+
+    /**
+     * The characters of the token.
+     */
+    public final String text;
+
+    /**
+     * Creates a token event.
+     * @param rule The index of the rule that matched, or {@link Token#ERROR}.
+     * @param start The offset of the first character.
+     * @param end The offset after the last character.
+     * @param text The characters of the token.
+     */
+    public TokenEvent(int rule, long start, long end, String text) {
+        this.rule = rule;
+        this.start = start;
+        this.end = end;
+        this.text = text;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof TokenEvent)) return false;
+        TokenEvent other = (TokenEvent) obj;
+        return this.rule == other.rule && this.start == other.start && this.end == other.end && this.text.equals(other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return (this.rule * 31 + Long.hashCode(this.start)) * 31 + this.text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return (this.rule == Token.ERROR ? "error" : "rule " + this.rule) + " [" + this.start + ", " + this.end + ") '" + this.text + "'";
+    }
+}
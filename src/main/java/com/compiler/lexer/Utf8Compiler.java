@@ -0,0 +1,203 @@
+package com.compiler.lexer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+
+/**
+ * Utf8Compiler
+ * ------------
+ * Rewrites a DFA over UTF-16 chars into an equivalent DFA over the bytes of the UTF-8 encoding,
+ * so input can be scanned without being decoded (see {@link com.compiler.lexer.dfa.ByteDfa}).
+ * Labels of the result are byte values {@code 0x00..0xFF} stored in ordinary {@link CharRange}s.
+ *
+ * Main steps:
+ *   1. Every range of code points is split into sub-ranges whose UTF-8 encodings all have the same
+ *      length and differ only in a suffix of full continuation ranges; each sub-range is then a
+ *      sequence of byte ranges, e.g. U+0800..U+FFFF minus surrogates becomes
+ *      {@code [E0][A0-BF][80-BF]}, {@code [E1-EC][80-BF][80-BF]}, {@code [ED][80-9F][80-BF]} and
+ *      {@code [EE-EF][80-BF][80-BF]}.
+ *   2. A char transition {@code s -r-> t} becomes chains of byte transitions through fresh
+ *      intermediate states. A surrogate pair {@code s -high-> t -low-> u} is one code point above
+ *      U+FFFF and becomes the 4-byte chains from {@code s} to {@code u}; lone surrogates cannot be
+ *      encoded in UTF-8 and are dropped.
+ *   3. Chains of one state may share leading bytes, so the byte NFA is determinized and minimized.
+ *
+ * Example usage:
+ * <pre>
+ *     ByteDfa bytes = ByteDfa.of(Utf8Compiler.toUtf8(CompilerService.compileNow("ñ+|[α-ω]")));
+ *     int end = bytes.longestMatch(buffer, 0); // a byte offset
+ * </pre>
+ */
+public class Utf8Compiler {
+    private static final char MIN_HIGH_SURROGATE = '\uD800';
+    private static final char MAX_HIGH_SURROGATE = '\uDBFF';
+    private static final char MIN_LOW_SURROGATE = '\uDC00';
+    private static final char MAX_LOW_SURROGATE = '\uDFFF';
+
+    /**
+     * Default constructor for Utf8Compiler.
+     */
+    public Utf8Compiler() {
+    }
+
+    /**
+     * Builds the minimized byte-level DFA of a char DFA.
+     *
+     * @param dfa The DFA over UTF-16 chars.
+     * @return A DFA over UTF-8 bytes accepting the encodings of the strings accepted by {@code dfa}.
+     */
+    public static DFA toUtf8(DFA dfa) {
+        NFA bytes = BuildContext.build(() -> byteNfa(dfa));
+        return DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(bytes, CharClass.range((char) 0, (char) 0xFF)));
+    }
+
+    /**
+     * Builds the byte NFA with one state per DFA state plus the intermediate states of the byte chains.
+     */
+    private static NFA byteNfa(DFA dfa) {
+        Map<DfaState, State> states = new IdentityHashMap<>();
+        for (DfaState state : dfa.allStates) {
+            State s = new State();
+            s.setFinal(state.isFinal());
+            states.put(state, s);
+        }
+        for (DfaState state : dfa.allStates) {
+            State from = states.get(state);
+            for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet()) {
+                CharRange range = transition.getKey();
+                State to = states.get(transition.getValue());
+                // Code points of the basic multilingual plane, around the surrogate block
+                if (range.low < MIN_HIGH_SURROGATE)
+                    addChains(from, to, range.low, Math.min(range.high, MIN_HIGH_SURROGATE - 1));
+                if (range.high > MAX_LOW_SURROGATE)
+                    addChains(from, to, Math.max(range.low, MAX_LOW_SURROGATE + 1), range.high);
+                // Supplementary code points, spelled as a high surrogate followed by a low one
+                char high = (char) Math.max(range.low, MIN_HIGH_SURROGATE);
+                char highEnd = (char) Math.min(range.high, MAX_HIGH_SURROGATE);
+                if (high <= highEnd) addSurrogatePairs(from, transition.getValue(), high, highEnd, states);
+            }
+        }
+        return new NFA(states.get(dfa.startState), null);
+    }
+
+    /**
+     * Adds the chains for the code points {@code h l} with {@code h} in {@code [high, highEnd]} and
+     * {@code l} a low surrogate leaving {@code middle}.
+     */
+    private static void addSurrogatePairs(State from, DfaState middle, char high, char highEnd, Map<DfaState, State> states) {
+        for (Map.Entry<CharRange, DfaState> transition : middle.transitions.entrySet()) {
+            int low = Math.max(transition.getKey().low, MIN_LOW_SURROGATE);
+            int lowEnd = Math.min(transition.getKey().high, MAX_LOW_SURROGATE);
+            if (low > lowEnd) continue;
+            State to = states.get(transition.getValue());
+            if (low == MIN_LOW_SURROGATE && lowEnd == MAX_LOW_SURROGATE) {
+                addChains(from, to, Character.toCodePoint(high, (char) low), Character.toCodePoint(highEnd, (char) lowEnd));
+            } else {
+                for (int h = high; h <= highEnd; h++)
+                    addChains(from, to, Character.toCodePoint((char) h, (char) low), Character.toCodePoint((char) h, (char) lowEnd));
+            }
+        }
+    }
+
+    /**
+     * Adds one chain of byte transitions from {@code from} to {@code to} for each byte sequence
+     * of the code points {@code [low, high]}.
+     */
+    private static void addChains(State from, State to, int low, int high) {
+        for (int[][] sequence : sequences(low, high)) {
+            State current = from;
+            for (int i = 0; i < sequence.length; i++) {
+                State next = i == sequence.length - 1 ? to : new State();
+                current.addClassTransition(CharClass.range((char) sequence[i][0], (char) sequence[i][1]), next);
+                current = next;
+            }
+        }
+    }
+
+    /**
+     * Splits a range of code points (containing no surrogates) into byte range sequences.
+     *
+     * @param low The first code point.
+     * @param high The last code point.
+     * @return The sequences; each is an array of {low, high} byte ranges, one per encoded byte.
+     */
+    static List<int[][]> sequences(int low, int high) {
+        /*
+         Pseudocode:
+         1. Split the range at the encoded-length boundaries U+007F, U+07FF and U+FFFF
+         2. For each suffix of k continuation bytes (k = 1..length-1), if the range spans more than
+            one prefix, split it so that each piece either covers whole suffixes or one prefix
+         3. A range that no longer needs splitting encodes as the byte ranges between the
+            encodings of its two ends
+        */
+        List<int[][]> result = new ArrayList<>();
+        Deque<int[]> pending = new ArrayDeque<>();
+        pending.push(new int[] {low, high});
+        next:
+        while (!pending.isEmpty()) {
+            int[] range = pending.pop();
+            int lo = range[0];
+            int hi = range[1];
+            for (int max : new int[] {0x7F, 0x7FF, 0xFFFF}) {
+                if (lo <= max && hi > max) {
+                    pending.push(new int[] {max + 1, hi});
+                    pending.push(new int[] {lo, max});
+                    continue next;
+                }
+            }
+            int length = encodedLength(lo);
+            for (int k = 1; k < length; k++) {
+                int mask = (1 << (6 * k)) - 1;
+                if ((lo & ~mask) == (hi & ~mask)) continue;
+                if ((lo & mask) != 0) {
+                    pending.push(new int[] {(lo | mask) + 1, hi});
+                    pending.push(new int[] {lo, lo | mask});
+                    continue next;
+                }
+                if ((hi & mask) != mask) {
+                    pending.push(new int[] {hi & ~mask, hi});
+                    pending.push(new int[] {lo, (hi & ~mask) - 1});
+                    continue next;
+                }
+            }
+            int[] first = encode(lo);
+            int[] last = encode(hi);
+            int[][] sequence = new int[length][];
+            for (int i = 0; i < length; i++) sequence[i] = new int[] {first[i], last[i]};
+            result.add(sequence);
+        }
+        return result;
+    }
+
+    private static int encodedLength(int codePoint) {
+        return codePoint <= 0x7F ? 1 : codePoint <= 0x7FF ? 2 : codePoint <= 0xFFFF ? 3 : 4;
+    }
+
+    /**
+     * Encodes one code point in UTF-8.
+     */
+    private static int[] encode(int codePoint) {
+        switch (encodedLength(codePoint)) {
+            case 1:
+                return new int[] {codePoint};
+            case 2:
+                return new int[] {0xC0 | codePoint >> 6, 0x80 | codePoint & 0x3F};
+            case 3:
+                return new int[] {0xE0 | codePoint >> 12, 0x80 | codePoint >> 6 & 0x3F, 0x80 | codePoint & 0x3F};
+            default:
+                return new int[] {0xF0 | codePoint >> 18, 0x80 | codePoint >> 12 & 0x3F, 0x80 | codePoint >> 6 & 0x3F, 0x80 | codePoint & 0x3F};
+        }
+    }
+}
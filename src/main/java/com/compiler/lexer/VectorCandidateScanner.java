@@ -0,0 +1,56 @@
+package com.compiler.lexer;
+
+import java.util.List;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Candidate scanner built on the incubating Vector API. Each step loads a whole vector of chars
+ * (16 to 32 on current hardware) and tests it against every range of the set with unsigned lane
+ * comparisons, so stretches without candidates are skipped a vector at a time.
+ *
+ * Only compiled by the {@code vector} Maven profile, which adds the {@code jdk.incubator.vector}
+ * module; {@link Prefilter} loads it reflectively and falls back to {@link ScalarCandidateScanner}
+ * when the module is absent or the set has too many ranges to pay off.
+ */
+class VectorCandidateScanner implements CandidateScanner {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    private final short[] lows;
+    private final short[] highs;
+    private final ScalarCandidateScanner tail;
+
+    VectorCandidateScanner(CharClass set) {
+        List<CharRange> ranges = set.getRanges();
+        if (ranges.size() > Prefilter.MAX_VECTOR_RANGES) throw new IllegalArgumentException("Too many ranges for vector scanning: " + ranges.size());
+        this.lows = new short[ranges.size()];
+        this.highs = new short[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            this.lows[i] = (short) ranges.get(i).low;
+            this.highs[i] = (short) ranges.get(i).high;
+        }
+        this.tail = new ScalarCandidateScanner(set);
+    }
+
+    @Override
+    public int next(char[] text, int from, int to) {
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += SPECIES.length()) {
+            ShortVector chars = ShortVector.fromCharArray(SPECIES, text, i);
+            VectorMask<Short> hits = chars.compare(VectorOperators.UNSIGNED_GE, this.lows[0])
+                .and(chars.compare(VectorOperators.UNSIGNED_LE, this.highs[0]));
+            for (int r = 1; r < this.lows.length; r++)
+                hits = hits.or(chars.compare(VectorOperators.UNSIGNED_GE, this.lows[r])
+                    .and(chars.compare(VectorOperators.UNSIGNED_LE, this.highs[r])));
+            if (hits.anyTrue()) return i + hits.firstTrue();
+        }
+        return this.tail.next(text, i, to);
+    }
+}
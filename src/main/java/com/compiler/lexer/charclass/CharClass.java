@@ -0,0 +1,203 @@
+package com.compiler.lexer.charclass;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CharClass
+ * ---------
+ * An immutable set of characters stored as a sorted list of disjoint,
+ * non-adjacent {@link CharRange}s. Used as the label of NFA transitions and as
+ * the value of regex atoms such as {@code a}, {@code [a-z0-9]}, {@code [^"]}
+ * and {@code .}.
+ * <p>
+ * The size of a class is proportional to the number of ranges, not to the
+ * number of characters, so full 16-bit classes are as cheap as single
+ * characters.
+ */
+public class CharClass {
+    private static final CharClass EMPTY = new CharClass(Collections.emptyList());
+    private static final CharClass ANY = new CharClass(List.of(new CharRange(Character.MIN_VALUE, Character.MAX_VALUE)));
+
+    private final List<CharRange> ranges;
+
+    private CharClass(List<CharRange> normalizedRanges) {
+        this.ranges = normalizedRanges;
+    }
+
+    /**
+     * Returns the empty class.
+     * @return A class containing no characters.
+     */
+    public static CharClass empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the class of every {@code char}.
+     * @return A class containing every character from {@code Character.MIN_VALUE} to {@code Character.MAX_VALUE}.
+     */
+    public static CharClass any() {
+        return ANY;
+    }
+
+    /**
+     * Creates a class containing a single character.
+     * @param c The character.
+     * @return The class {@code {c}}.
+     */
+    public static CharClass of(char c) {
+        return new CharClass(List.of(CharRange.of(c)));
+    }
+
+    /**
+     * Creates a class containing an interval of characters.
+     * @param low The lowest character (inclusive).
+     * @param high The highest character (inclusive).
+     * @return The class {@code [low-high]}.
+     */
+    public static CharClass range(char low, char high) {
+        return new CharClass(List.of(new CharRange(low, high)));
+    }
+
+    /**
+     * Creates a class from a set of characters, such as a legacy alphabet.
+     * @param chars The characters.
+     * @return The class containing exactly those characters.
+     */
+    public static CharClass of(Set<Character> chars) {
+        List<CharRange> ranges = new ArrayList<>();
+        for (Character c : chars) ranges.add(CharRange.of(c));
+        return of(ranges);
+    }
+
+    /**
+     * Creates a class from arbitrary (possibly overlapping) ranges.
+     * @param ranges The ranges.
+     * @return The class containing the union of the ranges.
+     */
+    public static CharClass of(List<CharRange> ranges) {
+        if (ranges.isEmpty()) return EMPTY;
+        List<CharRange> sorted = new ArrayList<>(ranges);
+        Collections.sort(sorted);
+
+        List<CharRange> merged = new ArrayList<>();
+        CharRange current = sorted.get(0);
+        for (int i = 1; i < sorted.size(); i++) {
+            CharRange next = sorted.get(i);
+            if (next.low <= current.high + 1) {
+                if (next.high > current.high) current = new CharRange(current.low, next.high);
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return new CharClass(Collections.unmodifiableList(merged));
+    }
+
+    /**
+     * Returns the disjoint ranges of this class, sorted by lower bound.
+     * @return An unmodifiable list of ranges.
+     */
+    public List<CharRange> getRanges() {
+        return this.ranges;
+    }
+
+    /**
+     * Checks if this class contains no characters.
+     * @return true if the class is empty.
+     */
+    public boolean isEmpty() {
+        return this.ranges.isEmpty();
+    }
+
+    /**
+     * Checks if a character belongs to this class using binary search over the ranges.
+     * @param c The character to test.
+     * @return true if the character is in the class.
+     */
+    public boolean contains(char c) {
+        int lo = 0;
+        int hi = this.ranges.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            CharRange range = this.ranges.get(mid);
+            if (c < range.low) hi = mid - 1;
+            else if (c > range.high) lo = mid + 1;
+            else return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the union of this class and another.
+     * @param other The other class.
+     * @return A class containing the characters of both.
+     */
+    public CharClass union(CharClass other) {
+        if (other.isEmpty()) return this;
+        if (this.isEmpty()) return other;
+        List<CharRange> all = new ArrayList<>(this.ranges);
+        all.addAll(other.ranges);
+        return of(all);
+    }
+
+    /**
+     * Returns the complement of this class with respect to every {@code char}.
+     * @return A class containing the characters not in this class.
+     */
+    public CharClass complement() {
+        List<CharRange> result = new ArrayList<>();
+        int next = Character.MIN_VALUE;
+        for (CharRange range : this.ranges) {
+            if (range.low > next) result.add(new CharRange((char) next, (char) (range.low - 1)));
+            next = range.high + 1;
+        }
+        if (next <= Character.MAX_VALUE) result.add(new CharRange((char) next, Character.MAX_VALUE));
+        return new CharClass(Collections.unmodifiableList(result));
+    }
+
+    /**
+     * Returns the intersection of this class and another.
+     * @param other The other class.
+     * @return A class containing the characters present in both.
+     */
+    public CharClass intersect(CharClass other) {
+        List<CharRange> result = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < this.ranges.size() && j < other.ranges.size()) {
+            CharRange a = this.ranges.get(i);
+            CharRange b = other.ranges.get(j);
+            char low = (char) Math.max(a.low, b.low);
+            char high = (char) Math.min(a.high, b.high);
+            if (low <= high) result.add(new CharRange(low, high));
+            if (a.high < b.high) i++;
+            else j++;
+        }
+        return new CharClass(Collections.unmodifiableList(result));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof CharClass)) return false;
+        return this.ranges.equals(((CharClass) obj).ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.ranges.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        if (this.ranges.size() == 1 && this.ranges.get(0).size() == 1) return this.ranges.get(0).toString();
+        StringBuilder sb = new StringBuilder("[");
+        for (CharRange range : this.ranges) sb.append(range);
+        return sb.append(']').toString();
+    }
+}
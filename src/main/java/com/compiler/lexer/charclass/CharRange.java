@@ -0,0 +1,131 @@
+package com.compiler.lexer.charclass;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Represents an inclusive interval of characters {@code [low, high]}.
+ * <p>
+ * Ranges are the labels of transitions in both the NFA and the DFA, so a
+ * class such as {@code [a-z]} is a single edge instead of 26 parallel ones.
+ * Ranges are ordered by their lower bound (and then by their upper bound),
+ * which lets sorted maps of ranges be searched with {@code floorEntry}.
+ */
+public class CharRange implements Comparable<CharRange> {
+    /**
+     * The lowest character in the range (inclusive).
+     */
+    public final char low;
+
+    /**
+     * The highest character in the range (inclusive).
+     */
+    public final char high;
+
+    /**
+     * Constructs a new range.
+     * @param low The lowest character (inclusive).
+     * @param high The highest character (inclusive).
+     * @throws IllegalArgumentException if {@code low > high}.
+     */
+    public CharRange(char low, char high) {
+        if (low > high)
+            throw new IllegalArgumentException("Invalid range: " + (int) low + " > " + (int) high);
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * Creates a range containing a single character.
+     * @param c The character.
+     * @return The range {@code [c, c]}.
+     */
+    public static CharRange of(char c) {
+        return new CharRange(c, c);
+    }
+
+    /**
+     * Checks if the given character lies inside this range.
+     * @param c The character to test.
+     * @return true if {@code low <= c <= high}.
+     */
+    public boolean contains(char c) {
+        return c >= this.low && c <= this.high;
+    }
+
+    /**
+     * Returns the number of characters in this range.
+     * @return The size of the range.
+     */
+    public int size() {
+        return this.high - this.low + 1;
+    }
+
+    /**
+     * Splits a collection of possibly overlapping ranges into disjoint
+     * elementary intervals. Every returned interval is either fully inside or
+     * fully outside each of the input ranges, and the union of the returned
+     * intervals equals the union of the input ranges.
+     *
+     * @param ranges The ranges to split.
+     * @return The elementary intervals, sorted by their lower bound.
+     */
+    public static List<CharRange> split(Collection<CharRange> ranges) {
+        // Sweep over the boundaries keeping a count of how many ranges cover the current point.
+        TreeMap<Integer, Integer> delta = new TreeMap<>();
+        for (CharRange range : ranges) {
+            delta.merge((int) range.low, 1, Integer::sum);
+            delta.merge(range.high + 1, -1, Integer::sum);
+        }
+
+        List<CharRange> result = new ArrayList<>();
+        int cover = 0;
+        int previous = -1;
+        for (Map.Entry<Integer, Integer> entry : delta.entrySet()) {
+            int point = entry.getKey();
+            if (cover > 0 && previous < point)
+                result.add(new CharRange((char) previous, (char) (point - 1)));
+            cover += entry.getValue();
+            previous = point;
+        }
+        return result;
+    }
+
+    @Override
+    public int compareTo(CharRange other) {
+        if (this.low != other.low) return Character.compare(this.low, other.low);
+        return Character.compare(this.high, other.high);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof CharRange)) return false;
+        CharRange other = (CharRange) obj;
+        return this.low == other.low && this.high == other.high;
+    }
+
+    @Override
+    public int hashCode() {
+        return (this.low << 16) | this.high;
+    }
+
+    @Override
+    public String toString() {
+        if (this.low == this.high) return format(this.low);
+        return format(this.low) + "-" + format(this.high);
+    }
+
+    /**
+     * Formats a character for debugging output, escaping non-printable ones.
+     * @param c The character to format.
+     * @return A printable representation of the character.
+     */
+    static String format(char c) {
+        if (c >= 0x21 && c < 0x7f) return String.valueOf(c);
+        return String.format("\\u%04x", (int) c);
+    }
+}
@@ -0,0 +1,105 @@
+package com.compiler.lexer.dfa;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * AcceptSet
+ * ---------
+ * An immutable set of pattern ids accepted by a DFA state (see {@link DfaState#getAcceptSet()}).
+ * Builders intern the sets, so the states accepting the same patterns share one instance and a
+ * match can return the set of its final state without copying it.
+ */
+public final class AcceptSet {
+    /**
+     * The set without ids.
+     */
+    public static final AcceptSet EMPTY = new AcceptSet(new long[0]);
+
+    private final long[] words;
+    private final int size;
+    private final int hash;
+
+    private AcceptSet(long[] words) {
+        this.words = words;
+        int count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        this.size = count;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    /**
+     * Creates a set with the ids of a bit set.
+     * @param ids The ids; not retained.
+     * @return The set.
+     */
+    public static AcceptSet of(BitSet ids) {
+        return ids.isEmpty() ? EMPTY : new AcceptSet(ids.toLongArray());
+    }
+
+    /**
+     * Checks whether an id belongs to the set.
+     * @param id The id.
+     * @return True if the id is in the set.
+     */
+    public boolean contains(int id) {
+        int word = id >>> 6;
+        return id >= 0 && word < this.words.length && (this.words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Returns the number of ids in the set.
+     * @return The size of the set.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks whether the set has no ids.
+     * @return True if the set is empty.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the ids in increasing order.
+     * @return A new array with the ids.
+     */
+    public int[] toArray() {
+        int[] ids = new int[this.size];
+        int next = 0;
+        for (int w = 0; w < this.words.length; w++) {
+            for (long word = this.words[w]; word != 0; word &= word - 1)
+                ids[next++] = (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the ids as a bit set.
+     * @return A new bit set with the ids.
+     */
+    public BitSet toBitSet() {
+        return BitSet.valueOf(this.words);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof AcceptSet)) return false;
+        AcceptSet other = (AcceptSet) obj;
+        return this.hash == other.hash && Arrays.equals(this.words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.toArray());
+    }
+}
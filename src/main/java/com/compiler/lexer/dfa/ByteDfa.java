@@ -0,0 +1,170 @@
+package com.compiler.lexer.dfa;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.compiler.lexer.charclass.CharRange;
+
+/**
+ * ByteDfa
+ * -------
+ * A dense transition table for a DFA whose labels are byte values, such as the ones built by
+ * {@link com.compiler.lexer.Utf8Compiler}. Bytes that every state treats alike share one byte
+ * class, so the table has one row of {@code classCount <= 256} entries per state and a step is
+ * two array reads.
+ *
+ * Input is read directly from {@code byte[]} or {@link ByteBuffer}s, including direct and
+ * memory-mapped ones, without decoding and without moving buffer positions; all offsets are
+ * byte offsets. Instances are immutable and may be shared between threads.
+ *
+ * Example usage:
+ * <pre>
+ *     ByteDfa bytes = ByteDfa.of(Utf8Compiler.toUtf8(dfa));
+ *     try (FileChannel channel = FileChannel.open(path)) {
+ *         MappedByteBuffer input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+ *         int[] match = bytes.find(input, 0); // {start, end} in bytes, or null
+ *     }
+ * </pre>
+ */
+public class ByteDfa {
+    private static final int DEAD = -1;
+
+    private final byte[] classOf;
+    private final int classCount;
+    private final int[] table;
+    private final boolean[] accept;
+    private final int startState;
+
+    private ByteDfa(byte[] classOf, int classCount, int[] table, boolean[] accept, int startState) {
+        this.classOf = classOf;
+        this.classCount = classCount;
+        this.table = table;
+        this.accept = accept;
+        this.startState = startState;
+    }
+
+    /**
+     * Builds the table of a byte-labelled DFA. States are numbered by their position in {@code allStates}.
+     * @param dfa The DFA, with every label in {@code 0x00..0xFF}.
+     * @return The table.
+     * @throws IllegalArgumentException if a label is not a byte value.
+     */
+    public static ByteDfa of(DFA dfa) {
+        // Byte classes: a new class starts wherever some range starts or ends
+        boolean[] boundary = new boolean[257];
+        boundary[0] = true;
+        for (DfaState state : dfa.allStates) {
+            for (CharRange range : state.transitions.keySet()) {
+                if (range.high > 0xFF) throw new IllegalArgumentException("Not a byte DFA: label " + range);
+                boundary[range.low] = true;
+                boundary[range.high + 1] = true;
+            }
+        }
+        byte[] classOf = new byte[256];
+        int classCount = 0;
+        for (int b = 0; b < 256; b++) {
+            if (boundary[b]) classCount++;
+            classOf[b] = (byte) (classCount - 1);
+        }
+
+        Map<DfaState, Integer> index = new IdentityHashMap<>();
+        for (DfaState state : dfa.allStates) index.put(state, index.size());
+        int[] table = new int[dfa.allStates.size() * classCount];
+        boolean[] accept = new boolean[dfa.allStates.size()];
+        Arrays.fill(table, DEAD);
+        for (DfaState state : dfa.allStates) {
+            int row = index.get(state) * classCount;
+            accept[index.get(state)] = state.isFinal();
+            for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet()) {
+                int target = index.get(transition.getValue());
+                for (int b = transition.getKey().low; b <= transition.getKey().high; b++)
+                    table[row + (classOf[b] & 0xFF)] = target;
+            }
+        }
+        return new ByteDfa(classOf, classCount, table, accept, index.get(dfa.startState));
+    }
+
+    /**
+     * Returns the number of byte classes.
+     * @return The number of columns of the table.
+     */
+    public int getClassCount() {
+        return this.classCount;
+    }
+
+    /**
+     * Returns the number of states.
+     * @return The number of rows of the table.
+     */
+    public int getStateCount() {
+        return this.accept.length;
+    }
+
+    /**
+     * Checks whether a byte array is accepted as a whole.
+     * @param input The input bytes.
+     * @return true if the DFA accepts the input.
+     */
+    public boolean matches(byte[] input) {
+        return this.matches(ByteBuffer.wrap(input));
+    }
+
+    /**
+     * Checks whether the bytes between the position and the limit of a buffer are accepted as a whole.
+     * @param input The input buffer; its position is not changed.
+     * @return true if the DFA accepts the input.
+     */
+    public boolean matches(ByteBuffer input) {
+        int state = this.startState;
+        for (int i = input.position(); i < input.limit(); i++) {
+            state = this.table[state * this.classCount + (this.classOf[input.get(i) & 0xFF] & 0xFF)];
+            if (state == DEAD) return false;
+        }
+        return this.accept[state];
+    }
+
+    /**
+     * Returns where the longest match starting at a byte offset ends.
+     * @param input The input buffer, indexed absolutely up to its limit.
+     * @param from The byte offset where the match starts.
+     * @return The end offset (exclusive) of the longest match, or -1 if there is none.
+     */
+    public int longestMatch(ByteBuffer input, int from) {
+        int state = this.startState;
+        int end = this.accept[state] ? from : -1;
+        for (int i = from; i < input.limit(); i++) {
+            state = this.table[state * this.classCount + (this.classOf[input.get(i) & 0xFF] & 0xFF)];
+            if (state == DEAD) break;
+            if (this.accept[state]) end = i + 1;
+        }
+        return end;
+    }
+
+    /**
+     * Finds the leftmost-longest match at or after a byte offset. Only offsets that start a
+     * UTF-8 character (any byte but a continuation byte {@code 10xxxxxx}) are tried.
+     * @param input The input buffer, indexed absolutely up to its limit.
+     * @param from The first byte offset where a match may start.
+     * @return {start, end} byte offsets of the match, or null if there is none.
+     */
+    public int[] find(ByteBuffer input, int from) {
+        for (int i = from; i <= input.limit(); i++) {
+            if (i < input.limit() && (input.get(i) & 0xC0) == 0x80) continue;
+            int end = this.longestMatch(input, i);
+            if (end >= 0) return new int[] {i, end};
+        }
+        return null;
+    }
+
+    /**
+     * Finds the leftmost-longest match in a byte array.
+     * @param input The input bytes.
+     * @param from The first byte offset where a match may start.
+     * @return {start, end} byte offsets of the match, or null if there is none.
+     */
+    public int[] find(byte[] input, int from) {
+        return this.find(ByteBuffer.wrap(input), from);
+    }
+}
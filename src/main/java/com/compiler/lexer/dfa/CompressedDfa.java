@@ -0,0 +1,386 @@
+package com.compiler.lexer.dfa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.compiler.lexer.charclass.CharRange;
+
+/**
+ * CompressedDfa
+ * -------------
+ * A DFA transition table compressed by row displacement, in the style of the comb vectors of
+ * yacc and flex. A dense {@code states × classes} table spends most of its entries on the
+ * transition every state takes for most characters (usually to the dead state); here each state
+ * keeps only its exceptions.
+ *
+ * Layout:
+ * - Characters are mapped to classes (characters every state treats alike) by a two-level
+ *   table: {@code classes[blocks[c >>> 8] + (c & 0xFF)]}. Identical 256-character blocks are
+ *   stored once, so the map stays small for Unicode-wide classes.
+ * - States that can no longer accept (see {@link DfaState.Kind#DEAD}) are not stored:
+ *   transitions into them are -1.
+ * - Every state has a default: either a default target (its most frequent one), or, as in flex,
+ *   a template state whose row it mostly repeats, such as the identifier state for the states
+ *   inside a keyword. Templates are never templated themselves, so a default is one level deep.
+ * - The transitions of state {@code s} that differ from its default are stored at
+ *   {@code base[s] + class} of the shared arrays {@code next}/{@code check}, where {@code check}
+ *   records the owning state. Rows are placed first-fit, largest first, so they interleave like
+ *   the teeth of combs.
+ *
+ * A step is then one class lookup and at most two probes, without search or hashing, over a few
+ * flat int arrays that fit in cache for automata whose dense table would not:
+ * <pre>
+ *     int i = base[s] + class;
+ *     if (check[i] == s) return next[i];
+ *     int t = template[s]; // s itself if s has a default target
+ *     i = base[t] + class;
+ *     return check[i] == t ? next[i] : defaults[t];
+ * </pre>
+ * {@link #toString()} reports the compression against the dense table.
+ *
+ * Instances are immutable and may be shared between threads.
+ *
+ * Example usage:
+ * <pre>
+ *     CompressedDfa table = CompressedDfa.of(dfa);
+ *     System.out.println(table); // sizes and compression ratio
+ *     boolean accepted = table.matches("input");
+ * </pre>
+ */
+public class CompressedDfa {
+    /**
+     * The target of a transition into a dead state.
+     */
+    public static final int DEAD = -1;
+
+    private final int[] blocks;
+    private final int[] classes;
+    private final int classCount;
+    private final int[] base;
+    private final int[] defaults;
+    private final int[] template;
+    private final int[] next;
+    private final int[] check;
+    private final boolean[] accept;
+    private final int startState;
+    private final int entryCount;
+
+    private CompressedDfa(int[] blocks, int[] classes, int classCount, int[] base, int[] defaults, int[] template,
+                          int[] next, int[] check, boolean[] accept, int startState, int entryCount) {
+        this.blocks = blocks;
+        this.classes = classes;
+        this.classCount = classCount;
+        this.base = base;
+        this.defaults = defaults;
+        this.template = template;
+        this.next = next;
+        this.check = check;
+        this.accept = accept;
+        this.startState = startState;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Compresses the transition table of a DFA. Live states are numbered in the order of
+     * {@code allStates}.
+     * @param dfa The DFA.
+     * @return The compressed table.
+     */
+    public static CompressedDfa of(DFA dfa) {
+        /*
+        Pseudocode:
+        1. Split the characters into classes at every range boundary; build the two-level map
+        2. Number the live states; fill each state's dense row of targets (-1 for dead)
+        3. For each row, take the most frequent target as its default target; then, if the row of
+           its most frequent live target differs from it in fewer classes, and that state is not
+           itself templated, use that state as its template instead. The differences are entries
+        4. Place the rows, most entries first, at the lowest base where all their entries fit
+        */
+        List<CharRange> ranges = new ArrayList<>();
+        for (DfaState state : dfa.allStates) ranges.addAll(state.transitions.keySet());
+        int[] classOf = new int[Character.MAX_VALUE + 1];
+        int classCount = classify(ranges, classOf);
+
+        // Two-level class map with shared blocks
+        int[] blocks = new int[256];
+        List<int[]> distinct = new ArrayList<>();
+        Map<List<Integer>, Integer> blockIndex = new HashMap<>();
+        for (int b = 0; b < 256; b++) {
+            int[] block = Arrays.copyOfRange(classOf, b << 8, (b + 1) << 8);
+            List<Integer> key = Arrays.stream(block).boxed().toList();
+            Integer at = blockIndex.get(key);
+            if (at == null) {
+                at = distinct.size() << 8;
+                blockIndex.put(key, at);
+                distinct.add(block);
+            }
+            blocks[b] = at;
+        }
+        int[] classes = new int[distinct.size() << 8];
+        for (int i = 0; i < distinct.size(); i++) System.arraycopy(distinct.get(i), 0, classes, i << 8, 256);
+
+        Map<DfaState, Integer> index = new IdentityHashMap<>();
+        for (DfaState state : dfa.allStates)
+            if (state.getKind() != DfaState.Kind.DEAD) index.put(state, index.size());
+        int stateCount = index.size();
+
+        int[][] rows = new int[stateCount][];
+        boolean[] accept = new boolean[stateCount];
+        for (DfaState state : dfa.allStates) {
+            Integer s = index.get(state);
+            if (s == null) continue;
+            int[] row = new int[classCount];
+            Arrays.fill(row, DEAD);
+            for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet()) {
+                Integer target = index.get(transition.getValue());
+                // Classes are numbered in character order, so a range covers a run of classes
+                for (int cls = classOf[transition.getKey().low]; cls <= classOf[transition.getKey().high]; cls++)
+                    row[cls] = target == null ? DEAD : target;
+            }
+            rows[s] = row;
+            accept[s] = state.isFinal();
+        }
+
+        int[] defaults = new int[stateCount];
+        int[] template = new int[stateCount];
+        int[] sizes = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            defaults[s] = mostFrequent(rows[s], -2);
+            template[s] = s;
+            for (int target : rows[s]) if (target != defaults[s]) sizes[s]++;
+        }
+        boolean[] isTemplate = new boolean[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            int t = mostFrequent(rows[s], s);
+            if (t < 0 || template[t] != t || isTemplate[s]) continue;
+            int differences = 0;
+            for (int cls = 0; cls < classCount; cls++) if (rows[s][cls] != rows[t][cls]) differences++;
+            if (differences >= sizes[s]) continue;
+            template[s] = t;
+            isTemplate[t] = true;
+            sizes[s] = differences;
+        }
+        int entryCount = 0;
+        for (int s = 0; s < stateCount; s++) entryCount += sizes[s];
+
+        Integer[] order = new Integer[stateCount];
+        for (int s = 0; s < stateCount; s++) order[s] = s;
+        Arrays.sort(order, (a, b) -> Integer.compare(sizes[b], sizes[a]));
+
+        int[] base = new int[stateCount];
+        int[] next = new int[Math.max(16, entryCount + classCount)];
+        int[] check = new int[next.length];
+        Arrays.fill(check, -1);
+        int used = 0;
+        int firstFree = 0;
+        int[] columns = new int[classCount];
+        for (int s : order) {
+            if (sizes[s] == 0) continue;
+            int count = 0;
+            for (int cls = 0; cls < classCount; cls++)
+                if (rows[s][cls] != (template[s] == s ? defaults[s] : rows[template[s]][cls])) columns[count++] = cls;
+
+            int b = Math.max(0, firstFree - columns[0]);
+            while (true) {
+                if (b + classCount > next.length) {
+                    next = Arrays.copyOf(next, 2 * (b + classCount));
+                    int grown = check.length;
+                    check = Arrays.copyOf(check, next.length);
+                    Arrays.fill(check, grown, check.length, -1);
+                }
+                boolean fits = true;
+                for (int k = 0; k < count && fits; k++) fits = check[b + columns[k]] < 0;
+                if (fits) break;
+                b++;
+            }
+            base[s] = b;
+            for (int k = 0; k < count; k++) {
+                check[b + columns[k]] = s;
+                next[b + columns[k]] = rows[s][columns[k]];
+            }
+            used = Math.max(used, b + classCount);
+            while (firstFree < check.length && check[firstFree] >= 0) firstFree++;
+        }
+        // Every base + class must stay in bounds; slots past the last entry are never owned
+        used = Math.max(used, classCount);
+        next = Arrays.copyOf(next, used);
+        check = Arrays.copyOf(check, used);
+
+        Integer start = index.get(dfa.startState);
+        return new CompressedDfa(blocks, classes, classCount, base, defaults, template, next, check, accept,
+            start == null ? DEAD : start, entryCount);
+    }
+
+    /**
+     * Numbers the classes of characters that no range boundary separates.
+     * @return The number of classes.
+     */
+    private static int classify(List<CharRange> ranges, int[] classOf) {
+        boolean[] boundary = new boolean[Character.MAX_VALUE + 2];
+        boundary[0] = true;
+        for (CharRange range : ranges) {
+            boundary[range.low] = true;
+            boundary[range.high + 1] = true;
+        }
+        int count = 0;
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (boundary[c]) count++;
+            classOf[c] = count - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the most frequent value of a row, ignoring {@code excluded}; -2 excludes nothing.
+     * @return The value, or -1 ({@link #DEAD}) if the row has no other value.
+     */
+    private static int mostFrequent(int[] row, int excluded) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        int best = DEAD;
+        int bestCount = 0;
+        for (int target : row) {
+            if (target == excluded || (excluded != -2 && target == DEAD)) continue;
+            int count = counts.merge(target, 1, Integer::sum);
+            if (count > bestCount) {
+                best = target;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the start state.
+     * @return The start state, or {@link #DEAD} if the DFA accepts nothing.
+     */
+    public int getStartState() {
+        return this.startState;
+    }
+
+    /**
+     * Follows the transition of a live state on a character.
+     * @param state A live state.
+     * @param c The character.
+     * @return The next state, or {@link #DEAD}.
+     */
+    public int step(int state, char c) {
+        int cls = this.classes[this.blocks[c >>> 8] + (c & 0xFF)];
+        int i = this.base[state] + cls;
+        if (this.check[i] == state) return this.next[i];
+        int t = this.template[state];
+        i = this.base[t] + cls;
+        return this.check[i] == t ? this.next[i] : this.defaults[t];
+    }
+
+    /**
+     * Checks whether a live state is accepting.
+     * @param state A live state.
+     * @return True if the state is final.
+     */
+    public boolean isAccepting(int state) {
+        return this.accept[state];
+    }
+
+    /**
+     * Checks whether an input is accepted as a whole.
+     * @param input The input.
+     * @return True if the DFA accepts the input.
+     */
+    public boolean matches(CharSequence input) {
+        int state = this.startState;
+        for (int i = 0; i < input.length() && state != DEAD; i++) state = this.step(state, input.charAt(i));
+        return state != DEAD && this.accept[state];
+    }
+
+    /**
+     * Returns where the longest match starting at a position ends.
+     * @param input The input.
+     * @param from The position where the match starts.
+     * @return The end (exclusive) of the longest match, or -1 if there is none.
+     */
+    public int longestMatch(CharSequence input, int from) {
+        int state = this.startState;
+        if (state == DEAD) return -1;
+        int end = this.accept[state] ? from : -1;
+        for (int i = from; i < input.length(); i++) {
+            state = this.step(state, input.charAt(i));
+            if (state == DEAD) break;
+            if (this.accept[state]) end = i + 1;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the number of live states.
+     * @return The number of rows.
+     */
+    public int getStateCount() {
+        return this.accept.length;
+    }
+
+    /**
+     * Returns the number of character classes.
+     * @return The number of columns.
+     */
+    public int getClassCount() {
+        return this.classCount;
+    }
+
+    /**
+     * Returns the number of transitions stored in the comb, that is the ones that differ from
+     * their state's default target or template.
+     * @return The number of entries.
+     */
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+
+    /**
+     * Returns the length of the {@code next}/{@code check} arrays; the slots not used by an
+     * entry are the gaps left by row displacement.
+     * @return The comb length.
+     */
+    public int getCombLength() {
+        return this.next.length;
+    }
+
+    /**
+     * Returns the memory used by the dense table over the same classes: one int per state and class.
+     * @return The size in bytes.
+     */
+    public long getDenseBytes() {
+        return 4L * this.getStateCount() * this.classCount + this.classMapBytes();
+    }
+
+    /**
+     * Returns the memory used by the compressed table: base, defaults, templates, next and check, plus the
+     * accept flags and the class map shared with the dense table.
+     * @return The size in bytes.
+     */
+    public long getCompressedBytes() {
+        return 4L * (3 * this.getStateCount() + 2 * this.next.length) + this.accept.length + this.classMapBytes();
+    }
+
+    /**
+     * Returns how many times smaller the compressed table is than the dense one.
+     * @return The compression ratio.
+     */
+    public double getCompressionRatio() {
+        return (double) this.getDenseBytes() / this.getCompressedBytes();
+    }
+
+    private long classMapBytes() {
+        return 4L * (this.blocks.length + this.classes.length);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d states x %d classes: %d entries in a comb of %d slots, %d bytes (dense %d bytes, ratio %.1fx)",
+            this.getStateCount(), this.classCount, this.entryCount, this.next.length,
+            this.getCompressedBytes(), this.getDenseBytes(), this.getCompressionRatio());
+    }
+}
@@ -1,5 +1,6 @@
 package com.compiler.lexer.dfa;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -7,6 +8,11 @@ import java.util.List;
  * ---
  * Represents a complete Deterministic Finite Automaton (DFA).
  * Contains the start state and a list of all states in the automaton.
+ * <p>
+ * A DFA is immutable: constructing it freezes all of its states, so a finished
+ * automaton can be shared between threads and matched concurrently.
+ * States frozen for the first time are then classified by {@link StateClassifier}; states
+ * shared with an earlier DFA keep the classification they already have.
  */
 public class DFA {
     /**
@@ -15,18 +21,22 @@ public class DFA {
     public final DfaState startState;
 
     /**
-     * A list of all states in the DFA.
+     * A read-only list of all states in the DFA.
      */
     public final List<DfaState> allStates;
     // Optionally, a Set<Character> for the alphabet could be added.
 
     /**
-     * Constructs a new DFA.
+     * Constructs a new DFA, freezes its states and classifies the ones not frozen before.
      * @param startState The starting state of the DFA.
      * @param allStates  A list of all states in the DFA.
      */
     public DFA(DfaState startState, List<DfaState> allStates) {
-        //TODO: Implement DFA construction logic.
-        throw new UnsupportedOperationException("DFA construction is not supported yet.");
+        this.startState = startState;
+        this.allStates = List.copyOf(allStates);
+        List<DfaState> fresh = new ArrayList<>();
+        for (DfaState state : this.allStates)
+            if (state.freeze()) fresh.add(state);
+        StateClassifier.classify(fresh);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,13 @@
 package com.compiler.lexer.dfa;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.nfa.BuildContext;
 import com.compiler.lexer.nfa.State;
 
 /**
@@ -11,41 +16,71 @@ import com.compiler.lexer.nfa.State;
  * Represents a single state in a Deterministic Finite Automaton (DFA).
  * Each DFA state corresponds to a set of states from the original NFA.
  * Provides methods for managing transitions, checking finality, and equality based on NFA state sets.
+ * <p>
+ * Transitions are labelled with disjoint {@link CharRange}s kept in a sorted map,
+ * so a state's size depends on the number of distinct ranges it uses and not on
+ * how many characters those ranges cover.
  */
 public class DfaState {
+    /**
+     * What can still happen once a match reaches a state (see {@link StateClassifier}).
+     */
+    public enum Kind {
+        /** No final state is reachable: the input is rejected. */
+        DEAD,
+        /** Every continuation is accepted. */
+        ACCEPT_FOREVER,
+        /** The state loops on every character except a few escapes. */
+        ACCELERABLE,
+        /** None of the above. */
+        NORMAL
+    }
+
     /**
      * Returns all transitions from this state.
-     * @return Map of input symbols to destination DFA states.
+     * @return Map of disjoint input ranges to destination DFA states, sorted by range.
      */
-    public Map<Character, DfaState> getTransitions() {
-        // TODO: Implement getTransitions
-        throw new UnsupportedOperationException("Not implemented");
+    public NavigableMap<CharRange, DfaState> getTransitions() {
+        return this.transitions;
     }
-    private static int nextId = 0;
     /**
-     * Unique identifier for this DFA state.
+     * Identifier for this DFA state, dense and unique within the automaton being built
+     * (see {@link BuildContext}).
      */
     public final int id;
     /**
      * The set of NFA states this DFA state represents.
+     * Empty for states that were not built from an NFA (for example by regex derivatives).
      */
     public final Set<State> nfaStates;
     /**
-     * Indicates whether this DFA state is a final (accepting) state.
-     */
-    public boolean isFinal;
-    /**
-     * Map of input symbols to destination DFA states (transitions).
+     * Map of disjoint input ranges to destination DFA states (transitions).
+     * This is a read-only view; transitions are added with {@link #addTransition}.
      */
-    public final Map<Character, DfaState> transitions;
+    public final NavigableMap<CharRange, DfaState> transitions;
+
+    private final TreeMap<CharRange, DfaState> table;
+    // Changed only through setFinal, which fails once the state belongs to a DFA
+    private boolean isFinal;
+    private boolean frozen;
+    private Kind kind = Kind.NORMAL;
+    private char[] escapes;
+    private AcceptSet acceptSet;
+
+    // The NFA state set never changes, so its (expensive) hash is computed once.
+    private final int hash;
 
     /**
      * Constructs a new DFA state.
      * @param nfaStates The set of NFA states that this DFA state represents.
      */
     public DfaState(Set<State> nfaStates) {
-    // TODO: Implement constructor
-    throw new UnsupportedOperationException("Not implemented");
+        this.id = BuildContext.current().nextDfaStateId();
+        this.nfaStates = Collections.unmodifiableSet(nfaStates);
+        this.isFinal = false;
+        this.table = new TreeMap<>();
+        this.transitions = Collections.unmodifiableNavigableMap(this.table);
+        this.hash = nfaStates.isEmpty() ? System.identityHashCode(this) : nfaStates.hashCode();
     }
 
     /**
@@ -54,19 +89,107 @@ public class DfaState {
      * @param toState The destination DFA state.
      */
     public void addTransition(Character symbol, DfaState toState) {
-    // TODO: Implement addTransition
-    throw new UnsupportedOperationException("Not implemented");
+        this.addTransition(CharRange.of(symbol), toState);
+    }
+
+    /**
+     * Adds a transition from this state to another on a range of symbols.
+     * The range must not overlap an existing transition; adjacent ranges that
+     * lead to the same state are merged into one.
+     * @param range The input range for the transition.
+     * @param toState The destination DFA state.
+     * @throws IllegalStateException if the state already belongs to a finished DFA.
+     */
+    public void addTransition(CharRange range, DfaState toState) {
+        this.checkNotFrozen();
+        char low = range.low;
+        char high = range.high;
+
+        Map.Entry<CharRange, DfaState> below = this.table.lowerEntry(range);
+        if (below != null && below.getValue() == toState && below.getKey().high + 1 == low) {
+            this.table.remove(below.getKey());
+            low = below.getKey().low;
+        }
+        Map.Entry<CharRange, DfaState> above = this.table.higherEntry(range);
+        if (above != null && above.getValue() == toState && high + 1 == above.getKey().low) {
+            this.table.remove(above.getKey());
+            high = above.getKey().high;
+        }
+        this.table.put(new CharRange(low, high), toState);
+    }
+
+    /**
+     * Makes this state read-only. Called by {@link DFA} when the automaton is finished,
+     * after which the state can be shared freely between threads.
+     * @return true if the state was not frozen before.
+     */
+    boolean freeze() {
+        if (this.frozen) return false;
+        this.frozen = true;
+        return true;
+    }
+
+    /**
+     * Records the classification of this state. Called by {@link StateClassifier} once, when the
+     * state is first frozen and before any other thread can reach it; never changed afterwards.
+     */
+    void classify(Kind kind, char[] escapes) {
+        this.kind = kind;
+        this.escapes = escapes;
+    }
+
+    /**
+     * Returns the classification of this state. States of an unfinished DFA are NORMAL.
+     * @return The kind of state.
+     */
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Returns the characters that leave an accelerable state.
+     * @return The escape characters, or null if the state is not ACCELERABLE.
+     */
+    public char[] getEscapes() {
+        return this.escapes == null ? null : this.escapes.clone();
+    }
+
+    /**
+     * Finds the first escape character of an accelerable state, without copying the escapes.
+     * @param input The input.
+     * @param from The first position to examine.
+     * @return The position of the first escape at or after {@code from}, or the input length if there is none.
+     */
+    public int nextEscape(CharSequence input, int from) {
+        if (this.escapes.length == 1 && input instanceof String) {
+            int found = ((String) input).indexOf(this.escapes[0], from);
+            return found < 0 ? input.length() : found;
+        }
+        for (int i = from; i < input.length(); i++) {
+            char c = input.charAt(i);
+            for (char escape : this.escapes)
+                if (c == escape) return i;
+        }
+        return input.length();
+    }
+
+    private void checkNotFrozen() {
+        if (this.frozen) throw new IllegalStateException("DFA state D" + this.id + " belongs to a finished DFA");
     }
 
     /**
      * Two DfaStates are considered equal if they represent the same set of NFA states.
+     * States that do not represent any NFA state are only equal to themselves.
      * @param obj The object to compare.
      * @return True if the states are equal, false otherwise.
      */
     @Override
     public boolean equals(Object obj) {
-    // TODO: Implement equals
-    throw new UnsupportedOperationException("Not implemented");
+        if (this == obj) return true;
+        if (!(obj instanceof DfaState)) return false;
+        DfaState other = (DfaState) obj;
+        if (this.nfaStates.isEmpty()) return false;
+        return this.hash == other.hash && this.nfaStates.equals(other.nfaStates);
     }
 
     /**
@@ -75,8 +198,7 @@ public class DfaState {
      */
     @Override
     public int hashCode() {
-    // TODO: Implement hashCode
-    throw new UnsupportedOperationException("Not implemented");
+        return this.hash;
     }
     
     /**
@@ -85,17 +207,36 @@ public class DfaState {
      */
     @Override
     public String toString() {
-    // TODO: Implement toString
-    throw new UnsupportedOperationException("Not implemented");
+        return "D" + this.id + (this.isFinal ? " (Final)" : "");
     }
 
     /**
      * Sets the finality of the DFA state.
      * @param isFinal True if this state is a final state, false otherwise.
+     * @throws IllegalStateException if the state already belongs to a finished DFA.
      */
     public void setFinal(boolean isFinal) {
-    // TODO: Implement setFinal
-    throw new UnsupportedOperationException("Not implemented");
+        this.checkNotFrozen();
+        this.isFinal = isFinal;
+    }
+
+    /**
+     * Sets the patterns accepted by this state, for automata that match several patterns at once.
+     * States with different accept sets are never merged by {@code DfaMinimizer}.
+     * @param acceptSet The accepted pattern ids, usually interned by the builder.
+     * @throws IllegalStateException if the state already belongs to a finished DFA.
+     */
+    public void setAcceptSet(AcceptSet acceptSet) {
+        this.checkNotFrozen();
+        this.acceptSet = acceptSet;
+    }
+
+    /**
+     * Returns the patterns accepted by this state.
+     * @return The accepted pattern ids, or null if the automaton does not track patterns.
+     */
+    public AcceptSet getAcceptSet() {
+        return this.acceptSet;
     }
 
     /**
@@ -103,18 +244,19 @@ public class DfaState {
      * @return True if this state is a final state, false otherwise.
      */
     public boolean isFinal() {
-    // TODO: Implement isFinal
-    throw new UnsupportedOperationException("Not implemented");
+        return this.isFinal;
     }
 
     /**
      * Gets the transition for a given input symbol.
+     * The range containing the symbol is found by binary search over the sorted ranges.
      * @param symbol The input symbol for the transition.
      * @return The destination DFA state for the transition, or null if there is no transition for the given symbol.
      */
     public DfaState getTransition(char symbol) {
-    // TODO: Implement getTransition
-    throw new UnsupportedOperationException("Not implemented");
+        Map.Entry<CharRange, DfaState> entry = this.table.floorEntry(new CharRange(symbol, Character.MAX_VALUE));
+        if (entry == null || !entry.getKey().contains(symbol)) return null;
+        return entry.getValue();
     }
 
     /**
@@ -122,7 +264,6 @@ public class DfaState {
      * @return The set of NFA states.
      */
     public Set<State> getName() {
-    // TODO: Implement getName
-    throw new UnsupportedOperationException("Not implemented");
+        return this.nfaStates;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,261 @@
+package com.compiler.lexer.dfa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import com.compiler.lexer.charclass.CharRange;
+
+/**
+ * OffHeapDfa
+ * ----------
+ * A read-only DFA stored outside of the Java heap, in a direct or memory-mapped
+ * {@link ByteBuffer}. The garbage collector only sees this small wrapper, so GC cost does
+ * not depend on the size of the automaton, and automata can be mapped from disk without
+ * ever being materialized as {@link DfaState} objects.
+ *
+ * Layout (native byte order, all values are 32-bit ints):
+ * <pre>
+ *     header: magic, stateCount, startState, rangeCount
+ *     states: stateCount x {firstRange, endRange, accept}
+ *     ranges: rangeCount x {low &lt;&lt; 16 | high, target}
+ * </pre>
+ * The ranges of a state are sorted and disjoint, so a transition is found by binary search.
+ * {@code accept} is -1 for non-accepting states and the accepted rule id otherwise: the
+ * smallest id of the state's {@link AcceptSet} for a DFA that tracks several patterns, the rule
+ * given by the caller (see {@link com.compiler.lexer.Lexer#toOffHeap()}), or 0 for a DFA built
+ * from a single pattern.
+ *
+ * After {@link #close()} every access fails, but close does not free anything: the direct buffer
+ * (or the file mapping) is released by the garbage collector once the buffer is unreachable,
+ * like any {@link ByteBuffer}. Java 17 has no way to free it safely while other threads may still
+ * be reading it. Reads never modify buffer positions, so an instance may be shared by any number
+ * of matching threads.
+ *
+ * Example usage:
+ * <pre>
+ *     try (OffHeapDfa table = OffHeapDfa.of(dfa)) {
+ *         boolean accepted = table.matches("input");
+ *     }
+ * </pre>
+ */
+public class OffHeapDfa implements AutoCloseable {
+    private static final int MAGIC = 0x44464131; // "DFA1"
+    private static final int HEADER_BYTES = 16;
+    private static final int STATE_BYTES = 12;
+    private static final int RANGE_BYTES = 8;
+
+    private volatile ByteBuffer buffer;
+
+    /**
+     * The number of states.
+     */
+    public final int stateCount;
+
+    /**
+     * The index of the start state.
+     */
+    public final int startState;
+
+    /**
+     * The total number of ranged transitions.
+     */
+    public final int rangeCount;
+
+    private OffHeapDfa(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        if (this.buffer.getInt(0) != MAGIC) throw new IllegalArgumentException("Not an off-heap DFA image");
+        this.stateCount = this.buffer.getInt(4);
+        this.startState = this.buffer.getInt(8);
+        this.rangeCount = this.buffer.getInt(12);
+    }
+
+    /**
+     * Copies a DFA into off-heap memory. States are numbered by their position in {@code allStates}.
+     * An accepting state stores the smallest id of its accept set, or 0 if it has none.
+     * @param dfa The DFA to copy.
+     * @return The off-heap DFA.
+     */
+    public static OffHeapDfa of(DFA dfa) {
+        return of(dfa, state -> {
+            if (!state.isFinal()) return -1;
+            AcceptSet ids = state.getAcceptSet();
+            return ids == null || ids.isEmpty() ? 0 : ids.toBitSet().nextSetBit(0);
+        });
+    }
+
+    /**
+     * Copies a DFA into off-heap memory, storing the rule accepted by each state.
+     * @param dfa The DFA to copy.
+     * @param ruleOf The rule id accepted by a state, or -1 if the state is not accepting.
+     * @return The off-heap DFA.
+     */
+    public static OffHeapDfa of(DFA dfa, ToIntFunction<DfaState> ruleOf) {
+        List<DfaState> states = dfa.allStates;
+        Map<DfaState, Integer> index = new IdentityHashMap<>();
+        long ranges = 0;
+        for (int i = 0; i < states.size(); i++) {
+            index.put(states.get(i), i);
+            ranges += states.get(i).transitions.size();
+        }
+        long size = HEADER_BYTES + (long) STATE_BYTES * states.size() + RANGE_BYTES * ranges;
+        if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("DFA too large for a single buffer: " + size + " bytes");
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, states.size());
+        buffer.putInt(8, index.get(dfa.startState));
+        buffer.putInt(12, (int) ranges);
+
+        int stateBase = HEADER_BYTES;
+        int rangeBase = HEADER_BYTES + STATE_BYTES * states.size();
+        int range = 0;
+        for (int i = 0; i < states.size(); i++) {
+            DfaState state = states.get(i);
+            int offset = stateBase + STATE_BYTES * i;
+            buffer.putInt(offset, range);
+            for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet()) {
+                int at = rangeBase + RANGE_BYTES * range++;
+                buffer.putInt(at, (transition.getKey().low << 16) | transition.getKey().high);
+                buffer.putInt(at + 4, index.get(transition.getValue()));
+            }
+            buffer.putInt(offset + 4, range);
+            buffer.putInt(offset + 8, ruleOf.applyAsInt(state));
+        }
+        return new OffHeapDfa(buffer);
+    }
+
+    /**
+     * Maps a DFA image written by {@link #writeTo(Path)} into memory without copying it to the heap.
+     * The header is checked against the file size, so a truncated or corrupt image fails here
+     * rather than on some later transition.
+     * @param file The image file.
+     * @return The off-heap DFA backed by the mapping.
+     * @throws IOException if the file cannot be mapped or is not a complete DFA image.
+     */
+    public static OffHeapDfa map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+                throw new IOException("Not an off-heap DFA image (" + size + " bytes): " + file);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.nativeOrder());
+            int stateCount = buffer.getInt(4);
+            int startState = buffer.getInt(8);
+            int rangeCount = buffer.getInt(12);
+            if (buffer.getInt(0) != MAGIC || stateCount <= 0 || rangeCount < 0)
+                throw new IOException("Not an off-heap DFA image: " + file);
+            long expected = HEADER_BYTES + (long) STATE_BYTES * stateCount + (long) RANGE_BYTES * rangeCount;
+            if (size != expected)
+                throw new IOException("Off-heap DFA image has " + size + " bytes, but its header ("
+                    + stateCount + " states, " + rangeCount + " ranges) needs " + expected + ": " + file);
+            if (startState < 0 || startState >= stateCount)
+                throw new IOException("Off-heap DFA image has start state " + startState + " of " + stateCount + ": " + file);
+            return new OffHeapDfa(buffer);
+        }
+    }
+
+    /**
+     * Writes the DFA image to a file, in the native byte order of this machine.
+     * @param file The destination file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void writeTo(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer view = this.buffer().duplicate();
+            view.clear();
+            while (view.hasRemaining()) channel.write(view);
+        }
+    }
+
+    /**
+     * Returns the state reached from a state on a character.
+     * @param state The source state index.
+     * @param c The input character.
+     * @return The target state index, or -1 if there is no transition.
+     */
+    public int transition(int state, char c) {
+        return transition(this.buffer(), this.stateCount, state, c);
+    }
+
+    /**
+     * Checks if a state is accepting.
+     * @param state The state index.
+     * @return true if the state is final.
+     */
+    public boolean isFinal(int state) {
+        return this.ruleId(state) >= 0;
+    }
+
+    /**
+     * Returns the rule accepted by a state.
+     * @param state The state index.
+     * @return The rule id, or -1 if the state is not accepting.
+     */
+    public int ruleId(int state) {
+        return this.buffer().getInt(HEADER_BYTES + STATE_BYTES * state + 8);
+    }
+
+    /**
+     * Runs the DFA on an input, reading transitions directly from off-heap memory.
+     * @param input The input to test.
+     * @return true if the whole input is accepted.
+     */
+    public boolean matches(CharSequence input) {
+        ByteBuffer memory = this.buffer();
+        int state = this.startState;
+        for (int i = 0; i < input.length(); i++) {
+            state = transition(memory, this.stateCount, state, input.charAt(i));
+            if (state < 0) return false;
+        }
+        return memory.getInt(HEADER_BYTES + STATE_BYTES * state + 8) >= 0;
+    }
+
+    /**
+     * Returns the size of the off-heap image.
+     * @return The number of bytes used.
+     */
+    public long byteSize() {
+        return this.buffer().capacity();
+    }
+
+    /**
+     * Makes this instance unusable; later accesses throw {@link IllegalStateException}.
+     * The memory itself is freed by the garbage collector (see the class comment).
+     */
+    @Override
+    public void close() {
+        this.buffer = null;
+    }
+
+    private ByteBuffer buffer() {
+        ByteBuffer memory = this.buffer;
+        if (memory == null) throw new IllegalStateException("Off-heap DFA is closed");
+        return memory;
+    }
+
+    /**
+     * Binary search over the ranges of one state.
+     */
+    private static int transition(ByteBuffer memory, int stateCount, int state, char c) {
+        int offset = HEADER_BYTES + STATE_BYTES * state;
+        int lo = memory.getInt(offset);
+        int hi = memory.getInt(offset + 4) - 1;
+        int rangeBase = HEADER_BYTES + STATE_BYTES * stateCount;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at = rangeBase + RANGE_BYTES * mid;
+            int packed = memory.getInt(at);
+            if (c < (packed >>> 16)) hi = mid - 1;
+            else if (c > (packed & 0xFFFF)) lo = mid + 1;
+            else return memory.getInt(at + 4);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,141 @@
+package com.compiler.lexer.dfa;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.compiler.lexer.charclass.CharRange;
+
+/**
+ * StateClassifier
+ * ---------------
+ * Classifies the states of a finished DFA so that matchers can decide an outcome early or skip
+ * input in bulk (see {@link DfaState.Kind}):
+ * - DEAD: no final state is reachable, so the input is rejected whatever follows.
+ * - ACCEPT_FOREVER: final, with a transition on every character and only into ACCEPT_FOREVER
+ *   states, so the input is accepted whatever follows.
+ * - ACCELERABLE: a self-loop on every character except at most {@value #MAX_ESCAPES}; the
+ *   matcher stays in the state until one of those escape characters, which it can find with
+ *   {@link String#indexOf(int, int)} instead of stepping through every character.
+ *
+ * All three only depend on the transitions reachable from a state, so the classification is
+ * computed once, when the {@link DFA} that first freezes the state is built, over every state
+ * reachable from it rather than over the list given to that DFA. States shared with automata
+ * built later (incremental snapshots, relayouts) are never classified again, which keeps their
+ * fields stable while other threads match with them.
+ * Dead states are found by backward reachability from the final states, accept-forever states
+ * as a greatest fixpoint over the complete final states; both are linear in the DFA's size.
+ * The partial DFA of a budgeted construction is classified as it stands, so its frontier states
+ * look dead; {@code HybridMatcher} therefore does not rely on the classification.
+ */
+public final class StateClassifier {
+    /**
+     * The largest number of characters leaving a state for it to be accelerable.
+     */
+    public static final int MAX_ESCAPES = 3;
+
+    private static final int ALPHABET_SIZE = Character.MAX_VALUE + 1;
+
+    private StateClassifier() {
+    }
+
+    /**
+     * Classifies newly frozen states.
+     *
+     * @param fresh The states to classify; states reachable from them are examined but not changed.
+     */
+    static void classify(List<DfaState> fresh) {
+        /*
+         Pseudocode:
+         0. Collect every state reachable from the fresh states
+         1. Walk backward from the final states; states never reached are DEAD
+         2. Candidates are final states whose transitions cover every character; repeatedly drop
+            candidates with a transition into a non-candidate. The survivors are ACCEPT_FOREVER
+         3. Of the remaining states, those whose self-loop misses at most MAX_ESCAPES characters
+            are ACCELERABLE, with the missed characters as escapes
+         4. Record the kind of the fresh states only
+        */
+        if (fresh.isEmpty()) return;
+        List<DfaState> states = reachable(fresh);
+        Map<DfaState, List<DfaState>> predecessors = new IdentityHashMap<>();
+        for (DfaState state : states) predecessors.put(state, new ArrayList<>());
+        for (DfaState state : states)
+            for (DfaState target : state.transitions.values())
+                predecessors.computeIfAbsent(target, k -> new ArrayList<>()).add(state);
+
+        Set<DfaState> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<DfaState> worklist = new ArrayDeque<>();
+        for (DfaState state : states)
+            if (state.isFinal() && live.add(state)) worklist.push(state);
+        while (!worklist.isEmpty())
+            for (DfaState source : predecessors.get(worklist.pop()))
+                if (live.add(source)) worklist.push(source);
+
+        Set<DfaState> forever = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DfaState state : states)
+            if (state.isFinal() && coverage(state, null) == ALPHABET_SIZE) forever.add(state);
+        for (DfaState state : forever) worklist.push(state);
+        while (!worklist.isEmpty()) {
+            DfaState state = worklist.pop();
+            if (!forever.contains(state)) continue;
+            for (DfaState target : state.transitions.values()) {
+                if (forever.contains(target)) continue;
+                forever.remove(state);
+                for (DfaState source : predecessors.get(state))
+                    if (forever.contains(source)) worklist.push(source);
+                break;
+            }
+        }
+
+        for (DfaState state : fresh) {
+            if (!live.contains(state)) state.classify(DfaState.Kind.DEAD, null);
+            else if (forever.contains(state)) state.classify(DfaState.Kind.ACCEPT_FOREVER, null);
+            else if (ALPHABET_SIZE - coverage(state, state) <= MAX_ESCAPES) state.classify(DfaState.Kind.ACCELERABLE, escapes(state));
+            else state.classify(DfaState.Kind.NORMAL, null);
+        }
+    }
+
+    /**
+     * Returns the given states followed by every state reachable from them.
+     */
+    private static List<DfaState> reachable(List<DfaState> from) {
+        Set<DfaState> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<DfaState> states = new ArrayList<>();
+        for (DfaState state : from)
+            if (seen.add(state)) states.add(state);
+        for (int i = 0; i < states.size(); i++)
+            for (DfaState target : states.get(i).transitions.values())
+                if (seen.add(target)) states.add(target);
+        return states;
+    }
+
+    /**
+     * Counts the characters with a transition, only into {@code target} if it is not null.
+     */
+    private static int coverage(DfaState state, DfaState target) {
+        int count = 0;
+        for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet())
+            if (target == null || transition.getValue() == target) count += transition.getKey().size();
+        return count;
+    }
+
+    /**
+     * Returns the characters not covered by a state's self-loop.
+     */
+    private static char[] escapes(DfaState state) {
+        StringBuilder escapes = new StringBuilder();
+        int next = 0;
+        for (Map.Entry<CharRange, DfaState> transition : state.transitions.entrySet()) {
+            if (transition.getValue() != state) continue;
+            for (int c = next; c < transition.getKey().low; c++) escapes.append((char) c);
+            next = transition.getKey().high + 1;
+        }
+        for (int c = next; c < ALPHABET_SIZE; c++) escapes.append((char) c);
+        return escapes.toString().toCharArray();
+    }
+}
@@ -0,0 +1,96 @@
+package com.compiler.lexer.nfa;
+
+import java.util.function.Supplier;
+
+/**
+ * Represents the id space of one automaton build.
+ * <p>
+ * NFA {@link State}s and DFA states take their ids from the build context that is active
+ * on the current thread, so automata built concurrently on different threads never share
+ * a counter, and every automaton gets dense ids starting at 0. The builders
+ * ({@code RegexParser}, {@code NfaToDfaConverter}, {@code DfaMinimizer}, ...) run through
+ * {@link #build(Supplier)}, which opens a fresh context unless one is already active; a
+ * caller that assembles one automaton from several builds (for example a union of
+ * patterns) activates a single context around all of them with {@link #call(Supplier)}.
+ * <p>
+ * There is no fallback: creating a state outside of any build is an error, so no id counter
+ * outlives the automaton it numbers.
+ *
+ * Example usage:
+ * <pre>
+ *     BuildContext context = new BuildContext();
+ *     NFA union = context.call(() -> buildUnion(patterns)); // one id space for all patterns
+ * </pre>
+ */
+public class BuildContext {
+    private static final ThreadLocal<BuildContext> ACTIVE = new ThreadLocal<>();
+
+    private int nextStateId = 0;
+    private int nextDfaStateId = 0;
+
+    /**
+     * Creates a new context whose ids start at 0.
+     */
+    public BuildContext() {
+    }
+
+    /**
+     * Runs a build with this context active on the current thread, restoring the
+     * previously active context afterwards. A context may be re-entered later to keep
+     * extending the same automaton.
+     *
+     * @param build The build to run.
+     * @param <T> The type of the result.
+     * @return The result of the build.
+     */
+    public <T> T call(Supplier<T> build) {
+        BuildContext previous = ACTIVE.get();
+        ACTIVE.set(this);
+        try {
+            return build.get();
+        } finally {
+            if (previous == null) ACTIVE.remove();
+            else ACTIVE.set(previous);
+        }
+    }
+
+    /**
+     * Runs a build in the active context, or in a fresh context if none is active.
+     *
+     * @param build The build to run.
+     * @param <T> The type of the result.
+     * @return The result of the build.
+     */
+    public static <T> T build(Supplier<T> build) {
+        if (ACTIVE.get() != null) return build.get();
+        return new BuildContext().call(build);
+    }
+
+    /**
+     * Returns the context that new states take their ids from on the current thread.
+     * @return The active context.
+     * @throws IllegalStateException if no build is active on the current thread.
+     */
+    public static BuildContext current() {
+        BuildContext active = ACTIVE.get();
+        if (active == null)
+            throw new IllegalStateException("States must be created inside BuildContext.build or BuildContext.call");
+        return active;
+    }
+
+    /**
+     * Allocates the next NFA state id.
+     * @return A new id, unique within this context.
+     */
+    public int nextStateId() {
+        return this.nextStateId++;
+    }
+
+    /**
+     * Allocates the next DFA state id.
+     * @return A new id, unique within this context.
+     */
+    public int nextDfaStateId() {
+        return this.nextDfaStateId++;
+    }
+}
@@ -0,0 +1,81 @@
+package com.compiler.lexer.nfa;
+
+/**
+ * Counter
+ * -------
+ * A counter of a counting automaton. It implements a bounded repetition {@code X{min,max}} with a
+ * single copy of {@code X}. The counter counts the iterations of the current pass through the
+ * loop, and epsilon transitions carry one of three operations on it:
+ * <ul>
+ *   <li>{@link Op#ENTER} - start the first iteration (value 1).</li>
+ *   <li>{@link Op#REPEAT} - start another iteration, allowed while the value is below {@code max}.</li>
+ *   <li>{@link Op#EXIT} - leave the loop, allowed once the value reaches {@code min} (value 0).</li>
+ * </ul>
+ * Outside its loop a counter is always 0. For unbounded repetitions the value saturates at
+ * {@link #cap()}, since larger values cannot be told apart, so a counter never takes more than
+ * {@code cap() + 1} distinct values.
+ */
+public class Counter {
+    /**
+     * The operations a transition may perform on a counter.
+     */
+    public enum Op { ENTER, REPEAT, EXIT }
+
+    /**
+     * Index of the counter within its automaton.
+     */
+    public final int id;
+
+    /**
+     * Minimum number of iterations.
+     */
+    public final int min;
+
+    /**
+     * Maximum number of iterations, or -1 if unbounded.
+     */
+    public final int max;
+
+    /**
+     * Creates a counter.
+     * @param id Index of the counter within its automaton.
+     * @param min Minimum number of iterations.
+     * @param max Maximum number of iterations, or -1 if unbounded.
+     */
+    public Counter(int id, int min, int max) {
+        this.id = id;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Returns the largest value the counter takes.
+     * @return max for bounded repetitions, otherwise the saturation point max(min, 1).
+     */
+    public int cap() {
+        return this.max >= 0 ? this.max : Math.max(this.min, 1);
+    }
+
+    /**
+     * Applies an operation to a value.
+     * @param op The operation.
+     * @param value The current value.
+     * @return The new value, or -1 if the operation is not allowed.
+     */
+    public int apply(Op op, int value) {
+        switch (op) {
+            case ENTER:
+                return 1;
+            case REPEAT:
+                if (this.max >= 0 && value >= this.max) return -1;
+                return Math.min(value + 1, this.cap());
+            default:
+                return value >= this.min ? 0 : -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "c" + this.id + "{" + this.min + "," + (this.max < 0 ? "" : this.max) + "}";
+    }
+}
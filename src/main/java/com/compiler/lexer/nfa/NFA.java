@@ -1,8 +1,13 @@
 package com.compiler.lexer.nfa;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.Stack;
 
@@ -21,9 +26,22 @@ public class NFA {
 
     /**
      * The final (accepting) state of the NFA.
+     * Null for automata with several accepting states (such as position automata),
+     * in which case the accepting states are the ones with {@code isFinal} set.
      */
     public  State endState;
 
+    /**
+     * The number of capture groups written in the pattern, not counting group 0. Groups whose
+     * tags did not survive construction (inside {@code {0}} or a boolean operand) still count.
+     */
+    private int groupCount;
+
+    /**
+     * The regular expression the automaton was parsed from, if any.
+     */
+    private String source;
+
     /**
      * Constructs a new NFA with the given start and end states.
      * @param start The initial state.
@@ -47,22 +65,122 @@ public class NFA {
      * @return the end state
      */
     public State getEndState() {
-        return this.startState;
+        return this.endState;
+    }
+
+    /**
+     * Returns the number of capture groups of the pattern, not counting group 0.
+     * @return the number of groups, or 0 if the automaton was not built from a pattern with groups
+     */
+    public int getGroupCount() {
+        return this.groupCount;
+    }
+
+    /**
+     * Sets the number of capture groups of the pattern.
+     * @param groupCount the number of groups, not counting group 0
+     */
+    public void setGroupCount(int groupCount) {
+        this.groupCount = groupCount;
+    }
+
+    /**
+     * Returns the regular expression the automaton was parsed from.
+     * @return the pattern, or null if the automaton was not built by a parser
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Records the regular expression the automaton was parsed from.
+     * @param source the pattern
+     */
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Makes every state reachable from the start state read-only, so the finished automaton can
+     * be shared. Builders that start from it create new states instead.
+     * @return this NFA
+     */
+    public NFA freeze() {
+        for (State state : this.getStates()) state.freeze();
+        return this;
+    }
+
+    /**
+     * Returns every state reachable from the start state, in breadth-first order.
+     * @return the reachable states, starting with the start state
+     */
+    public List<State> getStates() {
+        List<State> states = new ArrayList<>();
+        Set<State> visited = new HashSet<>();
+        Queue<State> queue = new ArrayDeque<>();
+        queue.add(this.startState);
+        visited.add(this.startState);
+        while (!queue.isEmpty()) {
+            State current = queue.poll();
+            states.add(current);
+            for (Transition transition : current.transitions)
+                if (visited.add(transition.toState)) queue.add(transition.toState);
+        }
+        return states;
+    }
+
+    /**
+     * Returns the number of counters used by the automaton (see {@link Counter}).
+     * Automata with counters can only be run by simulation; they cannot be determinized.
+     * @return one more than the largest counter id, or 0 if there are no counters
+     */
+    public int getCounterCount() {
+        int count = 0;
+        for (State state : this.getStates())
+            for (Transition transition : state.transitions)
+                if (transition.counter != null) count = Math.max(count, transition.counter.id + 1);
+        return count;
+    }
+
+    /**
+     * Builds the reverse automaton, which accepts the reversal of every string this one accepts.
+     * Every transition is turned around; a new start state has epsilon transitions to all final
+     * states, and the old start state becomes the only final state. Capture tags become plain
+     * epsilon transitions. The states are created in the current {@link BuildContext}.
+     *
+     * @return the reversed NFA, whose end state is the old start state
+     * @throws IllegalArgumentException if the automaton uses counters
+     */
+    public NFA reverse() {
+        if (this.getCounterCount() > 0) throw new IllegalArgumentException("NFA with counters cannot be reversed");
+        List<State> states = this.getStates();
+        Map<State, State> reversed = new IdentityHashMap<>();
+        for (State state : states) reversed.put(state, new State());
+
+        State start = new State();
+        for (State state : states) {
+            if (state.isFinal()) start.addClassTransition(null, reversed.get(state));
+            for (Transition transition : state.transitions)
+                reversed.get(transition.toState).addClassTransition(transition.label, reversed.get(state));
+        }
+        State end = reversed.get(this.startState);
+        end.setFinal(true);
+        return new NFA(start, end);
     }
 
     @Override
     public String toString(){
-        String output = "";
+        StringBuilder output = new StringBuilder();
         Stack<State> stack = new Stack<>();
         Set<State> visited = new HashSet<>();
         stack.push(this.startState);
+        visited.add(this.startState);
         while(!stack.empty()){
             State current = stack.pop();
-            visited.add(current);
-            output += current.toString() + ", ";
+            output.append(current).append(", ");
             for (Transition transition : current.transitions)
-                if (!visited.contains(transition.toState))stack.add(transition.toState);
+                if (visited.add(transition.toState)) stack.push(transition.toState);
         }
-        return output;
+        return output.toString();
     }
-}
\ No newline at end of file
+}
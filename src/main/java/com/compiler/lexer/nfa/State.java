@@ -1,7 +1,11 @@
 package com.compiler.lexer.nfa;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Predicate;
+
+import com.compiler.lexer.charclass.CharClass;
 
 /**
  * Represents a state in a Non-deterministic Finite Automaton (NFA).
@@ -18,11 +22,15 @@ import java.util.List;
  *
  *
  * <p>
- * The {@code nextId} static field is used to assign unique IDs to each state.
+ * IDs are assigned by the {@link BuildContext} active on the current thread, so they are
+ * dense and unique within one automaton.
+ * </p>
+ * <p>
+ * Builders that hand out a finished automaton (such as {@code RegexParser}) freeze it with
+ * {@link NFA#freeze()}; after that its states reject any change and can be shared freely.
  * </p>
  */
 public class State {
-    private static int nextId = 0;
     /**
      * Unique identifier for this state.
      */
@@ -30,21 +38,22 @@ public class State {
 
     /**
      * List of transitions from this state to other states.
+     * This is a read-only view; transitions are added with the {@code add...Transition} methods.
      */
-    public List<Transition> transitions;
+    public final List<Transition> transitions;
 
-    /**
-     * Indicates if this state is a final (accepting) state.
-     */
-    public boolean isFinal;
+    private final List<Transition> table;
+    private boolean isFinal;
+    private boolean frozen;
 
     /**
-     * Constructs a new state with a unique identifier and no transitions.
+     * Constructs a new state with an identifier from the current build context and no transitions.
      * The state is not final by default.
      */
     public State() {
-        this.id = nextId++; // Increments nextId after setting the this.id.
-        this.transitions = new LinkedList<>();
+        this.id = BuildContext.current().nextStateId();
+        this.table = new LinkedList<>();
+        this.transitions = Collections.unmodifiableList(this.table);
         this.isFinal = false;
     }
 
@@ -58,7 +67,28 @@ public class State {
     }
 
     /**
-     * Returns the states reachable from this state via epsilon transitions (symbol == null).
+     * Sets the finality of the state.
+     * @param isFinal true if this state is a final state
+     * @throws IllegalStateException if the state belongs to a frozen automaton
+     */
+    public void setFinal(boolean isFinal) {
+        this.checkNotFrozen();
+        this.isFinal = isFinal;
+    }
+
+    /**
+     * Makes this state read-only. Called by {@link NFA#freeze()}.
+     */
+    void freeze() {
+        this.frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (this.frozen) throw new IllegalStateException("NFA state " + this.id + " belongs to a frozen automaton");
+    }
+
+    /**
+     * Returns the states reachable from this state via epsilon transitions (label == null).
      * @return a list of states reachable by epsilon transitions
      */
     public List<State> getEpsilonTransitions() {
@@ -67,13 +97,13 @@ public class State {
 
         // Do we need the complete epsilon enclosure ???
         for (Transition transition : this.transitions)
-            if(transition.symbol == null) result.add(transition.toState);
+            if(transition.isEpsilon()) result.add(transition.toState);
         
         return result;
     }
 
     /**
-     * Returns the states reachable from this state via a transition with the given symbol.
+     * Returns the states reachable from this state via a transition whose label contains the given symbol.
      * @param symbol the symbol for the transition
      * @return a list of states reachable by the given symbol
      */
@@ -84,7 +114,7 @@ public class State {
 
         // Do we need the complete enclosure ???
         for (Transition transition : this.transitions)
-            if(transition.symbol == symbol) result.add(transition.toState);
+            if(transition.accepts(symbol)) result.add(transition.toState);
 
         return result;
     }
@@ -95,15 +125,57 @@ public class State {
      * @param toState The destination state.
      */
     public void addTransition(Character symbol, State toState){
-        this.transitions.add(new Transition(symbol, toState));
+        this.checkNotFrozen();
+        this.table.add(new Transition(symbol, toState));
+    }
+
+    /**
+     * Adds a new transition labelled with a character class to the state.
+     * @param label The characters for the transition (null for epsilon).
+     * @param toState The destination state.
+     */
+    public void addClassTransition(CharClass label, State toState){
+        this.checkNotFrozen();
+        this.table.add(new Transition(label, toState));
+    }
+
+    /**
+     * Adds a new epsilon transition that records a capture slot when taken.
+     * @param tag The capture slot.
+     * @param toState The destination state.
+     */
+    public void addTagTransition(int tag, State toState){
+        this.checkNotFrozen();
+        this.table.add(new Transition(tag, toState));
+    }
+
+    /**
+     * Adds a new epsilon transition that updates a counter when taken.
+     * @param counter The counter.
+     * @param op The operation on the counter.
+     * @param toState The destination state.
+     */
+    public void addCounterTransition(Counter counter, Counter.Op op, State toState){
+        this.checkNotFrozen();
+        this.table.add(new Transition(counter, op, toState));
+    }
+
+    /**
+     * Removes the transitions that match a filter.
+     * @param filter The transitions to remove.
+     * @throws IllegalStateException if the state belongs to a frozen automaton
+     */
+    public void removeTransitions(Predicate<Transition> filter){
+        this.checkNotFrozen();
+        this.table.removeIf(filter);
     }
 
     @Override
     public String toString(){
-        String transitions = "";
-        for (Transition transition : this.transitions){
-            transitions += transition.toString() + ", ";
+        StringBuilder output = new StringBuilder("{").append(this.id).append(": [");
+        for (Transition transition : this.table){
+            output.append(transition).append(", ");
         }
-        return "{" + this.id + ": [" + transitions + "]}";
+        return output.append("]}").toString();
     }
-}
\ No newline at end of file
+}
@@ -1,37 +1,111 @@
 package com.compiler.lexer.nfa;
 
+import com.compiler.lexer.charclass.CharClass;
+
 /**
  * Represents a transition in a Non-deterministic Finite Automaton (NFA).
- * Each transition consists of a symbol and a destination state.
+ * Each transition consists of a label and a destination state.
  *
  * <p>
- * The transition occurs when the automaton reads the specified symbol,
- * moving from the current state to the given destination state.
+ * The transition occurs when the automaton reads any character of the label,
+ * moving from the current state to the given destination state. Labels are
+ * {@link CharClass}es, so a character class such as {@code [a-z0-9]} is a
+ * single transition regardless of how many characters it contains.
  * </p>
  */
 public class Transition {
     /**
-     * The symbol that triggers this transition. Null for epsilon transitions.
+     * The characters that trigger this transition. Null for epsilon transitions.
      */
-    public final Character symbol;
+    public final CharClass label;
 
     /**
      * The destination state for this transition.
      */
     public final State toState;
 
+    /**
+     * The capture slot recorded when an epsilon transition is taken, or -1 if none.
+     * Slot {@code 2k} marks the start of group {@code k} and slot {@code 2k+1} its end.
+     * Tags do not change the language of the automaton; algorithms that do not extract
+     * captures treat tagged transitions as plain epsilons.
+     */
+    public final int tag;
+
+    /**
+     * The counter updated when this epsilon transition is taken, or null if none.
+     */
+    public final Counter counter;
+
+    /**
+     * The operation performed on {@link #counter}, or null if none.
+     */
+    public final Counter.Op counterOp;
+
     /**
      * Constructs a new transition with the given symbol and destination state.
      * @param symbol The symbol for the transition (null for epsilon).
      * @param toState The destination state.
      */
     public Transition(Character symbol, State toState) {
-        this.symbol = symbol;
+        this(symbol == null ? null : CharClass.of(symbol), toState);
+    }
+
+    /**
+     * Constructs a new transition with the given label and destination state.
+     * @param label The characters for the transition (null for epsilon).
+     * @param toState The destination state.
+     */
+    public Transition(CharClass label, State toState) {
+        this(label, toState, -1, null, null);
+    }
+
+    /**
+     * Constructs a new epsilon transition that records a capture slot.
+     * @param tag The capture slot.
+     * @param toState The destination state.
+     */
+    public Transition(int tag, State toState) {
+        this(null, toState, tag, null, null);
+    }
+
+    /**
+     * Constructs a new epsilon transition that updates a counter.
+     * @param counter The counter.
+     * @param op The operation on the counter.
+     * @param toState The destination state.
+     */
+    public Transition(Counter counter, Counter.Op op, State toState) {
+        this(null, toState, -1, counter, op);
+    }
+
+    private Transition(CharClass label, State toState, int tag, Counter counter, Counter.Op counterOp) {
+        this.label = label;
         this.toState = toState;
+        this.tag = tag;
+        this.counter = counter;
+        this.counterOp = counterOp;
+    }
+
+    /**
+     * Checks if this is an epsilon transition.
+     * @return true if the transition consumes no input.
+     */
+    public boolean isEpsilon() {
+        return this.label == null;
+    }
+
+    /**
+     * Checks if this transition can be taken on the given character.
+     * @param c The input character.
+     * @return true if the transition is not epsilon and its label contains {@code c}.
+     */
+    public boolean accepts(char c) {
+        return this.label != null && this.label.contains(c);
     }
 
     @Override
     public String toString(){
-        return "("+this.toState.id+","+ (this.symbol == null ? "null" : this.symbol) + ")";
+        return "("+this.toState.id+","+ (this.label != null ? this.label : this.counter != null ? this.counterOp + " " + this.counter : this.tag < 0 ? "null" : "#" + this.tag) + ")";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,183 @@
+package com.compiler.lexer.regex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Stack;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+
+/**
+ * GlushkovParser
+ * --------------
+ * This class converts infix regular expressions into epsilon-free NFAs using Glushkov's
+ * position automaton construction, as an alternative to the Thompson construction of
+ * {@link RegexParser}. It accepts the same syntax and its output can be used anywhere a
+ * Thompson NFA is used ({@code NfaSimulator}, {@code NfaToDfaConverter}, ...).
+ *
+ * Every occurrence of an atom (a character or a class) in the regex is a position. The automaton
+ * has one initial state plus exactly one state per position and no epsilon transitions:
+ * - The initial state goes to every position in first(r).
+ * - Position p goes to every position in follow(p).
+ * - A transition into position q is labelled with the class of q.
+ * - Positions in last(r), and the initial state if r is nullable, are final.
+ *
+ * The nullable/first/last/follow sets are computed in a single pass over the postfix form
+ * produced by {@link ShuntingYard}, using a stack of fragments like {@link RegexParser} does.
+ *
+ * Example usage:
+ * <pre>
+ *     GlushkovParser parser = new GlushkovParser();
+ *     NFA nfa = parser.parse("a(b|c)*");
+ * </pre>
+ */
+public class GlushkovParser {
+    /**
+     * Default constructor for GlushkovParser.
+     */
+    public GlushkovParser() {
+    }
+
+    /**
+     * Converts an infix regular expression to a position automaton.
+     * All accepting states are marked final. Since a position automaton usually has
+     * several accepting states, the {@code endState} of the returned NFA is null.
+     *
+     * @param infixRegex The regular expression in infix notation.
+     * @return The constructed epsilon-free NFA.
+     */
+    public NFA parse(String infixRegex) {
+        return BuildContext.build(() -> this.build(infixRegex));
+    }
+
+    /**
+     * Builds the position automaton in the current build context.
+     */
+    private NFA build(String infixRegex) {
+        List<CharClass> positions = new ArrayList<>();
+        List<BitSet> follow = new ArrayList<>();
+        Fragment root = infixRegex.length() == 0
+            ? new Fragment(true, new BitSet(), new BitSet())
+            : this.analyzePostfix(ShuntingYard.expandRepetitions(ShuntingYard.toPostfix(infixRegex), Integer.MAX_VALUE, Integer.MAX_VALUE), positions, follow);
+
+        // State 0 is the initial state, state p (1-based) is position p - 1.
+        State[] states = new State[positions.size() + 1];
+        for (int i = 0; i < states.length; i++) states[i] = new State();
+
+        for (int q = root.first.nextSetBit(0); q >= 0; q = root.first.nextSetBit(q + 1))
+            states[0].addClassTransition(positions.get(q), states[q + 1]);
+        for (int p = 0; p < positions.size(); p++) {
+            BitSet next = follow.get(p);
+            for (int q = next.nextSetBit(0); q >= 0; q = next.nextSetBit(q + 1))
+                states[p + 1].addClassTransition(positions.get(q), states[q + 1]);
+        }
+
+        states[0].setFinal(root.nullable);
+        for (int p = root.last.nextSetBit(0); p >= 0; p = root.last.nextSetBit(p + 1))
+            states[p + 1].setFinal(true);
+
+        return new NFA(states[0], null).freeze();
+    }
+
+    /**
+     * Computes nullable/first/last for the whole expression and follow for every position.
+     *
+     * @param postfixRegex The regular expression in postfix notation.
+     * @param positions Output list receiving the class of each position.
+     * @param follow Output list receiving the follow set of each position.
+     * @return The fragment describing the whole expression.
+     */
+    private Fragment analyzePostfix(String postfixRegex, List<CharClass> positions, List<BitSet> follow) {
+        Stack<Fragment> stack = new Stack<>();
+
+        for (int i = 0; i < postfixRegex.length(); i++) {
+            char currentCharacter = postfixRegex.charAt(i);
+            Fragment a;
+            Fragment b;
+            int repetition = ShuntingYard.repetitionEnd(postfixRegex, i);
+            if (repetition >= 0) { // only {0} survives expansion: its operand's positions become unreachable
+                stack.pop();
+                stack.push(new Fragment(true, new BitSet(), new BitSet()));
+                i = repetition - 1;
+                continue;
+            }
+            switch (currentCharacter) {
+                case '?':
+                    a = stack.pop();
+                    stack.push(new Fragment(true, a.first, a.last));
+                    break;
+                case '+':
+                    a = stack.pop();
+                    addFollow(follow, a.last, a.first);
+                    stack.push(a);
+                    break;
+                case '*':
+                    a = stack.pop();
+                    addFollow(follow, a.last, a.first);
+                    stack.push(new Fragment(true, a.first, a.last));
+                    break;
+                case '&':
+                case '~':
+                    throw new IllegalArgumentException("Boolean operators are not supported here; use RegexParser: " + postfixRegex);
+                case '·':
+                    b = stack.pop();
+                    a = stack.pop();
+                    addFollow(follow, a.last, b.first);
+                    BitSet first = a.first;
+                    if (a.nullable) first.or(b.first);
+                    BitSet last = b.last;
+                    if (b.nullable) last.or(a.last);
+                    stack.push(new Fragment(a.nullable && b.nullable, first, last));
+                    break;
+                case '|':
+                    b = stack.pop();
+                    a = stack.pop();
+                    a.first.or(b.first);
+                    a.last.or(b.last);
+                    stack.push(new Fragment(a.nullable || b.nullable, a.first, a.last));
+                    break;
+                case ShuntingYard.EMPTY:
+                    stack.push(new Fragment(true, new BitSet(), new BitSet()));
+                    break;
+                default:
+                    int end = ShuntingYard.atomEnd(postfixRegex, i);
+                    int position = positions.size();
+                    positions.add(RegexParser.parseAtom(postfixRegex, i, end));
+                    follow.add(new BitSet());
+                    BitSet single = new BitSet();
+                    single.set(position);
+                    stack.push(new Fragment(false, single, (BitSet) single.clone()));
+                    i = end - 1;
+                    break;
+            }
+        }
+        return stack.pop();
+    }
+
+    /**
+     * Adds {@code targets} to the follow set of every position in {@code sources}.
+     */
+    private static void addFollow(List<BitSet> follow, BitSet sources, BitSet targets) {
+        for (int p = sources.nextSetBit(0); p >= 0; p = sources.nextSetBit(p + 1))
+            follow.get(p).or(targets);
+    }
+
+    /**
+     * Glushkov attributes of a sub-expression. The bit sets are owned by the fragment
+     * and may be mutated once the fragment has been popped from the stack.
+     */
+    private static class Fragment {
+        final boolean nullable;
+        final BitSet first;
+        final BitSet last;
+
+        Fragment(boolean nullable, BitSet first, BitSet last) {
+            this.nullable = nullable;
+            this.first = first;
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package com.compiler.lexer.regex;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Stack;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+
+/**
+ * RegexOptimizer
+ * --------------
+ * This class rewrites a regular expression into a smaller one that matches the same language. It
+ * is meant to run before {@link RegexParser} when the result is determinized, so that
+ * {@code NfaToDfaConverter} gets a smaller Thompson NFA and builds smaller intermediate DFAs.
+ *
+ * The expression is read into a syntax tree (from the postfix form of {@link ShuntingYard}),
+ * simplified bottom-up and written back in the syntax of {@link RegexParser}. The rewrites are:
+ * - Algebraic simplification: ∅ and ε are eliminated from concatenations and alternations,
+ *   duplicate alternatives are dropped, an alternation with ε becomes optional, and nested
+ *   repetitions collapse ({@code a** = a*}, {@code (a?)* = a*}, {@code (a+)? = a*},
+ *   {@code (a*|b)* = (a|b)*}, {@code (a*b*)* = (a|b)*}, {@code ~~a = a}).
+ * - Adjacent repetitions of the same operand are merged when one of them is unbounded
+ *   ({@code aa* = a+}, {@code a*a* = a*}).
+ * - Alternatives are factored into a trie by common prefix and then by common suffix
+ *   ({@code abc|abd = ab(c|d)}, {@code xa|ya = (x|y)a}).
+ * - Single-character alternatives are merged into one class ({@code a|b|[0-9] = [0-9ab]}).
+ *
+ * Only the language is kept: the output uses non-capturing groups and alternatives may be
+ * reordered, so capture groups and match priorities of {@code PikeVM} are not preserved.
+ *
+ * Example usage:
+ * <pre>
+ *     RegexOptimizer.Result result = RegexOptimizer.optimize("abc|abd|abe");
+ *     System.out.println(result); // before/after sizes
+ *     NFA nfa = new RegexParser().parse(result.regex); // ab[c-e]
+ * </pre>
+ */
+public class RegexOptimizer {
+    /**
+     * Default constructor for RegexOptimizer.
+     */
+    public RegexOptimizer() {
+    }
+
+    /**
+     * Optimizes a regular expression and reports its size before and after.
+     *
+     * @param infixRegex The regular expression in infix notation.
+     * @return The optimized expression together with size statistics.
+     */
+    public static Result optimize(String infixRegex) {
+        Node original = infixRegex.length() == 0 ? Node.EPSILON : read(ShuntingYard.toPostfix(infixRegex));
+        Node optimized = simplify(original);
+        StringBuilder out = new StringBuilder();
+        if (optimized.kind != Kind.EPSILON) write(optimized, 0, out);
+        return new Result(out.toString(), infixRegex.length(), original.size, optimized.size);
+    }
+
+    /**
+     * Reads a postfix expression into a syntax tree, as written (concatenations and alternations
+     * are only flattened).
+     */
+    private static Node read(String postfixRegex) {
+        Stack<Node> stack = new Stack<>();
+        for (int i = 0; i < postfixRegex.length(); i++) {
+            char currentCharacter = postfixRegex.charAt(i);
+            Node a;
+            Node b;
+            int repetition = ShuntingYard.repetitionEnd(postfixRegex, i);
+            if (repetition >= 0) {
+                int[] bounds = ShuntingYard.repetitionBounds(postfixRegex, i, repetition);
+                stack.push(new Node(Kind.REPEAT, null, List.of(stack.pop()), bounds[0], bounds[1]));
+                i = repetition - 1;
+                continue;
+            }
+            switch (currentCharacter) {
+                case '?':
+                    stack.push(new Node(Kind.REPEAT, null, List.of(stack.pop()), 0, 1));
+                    break;
+                case '+':
+                    stack.push(new Node(Kind.REPEAT, null, List.of(stack.pop()), 1, -1));
+                    break;
+                case '*':
+                    stack.push(new Node(Kind.REPEAT, null, List.of(stack.pop()), 0, -1));
+                    break;
+                case '~':
+                    stack.push(new Node(Kind.NOT, null, List.of(stack.pop()), 0, 0));
+                    break;
+                case '&':
+                    b = stack.pop();
+                    a = stack.pop();
+                    stack.push(new Node(Kind.AND, null, List.of(a, b), 0, 0));
+                    break;
+                case '·':
+                case '|':
+                    b = stack.pop();
+                    a = stack.pop();
+                    Kind kind = currentCharacter == '·' ? Kind.CONCAT : Kind.ALT;
+                    List<Node> children = new ArrayList<>();
+                    for (Node operand : List.of(a, b)) {
+                        if (operand.kind == kind) children.addAll(operand.children);
+                        else children.add(operand);
+                    }
+                    stack.push(new Node(kind, null, children, 0, 0));
+                    break;
+                case ShuntingYard.EMPTY:
+                    stack.push(Node.EPSILON);
+                    break;
+                default:
+                    int end = ShuntingYard.atomEnd(postfixRegex, i);
+                    stack.push(chars(RegexParser.parseAtom(postfixRegex, i, end)));
+                    i = end - 1;
+                    break;
+            }
+        }
+        return stack.pop();
+    }
+
+    /**
+     * Rebuilds a tree bottom-up through the simplifying constructors.
+     */
+    private static Node simplify(Node node) {
+        List<Node> children = new ArrayList<>();
+        for (Node child : node.children) children.add(simplify(child));
+        switch (node.kind) {
+            case CONCAT:
+                return concat(children);
+            case ALT:
+                return alt(children);
+            case AND:
+                return and(children.get(0), children.get(1));
+            case NOT:
+                return not(children.get(0));
+            case REPEAT:
+                return repeat(children.get(0), node.min, node.max);
+            default:
+                return node;
+        }
+    }
+
+    /**
+     * Returns the node for a character class; an empty class is ∅.
+     */
+    private static Node chars(CharClass chars) {
+        if (chars.isEmpty()) return Node.NOTHING;
+        return new Node(Kind.CHARS, chars, List.of(), 0, 0);
+    }
+
+    /**
+     * Builds a simplified concatenation.
+     */
+    private static Node concat(List<Node> items) {
+        /*
+        Pseudocode:
+        1. Flatten nested concatenations; ∅ absorbs the whole concatenation, ε is dropped
+        2. Merge each item with the previous one when both repeat the same operand and one of
+           them is unbounded: X{a,b} X{c,} = X{a+c,}
+        3. Return ε, the single item, or the concatenation
+        */
+        List<Node> result = new ArrayList<>();
+        for (Node item : items) {
+            for (Node part : item.kind == Kind.CONCAT ? item.children : List.of(item)) {
+                if (part.kind == Kind.NOTHING) return Node.NOTHING;
+                if (part.kind == Kind.EPSILON) continue;
+                if (!result.isEmpty()) {
+                    Node previous = result.get(result.size() - 1);
+                    Node base = base(previous);
+                    if (base.equals(base(part)) && (maxOf(previous) < 0 || maxOf(part) < 0)) {
+                        result.set(result.size() - 1, repeat(base, minOf(previous) + minOf(part), -1));
+                        continue;
+                    }
+                }
+                result.add(part);
+            }
+        }
+        if (result.isEmpty()) return Node.EPSILON;
+        if (result.size() == 1) return result.get(0);
+        return new Node(Kind.CONCAT, null, result, 0, 0);
+    }
+
+    /**
+     * Builds a simplified alternation.
+     */
+    private static Node alt(List<Node> items) {
+        /*
+        Pseudocode:
+        1. Flatten nested alternations, drop ∅ and duplicates; remember and drop ε, and unwrap
+           optional alternatives (X? becomes X plus ε)
+        2. Factor the alternatives by common first item, then by common last item
+        3. Merge all single-class alternatives into one class
+        4. Return the alternation, made optional if ε was an alternative and it is not nullable
+        */
+        LinkedHashSet<Node> alternatives = new LinkedHashSet<>();
+        boolean epsilon = false;
+        for (Node item : items) {
+            for (Node part : item.kind == Kind.ALT ? item.children : List.of(item)) {
+                if (part.kind == Kind.REPEAT && part.min == 0 && part.max == 1) {
+                    epsilon = true;
+                    part = part.children.get(0);
+                }
+                if (part.kind == Kind.EPSILON) epsilon = true;
+                else if (part.kind != Kind.NOTHING) alternatives.add(part);
+            }
+        }
+
+        List<Node> factored = factor(new ArrayList<>(alternatives), true);
+        if (factored.size() > 1) factored = factor(factored, false);
+
+        LinkedHashSet<Node> merged = new LinkedHashSet<>();
+        int classIndex = -1;
+        CharClass union = CharClass.empty();
+        for (Node node : factored) {
+            if (node.kind == Kind.CHARS) {
+                if (classIndex < 0) classIndex = merged.size();
+                union = union.union(node.chars);
+                continue;
+            }
+            merged.add(node);
+        }
+        List<Node> result = new ArrayList<>(merged);
+        if (classIndex >= 0) result.add(Math.min(classIndex, result.size()), chars(union));
+
+        Node node;
+        if (result.isEmpty()) node = Node.NOTHING;
+        else if (result.size() == 1) node = result.get(0);
+        else node = new Node(Kind.ALT, null, result, 0, 0);
+
+        if (!epsilon) return node;
+        if (node.kind == Kind.NOTHING) return Node.EPSILON;
+        return node.nullable ? node : repeat(node, 0, 1);
+    }
+
+    /**
+     * Groups alternatives by their first (or last) item, in order of first appearance, and
+     * rewrites every group of two or more as the shared item concatenated with the alternation
+     * of the rest. The rest is factored again by {@link #alt}, so shared prefixes form a trie.
+     */
+    private static List<Node> factor(List<Node> alternatives, boolean prefix) {
+        Map<Node, List<List<Node>>> groups = new LinkedHashMap<>();
+        for (Node alternative : alternatives) {
+            List<Node> sequence = alternative.kind == Kind.CONCAT ? alternative.children : List.of(alternative);
+            Node key = sequence.get(prefix ? 0 : sequence.size() - 1);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(sequence);
+        }
+        if (groups.size() == alternatives.size()) return alternatives;
+
+        List<Node> result = new ArrayList<>();
+        for (Map.Entry<Node, List<List<Node>>> group : groups.entrySet()) {
+            List<List<Node>> sequences = group.getValue();
+            if (sequences.size() == 1) {
+                result.add(concat(sequences.get(0)));
+                continue;
+            }
+            List<Node> rests = new ArrayList<>();
+            for (List<Node> sequence : sequences)
+                rests.add(concat(prefix ? sequence.subList(1, sequence.size()) : sequence.subList(0, sequence.size() - 1)));
+            Node rest = alt(rests);
+            result.add(prefix ? concat(List.of(group.getKey(), rest)) : concat(List.of(rest, group.getKey())));
+        }
+        return result;
+    }
+
+    /**
+     * Builds a simplified repetition {@code x{min,max}}, where max is -1 if unbounded.
+     */
+    private static Node repeat(Node x, int min, int max) {
+        if (x.kind == Kind.NOTHING) return min == 0 ? Node.EPSILON : Node.NOTHING;
+        if (x.kind == Kind.EPSILON || max == 0) return Node.EPSILON;
+        if (min == 1 && max == 1) return x;
+        if (x.nullable) {
+            if (min == 0 && max == 1) return x; // X? = X
+            if (min <= 1 && max < 0) min = 0;  // X+ = X*
+        }
+        if (x.kind == Kind.REPEAT && x.min <= 1) {
+            Node inner = x.children.get(0);
+            // (Y{a,b})* = Y* and (Y{a,})+ = Y{a,} for a <= 1; (Y?)+ = Y*
+            if (min == 0 && max < 0) return repeat(inner, 0, -1);
+            if (min == 1 && max < 0 && x.max < 0) return x;
+            if (min == 1 && max < 0 && x.max == 1) return repeat(inner, 0, -1);
+            // (Y+)? = Y*
+            if (min == 0 && max == 1 && x.min == 1 && x.max < 0) return repeat(inner, 0, -1);
+        }
+        if (min == 0 && max < 0) x = starBody(x);
+        return new Node(Kind.REPEAT, null, List.of(x), min, max);
+    }
+
+    /**
+     * Simplifies the operand of a star: inside {@code (...)*} an alternative or a factor that is
+     * itself starred, plussed or optional can be replaced by its operand, and a concatenation of
+     * nullable factors by the alternation of the factors.
+     */
+    private static Node starBody(Node x) {
+        List<Node> parts;
+        if (x.kind == Kind.ALT || (x.kind == Kind.CONCAT && x.nullable)) parts = x.children;
+        else return x;
+
+        List<Node> stripped = new ArrayList<>();
+        for (Node part : parts) {
+            while (part.kind == Kind.REPEAT && part.min <= 1) part = part.children.get(0);
+            stripped.add(part);
+        }
+        Node body = alt(stripped);
+        while (body.kind == Kind.REPEAT && body.min <= 1) body = body.children.get(0);
+        return body;
+    }
+
+    /**
+     * Builds a simplified intersection.
+     */
+    private static Node and(Node a, Node b) {
+        if (a.kind == Kind.NOTHING || b.kind == Kind.NOTHING) return Node.NOTHING;
+        if (a.equals(b)) return a;
+        return new Node(Kind.AND, null, List.of(a, b), 0, 0);
+    }
+
+    /**
+     * Builds a simplified complement.
+     */
+    private static Node not(Node a) {
+        if (a.kind == Kind.NOT) return a.children.get(0);
+        return new Node(Kind.NOT, null, List.of(a), 0, 0);
+    }
+
+    private static Node base(Node node) {
+        return node.kind == Kind.REPEAT ? node.children.get(0) : node;
+    }
+
+    private static int minOf(Node node) {
+        return node.kind == Kind.REPEAT ? node.min : 1;
+    }
+
+    private static int maxOf(Node node) {
+        return node.kind == Kind.REPEAT ? node.max : 1;
+    }
+
+    /**
+     * Writes a node in infix syntax, inside a non-capturing group if its precedence is lower
+     * than {@code level} (0 alternation, 1 intersection, 2 concatenation, 3 complement,
+     * 4 repetition, 5 atom).
+     */
+    private static void write(Node node, int level, StringBuilder out) {
+        int own = precedence(node);
+        boolean group = own < level;
+        if (group) out.append("(?:");
+        switch (node.kind) {
+            case NOTHING:
+                out.append("[]");
+                break;
+            case EPSILON:
+                out.append("[]*");
+                break;
+            case CHARS:
+                writeChars(node.chars, out);
+                break;
+            case CONCAT:
+                for (Node child : node.children) write(child, 3, out);
+                break;
+            case ALT:
+                for (int i = 0; i < node.children.size(); i++) {
+                    if (i > 0) out.append('|');
+                    write(node.children.get(i), 1, out);
+                }
+                break;
+            case AND:
+                write(node.children.get(0), 1, out);
+                out.append('&');
+                write(node.children.get(1), 2, out);
+                break;
+            case NOT:
+                out.append('~');
+                write(node.children.get(0), 4, out);
+                break;
+            case REPEAT:
+                write(node.children.get(0), 5, out);
+                if (node.min == 0 && node.max == 1) out.append('?');
+                else if (node.min == 0 && node.max < 0) out.append('*');
+                else if (node.min == 1 && node.max < 0) out.append('+');
+                else if (node.min == node.max) out.append('{').append(node.min).append('}');
+                else out.append('{').append(node.min).append(',').append(node.max < 0 ? "" : String.valueOf(node.max)).append('}');
+                break;
+            default:
+                break;
+        }
+        if (group) out.append(')');
+    }
+
+    private static int precedence(Node node) {
+        switch (node.kind) {
+            case ALT: return 0;
+            case AND: return 1;
+            case CONCAT: return 2;
+            case NOT: return 3;
+            case REPEAT:
+            case EPSILON: return 4;
+            default: return 5;
+        }
+    }
+
+    /**
+     * Writes a class as a single character, {@code .}, or a bracket class, negated when that
+     * needs fewer ranges.
+     */
+    private static void writeChars(CharClass chars, StringBuilder out) {
+        List<CharRange> ranges = chars.getRanges();
+        if (chars.equals(CharClass.any())) {
+            out.append('.');
+            return;
+        }
+        if (ranges.size() == 1 && ranges.get(0).low == ranges.get(0).high) {
+            char c = ranges.get(0).low;
+            if ("\\|&~*+?()·.[]{}".indexOf(c) >= 0) out.append('\\');
+            out.append(c);
+            return;
+        }
+        List<CharRange> complement = chars.complement().getRanges();
+        boolean negated = complement.size() < ranges.size();
+        out.append(negated ? "[^" : "[");
+        for (CharRange range : negated ? complement : ranges) {
+            writeClassChar(range.low, out);
+            if (range.high == range.low) continue;
+            if (range.high > range.low + 1) out.append('-');
+            writeClassChar(range.high, out);
+        }
+        out.append(']');
+    }
+
+    private static void writeClassChar(char c, StringBuilder out) {
+        if ("\\[]^-".indexOf(c) >= 0) out.append('\\');
+        out.append(c);
+    }
+
+    /**
+     * The kinds of syntax tree nodes. Every postfix operator is a {@code REPEAT}: {@code *} is
+     * {0,-1}, {@code +} is {1,-1} and {@code ?} is {0,1}.
+     */
+    private enum Kind {
+        NOTHING, EPSILON, CHARS, CONCAT, ALT, AND, NOT, REPEAT
+    }
+
+    /**
+     * An immutable syntax tree node with structural equality.
+     */
+    private static final class Node {
+        static final Node NOTHING = new Node(Kind.NOTHING, null, List.of(), 0, 0);
+        static final Node EPSILON = new Node(Kind.EPSILON, null, List.of(), 0, 0);
+
+        final Kind kind;
+        final CharClass chars;
+        final List<Node> children;
+        final int min;
+        final int max;
+        final boolean nullable;
+        final int size;
+        private final int hash;
+
+        Node(Kind kind, CharClass chars, List<Node> children, int min, int max) {
+            this.kind = kind;
+            this.chars = chars;
+            this.children = List.copyOf(children);
+            this.min = min;
+            this.max = max;
+
+            boolean all = true;
+            boolean any = false;
+            int count = 1;
+            for (Node child : this.children) {
+                all &= child.nullable;
+                any |= child.nullable;
+                count += child.size;
+            }
+            switch (kind) {
+                case EPSILON: this.nullable = true; break;
+                case CONCAT:
+                case AND: this.nullable = all; break;
+                case ALT: this.nullable = any; break;
+                case NOT: this.nullable = !all; break;
+                case REPEAT: this.nullable = min == 0 || all; break;
+                default: this.nullable = false; break;
+            }
+            this.size = count;
+            this.hash = Objects.hash(kind, chars, this.children, min, max);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Node)) return false;
+            Node other = (Node) obj;
+            return this.hash == other.hash && this.kind == other.kind && this.min == other.min && this.max == other.max
+                && Objects.equals(this.chars, other.chars) && this.children.equals(other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * An optimized regular expression together with its size before and after.
+     */
+    public static class Result {
+        /** The optimized regular expression, in the syntax of {@link RegexParser}. */
+        public final String regex;
+        /** Length of the original expression, in characters. */
+        public final int lengthBefore;
+        /** Length of the optimized expression, in characters. */
+        public final int lengthAfter;
+        /** Number of syntax tree nodes (atoms and operators) of the original expression. */
+        public final int nodesBefore;
+        /** Number of syntax tree nodes of the optimized expression. */
+        public final int nodesAfter;
+
+        Result(String regex, int lengthBefore, int nodesBefore, int nodesAfter) {
+            this.regex = regex;
+            this.lengthBefore = lengthBefore;
+            this.lengthAfter = regex.length();
+            this.nodesBefore = nodesBefore;
+            this.nodesAfter = nodesAfter;
+        }
+
+        @Override
+        public String toString() {
+            return "Regex reduced from " + this.nodesBefore + " nodes (" + this.lengthBefore + " chars) to "
+                + this.nodesAfter + " nodes (" + this.lengthAfter + " chars): " + this.regex;
+        }
+    }
+}
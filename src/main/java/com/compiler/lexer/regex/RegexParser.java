@@ -1,7 +1,19 @@
 package com.compiler.lexer.regex;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.Stack;
 
+import com.compiler.lexer.DfaProduct;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.Counter;
 import com.compiler.lexer.nfa.NFA;
 import com.compiler.lexer.nfa.State;
 
@@ -16,6 +28,25 @@ import com.compiler.lexer.nfa.State;
  * Features:
  * - Parses infix regular expressions and converts them to NFA.
  * - Supports regex operators: concatenation, union, Kleene star, optional, plus.
+ * - Supports character classes ({@code [a-z0-9]}, negated {@code [^"]}), the wildcard {@code .}
+ *   and escapes ({@code \*}, {@code \[}, {@code \n}, ...). Each class becomes a single
+ *   range-labelled transition, however many characters it covers.
+ * - Supports capture groups: every {@code (...)} except {@code (?:...)} is numbered from 1 and
+ *   wrapped in tagged epsilon transitions, which {@link com.compiler.lexer.PikeVM} uses to
+ *   extract submatches. Epsilon transitions are added in priority order (left alternative
+ *   first, loops greedy), which decides captures when a match is ambiguous.
+ * - Supports bounded repetition {@code {m}}, {@code {m,}} and {@code {m,n}}. Repetitions are
+ *   unrolled into copies of their operand unless the result would be too large: an expansion
+ *   past the parser's unroll limit (the NFA), or a repetition whose copies could need more DFA
+ *   states than its state limit ({@code .*a.{50}} needs 2^51, {@code [0-9]{50}} only 51). Those
+ *   become a single loop driven by a {@link Counter}, which {@link com.compiler.lexer.NfaSimulator}
+ *   runs with bounded counter sets. {@link com.compiler.lexer.CompilerService#compileMatcherNow}
+ *   runs counting automata by simulation; {@link com.compiler.lexer.NfaToDfaConverter} determinizes
+ *   them by parsing the pattern again with {@link #unrolling()}.
+ * - Supports the boolean operators intersection {@code a&b} and complement {@code ~a} (so
+ *   {@code a&~b} is a difference). Their operands are determinized, combined with
+ *   {@link com.compiler.lexer.DfaProduct} and embedded back as an NFA fragment; capture groups
+ *   inside them do not record positions, but still count towards {@link NFA#getGroupCount()}.
  * - Implements Thompson's construction rules for NFA generation.
  *
  * Example usage:
@@ -29,14 +60,60 @@ import com.compiler.lexer.nfa.State;
  */
 public class RegexParser {
     /**
-     * Default constructor for RegexParser.
+     * Default unroll limit, in postfix characters: larger expansions would make the NFA itself too big.
+     */
+    public static final int DEFAULT_UNROLL_LIMIT = 100_000;
+
+    /**
+     * Default state limit: the largest number of DFA states, as estimated from the pattern, that
+     * an unrolled repetition may need. Every unrolled copy behind an ambiguous prefix can double
+     * the number of states, so this allows up to 16 such copies and any number of others.
+     */
+    public static final int DEFAULT_STATE_LIMIT = 1 << 16;
+
+    private final int unrollLimit;
+    private final int stateLimit;
+
+    /**
+     * Default constructor for RegexParser: repetitions that could need more than
+     * {@link #DEFAULT_STATE_LIMIT} DFA states use counters.
      */
         public RegexParser() {
-            // TODO: Implement constructor if needed
+            this(DEFAULT_UNROLL_LIMIT, DEFAULT_STATE_LIMIT);
+        }
+
+    /**
+     * Creates a parser with a custom unroll policy and no state limit.
+     * @param unrollLimit The largest repetition expansion, in postfix characters (operand length times
+     *                    number of copies), that is unrolled; larger repetitions use counters.
+     */
+        public RegexParser(int unrollLimit) {
+            this(unrollLimit, Integer.MAX_VALUE);
+        }
+
+    /**
+     * Creates a parser with a custom unroll policy.
+     * @param unrollLimit The largest repetition expansion that is unrolled, in postfix characters.
+     * @param stateLimit The largest estimated number of DFA states of an unrolled repetition.
+     */
+        public RegexParser(int unrollLimit, int stateLimit) {
+            this.unrollLimit = unrollLimit;
+            this.stateLimit = stateLimit;
+        }
+
+    /**
+     * Creates a parser for callers that need a DFA: repetitions are unrolled up to
+     * {@link #DEFAULT_UNROLL_LIMIT} whatever the size of the DFA.
+     * @return The parser.
+     */
+        public static RegexParser unrolling() {
+            return new RegexParser(DEFAULT_UNROLL_LIMIT);
         }
 
     /**
      * Converts an infix regular expression to an NFA.
+     * The end state of the returned NFA is marked as final, and the NFA is frozen. The NFA keeps
+     * the pattern as its source (see {@link NFA#getSource()}).
      *
      * @param infixRegex The regular expression in infix notation.
      * @return The constructed NFA.
@@ -44,9 +121,20 @@ public class RegexParser {
     public NFA parse(String infixRegex) {
         // Pseudocode: Convert infix to postfix, then build NFA from postfix
 
-        if (infixRegex.length() == 0) return handleEmpty();
-
-        return this.buildNfaFromPostfix(ShuntingYard.toPostfix(infixRegex));
+        return BuildContext.build(() -> {
+            if (infixRegex.length() == 0) {
+                NFA nfa = handleEmpty();
+                nfa.endState.setFinal(true);
+                nfa.setSource(infixRegex);
+                return nfa.freeze();
+            }
+            String postfix = ShuntingYard.toPostfix(infixRegex, true);
+            NFA nfa = this.buildNfaFromPostfix(ShuntingYard.expandRepetitions(postfix, this.unrollLimit, this.stateLimit));
+            nfa.endState.setFinal(true);
+            nfa.setGroupCount(countGroups(postfix));
+            nfa.setSource(infixRegex);
+            return nfa.freeze();
+        });
     }
 
     /**
@@ -59,10 +147,19 @@ public class RegexParser {
         // Pseudocode: For each char in postfix, handle operators and operands using a stack
 
         Stack<NFA> stack = new Stack<>();
+        List<Counter> counters = new ArrayList<>();
+        Set<NFA> unions = Collections.newSetFromMap(new IdentityHashMap<>());
 
         for(int i = 0; i < postfixRegex.length(); i++){
 
             Character currentCharacter = postfixRegex.charAt(i);
+            int repetition = ShuntingYard.repetitionEnd(postfixRegex, i);
+            if (repetition >= 0) {
+                int[] bounds = ShuntingYard.repetitionBounds(postfixRegex, i, repetition);
+                this.handleRepetition(stack, counters, bounds[0], bounds[1]);
+                i = repetition - 1;
+                continue;
+            }
 
             switch (currentCharacter) {
                 case '?':
@@ -75,19 +172,55 @@ public class RegexParser {
                     this.handleConcatenation(stack);
                     break;
                 case '|':
-                    this.handleUnion(stack);
+                    this.handleUnion(stack, unions);
+                    break;
+                case '&':
+                    this.handleIntersection(stack);
+                    break;
+                case '~':
+                    this.handleComplement(stack);
                     break;
                 case '*':
                     this.handleKleeneStar(stack);
                     break;
+                case ShuntingYard.CAPTURE:
+                    this.handleCapture(stack, postfixRegex.charAt(++i));
+                    break;
+                case ShuntingYard.EMPTY:
+                    stack.push(this.handleEmpty());
+                    break;
                 default:
-                    this.createNfaForCharacter(stack, currentCharacter);
+                    int end = ShuntingYard.atomEnd(postfixRegex, i);
+                    this.createNfaForClass(stack, parseAtom(postfixRegex, i, end));
+                    i = end - 1;
                     break;
             }
         }
         return stack.pop();
     }
 
+    /**
+     * Counts the capture groups of a postfix expression before repetitions are expanded, so
+     * groups that construction later drops (inside {@code {0}} or a boolean operand) still count.
+     *
+     * @param postfixRegex The regular expression in postfix notation, with capture markers.
+     * @return The largest group number.
+     */
+    private static int countGroups(String postfixRegex) {
+        int count = 0;
+        for (int i = 0; i < postfixRegex.length(); i++) {
+            int repetition = ShuntingYard.repetitionEnd(postfixRegex, i);
+            if (repetition >= 0) {
+                i = repetition - 1;
+            } else if (postfixRegex.charAt(i) == ShuntingYard.CAPTURE) {
+                count = Math.max(count, postfixRegex.charAt(++i));
+            } else if ("?+·|&~*".indexOf(postfixRegex.charAt(i)) < 0) {
+                i = ShuntingYard.atomEnd(postfixRegex, i) - 1;
+            }
+        }
+        return count;
+    }
+
     private NFA handleEmpty(){
         State a = new State();
         return new NFA(a, a);
@@ -130,20 +263,115 @@ public class RegexParser {
     }
     
     /**
-     * Creates an NFA for a single character.
-     * @param c The character to create an NFA for.
+     * Handles a bounded repetition that was not unrolled.
+     * Pops an NFA from the stack and loops over it under the control of a new counter:
+     * ENTER starts the first iteration, REPEAT each further one and EXIT leaves the loop.
+     * {@code {0}} matches only the empty string.
      * @param stack The NFA stack.
+     * @param counters The counters created so far.
+     * @param min Minimum number of iterations.
+     * @param max Maximum number of iterations, or -1 if unbounded.
      */
-    private void createNfaForCharacter(Stack<NFA> stack, char c) {
-        // Pseudocode: Create start/end state, add transition for character
+    private void handleRepetition(Stack<NFA> stack, List<Counter> counters, int min, int max) {
+        NFA nfa = stack.pop();
+        if (max == 0) {
+            stack.push(this.handleEmpty());
+            return;
+        }
+        Counter counter = new Counter(counters.size(), min, max);
+        counters.add(counter);
         State start = new State();
         State end = new State();
 
-        start.addTransition(c, end);
+        start.addCounterTransition(counter, Counter.Op.ENTER, nfa.startState);
+        nfa.endState.addCounterTransition(counter, Counter.Op.REPEAT, nfa.startState); // greedy
+        nfa.endState.addCounterTransition(counter, Counter.Op.EXIT, end);
+        if (min == 0) start.addTransition(null, end);
 
         stack.push(new NFA(start, end));
     }
 
+    /**
+     * Handles a capture group marker.
+     * Pops an NFA from the stack and wraps it in epsilon transitions tagged with the group's slots.
+     * @param stack The NFA stack.
+     * @param group The group number.
+     */
+    private void handleCapture(Stack<NFA> stack, int group) {
+        NFA nfa = stack.pop();
+        State start = new State();
+        State end = new State();
+
+        start.addTagTransition(2 * group, nfa.startState);
+        nfa.endState.addTagTransition(2 * group + 1, end);
+
+        stack.push(new NFA(start, end));
+    }
+
+    /**
+     * Creates an NFA for a character class: a single transition labelled with the whole class.
+     * @param stack The NFA stack.
+     * @param charClass The characters accepted by the transition.
+     */
+    private void createNfaForClass(Stack<NFA> stack, CharClass charClass) {
+        State start = new State();
+        State end = new State();
+
+        start.addClassTransition(charClass, end);
+
+        stack.push(new NFA(start, end));
+    }
+
+    /**
+     * Decodes an atom (as delimited by {@link ShuntingYard#atomEnd}) into the set of characters it matches.
+     * @param regex The regular expression containing the atom.
+     * @param start The index where the atom starts.
+     * @param end The index after the atom.
+     * @return The character class of the atom.
+     */
+    static CharClass parseAtom(String regex, int start, int end) {
+        char c = regex.charAt(start);
+        if (c == '.') return CharClass.any();
+        if (c == '\\') return CharClass.of(unescape(regex.charAt(start + 1)));
+        if (c != '[') return CharClass.of(c);
+
+        int i = start + 1;
+        int last = end - 1; // index of the closing ']'
+        boolean negated = i < last && regex.charAt(i) == '^';
+        if (negated) i++;
+
+        List<CharRange> ranges = new ArrayList<>();
+        while (i < last) {
+            char low = regex.charAt(i);
+            if (low == '\\') low = unescape(regex.charAt(++i));
+            i++;
+            char high = low;
+            if (i + 1 < last && regex.charAt(i) == '-') {
+                high = regex.charAt(i + 1);
+                i += 2;
+                if (high == '\\') high = unescape(regex.charAt(i++));
+            }
+            if (low > high)
+                throw new IllegalArgumentException("Invalid range " + low + "-" + high + " in: " + regex.substring(start, end));
+            ranges.add(new CharRange(low, high));
+        }
+
+        CharClass result = CharClass.of(ranges);
+        return negated ? result.complement() : result;
+    }
+
+    /**
+     * Returns the character denoted by an escape sequence {@code \c}.
+     */
+    private static char unescape(char c) {
+        switch (c) {
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            default: return c;
+        }
+    }
+
     /**
      * Handles the concatenation operator (·).
      * Pops two NFAs from the stack and connects them in sequence.
@@ -161,23 +389,65 @@ public class RegexParser {
 
     /**
      * Handles the union operator (|).
-     * Pops two NFAs from the stack and creates a new NFA that accepts either.
+     * Pops two NFAs from the stack and creates a new NFA that accepts either. A chain
+     * {@code a|b|c|...} shares one start and one end state instead of nesting, so the end of
+     * every alternative is one epsilon step from the end of the chain; nested unions would put
+     * O(n) end states into every DFA state reached after an alternative.
      * @param stack The NFA stack.
+     * @param unions The NFAs on the stack built by this method, which can take more alternatives.
      */
-    private void handleUnion(Stack<NFA> stack) {
+    private void handleUnion(Stack<NFA> stack, Set<NFA> unions) {
         // Pseudocode: Pop two NFAs, create new start/end, add epsilon transitions for union
         NFA first = stack.pop();
         NFA second = stack.pop();
-        
+
+        if (unions.remove(second)) {
+            second.startState.addTransition(null, first.startState); // after the earlier alternatives
+            first.endState.addTransition(null, second.endState);
+            unions.add(second);
+            stack.push(second);
+            return;
+        }
+
         State start = new State();
         State end = new State();
 
+        start.addTransition(null, second.startState); // left alternative first
         start.addTransition(null, first.startState);
-        start.addTransition(null, second.startState);
         first.endState.addTransition(null, end);
         second.endState.addTransition(null, end);
 
-        stack.push(new NFA(start, end));
+        NFA union = new NFA(start, end);
+        unions.add(union);
+        stack.push(union);
+    }
+
+    /**
+     * Handles the intersection operator (&amp;).
+     * Pops two NFAs, determinizes them and replaces them by their product.
+     * @param stack The NFA stack.
+     */
+    private void handleIntersection(Stack<NFA> stack) {
+        DFA second = this.determinize(stack.pop());
+        DFA first = this.determinize(stack.pop());
+        stack.push(DfaProduct.toNfa(DfaProduct.intersection(first, second)));
+    }
+
+    /**
+     * Handles the complement operator (~).
+     * Pops an NFA, determinizes it and replaces it by its complement over all characters.
+     * @param stack The NFA stack.
+     */
+    private void handleComplement(Stack<NFA> stack) {
+        stack.push(DfaProduct.toNfa(DfaProduct.complement(this.determinize(stack.pop()))));
+    }
+
+    /**
+     * Converts a finished fragment into a DFA, accepting at its end state.
+     */
+    private DFA determinize(NFA fragment) {
+        fragment.endState.setFinal(true);
+        return NfaToDfaConverter.convertNfaToDfa(fragment);
     }
 
     /**
@@ -191,9 +461,9 @@ public class RegexParser {
         State start = new State();
         State end = new State();
 
+        start.addTransition(null, nfa.startState); // entering the loop is preferred (greedy)
         start.addTransition(null, end);
         end.addTransition(null, start);
-        start.addTransition(null, nfa.startState);
         nfa.endState.addTransition(null, end);
 
         stack.push(new NFA(start, end));
@@ -208,6 +478,8 @@ public class RegexParser {
         // Pseudocode: Return true if c is not an operator
         return
             c != '|' &&
+            c != '&' &&
+            c != '~' &&
             c != '*' &&
             c != '?' &&
             c != '+' &&
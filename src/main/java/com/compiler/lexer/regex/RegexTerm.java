@@ -0,0 +1,89 @@
+package com.compiler.lexer.regex;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.compiler.lexer.charclass.CharClass;
+
+/**
+ * Represents a hash-consed regular expression term, as created by a {@link TermFactory}.
+ * <p>
+ * Terms are immutable and unique within their factory: two terms are structurally
+ * equal if and only if they are the same object, so terms can be compared with
+ * {@code ==} and used directly as keys of identity-based maps (for example as
+ * states of a derivative automaton).
+ */
+public class RegexTerm {
+    /**
+     * The kinds of terms.
+     */
+    public enum Kind {
+        /** The empty language. */
+        NOTHING,
+        /** The language containing only the empty string. */
+        EPSILON,
+        /** A single character from a class. */
+        CHARS,
+        /** Concatenation of two terms (kept right-associated). */
+        CONCAT,
+        /** Union of two or more terms (flattened, deduplicated and sorted by id). */
+        UNION,
+        /** Kleene star. */
+        STAR
+    }
+
+    /**
+     * Dense identifier of this term within its factory.
+     */
+    public final int id;
+
+    /**
+     * The kind of this term.
+     */
+    public final Kind kind;
+
+    /**
+     * The characters matched by a {@code CHARS} term; null for other kinds.
+     */
+    public final CharClass chars;
+
+    /**
+     * The sub-terms: two for {@code CONCAT}, two or more for {@code UNION}, one for {@code STAR}.
+     */
+    public final List<RegexTerm> children;
+
+    /**
+     * Whether this term accepts the empty string.
+     */
+    public final boolean nullable;
+
+    // Memoized derivatives, keyed by the character they were taken with.
+    final Map<Character, RegexTerm> derivatives = new HashMap<>();
+
+    RegexTerm(int id, Kind kind, CharClass chars, List<RegexTerm> children, boolean nullable) {
+        this.id = id;
+        this.kind = kind;
+        this.chars = chars;
+        this.children = children;
+        this.nullable = nullable;
+    }
+
+    @Override
+    public String toString() {
+        switch (this.kind) {
+            case NOTHING: return "∅";
+            case EPSILON: return "ε";
+            case CHARS: return this.chars.toString();
+            case CONCAT: return this.children.get(0).toString() + this.children.get(1);
+            case STAR: return "(" + this.children.get(0) + ")*";
+            default:
+                StringBuilder sb = new StringBuilder("(");
+                for (int i = 0; i < this.children.size(); i++) {
+                    if (i > 0) sb.append('|');
+                    sb.append(this.children.get(i));
+                }
+                return sb.append(')').toString();
+        }
+    }
+}
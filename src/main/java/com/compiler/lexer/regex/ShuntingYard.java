@@ -1,5 +1,9 @@
 package com.compiler.lexer.regex;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.Stack;
 
 /**
@@ -9,6 +13,11 @@ import java.util.Stack;
  * Provides methods to preprocess regular expressions by inserting explicit
  * concatenation operators, and to convert infix regular expressions to postfix
  * notation for easier parsing and NFA construction.
+ * <p>
+ * Operators, from lowest to highest precedence: union {@code |}, intersection {@code &},
+ * concatenation (implicit, made explicit as {@code ·}), prefix complement {@code ~} and the
+ * postfix operators {@code * + ?} and {@code {m,n}}. So {@code ~ab} is {@code (~a)b},
+ * {@code ~a*} is {@code ~(a*)} and {@code a&~b} is the difference of a and b.
  */
 /**
  * Utility class for regular expression parsing using the Shunting Yard
@@ -16,6 +25,19 @@ import java.util.Stack;
  */
 public class ShuntingYard {
 
+    /**
+     * Postfix marker for a capture group. It is followed by one character whose value is the
+     * group number, and applies to the operand on top of the stack. Only emitted by
+     * {@link #toPostfix(String, boolean)} when captures are requested.
+     */
+    static final char CAPTURE = '\u0001';
+
+    /**
+     * Postfix operand that matches only the empty string: the body of an empty group such as
+     * {@code a()b}. Every reader of postfix expressions handles it before decoding atoms.
+     */
+    static final char EMPTY = '\u0002';
+
     /**
      * Default constructor for ShuntingYard.
      */
@@ -34,38 +56,376 @@ public class ShuntingYard {
     public static String insertConcatenationOperator(String regex) {
         /*
             Pseudocode:
-            For each character in regex:
-                - Append current character to output
+            For each atom in regex (a character, an escape, a bracket class or a repetition {m,n}):
+                - If the atom opens a non-capturing group "(?:", append it whole and continue
+                - Append current atom to output
                 - If not at end of string:
-                        - Check if current and next character form an implicit concatenation
+                        - Check if current and next atom form an implicit concatenation
                         - If so, append '·' to output
             Return output as string
          */
-        String output = "";
-        for (int i = 0; i < regex.length(); i++){
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < regex.length(); ){
+            if (ShuntingYard.isNonCapturingGroup(regex, i)) {
+                output.append("(?:");
+                i += 3;
+                continue;
+            }
+            int end = ShuntingYard.repetitionEnd(regex, i);
+            if (end < 0) end = ShuntingYard.atomEnd(regex, i);
             Character current = regex.charAt(i);
-            output += current;
-            if (i == regex.length() - 1) continue; // Iterator at the end of string
-            Character next = regex.charAt(i + 1);
+            output.append(regex, i, end);
+            i = end;
+            if (i == regex.length()) continue; // Iterator at the end of string
+            Character next = regex.charAt(i);
+            if (ShuntingYard.repetitionEnd(regex, i) >= 0) continue; // a {m,n} applies to the current atom
 
             // In these cases current and next do not form implicit concat
             if(
                 current == '(' ||
                 current == '|' ||
+                current == '&' ||
+                current == '~' ||
                 current == '·' ||
                 next == ')' ||
                 next == '*' ||
                 next == '+' ||
                 next == '?' ||
                 next == '|' ||
+                next == '&' ||
                 next == '·'
             ) continue;
 
-            output += '·';
+            output.append('·');
+        }
+        return output.toString();
+    }
+
+    /**
+     * Returns the index just past the atom that starts at {@code start}.
+     * An atom is an escape sequence ({@code \x}), a bracket class
+     * ({@code [...]}, which may itself contain escapes) or any other single
+     * character. Atoms are copied verbatim to the postfix output and decoded by
+     * {@link RegexParser}.
+     *
+     * @param regex The regular expression.
+     * @param start The index where the atom starts.
+     * @return The index after the last character of the atom.
+     * @throws IllegalArgumentException if an escape or bracket class is unterminated.
+     */
+    static int atomEnd(String regex, int start) {
+        char c = regex.charAt(start);
+        if (c == '\\') {
+            if (start + 1 >= regex.length())
+                throw new IllegalArgumentException("Dangling escape at end of regex: " + regex);
+            return start + 2;
+        }
+        if (c != '[') return start + 1;
+
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') i++;
+        while (i < regex.length()) {
+            char current = regex.charAt(i);
+            if (current == '\\') i += 2;
+            else if (current == ']') return i + 1;
+            else i++;
+        }
+        throw new IllegalArgumentException("Unterminated character class at index " + start + ": " + regex);
+    }
+
+    /**
+     * Returns the index just past a bounded repetition {@code {m}}, {@code {m,}} or {@code {m,n}}
+     * that starts at {@code start}, or -1 if no repetition starts there. A brace that does not
+     * open a well-formed repetition is an ordinary character.
+     *
+     * @param regex The regular expression.
+     * @param start The index to check.
+     * @return The index after the closing brace, or -1.
+     */
+    static int repetitionEnd(String regex, int start) {
+        if (regex.charAt(start) != '{') return -1;
+        int i = start + 1;
+        int digits = i;
+        while (i < regex.length() && Character.isDigit(regex.charAt(i))) i++;
+        if (i == digits || i == regex.length()) return -1;
+        if (regex.charAt(i) == ',') {
+            i++;
+            while (i < regex.length() && Character.isDigit(regex.charAt(i))) i++;
+            if (i == regex.length()) return -1;
+        }
+        return regex.charAt(i) == '}' ? i + 1 : -1;
+    }
+
+    /**
+     * Decodes a repetition delimited by {@link #repetitionEnd}.
+     *
+     * @param regex The regular expression.
+     * @param start The index of the opening brace.
+     * @param end The index after the closing brace.
+     * @return {min, max}, where max is -1 for an unbounded repetition.
+     * @throws IllegalArgumentException if the bounds are out of order or too large.
+     */
+    static int[] repetitionBounds(String regex, int start, int end) {
+        String body = regex.substring(start + 1, end - 1);
+        int comma = body.indexOf(',');
+        try {
+            int min = Integer.parseInt(comma < 0 ? body : body.substring(0, comma));
+            int max = comma < 0 ? min : comma == body.length() - 1 ? -1 : Integer.parseInt(body.substring(comma + 1));
+            if (max >= 0 && max < min)
+                throw new IllegalArgumentException("Invalid repetition {" + body + "} in: " + regex);
+            return new int[] {min, max};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Repetition bound too large {" + body + "} in: " + regex, e);
+        }
+    }
+
+    /**
+     * Rewrites the bounded repetitions of a postfix expression as copies of their operand, using
+     * concatenation, '?' and '*'. A repetition is expanded only if both estimates of its size fit:
+     * the operand's length times the number of copies is at most {@code limit} (the NFA), and the
+     * DFA states it may need are at most {@code stateLimit} (see {@link #exposedRepetitions}).
+     * Larger ones, and every {@code {0}}, which has no postfix expansion, are left in place for
+     * the caller. Operands of {@code &} and {@code ~} are determinized anyway, so repetitions
+     * inside them are expanded up to {@code limit}, whatever their DFA estimate.
+     *
+     * @param postfixRegex Regular expression in postfix notation.
+     * @param limit The largest expansion allowed, in postfix characters.
+     * @param stateLimit The largest estimated number of DFA states allowed.
+     * @return The postfix expression with small repetitions expanded.
+     */
+    static String expandRepetitions(String postfixRegex, int limit, int stateLimit) {
+        /*
+        Pseudocode:
+        Track where each operand on the stack starts in the output.
+        On a repetition X{m,n}: X is the output from the operand's start on; replace it by
+            X X · ... (m copies), followed by X* for {m,} or by (n - m) nested optional copies
+        */
+        Set<Integer> determinized = ShuntingYard.booleanOperandRepetitions(postfixRegex);
+        Set<Integer> exposed = ShuntingYard.exposedRepetitions(postfixRegex);
+        StringBuilder output = new StringBuilder();
+        Stack<Integer> starts = new Stack<>();
+        for (int i = 0; i < postfixRegex.length(); i++) {
+            char c = postfixRegex.charAt(i);
+            int end = ShuntingYard.repetitionEnd(postfixRegex, i);
+            if (end >= 0) {
+                int[] bounds = ShuntingYard.repetitionBounds(postfixRegex, i, end);
+                int start = starts.peek();
+                String operand = output.substring(start);
+                long copies = bounds[1] < 0 ? bounds[0] + 1L : bounds[1];
+                // An exposed repetition of c copies can need 2^c DFA states; others grow like the NFA
+                long states = !exposed.contains(i) ? 1 : copies >= Long.SIZE - 1 ? Long.MAX_VALUE : 1L << copies;
+                boolean counted = states > stateLimit && !determinized.contains(i);
+                if (bounds[1] == 0 || counted || (long) operand.length() * copies > limit) {
+                    output.append(postfixRegex, i, end);
+                } else {
+                    output.setLength(start);
+                    output.append(expand(operand, bounds[0], bounds[1]));
+                }
+                i = end - 1;
+                continue;
+            }
+            switch (c) {
+                case '*':
+                case '+':
+                case '?':
+                case '~':
+                    output.append(c);
+                    break;
+                case CAPTURE:
+                    output.append(c).append(postfixRegex.charAt(++i));
+                    break;
+                case '·':
+                case '|':
+                case '&':
+                    starts.pop();
+                    output.append(c);
+                    break;
+                default:
+                    int atom = ShuntingYard.atomEnd(postfixRegex, i);
+                    starts.push(output.length());
+                    output.append(postfixRegex, i, atom);
+                    i = atom - 1;
+                    break;
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Finds the repetitions that end up inside an operand of {@code &} or {@code ~}.
+     *
+     * @param postfixRegex Regular expression in postfix notation.
+     * @return The indices of their opening braces.
+     */
+    private static Set<Integer> booleanOperandRepetitions(String postfixRegex) {
+        // Each operand on the stack carries the repetitions it contains
+        Set<Integer> result = new HashSet<>();
+        Stack<List<Integer>> operands = new Stack<>();
+        for (int i = 0; i < postfixRegex.length(); i++) {
+            int end = ShuntingYard.repetitionEnd(postfixRegex, i);
+            if (end >= 0) {
+                operands.peek().add(i);
+                i = end - 1;
+                continue;
+            }
+            switch (postfixRegex.charAt(i)) {
+                case '*':
+                case '+':
+                case '?':
+                    break;
+                case CAPTURE:
+                    i++;
+                    break;
+                case '~':
+                    result.addAll(operands.peek());
+                    break;
+                case '·':
+                case '|':
+                case '&': {
+                    List<Integer> second = operands.pop();
+                    List<Integer> first = operands.peek();
+                    first.addAll(second);
+                    if (postfixRegex.charAt(i) == '&') result.addAll(first);
+                    break;
+                }
+                default:
+                    operands.push(new ArrayList<>());
+                    i = ShuntingYard.atomEnd(postfixRegex, i) - 1;
+                    break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the repetitions whose copies can be active at the same time, because the automaton may
+     * start a new match of the repetition while still inside an earlier one. That happens when
+     * the repetition is preceded by an operand of unbounded length ({@code .*a.{50}}), or sits in
+     * a loop whose body has no fixed length ({@code (a|.{20})*}). Each such copy can double the
+     * number of DFA states, as in the classic {@code (a|b)*a(a|b){n}}, which needs 2^(n+1);
+     * a repetition that is not exposed only adds states in proportion to its copies.
+     *
+     * @param postfixRegex Regular expression in postfix notation.
+     * @return The indices of the opening braces of the exposed repetitions.
+     */
+    private static Set<Integer> exposedRepetitions(String postfixRegex) {
+        /*
+         Pseudocode:
+         Each operand on the stack carries its repetitions and its shortest and longest length
+         (-1 for unbounded).
+         On A B ·: if A is unbounded, every repetition in B is exposed
+         On X*, X+ or X{m,}: if X has no fixed length, every repetition in X is exposed
+        */
+        Set<Integer> result = new HashSet<>();
+        Stack<List<Integer>> operands = new Stack<>();
+        Stack<long[]> lengths = new Stack<>(); // {shortest, longest}
+        for (int i = 0; i < postfixRegex.length(); i++) {
+            int end = ShuntingYard.repetitionEnd(postfixRegex, i);
+            if (end >= 0) {
+                int[] bounds = ShuntingYard.repetitionBounds(postfixRegex, i, end);
+                long[] length = lengths.peek();
+                if (bounds[1] < 0) loop(operands.peek(), length, result);
+                operands.peek().add(i);
+                length[0] = times(length[0], bounds[0]);
+                length[1] = bounds[1] < 0 || length[1] < 0 ? -1 : times(length[1], bounds[1]);
+                i = end - 1;
+                continue;
+            }
+            switch (postfixRegex.charAt(i)) {
+                case '*':
+                    loop(operands.peek(), lengths.peek(), result);
+                    lengths.peek()[0] = 0;
+                    break;
+                case '+':
+                    loop(operands.peek(), lengths.peek(), result);
+                    break;
+                case '?':
+                    lengths.peek()[0] = 0;
+                    break;
+                case '~':
+                    lengths.peek()[0] = 0;
+                    lengths.peek()[1] = -1;
+                    break;
+                case CAPTURE:
+                    i++;
+                    break;
+                case '·':
+                case '|':
+                case '&': {
+                    char operator = postfixRegex.charAt(i);
+                    List<Integer> second = operands.pop();
+                    long[] b = lengths.pop();
+                    long[] a = lengths.peek();
+                    if (operator == '·' && a[1] < 0) result.addAll(second);
+                    operands.peek().addAll(second);
+                    if (operator == '·') {
+                        a[0] = plus(a[0], b[0]);
+                        a[1] = a[1] < 0 || b[1] < 0 ? -1 : plus(a[1], b[1]);
+                    } else if (operator == '|') {
+                        a[0] = Math.min(a[0], b[0]);
+                        a[1] = a[1] < 0 || b[1] < 0 ? -1 : Math.max(a[1], b[1]);
+                    } else {
+                        a[0] = Math.max(a[0], b[0]);
+                        a[1] = a[1] < 0 ? b[1] : b[1] < 0 ? a[1] : Math.min(a[1], b[1]);
+                    }
+                    break;
+                }
+                default:
+                    long length = postfixRegex.charAt(i) == EMPTY ? 0 : 1;
+                    operands.push(new ArrayList<>());
+                    lengths.push(new long[] {length, length});
+                    i = ShuntingYard.atomEnd(postfixRegex, i) - 1;
+                    break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Marks the repetitions of a loop body as exposed unless the body has a fixed length, then
+     * makes the body unbounded.
+     */
+    private static void loop(List<Integer> repetitions, long[] length, Set<Integer> exposed) {
+        if (length[0] != length[1]) exposed.addAll(repetitions);
+        length[1] = -1;
+    }
+
+    // Lengths saturate instead of overflowing into the "unbounded" marker
+    private static long times(long a, long b) {
+        return a == 0 || b <= Long.MAX_VALUE / a ? a * b : Long.MAX_VALUE;
+    }
+
+    private static long plus(long a, long b) {
+        return a <= Long.MAX_VALUE - b ? a + b : Long.MAX_VALUE;
+    }
+
+    /**
+     * Expands X{min,max} for a postfix operand X, with max &gt; 0 or unbounded.
+     */
+    private static String expand(String operand, int min, int max) {
+        StringBuilder required = new StringBuilder();
+        for (int k = 0; k < min; k++) {
+            required.append(operand);
+            if (k > 0) required.append('·');
+        }
+        String optional = null;
+        if (max < 0) {
+            optional = operand + "*";
+        } else if (max > min) {
+            optional = operand + "?";
+            for (int k = min + 1; k < max; k++) optional = operand + optional + "·?";
         }
-        return output;
+        if (optional == null) return required.toString();
+        if (min == 0) return optional;
+        return required.append(optional).append('·').toString();
     }
 
+    /**
+     * Checks if a non-capturing group {@code (?:} opens at the given index.
+     */
+    private static boolean isNonCapturingGroup(String regex, int i) {
+        return regex.charAt(i) == '(' && regex.startsWith("?:", i + 1);
+    }
 
     /**
      * Determines if the given character is an operand (not an operator or
@@ -77,10 +437,12 @@ public class ShuntingYard {
     private static boolean isOperand(char c) {
         /*
         Pseudocode:
-        Return true if c is not one of: '|', '*', '?', '+', '(', ')', '·'
+        Return true if c is not one of: '|', '&', '~', '*', '?', '+', '(', ')', '·'
          */
         return
             c != '|' &&
+            c != '&' &&
+            c != '~' &&
             c != '*' &&
             c != '?' &&
             c != '+' &&
@@ -98,11 +460,29 @@ public class ShuntingYard {
      * @return Regular expression in postfix notation.
      */
     public static String toPostfix(String infixRegex) {
+        return ShuntingYard.toPostfix(infixRegex, false);
+    }
+
+    /**
+     * Converts an infix regular expression to postfix notation. Every parenthesized group other
+     * than {@code (?:...)} is a capture group, numbered from 1 in order of its opening parenthesis.
+     * When {@code captures} is set, each capture group is followed in the output by a
+     * {@link #CAPTURE} marker and its number.
+     *
+     * @param infixRegex Regular expression in infix notation.
+     * @param captures Whether to emit capture markers.
+     * @return Regular expression in postfix notation.
+     */
+    static String toPostfix(String infixRegex, boolean captures) {
         /*
         Pseudocode: Wikipedias pseudocode.
+        Each '(' also pushes its group number (0 for non-capturing) so the matching ')' can emit it.
+        An empty group emits the EMPTY operand, so its ')' and capture marker have something to apply to.
          */
         Stack<Character> stack = new Stack<>();
-        String output = "";
+        Stack<Integer> groups = new Stack<>();
+        int groupCount = 0;
+        StringBuilder output = new StringBuilder();
         String infix = ShuntingYard.insertConcatenationOperator(infixRegex);
 
         for (int i = 0; i < infix.length(); i++){
@@ -113,43 +493,69 @@ public class ShuntingYard {
 
                 case '(':
                     stack.push(currentCharacter);
+                    if (ShuntingYard.isNonCapturingGroup(infix, i)) {
+                        groups.push(0);
+                        i += 2;
+                    } else {
+                        groups.push(++groupCount);
+                    }
+                    if (i + 1 < infix.length() && infix.charAt(i + 1) == ')') output.append(EMPTY);
                     break;
 
                 case ')':
                     for (Character operator = stack.pop(); operator != '('; operator = stack.pop())
-                        output += operator;
+                        output.append(operator);
+                    int group = groups.pop();
+                    if (captures && group > 0) output.append(CAPTURE).append((char) group);
                     break;
                 
+                case '~': // prefix operator: it applies to the operand that follows, so it pops nothing
+                    stack.push(currentCharacter);
+                    break;
+
                 case '*':
                 case '+':
                 case '?':
                 case '|':
+                case '&':
                 case '·':
                     while (!stack.isEmpty()) {
                         if(
                             stack.peek() == '(' ||
                             ShuntingYard.getPrecedence(stack.peek()) < ShuntingYard.getPrecedence(currentCharacter))
                             break;
-                        output += stack.pop();
+                        output.append(stack.pop());
                     }
                     stack.push(currentCharacter);
                     break;
 
-                default: // Didnt match previous cases implies is operand
-                    output += currentCharacter;
+                default: // Didnt match previous cases implies is operand (possibly a multi-char atom)
+                    int repetition = ShuntingYard.repetitionEnd(infix, i);
+                    if (repetition >= 0) { // postfix unary operator of highest precedence: emit it directly
+                        while (!stack.isEmpty() && stack.peek() != '(' && ShuntingYard.getPrecedence(stack.peek()) == 4)
+                            output.append(stack.pop());
+                        output.append(infix, i, repetition);
+                        i = repetition - 1;
+                        break;
+                    }
+                    int end = ShuntingYard.atomEnd(infix, i);
+                    output.append(infix, i, end);
+                    i = end - 1;
                     break;
             }
 
         }
 
-        while (!stack.isEmpty()) output += stack.pop();
+        while (!stack.isEmpty()) output.append(stack.pop());
 
-        return output;
+        return output.toString();
     }
 
     private static int getPrecedence(Character c){
-        if(c == '*' || c == '?' || c == '+' ) return 2;
-        if (c == '·') return 1;
+        if(c == '*' || c == '?' || c == '+' ) return 4;
+        if (c == '~') return 3;
+        if (c == '·') return 2;
+        if (c == '&') return 1;
         return 0;
     }
 
@@ -0,0 +1,317 @@
+package com.compiler.lexer.regex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+import java.util.TreeSet;
+
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.charclass.CharRange;
+
+/**
+ * TermFactory
+ * -----------
+ * Creates hash-consed {@link RegexTerm}s and computes their Brzozowski derivatives.
+ *
+ * Every term is built through smart constructors that apply the similarity rules
+ * needed to keep the set of derivatives finite:
+ * - Union is associative, commutative and idempotent (operands are flattened, sorted and
+ *   deduplicated); ∅ is its identity.
+ * - Concatenation is kept right-associated; ε is its identity and ∅ absorbs it.
+ * - {@code (r*)* = r*}, {@code ε* = ∅* = ε}.
+ *
+ * Derivatives are memoized on the terms, and {@link #derivativeClasses} returns disjoint
+ * character intervals inside which every character yields the same derivative, so only one
+ * representative character per interval has to be explored.
+ *
+ * Example usage:
+ * <pre>
+ *     TermFactory factory = new TermFactory();
+ *     RegexTerm term = factory.fromRegex("a(b|c)*");
+ *     RegexTerm next = factory.derivative(term, 'a'); // (b|c)*
+ * </pre>
+ */
+public class TermFactory {
+    private final Map<List<Object>, RegexTerm> interned = new HashMap<>();
+    private final RegexTerm nothing;
+    private final RegexTerm epsilon;
+
+    /**
+     * Creates a factory with an empty term table.
+     */
+    public TermFactory() {
+        this.nothing = this.intern(RegexTerm.Kind.NOTHING, null, List.of(), false);
+        this.epsilon = this.intern(RegexTerm.Kind.EPSILON, null, List.of(), true);
+    }
+
+    /**
+     * Returns the number of distinct terms created so far.
+     * @return The size of the hash-consing table.
+     */
+    public int size() {
+        return this.interned.size();
+    }
+
+    /**
+     * Returns the term for the empty language.
+     * @return ∅
+     */
+    public RegexTerm nothing() {
+        return this.nothing;
+    }
+
+    /**
+     * Returns the term for the empty string.
+     * @return ε
+     */
+    public RegexTerm epsilon() {
+        return this.epsilon;
+    }
+
+    /**
+     * Returns the term matching one character of a class.
+     * @param chars The characters.
+     * @return The class term, or ∅ for an empty class.
+     */
+    public RegexTerm chars(CharClass chars) {
+        if (chars.isEmpty()) return this.nothing;
+        return this.intern(RegexTerm.Kind.CHARS, chars, List.of(), false);
+    }
+
+    /**
+     * Returns the concatenation of two terms.
+     * @param a The first term.
+     * @param b The second term.
+     * @return The simplified term for {@code ab}.
+     */
+    public RegexTerm concat(RegexTerm a, RegexTerm b) {
+        if (a == this.nothing || b == this.nothing) return this.nothing;
+        if (a == this.epsilon) return b;
+        if (b == this.epsilon) return a;
+
+        // Re-associate to the right iteratively: (a1 a2 ... ak) b = a1 (a2 (... (ak b)))
+        List<RegexTerm> prefix = new ArrayList<>();
+        RegexTerm current = a;
+        while (current.kind == RegexTerm.Kind.CONCAT) {
+            prefix.add(current.children.get(0));
+            current = current.children.get(1);
+        }
+        prefix.add(current);
+
+        RegexTerm result = b;
+        for (int i = prefix.size() - 1; i >= 0; i--) {
+            RegexTerm head = prefix.get(i);
+            result = this.intern(RegexTerm.Kind.CONCAT, null, List.of(head, result), head.nullable && result.nullable);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the union of two terms.
+     * @param a The first term.
+     * @param b The second term.
+     * @return The simplified term for {@code a|b}.
+     */
+    public RegexTerm union(RegexTerm a, RegexTerm b) {
+        if (a == b || b == this.nothing) return a;
+        if (a == this.nothing) return b;
+
+        TreeSet<RegexTerm> operands = new TreeSet<>(Comparator.comparingInt(t -> t.id));
+        for (RegexTerm term : List.of(a, b)) {
+            if (term.kind == RegexTerm.Kind.UNION) operands.addAll(term.children);
+            else operands.add(term);
+        }
+        if (operands.size() == 1) return operands.first();
+
+        boolean nullable = false;
+        for (RegexTerm term : operands) nullable |= term.nullable;
+        return this.intern(RegexTerm.Kind.UNION, null, Collections.unmodifiableList(new ArrayList<>(operands)), nullable);
+    }
+
+    /**
+     * Returns the Kleene star of a term.
+     * @param a The term.
+     * @return The simplified term for {@code a*}.
+     */
+    public RegexTerm star(RegexTerm a) {
+        if (a == this.nothing || a == this.epsilon) return this.epsilon;
+        if (a.kind == RegexTerm.Kind.STAR) return a;
+        return this.intern(RegexTerm.Kind.STAR, null, List.of(a), true);
+    }
+
+    /**
+     * Builds the term for a bounded repetition {@code a{min,max}}. Copies of {@code a} are shared
+     * by hash-consing, so the term grows with the number of nested options, not with their size.
+     * @param a The repeated term.
+     * @param min Minimum number of repetitions.
+     * @param max Maximum number of repetitions, or -1 if unbounded.
+     * @return The term.
+     */
+    public RegexTerm repeat(RegexTerm a, int min, int max) {
+        RegexTerm tail = max < 0 ? this.star(a) : this.epsilon;
+        for (int k = min; k < max; k++) tail = this.union(this.epsilon, this.concat(a, tail));
+        for (int k = 0; k < min; k++) tail = this.concat(a, tail);
+        return tail;
+    }
+
+    /**
+     * Builds the term for an infix regular expression, accepting the syntax of {@link RegexParser}.
+     * @param infixRegex The regular expression in infix notation.
+     * @return The term.
+     */
+    public RegexTerm fromRegex(String infixRegex) {
+        if (infixRegex.length() == 0) return this.epsilon;
+        String postfixRegex = ShuntingYard.toPostfix(infixRegex);
+
+        Stack<RegexTerm> stack = new Stack<>();
+        for (int i = 0; i < postfixRegex.length(); i++) {
+            char currentCharacter = postfixRegex.charAt(i);
+            RegexTerm a;
+            RegexTerm b;
+            int repetition = ShuntingYard.repetitionEnd(postfixRegex, i);
+            if (repetition >= 0) {
+                int[] bounds = ShuntingYard.repetitionBounds(postfixRegex, i, repetition);
+                stack.push(this.repeat(stack.pop(), bounds[0], bounds[1]));
+                i = repetition - 1;
+                continue;
+            }
+            switch (currentCharacter) {
+                case '?':
+                    stack.push(this.union(this.epsilon, stack.pop()));
+                    break;
+                case '+':
+                    a = stack.pop();
+                    stack.push(this.concat(a, this.star(a)));
+                    break;
+                case '*':
+                    stack.push(this.star(stack.pop()));
+                    break;
+                case '&':
+                case '~':
+                    throw new IllegalArgumentException("Boolean operators are not supported here; use RegexParser: " + infixRegex);
+                case '·':
+                    b = stack.pop();
+                    a = stack.pop();
+                    stack.push(this.concat(a, b));
+                    break;
+                case '|':
+                    b = stack.pop();
+                    a = stack.pop();
+                    stack.push(this.union(a, b));
+                    break;
+                case ShuntingYard.EMPTY:
+                    stack.push(this.epsilon);
+                    break;
+                default:
+                    int end = ShuntingYard.atomEnd(postfixRegex, i);
+                    stack.push(this.chars(RegexParser.parseAtom(postfixRegex, i, end)));
+                    i = end - 1;
+                    break;
+            }
+        }
+        return stack.pop();
+    }
+
+    /**
+     * Computes the Brzozowski derivative of a term with respect to a character, that is the
+     * term matching every {@code w} such that the original term matches {@code c w}.
+     * Results are memoized on the term.
+     *
+     * @param term The term.
+     * @param c The character.
+     * @return The derivative.
+     */
+    public RegexTerm derivative(RegexTerm term, char c) {
+        RegexTerm cached = term.derivatives.get(c);
+        if (cached != null) return cached;
+
+        RegexTerm result;
+        switch (term.kind) {
+            case CHARS:
+                result = term.chars.contains(c) ? this.epsilon : this.nothing;
+                break;
+            case CONCAT:
+                RegexTerm head = term.children.get(0);
+                RegexTerm tail = term.children.get(1);
+                result = this.concat(this.derivative(head, c), tail);
+                if (head.nullable) result = this.union(result, this.derivative(tail, c));
+                break;
+            case UNION:
+                result = this.nothing;
+                for (RegexTerm child : term.children) result = this.union(result, this.derivative(child, c));
+                break;
+            case STAR:
+                result = this.concat(this.derivative(term.children.get(0), c), term);
+                break;
+            default: // NOTHING and EPSILON
+                result = this.nothing;
+                break;
+        }
+        term.derivatives.put(c, result);
+        return result;
+    }
+
+    /**
+     * Computes the derivative classes of a term: disjoint character intervals such that all
+     * characters inside one interval give the same derivative. Characters outside every
+     * returned interval have the derivative ∅.
+     *
+     * @param term The term.
+     * @return The intervals, sorted by lower bound.
+     */
+    public List<CharRange> derivativeClasses(RegexTerm term) {
+        List<CharRange> ranges = new ArrayList<>();
+        this.collectFirstRanges(term, ranges);
+        return CharRange.split(ranges);
+    }
+
+    /**
+     * Collects the ranges of every class that can match the first character of a term.
+     */
+    private void collectFirstRanges(RegexTerm term, List<CharRange> ranges) {
+        Set<RegexTerm> visited = new HashSet<>();
+        Stack<RegexTerm> stack = new Stack<>();
+        stack.push(term);
+        while (!stack.isEmpty()) {
+            RegexTerm current = stack.pop();
+            if (!visited.add(current)) continue;
+            switch (current.kind) {
+                case CHARS:
+                    ranges.addAll(current.chars.getRanges());
+                    break;
+                case CONCAT:
+                    stack.push(current.children.get(0));
+                    if (current.children.get(0).nullable) stack.push(current.children.get(1));
+                    break;
+                case UNION:
+                case STAR:
+                    stack.addAll(current.children);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the unique term with the given structure, creating it if needed.
+     */
+    private RegexTerm intern(RegexTerm.Kind kind, CharClass chars, List<RegexTerm> children, boolean nullable) {
+        List<Object> key = new ArrayList<>(children.size() + 2);
+        key.add(kind);
+        key.add(chars);
+        for (RegexTerm child : children) key.add(child.id);
+        RegexTerm term = this.interned.get(key);
+        if (term == null) {
+            term = new RegexTerm(this.interned.size(), kind, chars, children, nullable);
+            this.interned.put(key, term);
+        }
+        return term;
+    }
+}
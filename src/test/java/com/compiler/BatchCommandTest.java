@@ -0,0 +1,86 @@
+package com.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchCommandTest {
+
+    @Test
+    public void testResultsInInputOrder(@TempDir Path directory) throws IOException {
+        Path patterns = directory.resolve("patterns.txt");
+        Files.writeString(patterns, "# numbers and words\n[0-9]+\n\nab+c\n");
+        Path input = directory.resolve("input.txt");
+        List<String> expected = new ArrayList<>();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            String line = i % 3 == 0 ? "x" + i : i % 3 == 1 ? "abbc" : "zz";
+            lines.append(line).append('\n');
+            expected.add((i + 1) + "\t" + (i % 3 == 0 ? "0" : i % 3 == 1 ? "1" : "-"));
+        }
+        Files.writeString(input, lines);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = BatchCommand.run(new String[] {"-p", patterns.toString(), "-t", "4", "--batch", "64", input.toString()},
+            new ByteArrayInputStream(new byte[0]), new PrintStream(out), new PrintStream(err));
+
+        assertEquals(0, status, err.toString());
+        assertEquals(expected, List.of(out.toString(StandardCharsets.UTF_8).split("\n")));
+        String summary = err.toString();
+        assertTrue(summary.contains("records: 5000"), summary);
+        assertTrue(summary.contains("records/s") && summary.contains("MB/s") && summary.contains("p99"), summary);
+    }
+
+    @Test
+    public void testStandardInputAndFullMode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int status = BatchCommand.run(new String[] {"-e", "a+", "-e", "b", "-m", "full"},
+            new ByteArrayInputStream("aaa\nbaa\nb\n".getBytes(StandardCharsets.UTF_8)), new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+        assertEquals(0, status);
+        assertEquals("1\t0\n2\t-\n3\t1\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadErrorWithoutMessage() {
+        boolean[] closed = {false};
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException();
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = BatchCommand.run(new String[] {"-e", "a"}, failing, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+        assertEquals(1, status);
+        assertTrue(err.toString().contains("error: java.io.IOException"), err.toString());
+        assertFalse(closed[0], "La entrada estandar pertenece al llamador");
+    }
+
+    @Test
+    public void testUsageErrors() {
+        PrintStream quiet = new PrintStream(new ByteArrayOutputStream());
+        ByteArrayInputStream empty = new ByteArrayInputStream(new byte[0]);
+        assertEquals(2, BatchCommand.run(new String[] {"-t", "0", "-e", "a"}, empty, quiet, quiet));
+        assertEquals(2, BatchCommand.run(new String[] {"--bogus"}, empty, quiet, quiet));
+        assertEquals(2, BatchCommand.run(new String[] {"input.txt"}, empty, quiet, quiet));
+    }
+}
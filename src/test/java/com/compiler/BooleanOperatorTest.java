@@ -0,0 +1,80 @@
+package com.compiler;
+
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaProduct;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.dfa.DFA;
+
+public class BooleanOperatorTest {
+
+    private static Predicate<String> java(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return input -> pattern.matcher(input).matches();
+    }
+
+    private static void assertSameLanguage(DFA dfa, Predicate<String> expected) {
+        DfaSimulator simulator = new DfaSimulator();
+        Random random = new Random(5);
+        String alphabet = "abefilsw";
+        for (int n = 0; n < 3000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(9);
+            for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String input = sb.toString();
+            assertEquals(expected.test(input), simulator.simulate(dfa, input), "DFA fallo para la cadena: '" + input + "'");
+        }
+        for (String input : new String[] {"", "if", "else", "while", "aa", "ab"})
+            assertEquals(expected.test(input), simulator.simulate(dfa, input), "DFA fallo para la cadena: '" + input + "'");
+    }
+
+    @Test
+    public void testDifference() {
+        Predicate<String> identifier = java("[a-z]+");
+        Predicate<String> keyword = java("if|else|while");
+        assertSameLanguage(CompilerService.compileNow("[a-z]+&~(if|else|while)"), s -> identifier.test(s) && !keyword.test(s));
+    }
+
+    @Test
+    public void testIntersectionOfThree() {
+        Predicate<String> a = java("[a-z]*a[a-z]*");
+        Predicate<String> b = java("[a-z]*b[a-z]*");
+        Predicate<String> noDouble = java("(a|b)*aa(a|b)*");
+        assertSameLanguage(CompilerService.compileNow("[a-z]*a[a-z]*&[a-z]*b[a-z]*&~((a|b)*aa(a|b)*)"),
+            s -> a.test(s) && b.test(s) && !noDouble.test(s));
+    }
+
+    @Test
+    public void testComplementPrecedence() {
+        Predicate<String> aStar = java("a*");
+        assertSameLanguage(CompilerService.compileNow("~a*"), s -> !aStar.test(s));
+        // ~ab is (~a)b: any string ending in b whose prefix is not "a"
+        assertSameLanguage(CompilerService.compileNow("~ab"), s -> s.endsWith("b") && !s.equals("ab"));
+        // complement inside a concatenation and a star
+        Predicate<String> inner = java("(a|b)*");
+        assertSameLanguage(CompilerService.compileNow("s(~((a|b)*))s"),
+            s -> s.length() >= 2 && s.startsWith("s") && s.endsWith("s") && !inner.test(s.substring(1, s.length() - 1)));
+    }
+
+    @Test
+    public void testProductApi() {
+        DFA letters = CompilerService.compileNow("[a-z]+");
+        DFA keywords = CompilerService.compileNow("if|else|while");
+        DFA union = DfaProduct.union(keywords, letters);
+        assertEquals(letters.allStates.size(), union.allStates.size());
+
+        DFA empty = DfaProduct.intersection(keywords, CompilerService.compileNow("[0-9]+"));
+        DfaSimulator simulator = new DfaSimulator();
+        assertEquals(1, empty.allStates.size());
+        assertFalse(simulator.simulate(empty, "if"));
+        assertTrue(simulator.simulate(DfaProduct.complement(DfaProduct.complement(keywords)), "while"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.compiler;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.ConstructionBudget;
+import com.compiler.lexer.HybridMatcher;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexParser;
+
+public class BudgetedConstructionTest {
+
+    /**
+     * (a|b)*a(a|b)^n: the n-th symbol from the end is an 'a'. Its DFA has 2^(n+1) states.
+     */
+    private static String explosive(int n) {
+        return "(a|b)*a" + "(a|b)".repeat(n);
+    }
+
+    private static void assertAgreesWithNfa(NFA nfa, HybridMatcher matcher) {
+        NfaSimulator simulator = new NfaSimulator();
+        Random random = new Random(11);
+        for (int n = 0; n < 400; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int i = 0; i < length; i++) sb.append(random.nextInt(8) == 0 ? 'c' : (char) ('a' + random.nextInt(2)));
+            String input = sb.toString();
+            assertEquals(simulator.simulate(nfa, input), matcher.matches(input), "Matcher hibrido fallo para la cadena: '" + input + "'");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    public void testStateBudgetFallsBackToNfa(int maxStates) {
+        NFA nfa = new RegexParser().parse(explosive(12));
+        HybridMatcher matcher = NfaToDfaConverter.convertNfaToDfa(nfa, new ConstructionBudget(maxStates, Long.MAX_VALUE, Duration.ofMinutes(1)));
+
+        assertTrue(matcher.isDegraded());
+        assertEquals(ConstructionBudget.Limit.STATES, matcher.getExhaustedLimit());
+        assertTrue(matcher.getDfa().allStates.size() <= maxStates + 1);
+        assertTrue(matcher.getFrontierStateCount() > 0);
+        assertAgreesWithNfa(nfa, matcher);
+        assertTrue(matcher.getFallbackCount() > 0);
+    }
+
+    @Test
+    public void testByteAndTimeBudgets() {
+        NFA nfa = new RegexParser().parse(explosive(14));
+        HybridMatcher bytes = NfaToDfaConverter.convertNfaToDfa(nfa, new ConstructionBudget(Integer.MAX_VALUE, 50_000, Duration.ofMinutes(1)));
+        assertEquals(ConstructionBudget.Limit.BYTES, bytes.getExhaustedLimit());
+        assertTrue(bytes.getEstimatedBytes() < 60_000);
+        assertAgreesWithNfa(nfa, bytes);
+
+        HybridMatcher time = NfaToDfaConverter.convertNfaToDfa(nfa, new ConstructionBudget(Integer.MAX_VALUE, Long.MAX_VALUE, Duration.ZERO));
+        assertEquals(ConstructionBudget.Limit.TIME, time.getExhaustedLimit());
+        assertAgreesWithNfa(nfa, time);
+    }
+
+    @Test
+    public void testWithinBudgetBuildsCompleteDfa() {
+        NFA nfa = new RegexParser().parse(explosive(4));
+        HybridMatcher matcher = NfaToDfaConverter.convertNfaToDfa(nfa, ConstructionBudget.unlimited());
+
+        assertFalse(matcher.isDegraded());
+        assertEquals(0, matcher.getFrontierStateCount());
+        assertTrue(matcher.getBuiltStateCount() >= 32);
+        assertAgreesWithNfa(nfa, matcher);
+        assertEquals(0, matcher.getFallbackCount());
+    }
+}
@@ -0,0 +1,137 @@
+package com.compiler;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.compiler.lexer.CaptureMatcher;
+import com.compiler.lexer.DerivativeConverter;
+import com.compiler.lexer.DfaEquivalence;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.OnePassMatcher;
+import com.compiler.lexer.PikeVM;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.GlushkovParser;
+import com.compiler.lexer.regex.RegexOptimizer;
+import com.compiler.lexer.regex.RegexParser;
+
+public class CaptureTest {
+
+    /**
+     * Expected slots from java.util.regex, which uses the same leftmost-first priorities.
+     */
+    private static int[] expected(String regex, String input) {
+        Matcher matcher = Pattern.compile(regex).matcher(input);
+        if (!matcher.matches()) return null;
+        int[] slots = new int[2 * (matcher.groupCount() + 1)];
+        for (int g = 0; g <= matcher.groupCount(); g++) {
+            slots[2 * g] = matcher.start(g);
+            slots[2 * g + 1] = matcher.end(g);
+        }
+        return slots;
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'([a-z]+)@([a-z]+)\\.com', true",
+        "'([0-9]+)-([0-9]+)', true",
+        "'(?:a|b)*(c)', true",
+        "'(a+)(b*)', true",
+        "'(a*)(a*)', false",
+        "'(a|ab)(c|bcd)(d*)', false",
+        "'((a)|b)+', true",
+        "'(a|b)*abb', false",
+        "'x(y?)(y*)z', false"
+    })
+    public void testCapturesAgreeWithJavaRegex(String regex, boolean onePass) {
+        NFA nfa = new RegexParser().parse(regex);
+        PikeVM vm = new PikeVM(nfa);
+        OnePassMatcher onePassMatcher = OnePassMatcher.build(nfa);
+        assertEquals(onePass, onePassMatcher != null, "Deteccion one-pass fallo para: " + regex);
+
+        Random random = new Random(regex.hashCode());
+        String alphabet = "abcdxyz09-@.com";
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(10);
+            for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String input = sb.toString();
+            int[] expected = expected(regex, input);
+            assertArrayEquals(expected, vm.match(input), "Pike VM fallo para la cadena: '" + input + "'");
+            if (onePassMatcher != null)
+                assertArrayEquals(expected, onePassMatcher.match(input), "One-pass fallo para la cadena: '" + input + "'");
+        }
+    }
+
+    @Test
+    public void testGroupExtraction() {
+        CaptureMatcher matcher = CaptureMatcher.compile("([a-z]+)=([0-9]+)(;(x))?");
+        assertEquals(4, matcher.groupCount());
+        String input = "key=42";
+        int[] slots = matcher.match(input);
+        assertEquals("key", CaptureMatcher.group(input, slots, 1));
+        assertEquals("42", CaptureMatcher.group(input, slots, 2));
+        assertNull(CaptureMatcher.group(input, slots, 3));
+        assertNull(matcher.match("key="));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'(?:([a-c]a){0}|a)', a, 1",
+        "'(x){0}(y)', y, 2",
+        "'([a-c]+)&(a+)', aa, 2",
+        "'~(b)|(a)', a, 2"
+    })
+    public void testGroupsDroppedDuringConstructionStillCount(String regex, String input, int groups) {
+        CaptureMatcher matcher = CaptureMatcher.compile(regex);
+        assertEquals(groups, matcher.groupCount(), "Numero de grupos fallo para: " + regex);
+        int[] slots = matcher.match(input);
+        assertEquals(2 * (groups + 1), slots.length);
+        assertNull(CaptureMatcher.group(input, slots, 1), "El grupo 1 no participa en: " + regex);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'a()b', ab",
+        "'()', ''",
+        "'(a|())b', b",
+        "'(?:)x(()y)', xy",
+        "'(()|a)b', b"
+    })
+    public void testEmptyGroupCapturesAnEmptySpan(String regex, String input) {
+        NFA nfa = new RegexParser().parse(regex);
+        assertArrayEquals(expected(regex, input), new PikeVM(nfa).match(input), "Pike VM fallo para: " + regex);
+        assertArrayEquals(expected(regex, input), CaptureMatcher.compile(regex).match(input), "CaptureMatcher fallo para: " + regex);
+        assertNull(new PikeVM(nfa).match(input + "a"));
+    }
+
+    @Test
+    public void testEmptyGroupInEveryConstruction() {
+        assertEquals(1, new RegexParser().parse("a()b").getGroupCount());
+        assertNull(DfaEquivalence.counterexample("a()b", "ab"));
+        assertNull(DfaEquivalence.counterexample("(a|())*", "a*"));
+        assertEquals("ab", RegexOptimizer.optimize("a()b").regex);
+        NfaSimulator simulator = new NfaSimulator();
+        assertTrue(simulator.simulate(new GlushkovParser().parse("a()b"), "ab"));
+        assertTrue(simulator.simulate(new GlushkovParser().parse("()"), ""));
+        assertTrue(new DfaSimulator().simulate(DerivativeConverter.convertRegexToDfa("a(?:)b"), "ab"));
+    }
+
+    @Test
+    public void testNoBacktrackingBlowup() {
+        CaptureMatcher matcher = CaptureMatcher.compile("(a|aa)*(b)");
+        String input = "a".repeat(20_000);
+        assertNull(matcher.match(input));
+        int[] slots = matcher.match(input + "b");
+        assertEquals(20_000, slots[4]);
+    }
+}
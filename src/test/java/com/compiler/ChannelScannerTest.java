@@ -0,0 +1,205 @@
+package com.compiler;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.ChannelScanner;
+import com.compiler.lexer.Lexer;
+import com.compiler.lexer.StreamingLexer;
+import com.compiler.lexer.Token;
+import com.compiler.lexer.TokenEvent;
+
+public class ChannelScannerTest {
+    private static final Lexer LEXER = Lexer.compile(List.of(
+        "if|else", "[a-zá-ú]+", "[0-9]+(\\.[0-9]+)?", "\"[^\"]*\"", " +", "[-+*/=]"));
+
+    @TempDir
+    Path directory;
+
+    private static String randomText(long seed, int length) {
+        Random random = new Random(seed);
+        String alphabet = "ifelsxyáé019. \"=+€";
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return text.toString();
+    }
+
+    private static List<TokenEvent> expected(String text) {
+        List<TokenEvent> events = new ArrayList<>();
+        for (Token token : LEXER.tokenize(text)) events.add(new TokenEvent(token.rule, token.start, token.end, token.text(text)));
+        return events;
+    }
+
+    /**
+     * Subscriber that requests {@code batch} tokens at a time and records what it receives.
+     */
+    private static class Collector implements Flow.Subscriber<TokenEvent> {
+        final List<TokenEvent> events = new ArrayList<>();
+        final CompletableFuture<List<TokenEvent>> done = new CompletableFuture<>();
+        final long batch;
+        Flow.Subscription subscription;
+        long outstanding;
+
+        Collector(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.outstanding = this.batch;
+            subscription.request(this.batch);
+        }
+
+        @Override
+        public synchronized void onNext(TokenEvent item) {
+            this.events.add(item);
+            if (--this.outstanding == 0 && this.batch != Long.MAX_VALUE) {
+                this.outstanding = this.batch;
+                this.subscription.request(this.batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            this.done.complete(this.events);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 8})
+    public void testStreamingLexerMatchesTokenize(int pieceLength) {
+        String text = randomText(pieceLength, 500);
+        List<TokenEvent> events = new ArrayList<>();
+        StreamingLexer stream = new StreamingLexer(LEXER);
+        for (int i = 0; i < text.length(); i += pieceLength)
+            stream.feed(text.substring(i, Math.min(text.length(), i + pieceLength)), events::add);
+        stream.finish(events::add);
+        assertEquals(expected(text), events, "Tokens en trozos de " + pieceLength + " fallaron");
+        assertEquals(text.length(), stream.getOffset());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 7, 64, 8192})
+    public void testFileChannelMatchesTokenize(int chunkSize) throws Exception {
+        String text = randomText(chunkSize, 3000);
+        Path file = this.directory.resolve("input.txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file, StandardOpenOption.READ)) {
+            Collector collector = new Collector(5);
+            ChannelScanner.of(LEXER, channel, chunkSize).subscribe(collector);
+            assertEquals(expected(text), collector.done.get(10, TimeUnit.SECONDS), "Bloques de " + chunkSize + " bytes fallaron");
+        }
+    }
+
+    @Test
+    public void testSocketChannelMatchesTokenize() throws Exception {
+        String text = randomText(46, 20000);
+        try (AsynchronousServerSocketChannel server = AsynchronousServerSocketChannel.open()
+                .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             AsynchronousSocketChannel client = AsynchronousSocketChannel.open()) {
+            Future<AsynchronousSocketChannel> accepted = server.accept();
+            client.connect(server.getLocalAddress()).get(10, TimeUnit.SECONDS);
+            try (AsynchronousSocketChannel connection = accepted.get(10, TimeUnit.SECONDS)) {
+                Collector collector = new Collector(Long.MAX_VALUE);
+                ChannelScanner.of(LEXER, connection, 100).subscribe(collector);
+
+                ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) client.write(bytes).get(10, TimeUnit.SECONDS);
+                client.shutdownOutput();
+
+                assertEquals(expected(text), collector.done.get(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void testReadsOnlyOnDemand() throws Exception {
+        String text = randomText(47, 10000);
+        Path file = this.directory.resolve("large.txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file, StandardOpenOption.READ)) {
+            List<TokenEvent> events = new ArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            Flow.Subscription[] subscription = new Flow.Subscription[1];
+            ChannelScanner.of(LEXER, channel, 16).subscribe(new Flow.Subscriber<TokenEvent>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription[0] = s;
+                    s.request(2);
+                }
+
+                @Override
+                public void onNext(TokenEvent item) {
+                    synchronized (events) {
+                        events.add(item);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.complete(null);
+                }
+            });
+
+            Thread.sleep(200);
+            synchronized (events) {
+                assertEquals(2, events.size(), "El suscriptor recibio mas de lo pedido");
+            }
+            assertFalse(done.isDone());
+
+            subscription[0].request(Long.MAX_VALUE);
+            done.get(10, TimeUnit.SECONDS);
+            assertEquals(expected(text), events);
+        }
+    }
+
+    @Test
+    public void testSecondSubscriberIsRejected() throws IOException {
+        Path file = this.directory.resolve("once.txt");
+        Files.write(file, "if x".getBytes(StandardCharsets.UTF_8));
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file, StandardOpenOption.READ)) {
+            ChannelScanner scanner = ChannelScanner.of(LEXER, channel);
+            scanner.subscribe(new Collector(1));
+            Collector second = new Collector(1);
+            scanner.subscribe(second);
+            assertTrue(second.done.isCompletedExceptionally());
+        }
+    }
+}
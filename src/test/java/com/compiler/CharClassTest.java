@@ -0,0 +1,65 @@
+package com.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.compiler.lexer.DfaMinimizer;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexParser;
+
+public class CharClassTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "'[a-z0-9]+',    abc123,  true",
+        "'[a-z0-9]+',    abC,     false",
+        "'[a-z0-9]+',    '',      false",
+        "'[^\"]*',       abc,     true",
+        "'[^\"]*',       'a\"b',  false",
+        "'a.c',          abc,     true",
+        "'a.c',          'a中c', true",
+        "'a.c',          ac,      false",
+        "'\\.[a-]',      .-,      true",
+        "'\\.[a-]',      .a,      true",
+        "'\\.[a-]',      ab,      false",
+        "'[\\]x]y',      ]y,      true",
+        "'[\\]x]y',      xy,      true",
+        "'(\\*|[+?])*',  *+?*,    true",
+        "'(\\*|[+?])*',  *a,      false",
+        "'[Ā-龥]+', '中文', true",
+        "'[Ā-龥]+', 'z',  false"
+    })
+    void testClassesAgreeAcrossEngines(String regex, String input, boolean expected) {
+        RegexParser parser = new RegexParser();
+        NFA nfa = parser.parse(regex);
+        boolean actualNfa = new NfaSimulator().simulate(nfa, input);
+
+        DFA dfa = NfaToDfaConverter.convertNfaToDfa(nfa);
+        DFA minimized = DfaMinimizer.minimizeDfa(dfa);
+        DfaSimulator dfaSimulator = new DfaSimulator();
+
+        assertEquals(expected, actualNfa, "NFA fallo para la cadena: '" + input + "'");
+        assertEquals(expected, dfaSimulator.simulate(dfa, input), "DFA fallo para la cadena: '" + input + "'");
+        assertEquals(expected, dfaSimulator.simulate(minimized, input), "DFA minimizado fallo para la cadena: '" + input + "'");
+    }
+
+    @Test
+    public void testWideClassesDoNotBlowUpStates() {
+        // One state per position, independent of how many characters each class covers.
+        DFA dfa = NfaToDfaConverter.convertNfaToDfa(new RegexParser().parse("[a-zA-Z_][a-zA-Z_0-9]*"));
+        DFA minimized = DfaMinimizer.minimizeDfa(dfa);
+        assertEquals(2, minimized.allStates.size(), "Identifier DFA should have two states");
+        assertTrue(minimized.startState.transitions.size() <= 3, "Start state should use at most three ranges");
+
+        DFA any = DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(new RegexParser().parse(".*")));
+        assertEquals(1, any.allStates.size(), "'.*' should minimize to a single state");
+        assertEquals(1, any.startState.transitions.size(), "'.*' should use a single full-range transition");
+    }
+}
@@ -0,0 +1,60 @@
+package com.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.regex.RegexParser;
+
+public class CompilerServiceTest {
+
+    @Test
+    public void testConcurrentCompilationProducesCorrectDenseAutomata() {
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 200; i++) patterns.add("k" + i + "(a|b)*[0-9]+" + "x".repeat(i % 7));
+
+        List<DFA> dfas;
+        try (CompilerService service = new CompilerService(8)) {
+            dfas = service.compileAll(patterns);
+        }
+
+        DfaSimulator simulator = new DfaSimulator();
+        for (int i = 0; i < patterns.size(); i++) {
+            DFA dfa = dfas.get(i);
+            String input = "k" + i + "abba42" + "x".repeat(i % 7);
+            assertTrue(simulator.simulate(dfa, input), "DFA " + i + " should accept '" + input + "'");
+            assertFalse(simulator.simulate(dfa, input + "y"), "DFA " + i + " should reject '" + input + "y'");
+
+            boolean[] seen = new boolean[dfa.allStates.size()];
+            for (DfaState state : dfa.allStates) seen[state.id] = true;
+            for (int id = 0; id < seen.length; id++) assertTrue(seen[id], "DFA " + i + " ids should be dense, missing " + id);
+        }
+    }
+
+    @Test
+    public void testEachBuildStartsAtZeroAndFinishedDfaIsImmutable() {
+        NFA nfa = new RegexParser().parse("ab");
+        int min = Integer.MAX_VALUE;
+        for (State state : nfa.getStates()) min = Math.min(min, state.id);
+        assertEquals(0, min, "NFA ids should start at 0");
+
+        DFA dfa = NfaToDfaConverter.convertNfaToDfa(nfa);
+        assertEquals(0, dfa.startState.id, "DFA ids should start at 0");
+        assertThrows(IllegalStateException.class, () -> dfa.startState.addTransition(CharRange.of('z'), dfa.startState));
+        assertThrows(UnsupportedOperationException.class, () -> dfa.startState.transitions.clear());
+        assertThrows(UnsupportedOperationException.class, () -> dfa.allStates.clear());
+    }
+}
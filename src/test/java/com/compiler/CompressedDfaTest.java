@@ -0,0 +1,71 @@
+package com.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.Lexer;
+import com.compiler.lexer.dfa.CompressedDfa;
+import com.compiler.lexer.dfa.DFA;
+
+public class CompressedDfaTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "a", "(a|b)*abb", "[a-z_][a-z0-9_]*", "\"[^\"]*\"", "[0-9]+(\\.[0-9]+)?", "(a|b)*a(a|b){4}",
+        "[α-ω]+|[а-я]+", ".*€.*", "a&~a", ""
+    })
+    void testAgreesWithDfaSimulator(String regex) {
+        DFA dfa = CompilerService.compileNow(regex);
+        CompressedDfa table = CompressedDfa.of(dfa);
+        DfaSimulator simulator = new DfaSimulator();
+
+        Random random = new Random(regex.hashCode());
+        String alphabet = "ab_z09.\"αωяй€ ";
+        for (int n = 0; n < 500; n++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = random.nextInt(8); i > 0; i--) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String input = sb.toString();
+            assertEquals(simulator.simulate(dfa, input), table.matches(input), "Tabla comprimida fallo para la cadena: '" + input + "'");
+            assertEquals(simulator.longestMatch(dfa, input, 0), table.longestMatch(input, 0), "Match mas largo fallo para la cadena: '" + input + "'");
+        }
+    }
+
+    @Test
+    void testDeadStartAcceptsNothing() {
+        CompressedDfa table = CompressedDfa.of(CompilerService.compileNow("a&b"));
+        assertEquals(CompressedDfa.DEAD, table.getStartState());
+        assertFalse(table.matches(""));
+        assertFalse(table.matches("a"));
+        assertEquals(-1, table.longestMatch("a", 0));
+    }
+
+    @Test
+    void testCompressesLexerTable() {
+        List<String> rules = new ArrayList<>();
+        for (String keyword : List.of("abstract", "boolean", "break", "class", "continue", "default", "double",
+                "extends", "final", "finally", "float", "implements", "import", "instanceof", "interface",
+                "private", "protected", "public", "return", "static", "switch", "synchronized", "throws", "while"))
+            rules.add(keyword);
+        rules.addAll(List.of("[a-zA-Z_][a-zA-Z0-9_]*", "[0-9]+", "\"[^\"\\n]*\"", "[ \\t\\n]+", "[-+*/=<>!]=?", "[(){};,.]"));
+        DFA dfa = Lexer.compile(rules).getDfa();
+        CompressedDfa table = CompressedDfa.of(dfa);
+
+        assertTrue(table.getCompressionRatio() > 3, table.toString());
+        assertTrue(table.getCombLength() < 2 * table.getEntryCount() + table.getClassCount(), table.toString());
+
+        DfaSimulator simulator = new DfaSimulator();
+        String text = "public static final int x = 42; while (x) { return \"s\"; } interfaces";
+        for (int from = 0; from < text.length(); from++)
+            assertEquals(simulator.longestMatch(dfa, text, from), table.longestMatch(text, from), "Fallo en la posicion " + from);
+    }
+}
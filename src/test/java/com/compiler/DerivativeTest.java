@@ -0,0 +1,65 @@
+package com.compiler;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.DerivativeConverter;
+import com.compiler.lexer.DfaMinimizer;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexParser;
+import com.compiler.lexer.regex.RegexTerm;
+import com.compiler.lexer.regex.TermFactory;
+
+public class DerivativeTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "a+", "a?", "a|b", "ab|c", "ab*c", "(a|b)*", "a(b|c)d", "a(b*|c+)?d", "(a*)*",
+        "(a|b)*a(a|b)*", "(a|b)*abb", "((a|b)(a|b))*", "[a-c]+b?|c*", "[^a]d*", ".a", ""
+    })
+    void testDerivativeDfaIsEquivalent(String regex) {
+        NFA nfa = new RegexParser().parse(regex);
+        DFA dfa = DerivativeConverter.convertRegexToDfa(regex);
+        DFA minimized = DfaMinimizer.minimizeDfa(dfa);
+        NfaSimulator nfaSimulator = new NfaSimulator();
+        DfaSimulator dfaSimulator = new DfaSimulator();
+
+        Random random = new Random(regex.hashCode());
+        for (int n = 0; n < 300; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(7);
+            for (int i = 0; i < length; i++) sb.append((char) ('a' + random.nextInt(5)));
+            String input = sb.toString();
+            boolean expected = nfaSimulator.simulate(nfa, input);
+            assertEquals(expected, dfaSimulator.simulate(dfa, input), "DFA por derivadas fallo para la cadena: '" + input + "'");
+            assertEquals(expected, dfaSimulator.simulate(minimized, input), "DFA minimizado fallo para la cadena: '" + input + "'");
+        }
+    }
+
+    @Test
+    public void testTermsAreHashConsed() {
+        TermFactory factory = new TermFactory();
+        RegexTerm first = factory.fromRegex("(a|b)*c");
+        RegexTerm second = factory.fromRegex("(b|a)*c");
+        assertSame(first, second, "Union should be commutative after hash-consing");
+        assertSame(factory.fromRegex("a*"), factory.fromRegex("(a*)*"), "(a*)* should simplify to a*");
+        assertSame(first, factory.derivative(first, 'a'), "d/da (a|b)*c should be (a|b)*c");
+    }
+
+    @Test
+    public void testDerivativeDfaIsAlreadyMinimal() {
+        for (String regex : new String[] {"(a|b)*abb", "a(b|c)*", "[a-z_][a-z_0-9]*"}) {
+            DFA dfa = DerivativeConverter.convertRegexToDfa(regex);
+            assertEquals(DfaMinimizer.minimizeDfa(dfa).allStates.size(), dfa.allStates.size(),
+                "Derivative DFA for " + regex + " should already be minimal");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.compiler;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaProfiler;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.Lexer;
+import com.compiler.lexer.dfa.CompressedDfa;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.dfa.OffHeapDfa;
+
+public class DfaProfilerTest {
+    private static final List<String> RULES = List.of(
+        "abstract", "boolean", "break", "class", "continue", "default", "extends", "final", "finally",
+        "implements", "import", "interface", "private", "protected", "public", "return", "static", "while",
+        "[a-zA-Z_][a-zA-Z0-9_]*", "[0-9]+", "\"[^\"]*\"", "[ \\n]+", "[-+*/=<>!]=?", "[(){};,.]");
+
+    @TempDir
+    Path directory;
+
+    private static String sampleSource(long seed, int tokens) {
+        Random random = new Random(seed);
+        String[] words = {"public", "static", "x", "count", "return", "while", "42", "(", ")", "{", "}", ";", "=", "+", "\"s\"", "i"};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tokens; i++) text.append(words[random.nextInt(words.length)]).append(' ');
+        return text.toString();
+    }
+
+    @Test
+    void testRelayoutKeepsStatesAndLanguage() {
+        DFA dfa = CompilerService.compileNow("(a|b)*abb|[0-9]+c");
+        DfaProfiler profiler = new DfaProfiler(dfa, 1);
+        profiler.train("ababbabb123c99cabba");
+        DFA hot = profiler.relayout();
+
+        assertEquals(new HashSet<>(dfa.allStates), new HashSet<>(hot.allStates));
+        assertEquals(dfa.allStates.size(), hot.allStates.size());
+        DfaSimulator simulator = new DfaSimulator();
+        for (String input : List.of("abb", "aabb", "ab", "12c", "c", "", "babb"))
+            assertEquals(simulator.simulate(dfa, input), simulator.simulate(hot, input), "Relayout fallo para la cadena: '" + input + "'");
+    }
+
+    @Test
+    void testSamplingRecordsAboutOneStepPerPeriod() {
+        DFA dfa = CompilerService.compileNow("[a-z]+");
+        String input = "abcdefghij".repeat(1000);
+        DfaProfiler every = new DfaProfiler(dfa, 1);
+        every.train(input);
+        assertEquals(input.length(), every.getSamples());
+
+        DfaProfiler sampled = new DfaProfiler(dfa, 16);
+        sampled.train(input);
+        assertTrue(sampled.getSamples() > input.length() / 32 && sampled.getSamples() < input.length() / 8, "Muestras: " + sampled.getSamples());
+    }
+
+    @Test
+    void testHotStatesComeFirstAndJumpsShrink() {
+        DFA dfa = Lexer.compile(RULES).getDfa();
+        DfaProfiler profiler = new DfaProfiler(dfa);
+        for (int n = 0; n < 20; n++) profiler.train(sampleSource(n, 2000));
+        DFA hot = profiler.relayout();
+
+        // Visits concentrate at the front of the table
+        assertTrue(meanPosition(profiler, hot) < meanPosition(profiler, dfa) / 2,
+            "Posicion media " + meanPosition(profiler, dfa) + " -> " + meanPosition(profiler, hot));
+        assertEquals(0, profiler.getVisits(hot.allStates.get(hot.allStates.size() - 1)));
+        double before = profiler.meanJump(dfa);
+        double after = profiler.meanJump(hot);
+        assertTrue(after < before, "Distancia media " + before + " -> " + after);
+    }
+
+    private static double meanPosition(DfaProfiler profiler, DFA layout) {
+        double sum = 0;
+        long weight = 0;
+        for (int i = 0; i < layout.allStates.size(); i++) {
+            long visits = profiler.getVisits(layout.allStates.get(i));
+            sum += (double) visits * i;
+            weight += visits;
+        }
+        return sum / weight;
+    }
+
+    @Test
+    void testLayoutIsSavedWithTheAutomaton() throws Exception {
+        DFA dfa = Lexer.compile(RULES).getDfa();
+        DfaProfiler profiler = new DfaProfiler(dfa);
+        profiler.train(sampleSource(50, 5000));
+        DFA hot = profiler.relayout();
+
+        Path file = this.directory.resolve("hot.dfa");
+        try (OffHeapDfa table = OffHeapDfa.of(hot)) {
+            table.writeTo(file);
+        }
+        List<String> inputs = new ArrayList<>(List.of("public", "publicx", "while", "42", "\"s\"", "==", "@"));
+        CompressedDfa compressed = CompressedDfa.of(hot);
+        DfaSimulator simulator = new DfaSimulator();
+        try (OffHeapDfa mapped = OffHeapDfa.map(file)) {
+            assertEquals(hot.allStates.indexOf(hot.startState), mapped.startState);
+            for (String input : inputs) {
+                assertEquals(simulator.simulate(dfa, input), mapped.matches(input), "Imagen fallo para la cadena: '" + input + "'");
+                assertEquals(simulator.simulate(dfa, input), compressed.matches(input), "Tabla comprimida fallo para la cadena: '" + input + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaEquivalence;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.regex.GlushkovParser;
+import com.compiler.lexer.regex.RegexParser;
+
+public class EquivalenceTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "'(a|b)*', '(a*b*)*'",
+        "'a(b|c)*', 'a(b*c*)*'",
+        "'[0-9]+(\\.[0-9]+)?', '[0-9]+|[0-9]+\\.[0-9]+'",
+        "'(ab)*a', 'a(ba)*'",
+        "'a{2,3}', 'aaa?'",
+        "'[a-z]+&~(if)', '[a-z]|[a-hj-z][a-z]*|i([a-eg-z][a-z]*)?|if[a-z]+'"
+    })
+    public void testEquivalentRegexes(String a, String b) {
+        assertNull(DfaEquivalence.counterexample(a, b), "Equivalencia fallo para: " + a + " / " + b);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'a(b|c)*', 'ab*|ac*', 'abc'",
+        "'(a|b)*abb', '(a|b)*bb', 'bb'",
+        "'x+', 'x*', ''",
+        "'[0-9]{3}', '[0-9]{2,3}', '00'",
+        "'(ab)*', '(ab)*|ba', 'ba'"
+    })
+    public void testShortestCounterexample(String a, String b, String expected) {
+        String witness = DfaEquivalence.counterexample(a, b);
+        assertEquals(expected == null ? "" : expected, witness, "Contraejemplo fallo para: " + a + " / " + b);
+    }
+
+    @Test
+    public void testInclusion() {
+        assertNull(DfaEquivalence.inclusionCounterexample("a(b|c)", "a[a-z]"));
+        assertEquals("ad", DfaEquivalence.inclusionCounterexample("a[a-z]", "a(a|b|c)"));
+        assertNull(DfaEquivalence.inclusionCounterexample("(a|b)*abb", "(a|b)*b"));
+        assertEquals("", DfaEquivalence.inclusionCounterexample("a*", "a+"));
+    }
+
+    @Test
+    public void testAcrossConstructions() {
+        String regex = "(a|b)*a(a|b){4}";
+        DFA thompson = NfaToDfaConverter.convertNfaToDfa(new RegexParser().parse(regex));
+        DFA glushkov = NfaToDfaConverter.convertNfaToDfa(new GlushkovParser().parse(regex));
+        DFA minimal = CompilerService.compileNow(regex);
+        assertTrue(DfaEquivalence.equivalent(thompson, glushkov));
+        assertTrue(DfaEquivalence.equivalent(thompson, minimal));
+        assertTrue(DfaEquivalence.isSubset(minimal, CompilerService.compileNow("(a|b)*")));
+        assertFalse(DfaEquivalence.equivalent(minimal, CompilerService.compileNow("(a|b)*a(a|b){3}")));
+    }
+}
@@ -0,0 +1,83 @@
+package com.compiler;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.compiler.lexer.AutomatonExporter;
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexParser;
+
+public class ExporterTest {
+
+    @Test
+    public void testDotCollapsesParallelEdges() throws IOException {
+        DFA dfa = CompilerService.compileNow("[a-c]x|zx|\"");
+        StringWriter out = new StringWriter();
+        new AutomatonExporter().export(dfa, AutomatonExporter.Format.DOT, out);
+        String dot = out.toString();
+        assertTrue(dot.startsWith("digraph DFA {"));
+        assertTrue(dot.contains(" [label=\"[a-cz]\"];"), dot);
+        assertTrue(dot.contains("[label=\"\\\"\"]"), dot);
+        assertTrue(dot.contains("shape=doublecircle"), dot);
+        assertTrue(dot.trim().endsWith("}"));
+    }
+
+    @Test
+    public void testJsonRespectsLimits() throws IOException {
+        NFA nfa = new RegexParser().parse("abcdefgh");
+        StringWriter out = new StringWriter();
+        new AutomatonExporter(3, AutomatonExporter.UNLIMITED).export(nfa, AutomatonExporter.Format.JSON, out);
+        String json = out.toString();
+        assertEquals(3, count(json, "\"expanded\": true"));
+        assertEquals(1, count(json, "\"expanded\": false"));
+        assertTrue(json.contains("\"truncated\": true"));
+
+        out = new StringWriter();
+        new AutomatonExporter(AutomatonExporter.UNLIMITED, 2).export(CompilerService.compileNow("abcdefgh"), AutomatonExporter.Format.JSON, out);
+        assertEquals(3, count(out.toString(), "\"expanded\": true"));
+    }
+
+    @Test
+    public void testLargeAutomatonStreams() throws IOException {
+        NFA nfa = new RegexParser().parse("a".repeat(50_000));
+        CountingWriter out = new CountingWriter();
+        long start = System.nanoTime();
+        new AutomatonExporter().export(nfa, AutomatonExporter.Format.DOT, out);
+        assertTrue(out.lines > 50_000);
+        assertTrue(nfa.toString().length() > 50_000);
+        assertTrue(System.nanoTime() - start < 10_000_000_000L, "La exportacion tardo demasiado");
+    }
+
+    private static int count(String text, String needle) {
+        int count = 0;
+        for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) count++;
+        return count;
+    }
+
+    /**
+     * Discards the output, counting lines.
+     */
+    private static class CountingWriter extends Writer {
+        long lines;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) if (buffer[i] == '\n') lines++;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.compiler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.compiler.lexer.DfaMinimizer;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.nfa.Transition;
+import com.compiler.lexer.regex.GlushkovParser;
+
+public class GlushkovTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "a+,              aaa,     true",
+        "a+,              '',      false",
+        "a?,              '',      true",
+        "a?,              aa,      false",
+        "ab|c,            ab,      true",
+        "ab|c,            ac,      false",
+        "(a|b)*,          '',      true",
+        "(a|b)*,          bababa,  true",
+        "(a|b)*,          bc,      false",
+        "a(b*|c+)?d,      ad,      true",
+        "a(b*|c+)?d,      acccd,   true",
+        "a(b*|c+)?d,      abcd,    false",
+        "(a*)*,           aa,      true",
+        "(a*)*,           b,       false",
+        "(a|b)*a(a|b)*,   bbaabb,  true",
+        "(a|b)*a(a|b)*,   bbbb,    false",
+        "'[a-z]+[0-9]?',  abc7,    true",
+        "'[a-z]+[0-9]?',  7,       false",
+        "'',              '',      true",
+        "'',              a,       false"
+    })
+    void testGlushkovMatchesLikeThompson(String regex, String input, boolean expected) {
+        NFA nfa = new GlushkovParser().parse(regex);
+        assertEquals(expected, new NfaSimulator().simulate(nfa, input), "NFA fallo para la cadena: '" + input + "'");
+
+        DFA dfa = DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(nfa));
+        assertEquals(expected, new DfaSimulator().simulate(dfa, input), "DFA fallo para la cadena: '" + input + "'");
+    }
+
+    @Test
+    public void testOneStatePerPositionAndNoEpsilons() {
+        // 5 positions: a, b, c, a, [xy]
+        Set<State> states = reachableStates(new GlushkovParser().parse("(ab|c)*a[xy]"));
+        assertEquals(6, states.size(), "Position automaton should have one state per position plus one");
+        for (State state : states)
+            for (Transition transition : state.transitions)
+                assertFalse(transition.isEpsilon(), "Position automaton should have no epsilon transitions");
+    }
+
+    private static Set<State> reachableStates(NFA nfa) {
+        Set<State> visited = new HashSet<>();
+        Deque<State> pending = new ArrayDeque<>();
+        pending.push(nfa.startState);
+        while (!pending.isEmpty()) {
+            State state = pending.pop();
+            if (!visited.add(state)) continue;
+            for (Transition transition : state.transitions) pending.push(transition.toState);
+        }
+        return visited;
+    }
+}
@@ -0,0 +1,142 @@
+package com.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.compiler.lexer.DfaEquivalence;
+import com.compiler.lexer.DfaMinimizer;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.IncrementalCompiler;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexParser;
+
+public class IncrementalCompilerTest {
+    private static final String[] PATTERNS = {
+        "if", "else", "while", "[a-z]+", "[0-9]+", "[0-9]+\\.[0-9]*", "(a|b)*abb", "\"[^\"]*\""
+    };
+
+    @Test
+    public void testSnapshotsMatchTheUnionOfPatterns() {
+        IncrementalCompiler compiler = new IncrementalCompiler();
+        List<Integer> ids = new ArrayList<>();
+        List<String> active = new ArrayList<>();
+        assertFalse(new DfaSimulator().simulate(compiler.snapshot(), ""), "Empty union should accept nothing");
+
+        for (String pattern : PATTERNS) {
+            ids.add(compiler.addPattern(pattern));
+            active.add(pattern);
+            assertSameLanguage(active, compiler.snapshot());
+            assertEquals(DfaMinimizer.minimizeDfa(compiler.snapshot()).allStates.size(), compiler.snapshot().allStates.size(),
+                "Published automaton should be minimal after adding " + pattern);
+        }
+
+        // Remove every other pattern.
+        for (int i = 0; i < PATTERNS.length; i += 2) {
+            assertTrue(compiler.removePattern(ids.get(i)));
+            active.remove(PATTERNS[i]);
+            assertSameLanguage(active, compiler.snapshot());
+        }
+        assertFalse(compiler.removePattern(ids.get(0)), "Removing twice should report false");
+    }
+
+    @Test
+    public void testUpdatesOnlyDeterminizeAffectedStates() {
+        IncrementalCompiler compiler = new IncrementalCompiler();
+        for (int i = 0; i < 40; i++) compiler.addPattern("p" + i + "q" + (i * 7) + "[a-z]*x");
+        int total = compiler.snapshot().allStates.size();
+
+        compiler.addPattern("zz");
+        assertTrue(compiler.getLastDeterminizedCount() < total / 4,
+            "Adding one keyword determinized " + compiler.getLastDeterminizedCount() + " of " + total + " states");
+        assertEquals(DfaMinimizer.minimizeDfa(compiler.snapshot()).allStates.size(), compiler.snapshot().allStates.size(),
+            "Published automaton should be minimal");
+    }
+
+    @Test
+    public void testOldSnapshotsAreUnaffectedByUpdates() {
+        IncrementalCompiler compiler = new IncrementalCompiler();
+        compiler.addPattern("[a-z]+");
+        DFA before = compiler.snapshot();
+        compiler.addPattern("[0-9]+");
+        DfaSimulator simulator = new DfaSimulator();
+        assertFalse(simulator.simulate(before, "123"), "Old snapshot should not see the new pattern");
+        assertTrue(simulator.simulate(compiler.snapshot(), "123"), "New snapshot should see the new pattern");
+    }
+
+    @Test
+    public void testRemovingAPatternForgetsItsUnreachableStates() {
+        IncrementalCompiler compiler = new IncrementalCompiler();
+        compiler.addPattern("ba");
+        int id = compiler.addPattern("a*b");
+        compiler.addPattern("aa*");
+        assertTrue(compiler.removePattern(id));
+        assertFreshBuild(List.of("ba", "aa*"), compiler.snapshot());
+    }
+
+    @Test
+    public void testRandomUpdatesMatchAFreshBuild() {
+        Random random = new Random(30);
+        String[] pieces = {"a", "b", "ab", "a*", "b*", "(a|b)", "[a-c]", "c?", "(ab)*"};
+        for (int round = 0; round < 20; round++) {
+            IncrementalCompiler compiler = new IncrementalCompiler();
+            List<Integer> ids = new ArrayList<>();
+            List<String> active = new ArrayList<>();
+            for (int step = 0; step < 30; step++) {
+                if (!ids.isEmpty() && random.nextInt(3) == 0) {
+                    int i = random.nextInt(ids.size());
+                    assertTrue(compiler.removePattern(ids.remove(i)));
+                    active.remove(i);
+                } else {
+                    StringBuilder pattern = new StringBuilder();
+                    for (int k = 1 + random.nextInt(3); k > 0; k--) pattern.append(pieces[random.nextInt(pieces.length)]);
+                    ids.add(compiler.addPattern(pattern.toString()));
+                    active.add(pattern.toString());
+                }
+                assertFreshBuild(active, compiler.snapshot());
+            }
+        }
+    }
+
+    /**
+     * Compares a published automaton with the minimized DFA built from scratch for the union.
+     */
+    private static void assertFreshBuild(List<String> patterns, DFA dfa) {
+        if (patterns.isEmpty()) {
+            assertFalse(new DfaSimulator().simulate(dfa, ""), "Empty union should accept nothing");
+            return;
+        }
+        String union = "(" + String.join(")|(", patterns) + ")";
+        DFA fresh = DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(new RegexParser().parse(union)));
+        assertEquals(null, DfaEquivalence.counterexample(fresh, dfa), "Lenguaje distinto para " + patterns);
+        assertEquals(fresh.allStates.size(), dfa.allStates.size(), "Numero de estados distinto para " + patterns);
+    }
+
+    private static void assertSameLanguage(List<String> patterns, DFA dfa) {
+        RegexParser parser = new RegexParser();
+        List<NFA> nfas = new ArrayList<>();
+        for (String pattern : patterns) nfas.add(parser.parse(pattern));
+        NfaSimulator nfaSimulator = new NfaSimulator();
+        DfaSimulator dfaSimulator = new DfaSimulator();
+
+        Random random = new Random(patterns.size());
+        String alphabet = "abfilsw0.9\"ehx";
+        for (int n = 0; n < 400; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(7);
+            for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String input = n < patterns.size() ? patterns.get(n).replaceAll("[^a-z]", "") : sb.toString();
+            boolean expected = false;
+            for (NFA nfa : nfas) expected |= nfaSimulator.simulate(nfa, input);
+            assertEquals(expected, dfaSimulator.simulate(dfa, input), "Union DFA fallo para la cadena: '" + input + "'");
+        }
+    }
+}
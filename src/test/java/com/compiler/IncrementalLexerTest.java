@@ -0,0 +1,76 @@
+package com.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.compiler.lexer.IncrementalLexer;
+import com.compiler.lexer.Lexer;
+import com.compiler.lexer.Token;
+import com.compiler.lexer.TokenDelta;
+
+public class IncrementalLexerTest {
+    private static final Lexer LEXER = Lexer.compile(List.of(
+        "if|else", "[a-z]+", "[0-9]+(\\.[0-9]+)?", "\"[^\"]*\"", " +", "[-+*/=]", "\\(|\\)"));
+
+    @Test
+    public void testTokenizeUsesLongestMatchThenRulePriority() {
+        String text = "if iffy 3.14 = \"a b\"?";
+        List<String> kinds = new ArrayList<>();
+        for (Token token : LEXER.tokenize(text)) kinds.add(token.rule + ":" + token.text(text));
+        assertEquals(List.of("0:if", "4: ", "1:iffy", "4: ", "2:3.14", "4: ", "5:=", "4: ", "3:\"a b\"", "-1:?"), kinds);
+    }
+
+    @Test
+    public void testRandomEditsMatchFullRelex() {
+        Random random = new Random(43);
+        String alphabet = "ifelsxy019. \"=+(";
+        StringBuilder document = new StringBuilder();
+        for (int i = 0; i < 300; i++) document.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        IncrementalLexer lexer = new IncrementalLexer(LEXER, document);
+
+        for (int n = 0; n < 2000; n++) {
+            int offset = random.nextInt(document.length() + 1);
+            int removed = Math.min(random.nextInt(4), document.length() - offset);
+            StringBuilder inserted = new StringBuilder();
+            for (int i = random.nextInt(4); i > 0; i--) inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+
+            List<Token> before = lexer.getTokens();
+            TokenDelta delta = lexer.edit(offset, removed, inserted);
+            document.replace(offset, offset + removed, inserted.toString());
+
+            assertEquals(document.toString(), lexer.getText().toString());
+            List<Token> expected = LEXER.tokenize(document);
+            assertEquals(expected, lexer.getTokens(), "Re-lexico incremental fallo en la edicion " + n);
+
+            // Applying the delta to the old stream gives the new stream
+            int shift = inserted.length() - removed;
+            List<Token> patched = new ArrayList<>(before.subList(0, delta.getIndex()));
+            patched.addAll(delta.getInserted());
+            for (Token token : before.subList(delta.getIndex() + delta.getRemoved().size(), before.size()))
+                patched.add(new Token(token.rule, token.start + shift, token.end + shift));
+            assertEquals(before.subList(delta.getIndex(), delta.getIndex() + delta.getRemoved().size()), delta.getRemoved());
+            assertEquals(expected, patched, "Delta de tokens fallo en la edicion " + n);
+        }
+    }
+
+    @Test
+    public void testEditCostDependsOnEditSize() {
+        StringBuilder document = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) document.append("x = y + 12 ");
+        IncrementalLexer lexer = new IncrementalLexer(LEXER, document);
+        int middle = document.length() / 2;
+
+        TokenDelta delta = lexer.edit(middle, 0, "z");
+        assertTrue(delta.getRelexedChars() < 20, "Se re-lexicaron " + delta.getRelexedChars() + " caracteres");
+        lexer.edit(middle + 1, 0, "\"");
+        // An unterminated string reads to the next quote, which is missing: the rest is re-lexed once
+        assertEquals(LEXER.tokenize(lexer.getText()), lexer.getTokens());
+        lexer.edit(middle + 1, 1, "");
+        assertEquals(LEXER.tokenize(lexer.getText()), lexer.getTokens());
+    }
+}
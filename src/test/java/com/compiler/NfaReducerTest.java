@@ -0,0 +1,62 @@
+package com.compiler;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaReducer;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.nfa.Transition;
+import com.compiler.lexer.regex.RegexParser;
+
+public class NfaReducerTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "a+", "a?", "a|b", "ab|c", "ab*c", "(a|b)*", "a(b|c)d", "a(b*|c+)?d", "(a*)*",
+        "a(b?)c", "(a|b)*a(a|b)*", "(a|b)*abb", "((a|b)(a|b))*", "[a-c]+b?|c*", ""
+    })
+    void testReducedNfaIsEquivalent(String regex) {
+        NFA nfa = new RegexParser().parse(regex);
+        NfaReducer.Result result = NfaReducer.reduce(nfa);
+        DFA reducedDfa = NfaToDfaConverter.convertNfaToDfa(result.nfa);
+        NfaSimulator nfaSimulator = new NfaSimulator();
+        DfaSimulator dfaSimulator = new DfaSimulator();
+
+        Random random = new Random(regex.hashCode());
+        for (int n = 0; n < 300; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(7);
+            for (int i = 0; i < length; i++) sb.append((char) ('a' + random.nextInt(4)));
+            String input = sb.toString();
+            boolean expected = nfaSimulator.simulate(nfa, input);
+            assertEquals(expected, nfaSimulator.simulate(result.nfa, input), "NFA reducido fallo para la cadena: '" + input + "'");
+            assertEquals(expected, dfaSimulator.simulate(reducedDfa, input), "DFA del NFA reducido fallo para la cadena: '" + input + "'");
+        }
+        assertTrue(result.statesAfter <= result.statesBefore, "Reduction should never add states: " + result);
+    }
+
+    @Test
+    public void testEpsilonsAndRedundantStatesAreRemoved() {
+        NfaReducer.Result result = NfaReducer.reduce(new RegexParser().parse("(a|b)*abb"));
+        for (State state : result.nfa.getStates())
+            for (Transition transition : state.transitions)
+                assertFalse(transition.isEpsilon(), "Reduced NFA should have no epsilon transitions");
+        assertTrue(result.epsilonsBefore > 0, "Thompson NFA should have epsilon transitions: " + result);
+        assertEquals(4, result.statesAfter, "(a|b)*abb should reduce to four states: " + result);
+
+        NfaReducer.Result star = NfaReducer.reduce(new RegexParser().parse("(a*)*"));
+        assertEquals(1, star.statesAfter, "(a*)* should reduce to a single state: " + star);
+        assertEquals(star.nfa.startState, star.nfa.endState, "Single final state should be the end state");
+    }
+}
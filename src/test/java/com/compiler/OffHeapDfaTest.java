@@ -0,0 +1,120 @@
+package com.compiler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.Lexer;
+import com.compiler.lexer.RegexSet;
+import com.compiler.lexer.Token;
+import com.compiler.lexer.dfa.AcceptSet;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.OffHeapDfa;
+
+public class OffHeapDfaTest {
+
+    @Test
+    public void testOffHeapMatchesLikeHeapDfa(@TempDir Path directory) throws IOException {
+        DFA dfa = CompilerService.compileNow("(a|b)*a[a-c][^x]?|[0-9]+(\\.[0-9]+)?");
+        DfaSimulator simulator = new DfaSimulator();
+        Path image = directory.resolve("dfa.bin");
+
+        try (OffHeapDfa table = OffHeapDfa.of(dfa)) {
+            table.writeTo(image);
+            try (OffHeapDfa mapped = OffHeapDfa.map(image)) {
+                assertEquals(table.stateCount, mapped.stateCount);
+                assertEquals(table.byteSize(), mapped.byteSize());
+
+                Random random = new Random(7);
+                String alphabet = "abcx09.";
+                for (int n = 0; n < 500; n++) {
+                    StringBuilder sb = new StringBuilder();
+                    int length = random.nextInt(8);
+                    for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                    String input = sb.toString();
+                    boolean expected = simulator.simulate(dfa, input);
+                    assertEquals(expected, table.matches(input), "DFA fuera del heap fallo para la cadena: '" + input + "'");
+                    assertEquals(expected, mapped.matches(input), "DFA mapeado fallo para la cadena: '" + input + "'");
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the off-heap DFA over a whole input.
+     * @return The final state, or -1 if the run falls off the automaton.
+     */
+    private static int run(OffHeapDfa table, String input) {
+        int state = table.startState;
+        for (int i = 0; i < input.length() && state >= 0; i++) state = table.transition(state, input.charAt(i));
+        return state;
+    }
+
+    @Test
+    public void testStoresLexerRules(@TempDir Path directory) throws IOException {
+        Lexer lexer = Lexer.compile(List.of("if", "[a-z]+", "[0-9]+"));
+        Path image = directory.resolve("lexer.bin");
+        try (OffHeapDfa table = lexer.toOffHeap()) {
+            table.writeTo(image);
+            try (OffHeapDfa mapped = OffHeapDfa.map(image)) {
+                for (String input : List.of("if", "iff", "x", "12", "i")) {
+                    Token token = lexer.next(input, 0);
+                    assertEquals(input.length(), token.end);
+                    assertEquals(token.rule, table.ruleId(run(table, input)), "Regla incorrecta para: '" + input + "'");
+                    assertEquals(token.rule, mapped.ruleId(run(mapped, input)), "Regla mapeada incorrecta para: '" + input + "'");
+                }
+                assertEquals(-1, table.ruleId(table.startState));
+            }
+        }
+    }
+
+    @Test
+    public void testStoresSmallestAcceptedPattern() {
+        RegexSet set = RegexSet.compile(List.of("[0-9]+", "[a-z]+", "a+", "a|1"));
+        try (OffHeapDfa table = OffHeapDfa.of(set.getDfa())) {
+            for (String input : List.of("1", "42", "a", "aa", "ab", "", "-")) {
+                AcceptSet ids = set.matches(input);
+                int expected = ids.isEmpty() ? -1 : ids.toArray()[0];
+                int state = run(table, input);
+                assertEquals(expected, state < 0 ? -1 : table.ruleId(state), "Patron incorrecto para: '" + input + "'");
+            }
+        }
+    }
+
+    @Test
+    public void testTruncatedImageFailsWhenMapped(@TempDir Path directory) throws IOException {
+        Path image = directory.resolve("dfa.bin");
+        try (OffHeapDfa table = OffHeapDfa.of(CompilerService.compileNow("[a-c]+x|y"))) {
+            table.writeTo(image);
+        }
+        byte[] bytes = Files.readAllBytes(image);
+        Path truncated = directory.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> OffHeapDfa.map(truncated));
+
+        Path header = directory.resolve("header.bin");
+        Files.write(header, Arrays.copyOf(bytes, 8));
+        assertThrows(IOException.class, () -> OffHeapDfa.map(header));
+
+        Path garbage = directory.resolve("garbage.bin");
+        Files.write(garbage, new byte[bytes.length]);
+        assertThrows(IOException.class, () -> OffHeapDfa.map(garbage));
+    }
+
+    @Test
+    public void testClosedDfaCannotBeUsed() {
+        OffHeapDfa table = OffHeapDfa.of(CompilerService.compileNow("ab"));
+        table.close();
+        assertThrows(IllegalStateException.class, () -> table.matches("ab"));
+    }
+}
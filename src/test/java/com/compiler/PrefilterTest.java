@@ -0,0 +1,68 @@
+package com.compiler;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.Prefilter;
+import com.compiler.lexer.charclass.CharClass;
+import com.compiler.lexer.dfa.DFA;
+
+public class PrefilterTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ERROR [0-9]+", "[a-c]x+", "(q|z|#)y", "[a-e0-4%-'xz]+!", "[^a-y]z", "a*"})
+    public void testFindsSameMatchesAsBruteForce(String regex) {
+        DFA dfa = CompilerService.compileNow(regex);
+        DfaSimulator simulator = new DfaSimulator();
+        Random random = new Random(regex.hashCode());
+        String alphabet = "abcdexyzq#!%ERO 0129";
+        for (int n = 0; n < 200; n++) {
+            char[] text = new char[random.nextInt(120)];
+            for (int i = 0; i < text.length; i++) text[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+            if (random.nextInt(4) == 0 && text.length > 10) "ERROR 42".getChars(0, 8, text, random.nextInt(text.length - 8));
+            String input = new String(text);
+
+            int from = text.length == 0 ? 0 : random.nextInt(text.length);
+            int[] expected = null;
+            for (int i = from; i <= text.length && expected == null; i++) {
+                int end = simulator.longestMatch(dfa, input, i);
+                if (end >= 0) expected = new int[] {i, end};
+            }
+            for (boolean vector : new boolean[] {false, true}) {
+                int[] actual = Prefilter.of(dfa, vector).find(text, from);
+                if (expected == null) assertNull(actual, "Prefiltro fallo para la cadena: '" + input + "'");
+                else assertArrayEquals(expected, actual, "Prefiltro fallo para la cadena: '" + input + "'");
+            }
+            assertArrayEquals(expected, Prefilter.of(dfa).find(input, from), "Prefiltro sobre String fallo para la cadena: '" + input + "'");
+        }
+    }
+
+    @Test
+    public void testFirstCharacters() {
+        Prefilter prefilter = Prefilter.of(CompilerService.compileNow("(ab|[x-z]c)d"));
+        assertEquals(CharClass.of('a').union(CharClass.range('x', 'z')), prefilter.getFirstChars());
+        assertEquals(CharClass.any(), Prefilter.of(CompilerService.compileNow("a?")).getFirstChars());
+    }
+
+    @Test
+    public void testCountsNonOverlappingMatches() {
+        Prefilter prefilter = Prefilter.of(CompilerService.compileNow("ab+"));
+        assertEquals(3, prefilter.count("xxabbb ab a abx".toCharArray()));
+        assertEquals(0, prefilter.count("".toCharArray()));
+    }
+
+    @Test
+    public void testVectorScannerUsedWhenModuleIsPresent() {
+        boolean available = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        assertEquals(available, Prefilter.of(CompilerService.compileNow("[a-c]x")).isVectorized());
+        assertEquals(false, Prefilter.of(CompilerService.compileNow("[a-c]x"), false).isVectorized());
+    }
+}
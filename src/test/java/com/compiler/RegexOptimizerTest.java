@@ -0,0 +1,92 @@
+package com.compiler;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.DfaEquivalence;
+import com.compiler.lexer.regex.RegexOptimizer;
+import com.compiler.lexer.regex.RegexParser;
+
+public class RegexOptimizerTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "a**, a*",
+        "(a|a), a",
+        "(a?)*, a*",
+        "(a+)?, a*",
+        "(a*|b)*, [ab]*",
+        "(a*b*)*, [ab]*",
+        "abc|abd|abe, ab[c-e]",
+        "xa|ya, [xy]a",
+        "a|b|c|[0-9], [0-9a-c]",
+        "aa*, a+",
+        "a*a*, a*",
+        "a|ab, ab?",
+        "if|in|int, i(?:f|nt?)",
+        "~~a, a",
+        "\\*|\\.|\\[, [*.\\[]",
+        "[^\"]|\", ."
+    })
+    void testRewrites(String regex, String expected) {
+        assertEquals(expected, RegexOptimizer.optimize(regex).regex, "Optimizacion fallo para: '" + regex + "'");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "a+", "a?", "a|b", "ab|c", "ab*c", "(a|b)*", "a(b|c)d", "a(b*|c+)?d", "(a*)*", "a(b?)c",
+        "(a|b)*a(a|b)*", "(a|b)*abb", "((a|b)(a|b))*", "[a-c]+b?|c*", "(ab|ac)*", "(a?b?)+",
+        "a{2,4}|a{3}", "(a|b){2,}c", "~(a*)b", "[a-c]*&~(ab)", "(a|ab)(c|bcd)(d*)", "((a|b)?|c)+",
+        "\\(|\\)|\\{|\\·|\\|", "a.b|a.c", ""
+    })
+    void testOptimizedRegexIsEquivalent(String regex) {
+        String optimized = RegexOptimizer.optimize(regex).regex;
+        assertNull(DfaEquivalence.counterexample(regex, optimized), "'" + regex + "' optimizada como '" + optimized + "'");
+    }
+
+    @Test
+    void testRandomRegexesAreEquivalent() {
+        Random random = new Random(47);
+        for (int n = 0; n < 500; n++) {
+            String regex = randomRegex(random, 4);
+            String optimized = RegexOptimizer.optimize(regex).regex;
+            assertNull(DfaEquivalence.counterexample(regex, optimized), "'" + regex + "' optimizada como '" + optimized + "'");
+        }
+    }
+
+    @Test
+    void testReportsSizeReduction() {
+        String regex = "(int|interface|if|import|in|instanceof|implements)";
+        RegexOptimizer.Result result = RegexOptimizer.optimize(regex);
+        assertTrue(result.nodesAfter < result.nodesBefore, result.toString());
+
+        RegexParser parser = new RegexParser();
+        int before = parser.parse(regex).getStates().size();
+        int after = parser.parse(result.regex).getStates().size();
+        assertTrue(after < before, "Estados de Thompson: " + before + " -> " + after);
+    }
+
+    private static String randomRegex(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) return String.valueOf((char) ('a' + random.nextInt(3)));
+        switch (random.nextInt(6)) {
+            case 0:
+                return randomRegex(random, depth - 1) + randomRegex(random, depth - 1);
+            case 1:
+            case 2:
+                return "(" + randomRegex(random, depth - 1) + "|" + randomRegex(random, depth - 1) + ")";
+            case 3:
+                return "(" + randomRegex(random, depth - 1) + ")*";
+            case 4:
+                return "(" + randomRegex(random, depth - 1) + ")?";
+            default:
+                return "(" + randomRegex(random, depth - 1) + ")+";
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.RegexSet;
+import com.compiler.lexer.dfa.AcceptSet;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+
+public class RegexSetTest {
+    private static final RegexSet SET = RegexSet.compile(List.of(
+        "a|b", "a", "[a-z]+", "[a-z]+[0-9]*", "abc", "a.*", "(ab)*"));
+
+    @ParameterizedTest
+    @CsvSource({
+        "a, '0,1,2,3,5'",
+        "b, '0,2,3'",
+        "abc, '2,3,4,5'",
+        "abab, '2,3,5,6'",
+        "ab1, '3,5'",
+        "'', '6'",
+        "1, ''",
+        "a1, '3,5'"
+    })
+    void testReportsEveryMatchingPattern(String input, String expected) {
+        int[] ids = expected.isEmpty() ? new int[0] : Arrays.stream(expected.split(",")).mapToInt(Integer::parseInt).toArray();
+        assertArrayEquals(ids, SET.matches(input).toArray(), "Conjunto fallo para la cadena: '" + input + "'");
+        assertEquals(ids.length > 0, SET.matchesAny(input));
+    }
+
+    @Test
+    void testMinimizationKeepsDifferentAcceptSetsApart() {
+        // After "a" and after "b" both states are final without transitions; only their sets differ
+        RegexSet set = RegexSet.compile(List.of("a|b", "a"));
+        assertEquals(3, set.getDfa().allStates.size());
+        for (DfaState state : set.getDfa().allStates) assertEquals(state.isFinal(), !state.getAcceptSet().isEmpty());
+    }
+
+    @Test
+    void testAcceptSetsAreInterned() {
+        assertSame(SET.matches("ab1"), SET.matches("a1"));
+        assertSame(AcceptSet.EMPTY, SET.matches("1"));
+        assertTrue(SET.getAcceptSetCount() <= SET.getDfa().allStates.size());
+    }
+
+    @Test
+    void testAgreesWithOneSimulationPerPattern() {
+        Random random = new Random(48);
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 150; i++) patterns.add(randomPattern(random));
+        RegexSet set = RegexSet.compile(patterns);
+        List<DFA> dfas = new ArrayList<>();
+        for (String pattern : patterns) dfas.add(CompilerService.compileNow(pattern));
+        DfaSimulator simulator = new DfaSimulator();
+
+        for (int n = 0; n < 500; n++) {
+            StringBuilder input = new StringBuilder();
+            for (int i = random.nextInt(6); i > 0; i--) input.append("abc01".charAt(random.nextInt(5)));
+            BitSet expected = new BitSet();
+            for (int i = 0; i < dfas.size(); i++)
+                if (simulator.simulate(dfas.get(i), input.toString())) expected.set(i);
+            assertEquals(expected, set.matches(input).toBitSet(), "Conjunto fallo para la cadena: '" + input + "'");
+        }
+        assertFalse(set.matchesAny("zzz"));
+    }
+
+    private static String randomPattern(Random random) {
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            switch (random.nextInt(5)) {
+                case 0: pattern.append("[a-c]"); break;
+                case 1: pattern.append("[01]+"); break;
+                case 2: pattern.append("(a|b)*"); break;
+                case 3: pattern.append("c?"); break;
+                default: pattern.append("abc01".charAt(random.nextInt(5))); break;
+            }
+        }
+        return pattern.toString();
+    }
+}
@@ -1,6 +1,7 @@
 package com.compiler;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -23,7 +24,7 @@ public class RegexTest {
         String regex = "a+";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
         // DFA
@@ -49,7 +50,7 @@ public class RegexTest {
         String regex = "a?";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -75,7 +76,7 @@ public class RegexTest {
         String regex = "a|b";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -102,7 +103,7 @@ public class RegexTest {
         String regex = "ab|c";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -132,7 +133,7 @@ public class RegexTest {
         String regex = "ab*c";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -166,7 +167,7 @@ public class RegexTest {
         String regex = "(a|b)*";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -193,7 +194,7 @@ public class RegexTest {
         String regex = "a(b|c)d";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -225,7 +226,7 @@ public class RegexTest {
         String regex = "a(b*|c+)?d";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -253,7 +254,7 @@ public class RegexTest {
         String regex = "(a*)*";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -280,7 +281,7 @@ public class RegexTest {
         String regex = "a(b?)c";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
@@ -313,7 +314,7 @@ public class RegexTest {
         String regex = "(a|b)*a(a|b)*";
         RegexParser parser = new RegexParser();
         NFA nfa = parser.parse(regex);
-        nfa.endState.isFinal = true;
+        assertTrue(nfa.endState.isFinal());
         NfaSimulator nfaSimulator = new NfaSimulator();
         boolean actualNfa = nfaSimulator.simulate(nfa, input);
     // Set<Character> alphabet = new HashSet<>();
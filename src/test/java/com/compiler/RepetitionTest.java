@@ -0,0 +1,142 @@
+package com.compiler;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DerivativeConverter;
+import com.compiler.lexer.DfaEquivalence;
+import com.compiler.lexer.DfaMinimizer;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.HybridMatcher;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.GlushkovParser;
+import com.compiler.lexer.regex.RegexParser;
+
+public class RepetitionTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "a{3}",
+        "a{2,4}",
+        "a{0,2}b",
+        "(ab){2,}",
+        "x{0}y",
+        "(a|b){1,3}c{2}",
+        "[0-9]{1,3}(\\.[0-9]{1,3}){3}",
+        "((a|b){2}){1,2}",
+        "(a*b){2,3}",
+        "(a?){3}b",
+        "(a{1,2}){2}",
+        "(a{2})*"
+    })
+    public void testAllEnginesAgreeWithJavaRegex(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        NFA unrolled = new RegexParser().parse(regex);
+        NFA counting = new RegexParser(0).parse(regex);
+        DFA dfa = NfaToDfaConverter.convertNfaToDfa(unrolled);
+        DFA glushkov = NfaToDfaConverter.convertNfaToDfa(new GlushkovParser().parse(regex));
+        DFA derivative = DerivativeConverter.convertRegexToDfa(regex);
+        NfaSimulator nfaSimulator = new NfaSimulator();
+        DfaSimulator dfaSimulator = new DfaSimulator();
+
+        Random random = new Random(regex.hashCode());
+        String alphabet = "abcxy0159.";
+        for (int n = 0; n < 1500; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String input = sb.toString();
+            boolean expected = pattern.matcher(input).matches();
+            assertEquals(expected, nfaSimulator.simulate(unrolled, input), "NFA fallo para la cadena: '" + input + "'");
+            assertEquals(expected, nfaSimulator.simulate(counting, input), "NFA con contadores fallo para la cadena: '" + input + "'");
+            assertEquals(expected, dfaSimulator.simulate(dfa, input), "DFA fallo para la cadena: '" + input + "'");
+            assertEquals(expected, dfaSimulator.simulate(glushkov, input), "Glushkov fallo para la cadena: '" + input + "'");
+            assertEquals(expected, dfaSimulator.simulate(derivative, input), "Derivadas fallo para la cadena: '" + input + "'");
+        }
+    }
+
+    @Test
+    public void testLargeRepetitionUsesCounters() {
+        String regex = "(a|b)*a(a|b){50}";
+        RegexParser parser = new RegexParser(64);
+        NFA counting = parser.parse(regex);
+        assertEquals(1, counting.getCounterCount());
+        assertTrue(counting.getStates().size() < 30);
+
+        NfaSimulator simulator = new NfaSimulator();
+        String tail = "b".repeat(50);
+        assertTrue(simulator.simulate(counting, "bba" + tail));
+        assertTrue(!simulator.simulate(counting, "bba" + tail.substring(1)));
+        assertTrue(simulator.simulate(counting, "a" + "ab".repeat(25)));
+        assertTrue(!simulator.simulate(counting, "b" + "ab".repeat(25)));
+
+        assertEquals(0, new RegexParser(64).parse("[0-9]{1,3}").getCounterCount());
+    }
+
+    @Test
+    public void testCountingNfaIsUnrolledForConversion() {
+        NFA counting = new RegexParser(4).parse("x(ab){3,5}y");
+        assertEquals(1, counting.getCounterCount());
+        DFA dfa = DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(counting));
+        DFA unrolled = DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(RegexParser.unrolling().parse("x(ab){3,5}y")));
+        assertNull(DfaEquivalence.counterexample(dfa, unrolled));
+
+        // Without a source pattern there is nothing to unroll
+        counting.setSource(null);
+        assertThrows(IllegalArgumentException.class, () -> NfaToDfaConverter.convertNfaToDfa(counting));
+    }
+
+    @Test
+    public void testDefaultParserCountsRepetitionsThatWouldExplode() {
+        // Unrolled, .*a.{50} needs 2^51 DFA states
+        NFA nfa = new RegexParser().parse(".*a.{50}");
+        assertEquals(1, nfa.getCounterCount());
+        assertEquals(0, new RegexParser().parse("(a|b)*a(a|b){12}").getCounterCount());
+        // Without an ambiguous prefix, a repetition only adds states in proportion to its copies
+        assertEquals(0, new RegexParser().parse("[0-9]{17}").getCounterCount());
+        assertEquals(0, new RegexParser().parse("a{20}").getCounterCount());
+        assertEquals(0, new RegexParser().parse("x.{50}").getCounterCount());
+        assertEquals(0, new RegexParser().parse("(.{20})*").getCounterCount());
+        assertEquals(1, new RegexParser().parse("(a|.{20})*").getCounterCount());
+        DFA digits = DfaMinimizer.minimizeDfa(NfaToDfaConverter.convertNfaToDfa(new RegexParser().parse("[0-9]{17}")));
+        assertEquals(18, digits.allStates.size());
+        assertEquals(0, RegexParser.unrolling().parse("x.{50}").getCounterCount());
+        // Operands of boolean operators are determinized, so they are unrolled
+        assertEquals(0, new RegexParser().parse("[a-c]{20}&~(a{20})").getCounterCount());
+
+        HybridMatcher matcher = CompilerService.compileMatcherNow(".*a.{50}");
+        assertTrue(matcher.isCounting());
+        assertTrue(matcher.isDegraded());
+        String tail = "b".repeat(50);
+        assertTrue(matcher.matches("bba" + tail));
+        assertFalse(matcher.matches("bba" + tail.substring(1)));
+        assertFalse(matcher.matches("b" + tail));
+        assertEquals(3, matcher.getFallbackCount());
+
+        HybridMatcher small = CompilerService.compileMatcherNow("[0-9]{1,3}");
+        assertFalse(small.isDegraded());
+        assertTrue(small.matches("123"));
+        assertFalse(small.matches("1234"));
+    }
+
+    @Test
+    public void testLiteralBraces() {
+        NfaSimulator simulator = new NfaSimulator();
+        NFA nfa = new RegexParser().parse("a{b}\\{2}");
+        assertTrue(simulator.simulate(nfa, "a{b}{2}"));
+        assertThrows(IllegalArgumentException.class, () -> new RegexParser().parse("a{3,2}"));
+    }
+}
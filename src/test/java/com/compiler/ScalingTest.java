@@ -0,0 +1,191 @@
+package com.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.compiler.lexer.DfaMinimizer;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaToDfaConverter;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexParser;
+
+/**
+ * Scaling regression suite: each family of patterns is compiled at three sizes spanning a factor
+ * of 16, and the growth of every stage is checked against an exponent bound (time ~ size^k).
+ * Minimization is measured against the size of its input DFA (states, transitions and the NFA
+ * states they stand for), since merging partitions copies those sets.
+ * Sizes of the automata are deterministic and asserted exactly where they are known.
+ * Matching is timed over {@link #MATCH_REPEATS} runs so that even the smallest input takes long
+ * enough to measure. Failures report the measurements of the whole family.
+ * Bounds leave room for timer noise but not for the next complexity class: a linear stage
+ * that turns quadratic, or a quadratic one that turns cubic, fails the build.
+ */
+public class ScalingTest {
+    private static final int RUNS = 5;
+    private static final int MATCH_REPEATS = 1000;
+
+    /**
+     * Measurements of one pattern.
+     */
+    private static final class Measurement {
+        int n;
+        long parseNanos, convertNanos, minimizeNanos, matchNanos, bytes;
+        int nfaStates, dfaStates, minStates;
+        long dfaSize;
+
+        @Override
+        public String toString() {
+            return String.format("n=%-6d parse=%8dus convert=%8dus minimize=%8dus match=%6dus nfa=%-6d dfa=%-6d min=%-6d heap~%dKB",
+                n, parseNanos / 1000, convertNanos / 1000, minimizeNanos / 1000, matchNanos / 1000,
+                nfaStates, dfaStates, minStates, bytes / 1024);
+        }
+    }
+
+    /**
+     * Returns the fastest of several runs, and the value computed by the last one.
+     */
+    private static <T> T time(Supplier<T> stage, long[] nanos) {
+        T result = null;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            result = stage.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        nanos[0] = best;
+        return result;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Measurement measure(int n, String regex, String input) {
+        Measurement m = new Measurement();
+        long[] nanos = new long[1];
+        m.n = n;
+        long before = usedHeap();
+        NFA nfa = time(() -> new RegexParser().parse(regex), nanos);
+        m.parseNanos = nanos[0];
+        DFA dfa = time(() -> NfaToDfaConverter.convertNfaToDfa(nfa), nanos);
+        m.convertNanos = nanos[0];
+        DFA min = time(() -> DfaMinimizer.minimizeDfa(dfa), nanos);
+        m.minimizeNanos = nanos[0];
+        DfaSimulator simulator = new DfaSimulator();
+        time(() -> {
+            boolean accepted = false;
+            for (int i = 0; i < MATCH_REPEATS; i++) accepted |= simulator.simulate(min, input);
+            return accepted;
+        }, nanos);
+        m.matchNanos = nanos[0];
+        m.bytes = Math.max(0, usedHeap() - before);
+        m.nfaStates = nfa.getStates().size();
+        m.dfaStates = dfa.allStates.size();
+        m.minStates = min.allStates.size();
+        for (DfaState state : dfa.allStates) m.dfaSize += 1 + state.nfaStates.size() + state.transitions.size();
+        return m;
+    }
+
+    private static List<Measurement> family(int[] sizes, IntFunction<String> regex, IntFunction<String> input) {
+        measure(sizes[0], regex.apply(sizes[0]), input.apply(sizes[0])); // warm-up
+        List<Measurement> result = new ArrayList<>();
+        for (int n : sizes) result.add(measure(n, regex.apply(n), input.apply(n)));
+        return result;
+    }
+
+    private static String report(List<Measurement> ms) {
+        StringBuilder sb = new StringBuilder();
+        for (Measurement m : ms) sb.append("\n  ").append(m);
+        return sb.toString();
+    }
+
+    /**
+     * Asserts that a stage grows at most like size^maxExponent between the smallest and largest size.
+     */
+    private static void assertGrowth(String stage, double sizeSmall, double sizeLarge, long nanosSmall, long nanosLarge,
+                                     double maxExponent, List<Measurement> ms) {
+        double exponent = Math.log((double) Math.max(nanosLarge, 1) / Math.max(nanosSmall, 1)) / Math.log(sizeLarge / sizeSmall);
+        assertTrue(exponent <= maxExponent,
+            String.format("%s crece como n^%.2f (limite n^%.1f)%s", stage, exponent, maxExponent, report(ms)));
+    }
+
+    private static void assertGrowth(List<Measurement> ms, double parse, double convert, double minimize) {
+        Measurement small = ms.get(0);
+        Measurement large = ms.get(ms.size() - 1);
+        assertGrowth("Parseo", small.n, large.n, small.parseNanos, large.parseNanos, parse, ms);
+        assertGrowth("Conversion", small.n, large.n, small.convertNanos, large.convertNanos, convert, ms);
+        assertGrowth("Minimizacion", small.dfaSize, large.dfaSize, small.minimizeNanos, large.minimizeNanos, minimize, ms);
+    }
+
+    private static String word(int i) {
+        StringBuilder sb = new StringBuilder("k");
+        for (int k = 0; k < 3; k++, i /= 26) sb.append((char) ('a' + i % 26));
+        return sb.toString();
+    }
+
+    @Test
+    public void testLongConcatenation() {
+        IntFunction<String> regex = n -> {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < n; i++) sb.append((char) ('a' + i % 26));
+            return sb.toString();
+        };
+        List<Measurement> ms = family(new int[] {250, 1000, 4000}, regex, regex);
+        for (Measurement m : ms) {
+            assertEquals(2 * m.n, m.nfaStates);
+            assertEquals(m.n + 1, m.minStates);
+        }
+        assertGrowth(ms, 1.5, 1.5, 1.5);
+        Measurement small = ms.get(0);
+        Measurement large = ms.get(ms.size() - 1);
+        assertGrowth("Simulacion", small.n, large.n, small.matchNanos, large.matchNanos, 1.5, ms);
+    }
+
+    @Test
+    public void testLargeAlternation() {
+        IntFunction<String> regex = n -> {
+            StringJoiner joiner = new StringJoiner("|");
+            for (int i = 0; i < n; i++) joiner.add(word(i));
+            return joiner.toString();
+        };
+        List<Measurement> ms = family(new int[] {100, 400, 1600}, regex, n -> word(n - 1));
+        for (Measurement m : ms) assertTrue(m.nfaStates <= 12 * m.n);
+        // conversion measures about n^1.6 here; an accidentally quadratic subset construction fails
+        assertGrowth(ms, 1.5, 2.0, 1.6);
+    }
+
+    @Test
+    public void testNestedStars() {
+        IntFunction<String> regex = n -> {
+            String r = "a";
+            for (int i = 0; i < n; i++) r = "(" + r + "*b)";
+            return r;
+        };
+        List<Measurement> ms = family(new int[] {10, 40, 160}, regex, n -> "ab".repeat(n));
+        for (Measurement m : ms) assertEquals(m.n + 1, m.minStates);
+        assertGrowth(ms, 1.5, 2.5, 1.6);
+    }
+
+    @Test
+    public void testExponentialFamily() {
+        List<Measurement> ms = family(new int[] {8, 10, 12},
+            n -> "(a|b)*a(a|b){" + n + "}", n -> "ab".repeat(1000));
+        for (Measurement m : ms) assertEquals(1 << (m.n + 1), m.minStates);
+        // the DFA is exponential in n by nature: bound the work per DFA state instead
+        Measurement small = ms.get(0);
+        Measurement large = ms.get(ms.size() - 1);
+        assertGrowth("Conversion", small.dfaStates, large.dfaStates, small.convertNanos, large.convertNanos, 1.5, ms);
+        assertGrowth("Minimizacion", small.dfaSize, large.dfaSize, small.minimizeNanos, large.minimizeNanos, 1.6, ms);
+    }
+}
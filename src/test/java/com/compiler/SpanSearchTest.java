@@ -0,0 +1,82 @@
+package com.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.SpanSearcher;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.regex.RegexParser;
+
+public class SpanSearchTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "abcd|c, xabcd, 1, 5",
+        "a+, bbaaab, 2, 5",
+        "(ab)*c, xababcab, 1, 6",
+        "b*, aaa, 0, 0"
+    })
+    public void testLeftmostLongestSpan(String regex, String text, int start, int end) {
+        assertArrayEquals(new int[] {start, end}, SpanSearcher.compile(regex).find(text, 0), "Busqueda fallo para la cadena: '" + text + "'");
+    }
+
+    @Test
+    public void testNoMatch() {
+        assertNull(SpanSearcher.compile("a[0-9]").find("abcab", 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a|ab|abc", "(a|b)*c", "b?a+", "ab(a|b)*", "x*"})
+    public void testSpansAgreeWithRescanning(String regex) {
+        SpanSearcher searcher = SpanSearcher.compile(regex);
+        DfaSimulator simulator = new DfaSimulator();
+        Random random = new Random(regex.hashCode());
+        for (int n = 0; n < 300; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(15);
+            for (int i = 0; i < length; i++) sb.append("abcx".charAt(random.nextInt(4)));
+            String text = sb.toString();
+
+            List<int[]> expected = new ArrayList<>();
+            for (int from = 0; from <= text.length(); ) {
+                int[] span = null;
+                for (int i = from; i <= text.length() && span == null; i++) {
+                    int end = simulator.longestMatch(searcher.getForwardDfa(), text, i);
+                    if (end >= 0) span = new int[] {i, end};
+                }
+                if (span == null) break;
+                expected.add(span);
+                from = span[1] > span[0] ? span[1] : span[0] + 1;
+            }
+            List<int[]> actual = searcher.findAll(text);
+            assertEquals(expected.size(), actual.size(), "Busqueda fallo para la cadena: '" + text + "'");
+            for (int i = 0; i < expected.size(); i++)
+                assertArrayEquals(expected.get(i), actual.get(i), "Busqueda fallo para la cadena: '" + text + "'");
+        }
+    }
+
+    @Test
+    public void testReversedNfaAcceptsReversedStrings() {
+        NFA nfa = new RegexParser().parse("ab*c(d|ef)");
+        NFA reversed = BuildContext.build(nfa::reverse);
+        NfaSimulator simulator = new NfaSimulator();
+        for (String input : new String[] {"acd", "abbcef", "abcd", "acf", ""}) {
+            String backward = new StringBuilder(input).reverse().toString();
+            assertEquals(simulator.simulate(nfa, input), simulator.simulate(reversed, backward), "NFA invertido fallo para la cadena: '" + input + "'");
+        }
+        assertTrue(simulator.simulate(reversed, "fecbba"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.compiler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.NfaSimulator;
+import com.compiler.lexer.charclass.CharRange;
+import com.compiler.lexer.dfa.DFA;
+import com.compiler.lexer.dfa.DfaState;
+import com.compiler.lexer.nfa.BuildContext;
+import com.compiler.lexer.nfa.NFA;
+import com.compiler.lexer.nfa.State;
+import com.compiler.lexer.regex.RegexParser;
+
+public class StateClassificationTest {
+
+    @Test
+    public void testAcceptForeverState() {
+        DFA dfa = CompilerService.compileNow("ab.*");
+        DfaState afterAb = dfa.startState.getTransition('a').getTransition('b');
+        assertEquals(DfaState.Kind.ACCEPT_FOREVER, afterAb.getKind());
+        assertEquals(DfaState.Kind.NORMAL, dfa.startState.getKind());
+    }
+
+    @Test
+    public void testAccelerableState() {
+        DFA dfa = CompilerService.compileNow("\"[^\"]*\"");
+        DfaState inside = dfa.startState.getTransition('"');
+        assertEquals(DfaState.Kind.ACCELERABLE, inside.getKind());
+        assertArrayEquals(new char[] {'"'}, inside.getEscapes());
+
+        DfaSimulator simulator = new DfaSimulator();
+        String body = "x".repeat(100_000);
+        assertTrue(simulator.simulate(dfa, "\"" + body + "\""));
+        assertFalse(simulator.simulate(dfa, "\"" + body));
+        assertFalse(simulator.simulate(dfa, "\"" + body + "\"\""));
+        assertEquals(body.length() + 2, simulator.longestMatch(dfa, "\"" + body + "\"tail", 0));
+    }
+
+    @Test
+    public void testDeadState() {
+        // start -a-> trap, trap loops on everything and never accepts; start -b-> accept
+        DFA dfa = BuildContext.build(() -> {
+            DfaState start = new DfaState(new HashSet<>());
+            DfaState trap = new DfaState(new HashSet<>());
+            DfaState accept = new DfaState(new HashSet<>());
+            accept.setFinal(true);
+            start.addTransition('a', trap);
+            start.addTransition('b', accept);
+            trap.addTransition(new CharRange('\0', '\uFFFF'), trap);
+            return new DFA(start, List.of(start, trap, accept));
+        });
+        DfaState start = dfa.startState;
+        DfaState trap = dfa.allStates.get(1);
+
+        assertEquals(DfaState.Kind.DEAD, trap.getKind());
+        assertEquals(DfaState.Kind.NORMAL, start.getKind());
+        assertFalse(new DfaSimulator().simulate(dfa, "a" + "z".repeat(1000)));
+        assertEquals(-1, new DfaSimulator().longestMatch(dfa, "azzz", 0));
+    }
+
+    @Test
+    public void testSharedStatesKeepTheirClassification() {
+        DFA dfa = CompilerService.compileNow("a[^b]*b|x.*");
+        List<DfaState.Kind> kinds = new ArrayList<>();
+        for (DfaState state : dfa.allStates) kinds.add(state.getKind());
+
+        // A DFA over a subset of the states sees no final state, but must not relabel them DEAD
+        DFA subset = new DFA(dfa.startState, List.of(dfa.startState));
+        assertEquals(DfaState.Kind.NORMAL, subset.startState.getKind());
+        for (int i = 0; i < kinds.size(); i++)
+            assertEquals(kinds.get(i), dfa.allStates.get(i).getKind(), "Clasificacion cambiada en " + dfa.allStates.get(i));
+        assertTrue(new DfaSimulator().simulate(dfa, "azzb"));
+        assertTrue(new DfaSimulator().simulate(dfa, "xyz"));
+    }
+
+    @Test
+    public void testFinishedAutomataAreReadOnly() {
+        DFA dfa = CompilerService.compileNow("ab*");
+        assertThrows(IllegalStateException.class, () -> dfa.startState.setFinal(true));
+
+        NFA nfa = new RegexParser().parse("ab*");
+        assertThrows(IllegalStateException.class, () -> nfa.endState.setFinal(false));
+        assertThrows(UnsupportedOperationException.class, () -> nfa.startState.transitions.clear());
+        BuildContext.build(() -> {
+            State other = new State();
+            assertThrows(IllegalStateException.class, () -> nfa.startState.addTransition('c', other));
+            return other;
+        });
+        assertThrows(IllegalStateException.class, State::new, "Los estados necesitan un BuildContext activo");
+        assertTrue(new NfaSimulator().simulate(nfa, "abb"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"a[^bc]*c|.*dd", "(a|b)*c[^a]*", "x.*|[^y]*y", "\"[^\"\\\\]*\"", "[^a]*a[^b]*b"})
+    public void testClassifiedSimulationAgreesWithNfa(String regex) {
+        DFA dfa = CompilerService.compileNow(regex);
+        DfaSimulator dfaSimulator = new DfaSimulator();
+        NfaSimulator nfaSimulator = new NfaSimulator();
+        RegexParser parser = new RegexParser();
+        Random random = new Random(regex.hashCode());
+        String alphabet = "abcdxy\"\\";
+        for (int n = 0; n < 400; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String input = sb.toString();
+            assertEquals(nfaSimulator.simulate(parser.parse(regex), input), dfaSimulator.simulate(dfa, input),
+                "DFA fallo para la cadena: '" + input + "'");
+            int expected = -1;
+            for (int end = 0; end <= input.length(); end++)
+                if (nfaSimulator.simulate(parser.parse(regex), input.substring(0, end))) expected = end;
+            assertEquals(expected, dfaSimulator.longestMatch(dfa, input, 0), "Coincidencia mas larga fallo para la cadena: '" + input + "'");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.compiler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.compiler.lexer.CompilerService;
+import com.compiler.lexer.DfaSimulator;
+import com.compiler.lexer.Utf8Compiler;
+import com.compiler.lexer.dfa.ByteDfa;
+import com.compiler.lexer.dfa.DFA;
+
+public class Utf8Test {
+    private static final String[] ALPHABET = {"a", "b", "ñ", "é", "α", "ω", "中", "�", "😀", "𝄞"};
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ñ+|[α-ω]a", "(a|é)*中", "[^a]*", "[a-ω]*b", "😀+|𝄞a", "[^中]b?"})
+    public void testByteDfaAgreesWithCharDfa(String regex) {
+        DFA dfa = CompilerService.compileNow(regex);
+        ByteDfa bytes = ByteDfa.of(Utf8Compiler.toUtf8(dfa));
+        DfaSimulator simulator = new DfaSimulator();
+        Random random = new Random(regex.hashCode());
+        for (int n = 0; n < 500; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(6);
+            for (int i = 0; i < length; i++) sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            String input = sb.toString();
+            byte[] encoded = input.getBytes(StandardCharsets.UTF_8);
+            assertEquals(simulator.simulate(dfa, input), bytes.matches(encoded), "DFA de bytes fallo para la cadena: '" + input + "'");
+            assertEquals(simulator.simulate(dfa, input), bytes.matches(ByteBuffer.allocateDirect(encoded.length).put(encoded).flip()),
+                "DFA de bytes fallo para la cadena: '" + input + "'");
+        }
+    }
+
+    @Test
+    public void testEveryBasicPlaneCharacter() {
+        DFA dfa = CompilerService.compileNow("[¡-ʯ一-龥-￿]");
+        ByteDfa bytes = ByteDfa.of(Utf8Compiler.toUtf8(dfa));
+        DfaSimulator simulator = new DfaSimulator();
+        for (int c = 0; c < 0x10000; c++) {
+            if (Character.isSurrogate((char) c)) continue;
+            String input = String.valueOf((char) c);
+            assertEquals(simulator.simulate(dfa, input), bytes.matches(input.getBytes(StandardCharsets.UTF_8)), "DFA de bytes fallo para U+" + Integer.toHexString(c));
+        }
+        assertTrue(bytes.getClassCount() <= 256);
+    }
+
+    @Test
+    public void testFindReportsByteOffsets() {
+        ByteDfa bytes = ByteDfa.of(Utf8Compiler.toUtf8(CompilerService.compileNow("α+ñ")));
+        byte[] input = "año: ααñ!".getBytes(StandardCharsets.UTF_8);
+        // "año: " is 6 bytes, "ααñ" is 6 more
+        assertArrayEquals(new int[] {6, 12}, bytes.find(input, 0));
+        // Offset 7 is inside the first 'α', so the search resumes at the next character
+        assertArrayEquals(new int[] {8, 12}, bytes.find(input, 7));
+        assertNull(bytes.find(input, 12));
+    }
+}